@@ -22,6 +22,7 @@
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -53,6 +54,9 @@
 @Singleton
 public class BridgeEventStream implements EventStream
 {
+    /** The end of a query stub which is not compatible with a count. */
+    private static final Pattern ORDER_BY = Pattern.compile("\\s+order\\s+by\\s+[^)]*$", Pattern.CASE_INSENSITIVE);
+
     /** Needed for accessing the current request context. */
     @Inject
     private Execution execution;
@@ -125,6 +129,24 @@ public List<Event> searchEvents(Query query) throws QueryException
         return convertActivitiesToEvents(events);
     }
 
+    @Override
+    public long countEvents(Query query) throws QueryException
+    {
+        // The order does not matter when counting and some databases don't accept it without a group by
+        String statement = ORDER_BY.matcher(query.getStatement()).replaceFirst("");
+
+        Query q = this.qm.createQuery("select count(event) from ActivityEventImpl event " + statement,
+            query.getLanguage());
+        for (Map.Entry<String, Object> entry : query.getNamedParameters().entrySet()) {
+            q.bindValue(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<Integer, Object> entry : query.getPositionalParameters().entrySet()) {
+            q.bindValue(entry.getKey(), entry.getValue());
+        }
+        List<Long> results = q.execute();
+        return results.isEmpty() ? 0 : results.get(0);
+    }
+
     /**
      * Retrieve the old {@link XWikiContext} from the {@link org.xwiki.context.ExecutionContext execution context}.
      *
@@ -0,0 +1,166 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.container.servlet;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Various helpers around the HTTP servlet API.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+@Unstable
+public final class HttpServletUtils
+{
+    /**
+     * The name of the response header holding the entity tag of the content.
+     */
+    public static final String HEADER_ETAG = "ETag";
+
+    /**
+     * The name of the request header holding the entity tags of the content the client already has.
+     */
+    public static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+
+    /**
+     * The name of the request header holding the content encodings accepted by the client.
+     */
+    public static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private static final String ANY = "*";
+
+    private static final String QUALITY_PARAMETER = "q=";
+
+    private HttpServletUtils()
+    {
+        // Utility class
+    }
+
+    /**
+     * @param content the content to identify
+     * @return a strong entity tag computed from the passed content
+     */
+    public static String computeETag(byte[] content)
+    {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("MD5").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support MD5
+            throw new IllegalStateException("Failed to compute the entity tag", e);
+        }
+
+        return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + '"';
+    }
+
+    /**
+     * Set the entity tag of the response and check if the client already has the corresponding content, in which case
+     * the response status is set to 304 (Not Modified) and the content should not be sent.
+     *
+     * @param etag the entity tag of the content to send
+     * @param request the request, holding the entity tags known by the client
+     * @param response the response
+     * @return {@code true} if the client already has the content, {@code false} otherwise
+     */
+    public static boolean checkNotModified(String etag, HttpServletRequest request, HttpServletResponse response)
+    {
+        response.setHeader(HEADER_ETAG, etag);
+
+        String ifNoneMatch = request.getHeader(HEADER_IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String requestETag : ifNoneMatch.split(",")) {
+                String tag = requestETag.trim();
+                // Weak comparison is enough for a GET request
+                if (tag.startsWith(WEAK_PREFIX)) {
+                    tag = tag.substring(WEAK_PREFIX.length());
+                }
+                if (tag.equals(ANY) || tag.equals(etag)) {
+                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Check if the client accepts the passed content encoding, taking into account the quality values of the
+     * {@code Accept-Encoding} header (an encoding with a quality value of 0 is not acceptable).
+     *
+     * @param encoding the content encoding (e.g. {@code gzip})
+     * @param request the request, holding the encodings accepted by the client
+     * @return {@code true} if the passed encoding can be used for the response, {@code false} otherwise
+     */
+    public static boolean isEncodingAccepted(String encoding, HttpServletRequest request)
+    {
+        String acceptEncoding = request.getHeader(HEADER_ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Float quality = null;
+        Float anyQuality = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim();
+            if (coding.equalsIgnoreCase(encoding)) {
+                quality = getQuality(parts);
+            } else if (coding.equals(ANY)) {
+                anyQuality = getQuality(parts);
+            }
+        }
+
+        // An explicit quality value for the encoding takes precedence over the wildcard
+        if (quality == null) {
+            quality = anyQuality;
+        }
+
+        return quality != null && quality > 0;
+    }
+
+    private static float getQuality(String[] parts)
+    {
+        for (int i = 1; i < parts.length; ++i) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith(QUALITY_PARAMETER)) {
+                try {
+                    return Float.parseFloat(parameter.substring(QUALITY_PARAMETER.length()).trim());
+                } catch (NumberFormatException e) {
+                    // An invalid quality value does not make the encoding acceptable
+                    return 0;
+                }
+            }
+        }
+
+        return 1;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.container.servlet;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link HttpServletUtils}.
+ *
+ * @version $Id$
+ */
+public class HttpServletUtilsTest
+{
+    private HttpServletRequest request = mock(HttpServletRequest.class);
+
+    private HttpServletResponse response = mock(HttpServletResponse.class);
+
+    @Test
+    public void computeETag()
+    {
+        String etag = HttpServletUtils.computeETag("content".getBytes());
+
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        assertEquals(etag, HttpServletUtils.computeETag("content".getBytes()));
+        assertNotEquals(etag, HttpServletUtils.computeETag("other content".getBytes()));
+    }
+
+    @Test
+    public void checkNotModifiedWhenETagMatches()
+    {
+        String etag = HttpServletUtils.computeETag("content".getBytes());
+        when(this.request.getHeader("If-None-Match")).thenReturn("\"other\", W/" + etag);
+
+        assertTrue(HttpServletUtils.checkNotModified(etag, this.request, this.response));
+        verify(this.response).setHeader("ETag", etag);
+        verify(this.response).setStatus(304);
+    }
+
+    @Test
+    public void checkNotModifiedWhenAnyETag()
+    {
+        when(this.request.getHeader("If-None-Match")).thenReturn("*");
+
+        assertTrue(HttpServletUtils.checkNotModified("\"etag\"", this.request, this.response));
+        verify(this.response).setStatus(304);
+    }
+
+    @Test
+    public void checkNotModifiedWhenETagDoesNotMatch()
+    {
+        String etag = HttpServletUtils.computeETag("content".getBytes());
+        when(this.request.getHeader("If-None-Match"))
+            .thenReturn(HttpServletUtils.computeETag("other content".getBytes()));
+
+        assertFalse(HttpServletUtils.checkNotModified(etag, this.request, this.response));
+        verify(this.response).setHeader("ETag", etag);
+        verify(this.response, never()).setStatus(304);
+    }
+
+    @Test
+    public void checkNotModifiedWithoutIfNoneMatch()
+    {
+        assertFalse(HttpServletUtils.checkNotModified("\"etag\"", this.request, this.response));
+        verify(this.response).setHeader("ETag", "\"etag\"");
+        verify(this.response, never()).setStatus(304);
+    }
+
+    @Test
+    public void isEncodingAccepted()
+    {
+        assertFalse(HttpServletUtils.isEncodingAccepted("gzip", this.request));
+
+        when(this.request.getHeader("Accept-Encoding")).thenReturn("gzip, deflate, br");
+        assertTrue(HttpServletUtils.isEncodingAccepted("gzip", this.request));
+
+        when(this.request.getHeader("Accept-Encoding")).thenReturn("deflate;q=1.0, GZIP;q=0.5");
+        assertTrue(HttpServletUtils.isEncodingAccepted("gzip", this.request));
+
+        when(this.request.getHeader("Accept-Encoding")).thenReturn("deflate, br");
+        assertFalse(HttpServletUtils.isEncodingAccepted("gzip", this.request));
+    }
+
+    @Test
+    public void isEncodingAcceptedWithZeroQuality()
+    {
+        when(this.request.getHeader("Accept-Encoding")).thenReturn("deflate, gzip;q=0");
+        assertFalse(HttpServletUtils.isEncodingAccepted("gzip", this.request));
+
+        when(this.request.getHeader("Accept-Encoding")).thenReturn("gzip ; q=0.000");
+        assertFalse(HttpServletUtils.isEncodingAccepted("gzip", this.request));
+
+        when(this.request.getHeader("Accept-Encoding")).thenReturn("gzip;q=invalid");
+        assertFalse(HttpServletUtils.isEncodingAccepted("gzip", this.request));
+    }
+
+    @Test
+    public void isEncodingAcceptedWithWildcard()
+    {
+        when(this.request.getHeader("Accept-Encoding")).thenReturn("*");
+        assertTrue(HttpServletUtils.isEncodingAccepted("gzip", this.request));
+
+        when(this.request.getHeader("Accept-Encoding")).thenReturn("deflate, *;q=0");
+        assertFalse(HttpServletUtils.isEncodingAccepted("gzip", this.request));
+
+        // An explicit quality value takes precedence over the wildcard
+        when(this.request.getHeader("Accept-Encoding")).thenReturn("*;q=0, gzip");
+        assertTrue(HttpServletUtils.isEncodingAccepted("gzip", this.request));
+
+        when(this.request.getHeader("Accept-Encoding")).thenReturn("gzip;q=0, *");
+        assertFalse(HttpServletUtils.isEncodingAccepted("gzip", this.request));
+    }
+}
@@ -52,6 +52,21 @@
      */
     List<Event> searchEvents(Query query) throws QueryException;
 
+    /**
+     * Count stored events. The query stub follows the same rules as in {@link #searchEvents(Query)} and should not
+     * have any limit or offset. The default implementation loads the matched events, the storages should override it
+     * with an actual count.
+     * 
+     * @param query a query stub
+     * @return the number of events matched by the query
+     * @throws QueryException if the query is malformed or cannot be executed
+     * @since 10.5RC1
+     */
+    default long countEvents(Query query) throws QueryException
+    {
+        return searchEvents(query).size();
+    }
+
     /**
      * Retrieve the group that a given event is part of.
      * 
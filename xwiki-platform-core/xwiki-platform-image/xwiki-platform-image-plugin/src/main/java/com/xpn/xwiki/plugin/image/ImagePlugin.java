@@ -21,24 +21,22 @@
 
 import java.awt.Image;
 import java.awt.image.RenderedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Arrays;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xwiki.cache.Cache;
-import org.xwiki.cache.CacheException;
-import org.xwiki.cache.CacheManager;
-import org.xwiki.cache.config.CacheConfiguration;
-import org.xwiki.cache.eviction.LRUEvictionConfiguration;
+import org.xwiki.environment.Environment;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.api.Api;
 import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiAttachmentContent;
 import com.xpn.xwiki.plugin.XWikiDefaultPlugin;
 import com.xpn.xwiki.plugin.XWikiPluginInterface;
 import com.xpn.xwiki.web.Utils;
@@ -62,16 +60,34 @@ public class ImagePlugin extends XWikiDefaultPlugin
      */
     private static final String PLUGIN_NAME = "image";
 
+    /**
+     * Returned by {@link #shrinkImage} when the original image should be used.
+     */
+    private static final byte[] ORIGINAL_IMAGE = new byte[0];
+
     /**
      * Cache for already served images.
      */
-    private Cache<XWikiAttachment> imageCache;
+    private ThumbnailCache imageCache;
 
     /**
-     * The size of the cache. This parameter can be configured using the key {@code xwiki.plugin.image.cache.capacity}.
+     * The number of images kept in memory. This parameter can be configured using the key
+     * {@code xwiki.plugin.image.cache.capacity}.
      */
     private int capacity = 50;
 
+    /**
+     * The number of bytes of images kept in memory. This parameter can be configured using the key
+     * {@code xwiki.plugin.image.cache.memorySize}.
+     */
+    private long memorySize = 10 * 1024 * 1024L;
+
+    /**
+     * The number of bytes of images stored on disk, 0 to disable the disk store. This parameter can be configured using
+     * the key {@code xwiki.plugin.image.cache.diskSize}.
+     */
+    private long diskSize = 100 * 1024 * 1024L;
+
     /**
      * Default JPEG image quality.
      */
@@ -138,40 +154,42 @@ public void init(XWikiContext context)
     private void initCache(XWikiContext context)
     {
         if (this.imageCache == null) {
-            CacheConfiguration configuration = new CacheConfiguration();
+            this.capacity = (int) getSizeParam("xwiki.plugin.image.cache.capacity", this.capacity, context);
+            this.memorySize = getSizeParam("xwiki.plugin.image.cache.memorySize", this.memorySize, context);
+            this.diskSize = getSizeParam("xwiki.plugin.image.cache.diskSize", this.diskSize, context);
 
-            configuration.setConfigurationId("xwiki.plugin.image");
-
-            // Set cache constraints.
-            LRUEvictionConfiguration lru = new LRUEvictionConfiguration();
-            configuration.put(LRUEvictionConfiguration.CONFIGURATIONID, lru);
-
-            String capacityParam = context.getWiki().Param("xwiki.plugin.image.cache.capacity");
-            if (!StringUtils.isBlank(capacityParam) && StringUtils.isNumeric(capacityParam.trim())) {
+            File directory = null;
+            if (this.diskSize > 0) {
                 try {
-                    this.capacity = Integer.parseInt(capacityParam.trim());
-                } catch (NumberFormatException e) {
-                    LOG.warn(String.format(
-                        "Failed to parse xwiki.plugin.image.cache.capacity configuration parameter. "
-                            + "Using %s as the cache capacity.", this.capacity), e);
+                    directory = new File(Utils.getComponent(Environment.class).getPermanentDirectory(), "cache/image");
+                } catch (Exception e) {
+                    LOG.warn("Failed to get the permanent directory, thumbnails won't be stored on disk.", e);
                 }
             }
-            lru.setMaxEntries(this.capacity);
 
+            this.imageCache = new ThumbnailCache(this.capacity, this.memorySize, directory, this.diskSize);
+        }
+    }
+
+    private long getSizeParam(String key, long defaultValue, XWikiContext context)
+    {
+        String param = context.getWiki().Param(key);
+        if (!StringUtils.isBlank(param) && StringUtils.isNumeric(param.trim())) {
             try {
-                this.imageCache = Utils.getComponent(CacheManager.class).createNewLocalCache(configuration);
-            } catch (CacheException e) {
-                LOG.error("Error initializing the image cache.", e);
+                return Long.parseLong(param.trim());
+            } catch (NumberFormatException e) {
+                LOG.warn(String.format("Failed to parse %s configuration parameter. Using %s instead.", key,
+                    defaultValue), e);
             }
         }
+
+        return defaultValue;
     }
 
     @Override
     public void flushCache()
     {
-        if (this.imageCache != null) {
-            this.imageCache.dispose();
-        }
+        // The thumbnails stored on disk are kept since they are identified by the attachment version
         this.imageCache = null;
     }
 
@@ -249,10 +267,12 @@ private XWikiAttachment downloadImage(XWikiAttachment image, int width, int heig
 
         boolean keepAspectRatio = Boolean.valueOf(context.getRequest().getParameter("keepAspectRatio"));
 
-        XWikiAttachment thumbnail = (this.imageCache == null)
+        byte[] data = (this.imageCache == null)
             ? shrinkImage(image, width, height, keepAspectRatio, quality, context)
             : downloadImageFromCache(image, width, height, keepAspectRatio, quality, context);
 
+        XWikiAttachment thumbnail = createThumbnail(image, data);
+
         // If the image has been transformed, update the file name extension to match the image format.
         String fileName = thumbnail.getFilename();
         String extension = StringUtils.lowerCase(StringUtils.substringAfterLast(fileName, String.valueOf('.')));
@@ -274,21 +294,40 @@ private XWikiAttachment downloadImage(XWikiAttachment image, int width, int heig
      * @param keepAspectRatio {@code true} to preserve aspect ratio when resizing the image, {@code false} otherwise
      * @param quality the desired compression quality
      * @param context the XWiki context
-     * @return the transformed image
+     * @return the content of the transformed image, empty if the original image should be used
      * @throws Exception if transforming the image fails
      */
-    private XWikiAttachment downloadImageFromCache(XWikiAttachment image, int width, int height,
-        boolean keepAspectRatio, float quality, XWikiContext context) throws Exception
+    private byte[] downloadImageFromCache(XWikiAttachment image, int width, int height, boolean keepAspectRatio,
+        float quality, XWikiContext context) throws Exception
+    {
+        // The date distinguishes an image deleted and uploaded again, which restarts at the same version (the
+        // thumbnails stored on disk survive the cache flushes and restarts)
+        String key = String.format("%s;%s;%s;%s;%s;%s;%s;%s", image.getReference(), image.getId(), image.getVersion(),
+            image.getDate().getTime(), width, height, keepAspectRatio, quality);
+
+        return this.imageCache.get(key,
+            () -> shrinkImage(image, width, height, keepAspectRatio, quality, context));
+    }
+
+    /**
+     * @param image the original image
+     * @param data the content of the transformed image, empty if the original image should be used
+     * @return the attachment to send
+     * @throws IOException if setting the attachment content fails
+     */
+    private XWikiAttachment createThumbnail(XWikiAttachment image, byte[] data) throws IOException
     {
-        String key =
-            String.format("%s;%s;%s;%s;%s;%s", image.getId(), image.getVersion(), width, height, keepAspectRatio,
-                quality);
-
-        XWikiAttachment thumbnail = this.imageCache.get(key);
-        if (thumbnail == null) {
-            thumbnail = shrinkImage(image, width, height, keepAspectRatio, quality, context);
-            this.imageCache.set(key, thumbnail);
+        if (data.length == 0) {
+            return image;
         }
+
+        // Create an image attachment for the shrunk image.
+        XWikiAttachment thumbnail = image.clone();
+        thumbnail.setAttachment_content(new XWikiAttachmentContent(thumbnail));
+        try (OutputStream output = thumbnail.getAttachment_content().getContentOutputStream()) {
+            output.write(data);
+        }
+
         return thumbnail;
     }
 
@@ -306,10 +345,10 @@ private XWikiAttachment downloadImageFromCache(XWikiAttachment image, int width,
      *            requested width and height), {@code false} otherwise
      * @param requestedQuality the desired compression quality
      * @param context the XWiki context
-     * @return the modified image attachment
+     * @return the content of the modified image, empty if the original image should be used
      * @throws Exception if shrinking the image fails
      */
-    private XWikiAttachment shrinkImage(XWikiAttachment attachment, int requestedWidth, int requestedHeight,
+    private byte[] shrinkImage(XWikiAttachment attachment, int requestedWidth, int requestedHeight,
         boolean keepAspectRatio, float requestedQuality, XWikiContext context) throws Exception
     {
         Image image = this.imageProcessor.readImage(attachment.getContentInputStream(context));
@@ -324,7 +363,7 @@ private XWikiAttachment shrinkImage(XWikiAttachment attachment, int requestedWid
         if (quality < 0) {
             // If no scaling is needed and the quality parameter is not specified, return the original image.
             if (dimensions[0] == currentWidth && dimensions[1] == currentHeight) {
-                return attachment;
+                return ORIGINAL_IMAGE;
             }
             quality = this.defaultQuality;
         }
@@ -332,19 +371,10 @@ private XWikiAttachment shrinkImage(XWikiAttachment attachment, int requestedWid
         // Scale the image to the new dimensions.
         RenderedImage shrunkImage = this.imageProcessor.scaleImage(image, dimensions[0], dimensions[1]);
 
-        // Create an image attachment for the shrunk image.
-        XWikiAttachment thumbnail = (XWikiAttachment) attachment.clone();
-        thumbnail.loadAttachmentContent(context);
-
-        OutputStream acos = thumbnail.getAttachment_content().getContentOutputStream();
-        this.imageProcessor.writeImage(shrunkImage,
-            attachment.getMimeType(context),
-            quality,
-            acos);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        this.imageProcessor.writeImage(shrunkImage, attachment.getMimeType(context), quality, output);
 
-        IOUtils.closeQuietly(acos);
-
-        return thumbnail;
+        return output.toByteArray();
     }
 
     /**
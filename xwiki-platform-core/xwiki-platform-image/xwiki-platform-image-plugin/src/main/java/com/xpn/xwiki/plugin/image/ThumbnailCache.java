@@ -0,0 +1,254 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.plugin.image;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Two levels cache of the thumbnails produced by the {@link ImagePlugin}: the most recently used thumbnails are kept in
+ * memory up to a maximum number of bytes and all the thumbnails are stored on disk so that they survive a restart.
+ * <p>
+ * A thumbnail requested by several threads at the same time is only produced once.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+class ThumbnailCache
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ThumbnailCache.class);
+
+    private static final String FILE_EXTENSION = ".thumbnail";
+
+    /**
+     * When the disk store is full, remove the least recently used thumbnails until it's back under this ratio of its
+     * maximum size.
+     */
+    private static final double DISK_PURGE_RATIO = 0.9;
+
+    private final int maxEntries;
+
+    private final long maxMemorySize;
+
+    private final File directory;
+
+    private final long maxDiskSize;
+
+    /**
+     * The thumbnails kept in memory, in access order.
+     */
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long memorySize;
+
+    private long diskSize;
+
+    private final ConcurrentMap<String, FutureTask<byte[]>> inProgress = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxEntries the maximum number of thumbnails to keep in memory
+     * @param maxMemorySize the maximum number of bytes to keep in memory
+     * @param directory the directory where to store the thumbnails, {@code null} to only keep them in memory
+     * @param maxDiskSize the maximum number of bytes to store on disk
+     */
+    ThumbnailCache(int maxEntries, long maxMemorySize, File directory, long maxDiskSize)
+    {
+        this.maxEntries = maxEntries;
+        this.maxMemorySize = maxMemorySize;
+        this.maxDiskSize = maxDiskSize;
+
+        File validDirectory = directory;
+        if (validDirectory != null) {
+            validDirectory.mkdirs();
+            if (validDirectory.isDirectory()) {
+                for (File file : listFiles(validDirectory)) {
+                    this.diskSize += file.length();
+                }
+            } else {
+                LOGGER.warn("Failed to create the image cache directory [{}], thumbnails won't be stored on disk",
+                    validDirectory);
+                validDirectory = null;
+            }
+        }
+        this.directory = validDirectory;
+    }
+
+    private File[] listFiles(File folder)
+    {
+        File[] files = folder.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+
+        return files != null ? files : new File[0];
+    }
+
+    /**
+     * @param key the identifier of the thumbnail
+     * @param producer called to produce the thumbnail when it's not in the cache
+     * @return the thumbnail
+     * @throws Exception when failing to produce the thumbnail
+     */
+    byte[] get(String key, Callable<byte[]> producer) throws Exception
+    {
+        byte[] thumbnail = getFromMemory(key);
+        if (thumbnail != null) {
+            return thumbnail;
+        }
+
+        FutureTask<byte[]> task = new FutureTask<>(() -> load(key, producer));
+        FutureTask<byte[]> currentTask = this.inProgress.putIfAbsent(key, task);
+        if (currentTask == null) {
+            currentTask = task;
+            try {
+                task.run();
+            } finally {
+                this.inProgress.remove(key, task);
+            }
+        }
+
+        try {
+            return currentTask.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    private byte[] load(String key, Callable<byte[]> producer) throws Exception
+    {
+        byte[] thumbnail = getFromDisk(key);
+
+        if (thumbnail == null) {
+            thumbnail = producer.call();
+            storeOnDisk(key, thumbnail);
+        }
+
+        storeInMemory(key, thumbnail);
+
+        return thumbnail;
+    }
+
+    private synchronized byte[] getFromMemory(String key)
+    {
+        return this.memory.get(key);
+    }
+
+    private synchronized void storeInMemory(String key, byte[] thumbnail)
+    {
+        if (thumbnail.length > this.maxMemorySize) {
+            return;
+        }
+
+        byte[] previous = this.memory.put(key, thumbnail);
+        if (previous != null) {
+            this.memorySize -= previous.length;
+        }
+        this.memorySize += thumbnail.length;
+
+        // Evict the least recently used thumbnails
+        Iterator<byte[]> iterator = this.memory.values().iterator();
+        while ((this.memorySize > this.maxMemorySize || this.memory.size() > this.maxEntries) && iterator.hasNext()) {
+            this.memorySize -= iterator.next().length;
+            iterator.remove();
+        }
+    }
+
+    private File getFile(String key)
+    {
+        return new File(this.directory, DigestUtils.sha1Hex(key) + FILE_EXTENSION);
+    }
+
+    private byte[] getFromDisk(String key)
+    {
+        if (this.directory != null) {
+            File file = getFile(key);
+            if (file.exists()) {
+                try {
+                    byte[] thumbnail = Files.readAllBytes(file.toPath());
+                    // Remember the last access for the disk eviction
+                    file.setLastModified(System.currentTimeMillis());
+
+                    return thumbnail;
+                } catch (IOException e) {
+                    LOGGER.warn("Failed to read thumbnail from [{}]: {}", file, e.getMessage());
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private void storeOnDisk(String key, byte[] thumbnail)
+    {
+        if (this.directory == null || thumbnail.length > this.maxDiskSize) {
+            return;
+        }
+
+        File file = getFile(key);
+        try {
+            // Write to a temporary file first to never expose a partially written thumbnail
+            File temporaryFile = File.createTempFile("thumbnail", ".tmp", this.directory);
+            Files.write(temporaryFile.toPath(), thumbnail);
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write thumbnail to [{}]: {}", file, e.getMessage());
+
+            return;
+        }
+
+        purgeDisk(thumbnail.length);
+    }
+
+    private synchronized void purgeDisk(long addedSize)
+    {
+        this.diskSize += addedSize;
+
+        if (this.diskSize > this.maxDiskSize) {
+            File[] files = listFiles(this.directory);
+            Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+
+            this.diskSize = 0;
+            for (File file : files) {
+                this.diskSize += file.length();
+            }
+
+            long targetSize = (long) (this.maxDiskSize * DISK_PURGE_RATIO);
+            for (int i = 0; i < files.length && this.diskSize > targetSize; ++i) {
+                long length = files[i].length();
+                if (files[i].delete()) {
+                    this.diskSize -= length;
+                }
+            }
+        }
+    }
+}
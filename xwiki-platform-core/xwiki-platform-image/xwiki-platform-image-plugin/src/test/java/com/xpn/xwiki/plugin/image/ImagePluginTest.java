@@ -24,14 +24,13 @@
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Date;
 
 import org.apache.commons.codec.binary.Base64;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
-import org.xwiki.cache.Cache;
-import org.xwiki.cache.CacheManager;
 
 import com.xpn.xwiki.XWiki;
 import com.xpn.xwiki.XWikiContext;
@@ -89,6 +88,8 @@
             + "eyl/ej2wRnfoItr8l/3WeLn4PXSq3EbDXz2j/DTy9z++V3ViJlSzrGa9K5M1tdpX"
             + "bwl+otAu7U4p4/Hv5kPqQhwJx0cWWWSRRRZZZNH4DzmZwO7NW2cKAAAAAElFTkSu" + "QmCC");
 
+    private static final byte[] SCALED_CONTENT = new byte[] { 1, 2, 3 };
+
     @InjectMockitoOldcore
     private MockitoOldcore oldCore;
 
@@ -104,7 +105,7 @@ public void configure() throws Exception
         Mockito.doReturn("test").when(xwiki).Param(
                 ArgumentMatchers.eq("xwiki.plugin.image.processorHint"), ArgumentMatchers.anyString());
 
-        this.oldCore.getMocker().registerMockComponent(CacheManager.class);
+        this.oldCore.registerMockEnvironment();
 
         this.imageProcessor = this.oldCore.getMocker().registerMockComponent(ImageProcessor.class, "test");
         Mockito.when(this.imageProcessor.isMimeTypeSupported("image/png")).thenReturn(true);
@@ -124,8 +125,59 @@ public void testDownloadAttachmentWithUnsupportedFileType()
     public void testCacheOfScaledAttachment() throws Exception
     {
         XWikiContext xcontext = this.oldCore.getXWikiContext();
+        XWikiAttachment attachment = mockScaledAttachment(30, xcontext);
+
+        XWikiAttachment scaled = plugin.downloadAttachment(attachment, xcontext);
 
+        // Load again, this time from cache.
+        assertSame(scaled, plugin.downloadAttachment(attachment, xcontext));
+
+        Mockito.verify(imageProcessor, Mockito.times(1)).writeImage(ArgumentMatchers.any(RenderedImage.class),
+            ArgumentMatchers.eq("image/png"), ArgumentMatchers.eq(.5F), ArgumentMatchers.any(OutputStream.class));
+        Mockito.verify(attachment.getAttachment_content().getContentOutputStream(), Mockito.times(2))
+            .write(SCALED_CONTENT);
+    }
+
+    @Test
+    public void testScaledAttachmentIsKeptOnDiskAfterCacheFlush() throws Exception
+    {
+        XWikiContext xcontext = this.oldCore.getXWikiContext();
+        XWikiAttachment attachment = mockScaledAttachment(40, xcontext);
+
+        plugin.downloadAttachment(attachment, xcontext);
+
+        // Only the memory cache is flushed, the scaled image is loaded from disk.
+        plugin.flushCache();
+        plugin.downloadAttachment(attachment, xcontext);
+
+        Mockito.verify(imageProcessor, Mockito.times(1)).writeImage(ArgumentMatchers.any(RenderedImage.class),
+            ArgumentMatchers.eq("image/png"), ArgumentMatchers.eq(.5F), ArgumentMatchers.any(OutputStream.class));
+        Mockito.verify(attachment.getAttachment_content().getContentOutputStream(), Mockito.times(2))
+            .write(SCALED_CONTENT);
+    }
+
+    @Test
+    public void testScaledAttachmentIsNotReusedAfterUploadingAgain() throws Exception
+    {
+        XWikiContext xcontext = this.oldCore.getXWikiContext();
+        XWikiAttachment attachment = mockScaledAttachment(50, xcontext);
+
+        plugin.downloadAttachment(attachment, xcontext);
+
+        // The attachment is deleted and uploaded again: same version but different date.
+        Mockito.when(attachment.getDate()).thenReturn(new Date(2000L));
+        plugin.flushCache();
+        plugin.downloadAttachment(attachment, xcontext);
+
+        Mockito.verify(imageProcessor, Mockito.times(2)).writeImage(ArgumentMatchers.any(RenderedImage.class),
+            ArgumentMatchers.eq("image/png"), ArgumentMatchers.eq(.5F), ArgumentMatchers.any(OutputStream.class));
+    }
+
+    private XWikiAttachment mockScaledAttachment(int size, XWikiContext xcontext) throws Exception
+    {
         XWikiAttachment attachment = Mockito.mock(XWikiAttachment.class);
+        Mockito.when(attachment.getVersion()).thenReturn("1.1");
+        Mockito.when(attachment.getDate()).thenReturn(new Date(1000L));
         Mockito.when(attachment.getMimeType(xcontext)).thenReturn("image/png");
         InputStream attachmentInputStream = new ByteArrayInputStream(IMAGE_CONTENT);
         Mockito.when(attachment.getContentInputStream(xcontext)).thenReturn(attachmentInputStream);
@@ -137,13 +189,9 @@ public void testCacheOfScaledAttachment() throws Exception
         OutputStream attachmentOutputStream = Mockito.mock(OutputStream.class);
         Mockito.when(attachmentContent.getContentOutputStream()).thenReturn(attachmentOutputStream);
 
-        CacheManager cacheManager = this.oldCore.getMocker().getInstance(CacheManager.class);
-        Cache<Object> imageCache = Mockito.mock(Cache.class);
-        Mockito.when(cacheManager.createNewLocalCache(ArgumentMatchers.any())).thenReturn(imageCache);
-
         XWikiServletRequest request = Mockito.mock(XWikiServletRequest.class);
-        Mockito.when(request.getParameter("width")).thenReturn("30");
-        Mockito.when(request.getParameter("height")).thenReturn("30");
+        Mockito.when(request.getParameter("width")).thenReturn(String.valueOf(size));
+        Mockito.when(request.getParameter("height")).thenReturn(String.valueOf(size));
         xcontext.setRequest(request);
 
         Image image = Mockito.mock(Image.class);
@@ -151,18 +199,13 @@ public void testCacheOfScaledAttachment() throws Exception
         Mockito.when(image.getHeight(null)).thenReturn(300);
         Mockito.when(imageProcessor.readImage(attachmentInputStream)).thenReturn(image);
         RenderedImage renderedImage = Mockito.mock(RenderedImage.class);
-        Mockito.when(imageProcessor.scaleImage(image, 30, 30)).thenReturn(renderedImage);
-
-        XWikiAttachment scaled = plugin.downloadAttachment(attachment, xcontext);
-
-        String cacheKey = "0;null;30;30;false;-1.0";
-        Mockito.when(imageCache.get(cacheKey)).thenReturn(scaled);
-
-        // Load again, this time from cache.
-        assertSame(scaled, plugin.downloadAttachment(attachment, xcontext));
-
-        Mockito.verify(imageProcessor, Mockito.times(1)).writeImage(renderedImage,
-            "image/png", .5F, attachmentOutputStream);
-        Mockito.verify(imageCache, Mockito.times(1)).set(cacheKey, attachment);
+        Mockito.when(imageProcessor.scaleImage(image, size, size)).thenReturn(renderedImage);
+        Mockito.doAnswer(invocation -> {
+            ((OutputStream) invocation.getArgument(3)).write(SCALED_CONTENT);
+            return null;
+        }).when(imageProcessor).writeImage(ArgumentMatchers.eq(renderedImage), ArgumentMatchers.eq("image/png"),
+            ArgumentMatchers.eq(.5F), ArgumentMatchers.any(OutputStream.class));
+
+        return attachment;
     }
 }
@@ -32,6 +32,7 @@
 
 import org.apache.commons.lang3.StringUtils;
 import org.xwiki.configuration.ConfigurationSource;
+import org.xwiki.index.tree.internal.PageHierarchyIndex.ChildCounts;
 import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.EntityReferenceProvider;
@@ -72,6 +73,9 @@ public abstract class AbstractEntityTreeNode extends AbstractTreeNode
     @Inject
     private EntityReferenceProvider defaultEntityReferenceProvider;
 
+    @Inject
+    protected PageHierarchyIndex pageHierarchyIndex;
+
     protected EntityReference resolve(String nodeId)
     {
         String[] parts = StringUtils.split(nodeId, ":", 2);
@@ -133,10 +137,23 @@ protected String whereClause(List<String> constraints)
 
     protected int getChildSpacesCount(EntityReference parentReference) throws QueryException
     {
+        EntityReference parentSpaceReference = parentReference.extractReference(EntityType.SPACE);
+        EntityReference wikiReference = parentReference.extractReference(EntityType.WIKI);
+        Set<String> excludedSpaces =
+            getExcludedSpaces(parentSpaceReference != null ? parentSpaceReference : wikiReference);
+        if (excludedSpaces.isEmpty()) {
+            // The index doesn't know about the excluded spaces so we can use it only when there are none.
+            ChildCounts childCounts =
+                this.pageHierarchyIndex.getChildCounts(parentSpaceReference != null ? parentSpaceReference
+                    : wikiReference);
+            if (childCounts != null) {
+                return childCounts.getSpaceCount(areHiddenEntitiesShown());
+            }
+        }
+
         List<String> constraints = new ArrayList<String>();
         Map<String, Object> parameters = new HashMap<String, Object>();
 
-        EntityReference parentSpaceReference = parentReference.extractReference(EntityType.SPACE);
         if (parentSpaceReference != null) {
             constraints.add("parent = :parent");
             parameters.put("parent", this.localEntityReferenceSerializer.serialize(parentSpaceReference));
@@ -146,9 +163,6 @@ protected int getChildSpacesCount(EntityReference parentReference) throws QueryE
         if (!areHiddenEntitiesShown()) {
             constraints.add("hidden <> true");
         }
-        EntityReference wikiReference = parentReference.extractReference(EntityType.WIKI);
-        Set<String> excludedSpaces =
-            getExcludedSpaces(parentSpaceReference != null ? parentSpaceReference : wikiReference);
         if (!excludedSpaces.isEmpty()) {
             constraints.add("reference not in (:excludedSpaces)");
             parameters.put("excludedSpaces", excludedSpaces);
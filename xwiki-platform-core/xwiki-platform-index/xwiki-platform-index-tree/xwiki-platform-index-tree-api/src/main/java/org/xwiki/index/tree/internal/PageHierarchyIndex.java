@@ -0,0 +1,387 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.index.tree.internal;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceProvider;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+
+/**
+ * Keeps in memory the number of child spaces and child terminal pages of each space (and of each wiki), so that the
+ * tree nodes don't have to count them with a database query for each node. The index of a wiki is loaded with two
+ * queries the first time it's needed. It is then maintained from the document events (see
+ * {@link PageHierarchyIndexListener}): the entries affected by a change are marked as stale and reloaded the next time
+ * they are needed. See {@link PageHierarchyIndexRebuildJob} to check the index against the database.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+@Component(roles = PageHierarchyIndex.class)
+@Singleton
+public class PageHierarchyIndex
+{
+    /**
+     * The key used for the top level spaces of a wiki.
+     */
+    private static final String ROOT = "";
+
+    private static final String PARAMETER_DEFAULT_DOC_NAME = "defaultDocName";
+
+    private static final String PARAMETER_PARENT = "parent";
+
+    /**
+     * The number of child spaces and child terminal pages of a space or a wiki.
+     */
+    public static final class ChildCounts
+    {
+        private static final ChildCounts EMPTY = new ChildCounts(0, 0, 0, 0);
+
+        private final int spaces;
+
+        private final int hiddenSpaces;
+
+        private final int terminalPages;
+
+        private final int hiddenTerminalPages;
+
+        /**
+         * @param spaces the number of child spaces
+         * @param hiddenSpaces the number of hidden child spaces
+         * @param terminalPages the number of child terminal pages
+         * @param hiddenTerminalPages the number of hidden child terminal pages
+         */
+        public ChildCounts(int spaces, int hiddenSpaces, int terminalPages, int hiddenTerminalPages)
+        {
+            this.spaces = spaces;
+            this.hiddenSpaces = hiddenSpaces;
+            this.terminalPages = terminalPages;
+            this.hiddenTerminalPages = hiddenTerminalPages;
+        }
+
+        /**
+         * @param withHidden whether to count the hidden spaces
+         * @return the number of child spaces
+         */
+        public int getSpaceCount(boolean withHidden)
+        {
+            return withHidden ? this.spaces : this.spaces - this.hiddenSpaces;
+        }
+
+        /**
+         * @param withHidden whether to count the hidden pages
+         * @return the number of child terminal pages (translations excluded)
+         */
+        public int getTerminalPageCount(boolean withHidden)
+        {
+            return withHidden ? this.terminalPages : this.terminalPages - this.hiddenTerminalPages;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof ChildCounts)) {
+                return false;
+            }
+            ChildCounts other = (ChildCounts) obj;
+            return this.spaces == other.spaces && this.hiddenSpaces == other.hiddenSpaces
+                && this.terminalPages == other.terminalPages && this.hiddenTerminalPages == other.hiddenTerminalPages;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(this.spaces, this.hiddenSpaces, this.terminalPages, this.hiddenTerminalPages);
+        }
+    }
+
+    /**
+     * The index of a wiki.
+     */
+    private static final class WikiIndex
+    {
+        private final Map<String, ChildCounts> counts = new ConcurrentHashMap<>();
+
+        private final Set<String> staleEntries = ConcurrentHashMap.newKeySet();
+
+        private volatile boolean loaded;
+    }
+
+    /**
+     * Accumulates the results of the count queries.
+     */
+    private static final class ChildCountsBuilder
+    {
+        private int spaces;
+
+        private int hiddenSpaces;
+
+        private int terminalPages;
+
+        private int hiddenTerminalPages;
+
+        void addSpaces(Object hidden, Object count)
+        {
+            int value = ((Number) count).intValue();
+            this.spaces += value;
+            if (Boolean.TRUE.equals(hidden)) {
+                this.hiddenSpaces += value;
+            }
+        }
+
+        void addTerminalPages(Object hidden, Object count)
+        {
+            int value = ((Number) count).intValue();
+            this.terminalPages += value;
+            if (Boolean.TRUE.equals(hidden)) {
+                this.hiddenTerminalPages += value;
+            }
+        }
+
+        ChildCounts build()
+        {
+            return new ChildCounts(this.spaces, this.hiddenSpaces, this.terminalPages, this.hiddenTerminalPages);
+        }
+    }
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    @Named("local")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
+
+    @Inject
+    private EntityReferenceProvider defaultEntityReferenceProvider;
+
+    @Inject
+    private Logger logger;
+
+    private final Map<String, WikiIndex> wikis = new ConcurrentHashMap<>();
+
+    /**
+     * @param parentReference a wiki or a space reference
+     * @return the number of child spaces and child terminal pages of the specified wiki or space, or {@code null} if
+     *         the index is not available (in which case the caller should count them from the database)
+     */
+    public ChildCounts getChildCounts(EntityReference parentReference)
+    {
+        String wiki = parentReference.extractReference(EntityType.WIKI).getName();
+        String key = getKey(parentReference);
+
+        try {
+            WikiIndex wikiIndex = getWikiIndex(wiki);
+            if (wikiIndex.staleEntries.remove(key)) {
+                try {
+                    ChildCounts childCounts = loadEntry(wiki, key);
+                    if (childCounts == ChildCounts.EMPTY) {
+                        wikiIndex.counts.remove(key);
+                    } else {
+                        wikiIndex.counts.put(key, childCounts);
+                    }
+                    return childCounts;
+                } catch (QueryException e) {
+                    wikiIndex.staleEntries.add(key);
+                    throw e;
+                }
+            }
+            return wikiIndex.counts.getOrDefault(key, ChildCounts.EMPTY);
+        } catch (QueryException e) {
+            this.logger.warn("Failed to read the page hierarchy index of [{}]. Root cause [{}].", parentReference,
+                ExceptionUtils.getRootCauseMessage(e));
+            return null;
+        }
+    }
+
+    /**
+     * Marks as stale the entries affected by the creation, the deletion or a change of the hidden flag of the
+     * specified document: the space of the document and all its ancestors (whose existence and hidden flag derive
+     * from the documents they contain).
+     *
+     * @param documentReference the reference of the modified document
+     */
+    public void invalidate(DocumentReference documentReference)
+    {
+        WikiIndex wikiIndex = this.wikis.get(documentReference.getWikiReference().getName());
+        if (wikiIndex != null) {
+            wikiIndex.staleEntries.add(ROOT);
+            for (EntityReference spaceReference : documentReference.getSpaceReferences()) {
+                wikiIndex.staleEntries.add(getKey(spaceReference));
+            }
+        }
+    }
+
+    /**
+     * Forgets the index of the specified wiki. It will be loaded again the next time it's needed.
+     *
+     * @param wiki the wiki identifier
+     */
+    public void remove(String wiki)
+    {
+        this.wikis.remove(wiki);
+    }
+
+    /**
+     * Reloads the index of the specified wiki from the database.
+     *
+     * @param wiki the wiki identifier
+     * @return the number of entries which were not up to date, if the index of the wiki was already loaded
+     * @throws QueryException if loading the index fails
+     */
+    public int rebuild(String wiki) throws QueryException
+    {
+        WikiIndex wikiIndex = new WikiIndex();
+        wikiIndex.counts.putAll(load(wiki));
+        wikiIndex.loaded = true;
+
+        int fixed = 0;
+        WikiIndex previousIndex = this.wikis.put(wiki, wikiIndex);
+        if (previousIndex != null && previousIndex.loaded) {
+            Set<String> keys = new HashSet<>(previousIndex.counts.keySet());
+            keys.addAll(wikiIndex.counts.keySet());
+            for (String key : keys) {
+                // Stale entries are reloaded anyway.
+                if (!previousIndex.staleEntries.contains(key) && !Objects.equals(previousIndex.counts.get(key),
+                    wikiIndex.counts.get(key))) {
+                    fixed++;
+                }
+            }
+            // Changes made while reloading might not be part of the new index.
+            wikiIndex.staleEntries.addAll(previousIndex.staleEntries);
+        }
+
+        return fixed;
+    }
+
+    private WikiIndex getWikiIndex(String wiki) throws QueryException
+    {
+        WikiIndex wikiIndex = this.wikis.computeIfAbsent(wiki, key -> new WikiIndex());
+        if (!wikiIndex.loaded) {
+            synchronized (wikiIndex) {
+                if (!wikiIndex.loaded) {
+                    // The entries marked as stale while loading are kept so that they are reloaded when needed.
+                    wikiIndex.counts.putAll(load(wiki));
+                    wikiIndex.loaded = true;
+                }
+            }
+        }
+
+        return wikiIndex;
+    }
+
+    private Map<String, ChildCounts> load(String wiki) throws QueryException
+    {
+        Map<String, ChildCountsBuilder> builders = new HashMap<>();
+
+        Query spacesQuery = this.queryManager.createQuery(
+            "select space.parent, space.hidden, count(*) from XWikiSpace space group by space.parent, space.hidden",
+            Query.HQL);
+        spacesQuery.setWiki(wiki);
+        for (Object[] row : spacesQuery.<Object[]>execute()) {
+            String key = row[0] != null ? (String) row[0] : ROOT;
+            builders.computeIfAbsent(key, k -> new ChildCountsBuilder()).addSpaces(row[1], row[2]);
+        }
+
+        Query pagesQuery = this.queryManager.createQuery(
+            "select doc.space, doc.hidden, count(*) from XWikiDocument doc "
+                + "where doc.translation = 0 and doc.name <> :defaultDocName group by doc.space, doc.hidden",
+            Query.HQL);
+        pagesQuery.setWiki(wiki);
+        pagesQuery.bindValue(PARAMETER_DEFAULT_DOC_NAME, getDefaultDocumentName());
+        for (Object[] row : pagesQuery.<Object[]>execute()) {
+            builders.computeIfAbsent((String) row[0], k -> new ChildCountsBuilder()).addTerminalPages(row[1], row[2]);
+        }
+
+        Map<String, ChildCounts> counts = new HashMap<>(builders.size());
+        for (Map.Entry<String, ChildCountsBuilder> entry : builders.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().build());
+        }
+
+        return counts;
+    }
+
+    private ChildCounts loadEntry(String wiki, String key) throws QueryException
+    {
+        ChildCountsBuilder builder = new ChildCountsBuilder();
+
+        Query spacesQuery;
+        if (ROOT.equals(key)) {
+            spacesQuery = this.queryManager.createQuery(
+                "select space.hidden, count(*) from XWikiSpace space where space.parent is null group by space.hidden",
+                Query.HQL);
+        } else {
+            spacesQuery = this.queryManager.createQuery("select space.hidden, count(*) from XWikiSpace space "
+                + "where space.parent = :parent group by space.hidden", Query.HQL);
+            spacesQuery.bindValue(PARAMETER_PARENT, key);
+        }
+        spacesQuery.setWiki(wiki);
+        for (Object[] row : spacesQuery.<Object[]>execute()) {
+            builder.addSpaces(row[0], row[1]);
+        }
+
+        // There's no terminal page at the root of a wiki.
+        if (!ROOT.equals(key)) {
+            Query pagesQuery = this.queryManager.createQuery("select doc.hidden, count(*) from XWikiDocument doc "
+                + "where doc.translation = 0 and doc.space = :parent and doc.name <> :defaultDocName "
+                + "group by doc.hidden", Query.HQL);
+            pagesQuery.setWiki(wiki);
+            pagesQuery.bindValue(PARAMETER_PARENT, key);
+            pagesQuery.bindValue(PARAMETER_DEFAULT_DOC_NAME, getDefaultDocumentName());
+            for (Object[] row : pagesQuery.<Object[]>execute()) {
+                builder.addTerminalPages(row[0], row[1]);
+            }
+        }
+
+        ChildCounts childCounts = builder.build();
+        return childCounts.equals(ChildCounts.EMPTY) ? ChildCounts.EMPTY : childCounts;
+    }
+
+    private String getKey(EntityReference parentReference)
+    {
+        EntityReference spaceReference = parentReference.extractReference(EntityType.SPACE);
+        return spaceReference != null ? this.localEntityReferenceSerializer.serialize(spaceReference) : ROOT;
+    }
+
+    private String getDefaultDocumentName()
+    {
+        return this.defaultEntityReferenceProvider.getDefaultReference(EntityType.DOCUMENT).getName();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.index.tree.internal;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.bridge.event.DocumentCreatedEvent;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.bridge.event.WikiDeletedEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+
+/**
+ * Keeps the {@link PageHierarchyIndex} up to date. Renaming a document is covered by the creation and deletion events.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+@Component
+@Named(PageHierarchyIndexListener.NAME)
+@Singleton
+public class PageHierarchyIndexListener extends AbstractEventListener
+{
+    /**
+     * The name of this event listener.
+     */
+    public static final String NAME = "org.xwiki.index.tree.internal.PageHierarchyIndexListener";
+
+    @Inject
+    private PageHierarchyIndex index;
+
+    /**
+     * Default constructor.
+     */
+    public PageHierarchyIndexListener()
+    {
+        super(NAME, Arrays.<Event>asList(new DocumentCreatedEvent(), new DocumentDeletedEvent(),
+            new DocumentUpdatedEvent(), new WikiDeletedEvent()));
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        if (event instanceof WikiDeletedEvent) {
+            this.index.remove(((WikiDeletedEvent) event).getWikiId());
+        } else {
+            XWikiDocument document = (XWikiDocument) source;
+            // Translations are not part of the hierarchy.
+            if (Locale.ROOT.equals(document.getLocale()) && affectsHierarchy(event, document)) {
+                this.index.invalidate(document.getDocumentReference());
+            }
+        }
+    }
+
+    private boolean affectsHierarchy(Event event, XWikiDocument document)
+    {
+        if (event instanceof DocumentUpdatedEvent) {
+            // Only the hidden flag matters when the document is updated.
+            XWikiDocument originalDocument = document.getOriginalDocument();
+            return originalDocument == null || !Objects.equals(originalDocument.isHidden(), document.isHidden());
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.index.tree.internal;
+
+import java.util.Collection;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.annotation.InstantiationStrategy;
+import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
+import org.xwiki.job.AbstractJob;
+import org.xwiki.job.DefaultJobStatus;
+import org.xwiki.job.DefaultRequest;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+
+/**
+ * Rebuilds the {@link PageHierarchyIndex} of the specified wikis (all the wikis by default) and reports the number of
+ * entries that were out of sync with the database.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+@Component
+@InstantiationStrategy(ComponentInstantiationStrategy.PER_LOOKUP)
+@Named(PageHierarchyIndexRebuildJob.JOBTYPE)
+public class PageHierarchyIndexRebuildJob extends AbstractJob<DefaultRequest, DefaultJobStatus<DefaultRequest>>
+{
+    /**
+     * The id of the job.
+     */
+    public static final String JOBTYPE = "index/tree/hierarchy/rebuild";
+
+    /**
+     * The request property holding the collection of wikis to rebuild.
+     */
+    public static final String PROPERTY_WIKIS = "wikis";
+
+    @Inject
+    private PageHierarchyIndex index;
+
+    @Inject
+    private WikiDescriptorManager wikiDescriptorManager;
+
+    @Override
+    public String getType()
+    {
+        return JOBTYPE;
+    }
+
+    @Override
+    protected void runInternal() throws Exception
+    {
+        Collection<String> wikis = getRequest().getProperty(PROPERTY_WIKIS);
+        if (wikis == null) {
+            wikis = this.wikiDescriptorManager.getAllIds();
+        }
+
+        this.progressManager.pushLevelProgress(wikis.size(), this);
+
+        try {
+            for (String wiki : wikis) {
+                this.progressManager.startStep(this);
+
+                int fixedEntries = this.index.rebuild(wiki);
+                if (fixedEntries > 0) {
+                    this.logger.warn("Fixed [{}] out of sync entries in the page hierarchy index of wiki [{}].",
+                        fixedEntries, wiki);
+                } else {
+                    this.logger.info("The page hierarchy index of wiki [{}] is in sync.", wiki);
+                }
+
+                this.progressManager.endStep(this);
+            }
+        } finally {
+            this.progressManager.popLevelProgress(this);
+        }
+    }
+}
@@ -39,6 +39,7 @@
 import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
+import org.xwiki.index.tree.internal.PageHierarchyIndex.ChildCounts;
 import org.xwiki.localization.LocalizationContext;
 import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.DocumentReference;
@@ -269,6 +270,16 @@ protected int getChildDocumentsCount(DocumentReference documentReference) throws
 
     private int getChildTerminalPagesCount(DocumentReference documentReference) throws QueryException
     {
+        boolean filterHiddenDocuments = Boolean.TRUE.equals(getProperties().get("filterHiddenDocuments"));
+        Set<String> excludedDocuments = getExcludedDocuments(documentReference.getParent());
+        if (excludedDocuments.isEmpty()) {
+            // The index doesn't know about the excluded documents so we can use it only when there are none.
+            ChildCounts childCounts = this.pageHierarchyIndex.getChildCounts(documentReference.getParent());
+            if (childCounts != null) {
+                return childCounts.getTerminalPageCount(areHiddenEntitiesShown());
+            }
+        }
+
         List<String> constraints = new ArrayList<String>();
         Map<String, Object> parameters = new HashMap<String, Object>();
 
@@ -284,7 +295,6 @@ private int getChildTerminalPagesCount(DocumentReference documentReference) thro
         parameters.put("defaultDocName", getDefaultDocumentName());
 
         // Check for page exclusions.
-        Set<String> excludedDocuments = getExcludedDocuments(documentReference.getParent());
         if (!excludedDocuments.isEmpty()) {
             constraints.add("doc.fullName not in (:excludedDocuments)");
             parameters.put(PARAMETER_EXCLUDED_DOCUMENTS, excludedDocuments);
@@ -297,7 +307,7 @@ private int getChildTerminalPagesCount(DocumentReference documentReference) thro
         }
 
         query.addFilter(this.countQueryFilter);
-        if (Boolean.TRUE.equals(getProperties().get("filterHiddenDocuments"))) {
+        if (filterHiddenDocuments) {
             query.addFilter(this.hiddenDocumentQueryFilter);
         }
 
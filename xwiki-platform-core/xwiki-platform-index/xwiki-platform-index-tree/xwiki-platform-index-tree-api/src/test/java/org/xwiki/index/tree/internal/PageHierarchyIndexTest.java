@@ -0,0 +1,175 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.index.tree.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.inject.Named;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.xwiki.index.tree.internal.PageHierarchyIndex.ChildCounts;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceProvider;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link PageHierarchyIndex}.
+ * 
+ * @version $Id$
+ */
+@ComponentTest
+public class PageHierarchyIndexTest
+{
+    private static final String SPACES_STATEMENT =
+        "select space.parent, space.hidden, count(*) from XWikiSpace space group by space.parent, space.hidden";
+
+    private static final String PAGES_STATEMENT = "select doc.space, doc.hidden, count(*) from XWikiDocument doc "
+        + "where doc.translation = 0 and doc.name <> :defaultDocName group by doc.space, doc.hidden";
+
+    private static final String SPACE_STATEMENT = "select space.hidden, count(*) from XWikiSpace space "
+        + "where space.parent = :parent group by space.hidden";
+
+    private static final String SPACE_PAGES_STATEMENT = "select doc.hidden, count(*) from XWikiDocument doc "
+        + "where doc.translation = 0 and doc.space = :parent and doc.name <> :defaultDocName group by doc.hidden";
+
+    @InjectMockComponents
+    private PageHierarchyIndex index;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    @Named("local")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
+
+    @MockComponent
+    private EntityReferenceProvider defaultEntityReferenceProvider;
+
+    @Mock
+    private Query spacesQuery;
+
+    @Mock
+    private Query pagesQuery;
+
+    private SpaceReference alice = new SpaceReference("wiki", "Alice");
+
+    private SpaceReference bob = new SpaceReference("wiki", "Alice", "Bob");
+
+    @BeforeEach
+    public void before() throws Exception
+    {
+        when(this.defaultEntityReferenceProvider.getDefaultReference(EntityType.DOCUMENT))
+            .thenReturn(new EntityReference("WebHome", EntityType.DOCUMENT));
+        when(this.localEntityReferenceSerializer.serialize(this.alice)).thenReturn("Alice");
+        when(this.localEntityReferenceSerializer.serialize(this.bob)).thenReturn("Alice.Bob");
+
+        when(this.queryManager.createQuery(SPACES_STATEMENT, Query.HQL)).thenReturn(this.spacesQuery);
+        when(this.spacesQuery.execute()).thenReturn(Arrays.asList(new Object[] {null, false, 2L},
+            new Object[] {null, true, 1L}, new Object[] {"Alice", false, 1L}));
+
+        when(this.queryManager.createQuery(PAGES_STATEMENT, Query.HQL)).thenReturn(this.pagesQuery);
+        when(this.pagesQuery.execute()).thenReturn(
+            Arrays.asList(new Object[] {"Alice", false, 3L}, new Object[] {"Alice", true, 2L}));
+    }
+
+    @Test
+    public void getChildCounts() throws Exception
+    {
+        assertEquals(new ChildCounts(3, 1, 0, 0), this.index.getChildCounts(new WikiReference("wiki")));
+        assertEquals(new ChildCounts(1, 0, 5, 2), this.index.getChildCounts(this.alice));
+        assertEquals(new ChildCounts(0, 0, 0, 0), this.index.getChildCounts(this.bob));
+
+        assertEquals(3, this.index.getChildCounts(this.alice).getTerminalPageCount(false));
+        assertEquals(5, this.index.getChildCounts(this.alice).getTerminalPageCount(true));
+
+        // The wiki index is loaded only once.
+        verify(this.spacesQuery).setWiki("wiki");
+        verify(this.pagesQuery).setWiki("wiki");
+        verify(this.pagesQuery).bindValue("defaultDocName", "WebHome");
+    }
+
+    @Test
+    public void getChildCountsWhenLoadFails() throws Exception
+    {
+        when(this.spacesQuery.execute()).thenThrow(new QueryException("Failed to count the spaces.", null, null));
+
+        assertNull(this.index.getChildCounts(this.alice));
+    }
+
+    @Test
+    public void invalidate() throws Exception
+    {
+        assertEquals(new ChildCounts(1, 0, 5, 2), this.index.getChildCounts(this.alice));
+
+        Query spaceQuery = mock(Query.class, "space");
+        when(this.queryManager.createQuery(SPACE_STATEMENT, Query.HQL)).thenReturn(spaceQuery);
+        when(spaceQuery.execute()).thenReturn(Collections.singletonList(new Object[] {false, 1L}));
+
+        Query spacePagesQuery = mock(Query.class, "spacePages");
+        when(this.queryManager.createQuery(SPACE_PAGES_STATEMENT, Query.HQL)).thenReturn(spacePagesQuery);
+        when(spacePagesQuery.execute()).thenReturn(Collections.singletonList(new Object[] {false, 4L}));
+
+        this.index.invalidate(new DocumentReference("Carol", this.alice));
+
+        assertEquals(new ChildCounts(1, 0, 4, 0), this.index.getChildCounts(this.alice));
+        // The entry is reloaded only once.
+        assertEquals(new ChildCounts(1, 0, 4, 0), this.index.getChildCounts(this.alice));
+
+        verify(spaceQuery).setWiki("wiki");
+        verify(spaceQuery).bindValue("parent", "Alice");
+        verify(spacePagesQuery).bindValue("parent", "Alice");
+        verify(spacePagesQuery, times(1)).execute();
+    }
+
+    @Test
+    public void rebuild() throws Exception
+    {
+        // The index is not loaded yet so there's nothing to fix.
+        assertEquals(0, this.index.rebuild("wiki"));
+        assertEquals(0, this.index.rebuild("wiki"));
+
+        // Simulate a change that was missed by the index.
+        when(this.pagesQuery.execute()).thenReturn(Arrays.asList(new Object[] {"Alice", false, 3L},
+            new Object[] {"Alice", true, 2L}, new Object[] {"Alice.Bob", false, 1L}));
+
+        assertEquals(1, this.index.rebuild("wiki"));
+        assertEquals(new ChildCounts(0, 0, 1, 0), this.index.getChildCounts(this.bob));
+    }
+}
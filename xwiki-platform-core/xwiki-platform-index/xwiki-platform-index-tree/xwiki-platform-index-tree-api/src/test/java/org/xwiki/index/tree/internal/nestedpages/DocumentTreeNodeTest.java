@@ -31,6 +31,8 @@
 import org.mockito.Mock;
 import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.component.util.DefaultParameterizedType;
+import org.xwiki.index.tree.internal.PageHierarchyIndex;
+import org.xwiki.index.tree.internal.PageHierarchyIndex.ChildCounts;
 import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReference;
@@ -51,6 +53,7 @@
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -88,6 +91,9 @@
     @MockComponent
     private QueryManager queryManager;
 
+    @MockComponent
+    private PageHierarchyIndex pageHierarchyIndex;
+
     @MockComponent
     @Named("translations")
     private TreeNode translationsTreeNode;
@@ -259,4 +265,18 @@ public void getChildCount() throws Exception
         verify(childTerminalPagesQuery).bindValue("defaultDocName", "WebHome");
         verify(childTerminalPagesQuery).bindValue("excludedDocuments", Collections.singleton("Path.To.Page.Alice"));
     }
+
+    @Test
+    public void getChildCountFromIndex() throws Exception
+    {
+        when(this.pageHierarchyIndex.getChildCounts(this.documentReference.getParent()))
+            .thenReturn(new ChildCounts(2, 1, 4, 1));
+
+        assertEquals(6L, this.documentTreeNode.getChildCount("document:wiki:Path.To.Page.WebHome"));
+
+        this.documentTreeNode.getProperties().put("filterHiddenDocuments", true);
+        assertEquals(4L, this.documentTreeNode.getChildCount("document:wiki:Path.To.Page.WebHome"));
+
+        verify(this.queryManager, never()).createQuery(anyString(), anyString());
+    }
 }
@@ -29,6 +29,8 @@
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
+import org.xwiki.index.tree.internal.PageHierarchyIndex;
+import org.xwiki.index.tree.internal.PageHierarchyIndex.ChildCounts;
 import org.xwiki.localization.LocalizationContext;
 import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.DocumentReference;
@@ -82,6 +84,9 @@
     @MockComponent
     private QueryManager queryManager;
 
+    @MockComponent
+    private PageHierarchyIndex pageHierarchyIndex;
+
     @Mock
     private Query query;
 
@@ -128,6 +133,20 @@ public void getChildCount() throws Exception
         verify(this.query, never()).bindValue(anyString(), any());
     }
 
+    @Test
+    public void getChildCountFromIndex() throws Exception
+    {
+        when(this.pageHierarchyIndex.getChildCounts(new WikiReference("foo")))
+            .thenReturn(new ChildCounts(5, 2, 0, 0));
+
+        assertEquals(5L, this.wikiTreeNode.getChildCount("wiki:foo"));
+
+        this.wikiTreeNode.getProperties().put("filterHiddenDocuments", true);
+        assertEquals(3L, this.wikiTreeNode.getChildCount("wiki:foo"));
+
+        verify(this.queryManager, never()).createQuery(anyString(), anyString());
+    }
+
     @Test
     public void getChildCountWithExclusions() throws Exception
     {
@@ -0,0 +1,140 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.localization.internal;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.xwiki.localization.LocaleUtils;
+import org.xwiki.localization.Translation;
+import org.xwiki.localization.TranslationBundle;
+
+/**
+ * Merged view of an ordered list of {@link TranslationBundle}s. Each translation is searched in the bundles only the
+ * first time it's asked and then resolved with a simple map lookup until the index is invalidated.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+public class TranslationIndex
+{
+    /**
+     * The maximum number of translations (found or not) remembered by an index.
+     */
+    private static final int MAX_TRANSLATIONS = 100000;
+
+    private final List<TranslationBundle> bundles;
+
+    private final Logger logger;
+
+    private final Map<Locale, Map<String, Optional<Translation>>> translations = new ConcurrentHashMap<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private volatile boolean valid = true;
+
+    /**
+     * @param bundles the bundles ordered by priority
+     * @param logger the logger to use to log errors
+     */
+    public TranslationIndex(List<TranslationBundle> bundles, Logger logger)
+    {
+        this.bundles = bundles;
+        this.logger = logger;
+    }
+
+    /**
+     * @return the number of bundles in the index
+     */
+    public int getBundleCount()
+    {
+        return this.bundles.size();
+    }
+
+    /**
+     * @return {@code false} if one of the bundles changed since the index was created
+     */
+    public boolean isValid()
+    {
+        return this.valid;
+    }
+
+    /**
+     * Indicate that one of the bundles changed and that the index should not be used anymore.
+     */
+    public void invalidate()
+    {
+        this.valid = false;
+    }
+
+    /**
+     * @param key the key identifying the message to look for
+     * @param locale the locale of the target language
+     * @return the translation in the defined language, {@code null} if none could be found
+     * @see org.xwiki.localization.LocalizationManager#getTranslation(String, Locale)
+     */
+    public Translation getTranslation(String key, Locale locale)
+    {
+        if (key == null || locale == null) {
+            return resolveTranslation(key, locale);
+        }
+
+        Map<String, Optional<Translation>> localeTranslations =
+            this.translations.computeIfAbsent(locale, k -> new ConcurrentHashMap<>());
+
+        Optional<Translation> translation = localeTranslations.get(key);
+        if (translation == null) {
+            translation = Optional.ofNullable(resolveTranslation(key, locale));
+
+            if (this.size.get() < MAX_TRANSLATIONS && localeTranslations.putIfAbsent(key, translation) == null) {
+                this.size.incrementAndGet();
+            }
+        }
+
+        return translation.orElse(null);
+    }
+
+    private Translation resolveTranslation(String key, Locale locale)
+    {
+        for (TranslationBundle bundle : this.bundles) {
+            try {
+                Translation translation = bundle.getTranslation(key, locale);
+                if (translation != null && translation.getLocale().equals(locale)) {
+                    return translation;
+                }
+            } catch (Exception e) {
+                this.logger.error("Failed to get translation", e);
+            }
+        }
+
+        // Try parent locale
+        Locale parentLocale = LocaleUtils.getParentLocale(locale);
+        if (parentLocale != null) {
+            return getTranslation(key, parentLocale);
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.localization.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.localization.TranslationBundle;
+import org.xwiki.model.EntityType;
+import org.xwiki.model.ModelContext;
+import org.xwiki.model.reference.EntityReference;
+
+/**
+ * Keep the {@link TranslationIndex}s of the bundle collections used by the current contexts. The bundle sources are
+ * responsible for calling {@link #invalidate()} when the translations provided by their bundles change.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+@Component(roles = TranslationIndexCache.class)
+@Singleton
+public class TranslationIndexCache
+{
+    /**
+     * The key associated to the indexes of the current bundles in the {@link ExecutionContext}.
+     */
+    private static final String CKEY_INDEXES = "localization.indexes";
+
+    /**
+     * The maximum number of indexes to keep.
+     */
+    private static final int MAX_INDEXES = 100;
+
+    @Inject
+    private Execution execution;
+
+    @Inject
+    private ModelContext modelContext;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * The indexes shared between contexts, by current wiki and bundles.
+     */
+    private final Map<List<Object>, TranslationIndex> indexes = new LinkedHashMap<List<Object>, TranslationIndex>(16,
+        0.75F, true)
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, TranslationIndex> eldest)
+        {
+            return size() > MAX_INDEXES;
+        }
+    };
+
+    /**
+     * @param bundles the bundles of the current context ordered by priority
+     * @return the index of the passed bundles
+     */
+    public TranslationIndex getIndex(Collection<TranslationBundle> bundles)
+    {
+        Map<Collection<TranslationBundle>, TranslationIndex> contextIndexes = getContextIndexes();
+
+        TranslationIndex index = contextIndexes != null ? contextIndexes.get(bundles) : null;
+        if (index == null || !index.isValid() || index.getBundleCount() != bundles.size()) {
+            index = getSharedIndex(bundles);
+
+            if (contextIndexes != null) {
+                contextIndexes.put(bundles, index);
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Forget all the indexes, to be called when bundles are added, removed or when their content changes.
+     */
+    public synchronized void invalidate()
+    {
+        for (TranslationIndex index : this.indexes.values()) {
+            index.invalidate();
+        }
+
+        this.indexes.clear();
+    }
+
+    private synchronized TranslationIndex getSharedIndex(Collection<TranslationBundle> bundles)
+    {
+        // The bundles don't have any equals method so the key is based on their identity
+        List<Object> key = new ArrayList<>(bundles.size() + 1);
+        key.add(getCurrentWiki());
+        key.addAll(bundles);
+
+        TranslationIndex index = this.indexes.get(key);
+        if (index == null) {
+            index = new TranslationIndex(new ArrayList<>(bundles), this.logger);
+            this.indexes.put(key, index);
+        }
+
+        return index;
+    }
+
+    /**
+     * @return the indexes already resolved in the current context, by bundle collection instance
+     */
+    private Map<Collection<TranslationBundle>, TranslationIndex> getContextIndexes()
+    {
+        Map<Collection<TranslationBundle>, TranslationIndex> contextIndexes = null;
+
+        ExecutionContext context = this.execution.getContext();
+        if (context != null) {
+            contextIndexes = (Map<Collection<TranslationBundle>, TranslationIndex>) context.getProperty(CKEY_INDEXES);
+
+            if (contextIndexes == null) {
+                contextIndexes = new IdentityHashMap<>();
+                context.newProperty(CKEY_INDEXES).initial(contextIndexes).declare();
+            }
+        }
+
+        return contextIndexes;
+    }
+
+    private String getCurrentWiki()
+    {
+        EntityReference currentReference = this.modelContext.getCurrentEntityReference();
+        if (currentReference != null) {
+            EntityReference wikiReference = currentReference.extractReference(EntityType.WIKI);
+            if (wikiReference != null) {
+                return wikiReference.getName();
+            }
+        }
+
+        return "";
+    }
+}
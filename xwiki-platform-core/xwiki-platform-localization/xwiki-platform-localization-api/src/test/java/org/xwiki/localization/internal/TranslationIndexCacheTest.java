@@ -0,0 +1,129 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.localization.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.localization.Translation;
+import org.xwiki.localization.TranslationBundle;
+import org.xwiki.model.ModelContext;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.test.mockito.MockitoComponentMockingRule;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link TranslationIndexCache}.
+ *
+ * @version $Id$
+ */
+public class TranslationIndexCacheTest
+{
+    @Rule
+    public final MockitoComponentMockingRule<TranslationIndexCache> mocker =
+        new MockitoComponentMockingRule<>(TranslationIndexCache.class);
+
+    private TranslationBundle bundle1;
+
+    private TranslationBundle bundle2;
+
+    private List<TranslationBundle> bundles;
+
+    private Translation translation;
+
+    @Before
+    public void before() throws Exception
+    {
+        Execution execution = this.mocker.getInstance(Execution.class);
+        when(execution.getContext()).thenReturn(new ExecutionContext());
+
+        ModelContext modelContext = this.mocker.getInstance(ModelContext.class);
+        when(modelContext.getCurrentEntityReference()).thenReturn(new WikiReference("wiki"));
+
+        this.bundle1 = mock(TranslationBundle.class, "bundle1");
+        this.bundle2 = mock(TranslationBundle.class, "bundle2");
+        this.bundles = new ArrayList<>(Arrays.asList(this.bundle1, this.bundle2));
+
+        this.translation = mock(Translation.class);
+        when(this.translation.getLocale()).thenReturn(Locale.ROOT);
+        when(this.bundle2.getTranslation("key", Locale.ROOT)).thenReturn(this.translation);
+    }
+
+    private Translation getTranslation(String key, Locale locale) throws Exception
+    {
+        return this.mocker.getComponentUnderTest().getIndex(this.bundles).getTranslation(key, locale);
+    }
+
+    @Test
+    public void getTranslationIsResolvedOnce() throws Exception
+    {
+        assertSame(this.translation, getTranslation("key", Locale.FRENCH));
+        assertSame(this.translation, getTranslation("key", Locale.FRENCH));
+        assertSame(this.translation, getTranslation("key", Locale.ROOT));
+        assertNull(getTranslation("missing", Locale.ROOT));
+        assertNull(getTranslation("missing", Locale.ROOT));
+
+        verify(this.bundle1, times(1)).getTranslation("key", Locale.FRENCH);
+        verify(this.bundle1, times(1)).getTranslation("key", Locale.ROOT);
+        verify(this.bundle2, times(1)).getTranslation("key", Locale.ROOT);
+        verify(this.bundle2, times(1)).getTranslation("missing", Locale.ROOT);
+    }
+
+    @Test
+    public void getTranslationAfterInvalidate() throws Exception
+    {
+        assertSame(this.translation, getTranslation("key", Locale.ROOT));
+
+        Translation newTranslation = mock(Translation.class);
+        when(newTranslation.getLocale()).thenReturn(Locale.ROOT);
+        when(this.bundle1.getTranslation("key", Locale.ROOT)).thenReturn(newTranslation);
+
+        this.mocker.getComponentUnderTest().invalidate();
+
+        assertSame(newTranslation, getTranslation("key", Locale.ROOT));
+    }
+
+    @Test
+    public void getTranslationAfterBundleAdded() throws Exception
+    {
+        assertSame(this.translation, getTranslation("key", Locale.ROOT));
+
+        TranslationBundle bundle0 = mock(TranslationBundle.class, "bundle0");
+        Translation newTranslation = mock(Translation.class);
+        when(newTranslation.getLocale()).thenReturn(Locale.ROOT);
+        when(bundle0.getTranslation("key", Locale.ROOT)).thenReturn(newTranslation);
+        this.bundles.add(0, bundle0);
+
+        assertSame(newTranslation, getTranslation("key", Locale.ROOT));
+    }
+}
@@ -46,6 +46,7 @@
 import org.xwiki.extension.event.ExtensionUpgradedEvent;
 import org.xwiki.extension.repository.InstalledExtensionRepository;
 import org.xwiki.localization.TranslationBundle;
+import org.xwiki.localization.internal.TranslationIndexCache;
 import org.xwiki.localization.message.TranslationMessageParser;
 import org.xwiki.observation.EventListener;
 import org.xwiki.observation.event.Event;
@@ -102,6 +103,12 @@ public class JARTranslationBundleFactoryListener implements EventListener, Initi
     @Inject
     private InstalledExtensionRepository installedRepository;
 
+    /**
+     * Used to invalidate the translation indexes when bundles are added or removed.
+     */
+    @Inject
+    private TranslationIndexCache indexCache;
+
     /**
      * USed to log.
      */
@@ -210,6 +217,8 @@ private void extensionDeleted(InstalledExtension extension, String namespace)
             ComponentManager componentManager = this.componentManagerManager.getComponentManager(namespace, false);
 
             componentManager.unregisterComponent(descriptor);
+
+            this.indexCache.invalidate();
         } catch (Exception e) {
             this.logger.error("Failed to create TranslationBundle descriptor for extension [{}]", extension, e);
         }
@@ -235,6 +244,8 @@ private void extensionAdded(InstalledExtension extension, String namespace)
 
             ComponentDescriptor<TranslationBundle> descriptor = createComponentDescriptor(jarFile.toURI().toURL());
             componentManager.registerComponent(descriptor, bundle);
+
+            this.indexCache.invalidate();
         } catch (Exception e) {
             this.logger.error("Failed to register a TranslationBundle component for extension [{}] on namespace [{}]",
                 extension, namespace, e);
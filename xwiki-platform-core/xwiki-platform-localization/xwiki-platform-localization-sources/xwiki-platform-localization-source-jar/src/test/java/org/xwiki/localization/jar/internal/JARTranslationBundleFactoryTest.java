@@ -49,6 +49,7 @@
 import org.xwiki.localization.TranslationBundleFactoryDoesNotExistsException;
 import org.xwiki.localization.internal.DefaultLocalizationManager;
 import org.xwiki.localization.internal.DefaultTranslationBundleContext;
+import org.xwiki.localization.internal.TranslationIndexCache;
 import org.xwiki.localization.messagetool.internal.MessageToolTranslationMessageParser;
 import org.xwiki.model.internal.DefaultModelContext;
 import org.xwiki.observation.EventListener;
@@ -62,7 +63,7 @@
 PlainTextBlockParser.class, ContextComponentManagerProvider.class, DefaultLocalizationManager.class,
 DefaultTranslationBundleContext.class, DefaultModelContext.class, DefaultExecution.class,
 DefaultObservationManager.class, JARTranslationBundleFactoryListener.class, DefaultComponentManagerManager.class,
-EmbeddableComponentManagerFactory.class})
+EmbeddableComponentManagerFactory.class, TranslationIndexCache.class})
 public class JARTranslationBundleFactoryTest
 {
     @Rule
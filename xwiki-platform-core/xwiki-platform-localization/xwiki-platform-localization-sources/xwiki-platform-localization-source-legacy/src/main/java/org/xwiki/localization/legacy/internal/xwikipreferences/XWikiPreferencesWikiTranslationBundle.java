@@ -36,6 +36,7 @@
 import org.xwiki.localization.Translation;
 import org.xwiki.localization.TranslationBundle;
 import org.xwiki.localization.internal.AbstractTranslationBundle;
+import org.xwiki.localization.internal.TranslationIndexCache;
 import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.DocumentReferenceResolver;
@@ -71,6 +72,8 @@ public class XWikiPreferencesWikiTranslationBundle extends AbstractTranslationBu
 
     private DocumentAccessBridge documentAccessBridge;
 
+    private TranslationIndexCache indexCache;
+
     private DocumentReferenceResolver<String> resolver;
 
     private final List<Event> events;
@@ -91,6 +94,7 @@ public XWikiPreferencesWikiTranslationBundle(String wiki, XWikiPreferencesTransl
 
         this.observation = componentManager.getInstance(ObservationManager.class);
         this.documentAccessBridge = componentManager.getInstance(DocumentAccessBridge.class);
+        this.indexCache = componentManager.getInstance(TranslationIndexCache.class);
         this.resolver = componentManager.getInstance(DocumentReferenceResolver.TYPE_STRING);
 
         intializeBundles();
@@ -161,6 +165,8 @@ public List<Event> getEvents()
     public void onEvent(Event arg0, Object arg1, Object arg2)
     {
         intializeBundles();
+
+        this.indexCache.invalidate();
     }
 
     // Bundle
@@ -44,6 +44,7 @@
 import org.xwiki.localization.internal.DefaultLocalizedTranslationBundle;
 import org.xwiki.localization.internal.DefaultTranslation;
 import org.xwiki.localization.internal.LocalizedTranslationBundle;
+import org.xwiki.localization.internal.TranslationIndexCache;
 import org.xwiki.localization.message.TranslationMessage;
 import org.xwiki.localization.message.TranslationMessageParser;
 import org.xwiki.model.reference.DocumentReference;
@@ -81,6 +82,8 @@ public abstract class AbstractDocumentTranslationBundle extends AbstractCachedTr
 
     protected ObservationManager observation;
 
+    protected TranslationIndexCache indexCache;
+
     protected TranslationMessageParser translationMessageParser;
 
     protected List<Event> events;
@@ -109,6 +112,7 @@ public AbstractDocumentTranslationBundle(String idPrefix, DocumentReference refe
         this.serializer = componentManager.getInstance(EntityReferenceSerializer.TYPE_STRING);
         this.contextProvider = componentManager.getInstance(XWikiContext.TYPE_PROVIDER);
         this.observation = componentManager.getInstance(ObservationManager.class);
+        this.indexCache = componentManager.getInstance(TranslationIndexCache.class);
 
         this.translationMessageParser = translationMessageParser;
 
@@ -219,6 +223,7 @@ public void dispose()
         this.disposed = true;
         this.bundleCache.clear();
         this.observation.removeListener(getName());
+        this.indexCache.invalidate();
     }
 
     // EventListener
@@ -239,6 +244,8 @@ public void onEvent(Event event, Object source, Object data)
                 this.bundleCache.remove(document.getDefaultLocale());
             }
         }
+
+        this.indexCache.invalidate();
     }
 
     @Override
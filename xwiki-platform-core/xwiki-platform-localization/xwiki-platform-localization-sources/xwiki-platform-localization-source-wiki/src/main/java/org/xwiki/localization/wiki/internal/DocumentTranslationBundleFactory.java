@@ -52,6 +52,7 @@
 import org.xwiki.localization.TranslationBundle;
 import org.xwiki.localization.TranslationBundleDoesNotExistsException;
 import org.xwiki.localization.TranslationBundleFactory;
+import org.xwiki.localization.internal.TranslationIndexCache;
 import org.xwiki.localization.message.TranslationMessageParser;
 import org.xwiki.localization.wiki.internal.TranslationDocumentModel.Scope;
 import org.xwiki.model.reference.DocumentReference;
@@ -143,6 +144,9 @@ public class DocumentTranslationBundleFactory implements TranslationBundleFactor
     @Inject
     private AuthorizationManager authorizationManager;
 
+    @Inject
+    private TranslationIndexCache indexCache;
+
     /**
      * Used to cache on demand document bundles (those that are not registered as components).
      */
@@ -395,6 +399,8 @@ private void unregisterTranslationBundle(XWikiDocument document)
                 createComponentDescriptor(document.getDocumentReference());
 
             getComponentManager(document, scope, true).unregisterComponent(descriptor);
+
+            this.indexCache.invalidate();
         }
 
         // Remove from cache
@@ -423,6 +429,8 @@ private void registerTranslationBundle(XWikiDocument document) throws Translatio
             ComponentDocumentTranslationBundle bundle = createComponentDocumentBundle(document, descriptor);
 
             getComponentManager(document, scope, true).registerComponent(descriptor, bundle);
+
+            this.indexCache.invalidate();
         }
     }
 
@@ -101,4 +101,25 @@
      * @since 6.4RC1
      */
     long getSendWaitTime();
+
+    /**
+     * @return the number of threads sending mails in parallel, each of them keeping its own connections to the SMTP
+     *         server(s) and waiting {@link #getSendWaitTime()} after each mail it sends
+     * @since 10.5RC1
+     */
+    default int getSendThreadCount()
+    {
+        return 1;
+    }
+
+    /**
+     * @return the maximum number of prepared mails waiting to be sent; the preparation of the mails pauses when it's
+     *         reached, so that large batches don't pile up in memory and on disk. Zero or a negative value means no
+     *         limit.
+     * @since 10.5RC1
+     */
+    default int getSendQueueCapacity()
+    {
+        return 0;
+    }
 }
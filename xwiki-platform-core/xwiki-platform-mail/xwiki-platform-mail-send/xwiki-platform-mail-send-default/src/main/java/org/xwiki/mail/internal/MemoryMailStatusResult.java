@@ -19,6 +19,7 @@
  */
 package org.xwiki.mail.internal;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -82,9 +83,9 @@ public void remove()
      * The Map's key is the unique message ID.
      *
      * Note that we keep the order in which messages are passed (i.e. the first status result will contain the first
-     * mail sent, etc).
+     * mail sent, etc). The map is synchronized since statuses are updated by the prepare and send threads.
      */
-    private Map<String, MailStatus> statusMap = new LinkedHashMap<>();
+    private Map<String, MailStatus> statusMap = Collections.synchronizedMap(new LinkedHashMap<>());
 
     /**
      * Retrieve the status for the given message identifier.
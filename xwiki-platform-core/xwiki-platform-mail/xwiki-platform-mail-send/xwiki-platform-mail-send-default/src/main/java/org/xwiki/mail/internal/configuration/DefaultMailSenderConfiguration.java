@@ -95,6 +95,10 @@ public class DefaultMailSenderConfiguration implements MailSenderConfiguration
      */
     private static final long DEFAULT_SEND_WAIT_TIME = 8 * 1000L;
 
+    private static final int DEFAULT_SEND_THREAD_COUNT = 1;
+
+    private static final int DEFAULT_SEND_QUEUE_CAPACITY = 1000;
+
     private static final String FROM_PROPERTY = "from";
     private static final String BCC_PROPERTY = "bcc";
     private static final String HOST_PROPERTY = "host";
@@ -103,6 +107,8 @@ public class DefaultMailSenderConfiguration implements MailSenderConfiguration
     private static final String PASSWORD_PROPERTY = "password";
     private static final String PROPERTIES_PROPERTY = "properties";
     private static final String SEND_WAIT_TIME = "sendWaitTime";
+    private static final String SEND_THREAD_COUNT = "sendThreadCount";
+    private static final String SEND_QUEUE_CAPACITY = "sendQueueCapacity";
 
     @Inject
     private Logger logger;
@@ -318,4 +324,20 @@ public long getSendWaitTime()
 
         return waitTime;
     }
+
+    @Override
+    public int getSendThreadCount()
+    {
+        // The send threads are shared by all the wikis so this can only be configured in xwiki.properties
+        int threadCount = this.xwikiPropertiesSource.getProperty(PREFIX + SEND_THREAD_COUNT, DEFAULT_SEND_THREAD_COUNT);
+
+        return Math.max(threadCount, 1);
+    }
+
+    @Override
+    public int getSendQueueCapacity()
+    {
+        // The send queue is shared by all the wikis so this can only be configured in xwiki.properties
+        return this.xwikiPropertiesSource.getProperty(PREFIX + SEND_QUEUE_CAPACITY, DEFAULT_SEND_QUEUE_CAPACITY);
+    }
 }
@@ -22,6 +22,9 @@
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.activation.DataHandler;
@@ -46,6 +49,11 @@
 
 /**
  * Creates an attachment Body Part from an {@link Attachment} object. This will be added to a Multi Part message.
+ * <p>
+ * The content of the attachment is saved to a temporary file which is shared by all the body parts created for the
+ * same version of the same attachment, so that sending a mail generated from a template to many recipients doesn't
+ * copy the template's attachments once per recipient. The shared file is deleted once all the messages using it have
+ * been serialized (see {@link SharedFileDataSource#release()}).
  *
  * @version $Id$
  * @since 6.1M2
@@ -57,6 +65,12 @@ public class AttachmentMimeBodyPartFactory extends AbstractMimeBodyPartFactory<A
 {
     private static final String HEADERS_PARAMETER_KEY = "headers";
 
+    /**
+     * Above this number of entries the shared temporary files are forgotten. They are still deleted when released, or
+     * when garbage collected for the messages which are never sent (see {@link TemporaryFile}).
+     */
+    private static final int TEMPORARY_FILES_MAX_ENTRIES = 100;
+
     @Inject
     private Environment environment;
 
@@ -68,6 +82,23 @@ public class AttachmentMimeBodyPartFactory extends AbstractMimeBodyPartFactory<A
 
     private File temporaryDirectory;
 
+    /**
+     * The temporary files holding the content of the attachments, indexed by attachment version.
+     */
+    private final Map<List<Object>, SharedFile> temporaryFiles = new HashMap<>();
+
+    private static final class SharedFile
+    {
+        private final File file;
+
+        private int users;
+
+        SharedFile(File file)
+        {
+            this.file = file;
+        }
+    }
+
     @Override
     public void initialize() throws InitializationException
     {
@@ -101,6 +132,47 @@ public MimeBodyPart create(Attachment attachment, Map<String, Object> parameters
     }
 
     private DataSource createTemporaryAttachmentDataSource(Attachment attachment) throws MessagingException
+    {
+        // Only attachments saved in a document can be identified
+        if (attachment.getDocument() == null || attachment.getVersion() == null) {
+            return new FileDataSource(createTemporaryAttachmentFile(attachment));
+        }
+
+        // The date distinguishes an attachment deleted and uploaded again, which restarts at the same version
+        List<Object> key = Arrays.asList(attachment.getDocument().getDocumentReference(), attachment.getFilename(),
+            attachment.getVersion(), attachment.getLongSize(), attachment.getDate());
+
+        synchronized (this.temporaryFiles) {
+            SharedFile sharedFile = this.temporaryFiles.get(key);
+            if (sharedFile == null) {
+                sharedFile = new SharedFile(createTemporaryAttachmentFile(attachment));
+                if (this.temporaryFiles.size() >= TEMPORARY_FILES_MAX_ENTRIES) {
+                    this.temporaryFiles.clear();
+                }
+                this.temporaryFiles.put(key, sharedFile);
+            }
+
+            sharedFile.users++;
+
+            SharedFile releasedFile = sharedFile;
+            return new SharedFileDataSource(sharedFile.file, () -> release(key, releasedFile));
+        }
+    }
+
+    private void release(List<Object> key, SharedFile sharedFile)
+    {
+        synchronized (this.temporaryFiles) {
+            if (--sharedFile.users == 0) {
+                this.temporaryFiles.remove(key, sharedFile);
+
+                if (!sharedFile.file.delete()) {
+                    this.logger.debug("Failed to delete the temporary attachment file [{}].", sharedFile.file);
+                }
+            }
+        }
+    }
+
+    private File createTemporaryAttachmentFile(Attachment attachment) throws MessagingException
     {
         File temporaryAttachmentFile;
         FileOutputStream fos = null;
@@ -124,6 +196,6 @@ private DataSource createTemporaryAttachmentDataSource(Attachment attachment) th
             }
         }
 
-        return new FileDataSource(temporaryAttachmentFile);
+        return temporaryAttachmentFile;
     }
 }
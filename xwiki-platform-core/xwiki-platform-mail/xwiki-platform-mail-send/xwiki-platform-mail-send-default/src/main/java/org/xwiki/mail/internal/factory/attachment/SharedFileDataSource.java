@@ -0,0 +1,61 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.mail.internal.factory.attachment;
+
+import java.io.File;
+
+import javax.activation.FileDataSource;
+
+/**
+ * A data source reading a temporary file which is shared by the body parts of several messages. The file is deleted
+ * once all the data sources using it have been released.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+public class SharedFileDataSource extends FileDataSource
+{
+    private final Runnable releaser;
+
+    private boolean released;
+
+    /**
+     * @param file the shared file
+     * @param releaser called the first time this data source is released
+     */
+    public SharedFileDataSource(File file, Runnable releaser)
+    {
+        super(file);
+
+        this.releaser = releaser;
+    }
+
+    /**
+     * Indicate that the content of this data source is not going to be read anymore (e.g. because the message has been
+     * serialized).
+     */
+    public synchronized void release()
+    {
+        if (!this.released) {
+            this.released = true;
+            this.releaser.run();
+        }
+    }
+}
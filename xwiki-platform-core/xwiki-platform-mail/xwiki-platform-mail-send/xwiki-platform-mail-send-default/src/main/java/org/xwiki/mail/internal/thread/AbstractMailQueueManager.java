@@ -19,8 +19,9 @@
  */
 package org.xwiki.mail.internal.thread;
 
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Handles all operations on the Mail Queues.
@@ -33,14 +34,27 @@
 {
     /**
      * The Mail queue that the mail sender thread will use to send mails. We use a separate thread to allow sending
-     * mail asynchronously.
+     * mail asynchronously. The queue is blocking so that the threads processing it can wait for new mails instead of
+     * polling it.
      */
-    private Queue<T> mailQueue = new ConcurrentLinkedQueue<>();
+    private BlockingQueue<T> mailQueue = new LinkedBlockingQueue<>();
+
+    /**
+     * Limits the number of mails that can wait in the queue, see {@link #putMessage(MailQueueItem)}. Must be called
+     * before the queue is used.
+     *
+     * @param capacity the maximum number of mails in the queue
+     * @since 10.5RC1
+     */
+    protected void setCapacity(int capacity)
+    {
+        this.mailQueue = new LinkedBlockingQueue<>(capacity);
+    }
 
     /**
      * @return the mail queue containing all pending mails to be sent
      */
-    private Queue<T> getMailQueue()
+    private BlockingQueue<T> getMailQueue()
     {
         return this.mailQueue;
     }
@@ -51,6 +65,12 @@ public void addToQueue(T mailQueueItem)
         getMailQueue().add(mailQueueItem);
     }
 
+    @Override
+    public void putMessage(T mailQueueItem) throws InterruptedException
+    {
+        getMailQueue().put(mailQueueItem);
+    }
+
     @Override
     public boolean hasMessage()
     {
@@ -68,4 +88,10 @@ public boolean removeMessageFromQueue(T mailQueueItem)
     {
         return getMailQueue().remove(mailQueueItem);
     }
+
+    @Override
+    public T takeMessage(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        return getMailQueue().poll(timeout, unit);
+    }
 }
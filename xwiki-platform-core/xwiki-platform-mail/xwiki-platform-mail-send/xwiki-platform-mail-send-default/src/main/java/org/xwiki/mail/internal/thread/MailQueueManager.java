@@ -19,6 +19,8 @@
  */
 package org.xwiki.mail.internal.thread;
 
+import java.util.concurrent.TimeUnit;
+
 import org.xwiki.component.annotation.Role;
 
 /**
@@ -38,6 +40,15 @@
      */
     void addToQueue(T mailQueueItem);
 
+    /**
+     * Add a mail on the queue for processing, waiting for some space to be available if the queue is full.
+     *
+     * @param mailQueueItem the object representing the mail item to add to the queue
+     * @throws InterruptedException when the thread is interrupted while waiting
+     * @since 10.5RC1
+     */
+    void putMessage(T mailQueueItem) throws InterruptedException;
+
     /**
      * @return true if the queue has messages waiting for processing
      */
@@ -55,4 +66,15 @@
      * @return true if the removal was successful, false otherwise
      */
     boolean removeMessageFromQueue(T mailQueueItem);
+
+    /**
+     * Removes the next mail from the queue, waiting for one to be available if the queue is empty.
+     *
+     * @param timeout how long to wait for a mail before giving up
+     * @param unit the unit of the timeout
+     * @return the next mail on the queue or {@code null} if none was added during the timeout
+     * @throws InterruptedException when the thread is interrupted while waiting
+     * @since 10.5RC1
+     */
+    T takeMessage(long timeout, TimeUnit unit) throws InterruptedException;
 }
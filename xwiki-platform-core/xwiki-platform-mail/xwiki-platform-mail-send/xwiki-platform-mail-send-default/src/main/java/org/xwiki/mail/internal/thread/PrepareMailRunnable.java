@@ -19,8 +19,12 @@
  */
 package org.xwiki.mail.internal.thread;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -28,6 +32,8 @@
 import javax.mail.Address;
 import javax.mail.Message;
 import javax.mail.MessagingException;
+import javax.mail.Multipart;
+import javax.mail.Part;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 
@@ -39,12 +45,15 @@
 import org.xwiki.mail.MailListener;
 import org.xwiki.mail.MailStatusResult;
 import org.xwiki.mail.internal.UpdateableMailStatusResult;
+import org.xwiki.mail.internal.factory.attachment.SharedFileDataSource;
 
 import com.xpn.xwiki.XWikiContext;
 
 /**
- * Runnable that regularly check for mail items on a Prepare Queue, and for each mail item there, generate the message
- * to send and persist it and put that reference on the Send Queue for sending.
+ * Runnable that waits for mail items on a Prepare Queue, and for each mail item there, generate the message
+ * to send and persist it and put that reference on the Send Queue for sending. The messages are generated one at a
+ * time and the preparation waits when the Send Queue is full, so that only a bounded number of prepared messages
+ * exist at any time, whatever the size of the batch.
  *
  * @version $Id$
  * @since 6.4
@@ -69,19 +78,11 @@ public void run()
     {
         do {
             try {
-                // Handle next message in the queue
-                if (this.prepareMailQueueManager.hasMessage()) {
-                    // Important: only remove the mail item after the message has been created and put on the sender
-                    // queue.
-                    PrepareMailQueueItem mailItem = this.prepareMailQueueManager.peekMessage();
-                    try {
-                        prepareMail(mailItem);
-                    } finally {
-                        this.prepareMailQueueManager.removeMessageFromQueue(mailItem);
-                    }
+                // Wait for the next message in the queue
+                PrepareMailQueueItem mailItem = this.prepareMailQueueManager.takeMessage(1L, TimeUnit.SECONDS);
+                if (mailItem != null) {
+                    prepareMail(mailItem);
                 }
-                // Note: a short pause to catch thread interruptions and to be kind on CPU.
-                Thread.sleep(100L);
             } catch (InterruptedException e) {
                 // Thread has been stopped, exit
                 this.logger.debug("Mail Prepare Thread was forcefully stopped", e);
@@ -111,6 +112,9 @@ protected void prepareMail(PrepareMailQueueItem item) throws ExecutionContextExc
         // Count the total number of messages to process
         long messageCounter = 0;
 
+        // The temporary files shared by the messages of the batch, deleted once all the messages are serialized
+        List<SharedFileDataSource> sharedDataSources = new ArrayList<>();
+
         try {
             boolean shouldStop = false;
             while (!shouldStop) {
@@ -120,7 +124,11 @@ protected void prepareMail(PrepareMailQueueItem item) throws ExecutionContextExc
                 try {
                     if (messageIterator.hasNext()) {
                         MimeMessage mimeMessage = messageIterator.next();
-                        prepareSingleMail(mimeMessage, item);
+                        try {
+                            prepareSingleMail(mimeMessage, item);
+                        } finally {
+                            collectSharedDataSources(mimeMessage, sharedDataSources);
+                        }
                         messageCounter++;
                     } else {
                         shouldStop = true;
@@ -129,11 +137,21 @@ protected void prepareMail(PrepareMailQueueItem item) throws ExecutionContextExc
                     removeContext();
                 }
             }
+        } catch (InterruptedException e) {
+            // The thread has been stopped while waiting for the mails to be sent
+            if (listener != null) {
+                listener.onPrepareFatalError(e, Collections.<String, Object>emptyMap());
+            }
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             if (listener != null) {
                 listener.onPrepareFatalError(e, Collections.<String, Object>emptyMap());
             }
         } finally {
+            for (SharedFileDataSource dataSource : sharedDataSources) {
+                dataSource.release();
+            }
+
             if (listener != null) {
                 MailStatusResult result = listener.getMailStatusResult();
                 // Update the listener with the total number of messages prepared so that the user can known when
@@ -158,7 +176,7 @@ protected void prepareContext(ExecutionContext executionContext) throws Executio
         }
     }
 
-    private void prepareSingleMail(MimeMessage mimeMessage, PrepareMailQueueItem item)
+    private void prepareSingleMail(MimeMessage mimeMessage, PrepareMailQueueItem item) throws InterruptedException
     {
         MailListener listener = item.getListener();
 
@@ -185,13 +203,31 @@ private void prepareSingleMail(MimeMessage mimeMessage, PrepareMailQueueItem ite
             listener.onPrepareMessageSuccess(message, Collections.<String, Object>emptyMap());
         }
 
-        // Step 4: Put the MimeMessage id on the Mail Send Queue for sending
+        // Step 4: Put the MimeMessage id on the Mail Send Queue for sending, waiting for previously prepared
+        // messages to be sent if the queue is full
         // Extract the wiki id from the context
-        this.sendMailQueueManager.addToQueue(new SendMailQueueItem(message.getUniqueMessageId(),
+        this.sendMailQueueManager.putMessage(new SendMailQueueItem(message.getUniqueMessageId(),
             item.getSession(), listener, item.getBatchId(), extractWikiId(item)));
 
     }
 
+    private void collectSharedDataSources(Part part, List<SharedFileDataSource> sharedDataSources)
+    {
+        try {
+            if (part.getDataHandler().getDataSource() instanceof SharedFileDataSource) {
+                sharedDataSources.add((SharedFileDataSource) part.getDataHandler().getDataSource());
+            } else if (part.isMimeType("multipart/*") && part.getContent() instanceof Multipart) {
+                Multipart multipart = (Multipart) part.getContent();
+                for (int i = 0; i < multipart.getCount(); ++i) {
+                    collectSharedDataSources(multipart.getBodyPart(i), sharedDataSources);
+                }
+            }
+        } catch (MessagingException | IOException e) {
+            // The message content can't be explored, the temporary files will be deleted when garbage collected
+            this.logger.debug("Failed to find the shared files of the message part [{}]", part, e);
+        }
+    }
+
     private String extractWikiId(PrepareMailQueueItem item)
     {
         XWikiContext xcontext = (XWikiContext) item.getContext().getProperty(XWikiContext.EXECUTIONCONTEXT_KEY);
@@ -19,12 +19,18 @@
  */
 package org.xwiki.mail.internal.thread;
 
+import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.xwiki.component.annotation.Component;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.mail.MailSenderConfiguration;
 
 /**
- * Handles all operations on the Send Mail Queue.
+ * Handles all operations on the Send Mail Queue. The queue is bounded (see
+ * {@link MailSenderConfiguration#getSendQueueCapacity()}) so that the preparation of the mails waits for them to be
+ * sent instead of accumulating them.
  *
  * @version $Id$
  * @since 6.4
@@ -32,6 +38,17 @@
 @Component
 @Singleton
 public class SendMailQueueManager extends AbstractMailQueueManager<SendMailQueueItem>
-    implements MailQueueManager<SendMailQueueItem>
+    implements MailQueueManager<SendMailQueueItem>, Initializable
 {
+    @Inject
+    private MailSenderConfiguration configuration;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        int capacity = this.configuration.getSendQueueCapacity();
+        if (capacity > 0) {
+            setCapacity(capacity);
+        }
+    }
 }
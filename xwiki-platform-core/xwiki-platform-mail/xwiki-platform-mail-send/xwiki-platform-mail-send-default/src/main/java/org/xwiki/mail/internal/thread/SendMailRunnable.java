@@ -20,6 +20,12 @@
 package org.xwiki.mail.internal.thread;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -29,6 +35,7 @@
 import javax.mail.Session;
 import javax.mail.Transport;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.context.ExecutionContext;
@@ -41,7 +48,12 @@
 import com.xpn.xwiki.XWikiContext;
 
 /**
- * Runnable that regularly check for mails on a Queue, and for each mail tries to send it.
+ * Runnable that waits for mails on a Queue, and for each mail tries to send it.
+ * <p>
+ * The mails can be sent by several threads in parallel (see {@link
+ * org.xwiki.mail.MailSenderConfiguration#getSendThreadCount()}): the thread running this runnable and additional
+ * worker threads all take their mails from the same queue. Each of them keeps its connections to the SMTP servers
+ * open, one per session configuration, so that many mails are sent through the same connection.
  *
  * @version $Id$
  * @since 6.4
@@ -51,6 +63,17 @@
 @Singleton
 public class SendMailRunnable extends AbstractMailRunnable
 {
+    /**
+     * The number of mails sent through a connection before it's closed and reopened, in order to not keep
+     * connections open forever (SMTP servers may limit the number of mails per connection).
+     */
+    private static final int MAX_MAILS_PER_CONNECTION = 100;
+
+    /**
+     * How long to wait for a new mail, in milliseconds, before closing the connections that are not used anymore.
+     */
+    private static final long IDLE_TIMEOUT = 1000L;
+
     @Inject
     private MailQueueManager<SendMailQueueItem> sendMailQueueManager;
 
@@ -64,25 +87,72 @@ public class SendMailRunnable extends AbstractMailRunnable
     @Inject
     private Provider<XWikiContext> contextProvider;
 
-    private Transport currentTransport;
+    /**
+     * A connection to a SMTP server, owned by a single sending thread.
+     */
+    private static final class Connection
+    {
+        private final Transport transport;
 
-    private Session currentSession;
+        private int count;
 
-    private int count;
+        Connection(Transport transport)
+        {
+            this.transport = transport;
+        }
+    }
 
     @Override
     public void run()
     {
+        ExecutorService workers = null;
         try {
             // Make sure we initialize an execution context.
             prepareContext();
 
+            int threadCount = this.configuration.getSendThreadCount();
+            if (threadCount > 1) {
+                workers = Executors.newFixedThreadPool(threadCount - 1, new BasicThreadFactory.Builder()
+                    .namingPattern("Mail Sender Thread %d").daemon(true).build());
+                for (int i = 1; i < threadCount; i++) {
+                    workers.execute(this::runWorker);
+                }
+            }
+
             runInternal();
         } catch (ExecutionContextException e) {
             // Not much to do but log.
             logger.error("Failed to initialize the send mail thread's execution context", e);
         } finally {
-            closeTransport();
+            if (workers != null) {
+                stopWorkers(workers);
+            }
+        }
+    }
+
+    private void runWorker()
+    {
+        try {
+            prepareContext();
+            try {
+                runInternal();
+            } finally {
+                removeContext();
+            }
+        } catch (ExecutionContextException e) {
+            // Not much to do but log.
+            logger.error("Failed to initialize the send mail worker thread's execution context", e);
+        }
+    }
+
+    private void stopWorkers(ExecutorService workers)
+    {
+        workers.shutdownNow();
+        try {
+            workers.awaitTermination(IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            this.logger.debug("Interrupted while waiting for the Mail Sender worker threads to stop", e);
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -103,43 +173,46 @@ private void prepareContextForQueueItem(SendMailQueueItem mailItem)
 
     private void runInternal()
     {
-        do {
-            try {
-                // Handle next message in the queue
-                if (this.sendMailQueueManager.hasMessage()) {
-                    // Important: only remove the mail item from the queue after the mail has been sent as
-                    // otherwise, MailSender.waitTillSent() may return before the mail is actually sent!
-                    SendMailQueueItem mailItem = this.sendMailQueueManager.peekMessage();
-                    try {
-                        sendMail(mailItem);
-                    } finally {
-                        this.sendMailQueueManager.removeMessageFromQueue(mailItem);
+        // The connections of this thread, indexed by the configuration of the session they were opened for
+        Map<Map<Object, Object>, Connection> connections = new HashMap<>();
+        try {
+            do {
+                try {
+                    // Wait for the next message in the queue
+                    SendMailQueueItem mailItem =
+                        this.sendMailQueueManager.takeMessage(IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+                    if (mailItem != null) {
+                        sendMail(mailItem, connections);
+                        // Email throttling: Wait before processing the next mail queue item
+                        // Note: it's important that we wait after the previous item has been sent in order to let
+                        // users know as soon as possible that their mail has been sent (otherwise when sending a
+                        // synchronous mail, the user would have to wait the send wait time!).
+                        waitSendWaitTime();
+                    } else {
+                        // Nothing to send for now, don't keep the connections open for nothing
+                        closeConnections(connections);
                     }
-                    // Email throttling: Wait before processing the next mail queue item
-                    // Note: it's important that we wait after the previous item has been removed from the queue in
-                    // order to let users know as soon as possible that their mail has been sent (otherwise when sending
-                    // a synchronous mail, the user would have to wait the send wait time!).
-                    waitSendWaitTime();
+                } catch (InterruptedException e) {
+                    // Thread has been stopped, exit
+                    this.logger.debug("Mail Sender Thread was forcefully stopped", e);
+                    break;
+                } catch (Exception e) {
+                    // There was an unexpected problem, we just log the problem but keep the thread alive!
+                    this.logger.error("Unexpected error in the Mail Sender Thread", e);
                 }
-                // Note: a short pause to catch thread interruptions and to be kind on CPU.
-                Thread.sleep(50L);
-            } catch (InterruptedException e) {
-                // Thread has been stopped, exit
-                this.logger.debug("Mail Sender Thread was forcefully stopped", e);
-                break;
-            } catch (Exception e) {
-                // There was an unexpected problem, we just log the problem but keep the thread alive!
-                this.logger.error("Unexpected error in the Mail Sender Thread", e);
-            }
-        } while (!this.shouldStop);
+            } while (!this.shouldStop);
+        } finally {
+            closeConnections(connections);
+        }
     }
 
     /**
      * Send the mail.
      *
      * @param item the queue item containing all the data for sending the mail
+     * @param connections the connections opened by the current thread
      */
-    protected void sendMail(SendMailQueueItem item)
+    private void sendMail(SendMailQueueItem item, Map<Map<Object, Object>, Connection> connections)
     {
         prepareContextForQueueItem(item);
 
@@ -157,24 +230,13 @@ protected void sendMail(SendMailQueueItem item)
         }
 
         try {
-            // Step 2: If the current Session in use is different from the one passed then close
-            // the current Transport, get a new one and reconnect.
-            // Also do that every 100 mails sent.
-            // TODO: explain why!
-            if (item.getSession() != this.currentSession || (this.count % 100) == 0) {
-                closeTransport();
-                this.currentSession = item.getSession();
-                this.currentTransport = this.currentSession.getTransport("smtp");
-                this.currentTransport.connect();
-            } else if (!this.currentTransport.isConnected()) {
-                this.currentTransport.connect();
-            }
+            // Step 2: Get a connection for the session configuration
+            Transport transport = getTransport(item.getSession(), connections);
 
             // Step 3: Send the mail
             // Unlike the static send method, the sendMessage method does not call the saveChanges method on the
             // message; this prevent the MessageID header to be changed.
-            this.currentTransport.sendMessage(message, message.getAllRecipients());
-            this.count++;
+            transport.sendMessage(message, message.getAllRecipients());
 
             // Step 4: Notify the user of the success if a listener has been provided
             if (listener != null) {
@@ -188,21 +250,52 @@ protected void sendMail(SendMailQueueItem item)
         }
     }
 
+    private Transport getTransport(Session session, Map<Map<Object, Object>, Connection> connections)
+        throws MessagingException
+    {
+        // Sessions are created for each batch of mails but the ones having the same configuration (host, port, user,
+        // etc.) can share the same connection. Reopen the connection every MAX_MAILS_PER_CONNECTION mails.
+        Map<Object, Object> key = new HashMap<>(session.getProperties());
+        Connection connection = connections.get(key);
+        if (connection != null && connection.count >= MAX_MAILS_PER_CONNECTION) {
+            closeTransport(connections.remove(key).transport);
+            connection = null;
+        }
+        if (connection == null) {
+            connection = new Connection(session.getTransport("smtp"));
+            connections.put(key, connection);
+        }
+
+        if (!connection.transport.isConnected()) {
+            connection.transport.connect();
+        }
+        connection.count++;
+
+        return connection.transport;
+    }
+
     private void waitSendWaitTime() throws InterruptedException
     {
         long sendWaitTime = this.configuration.getSendWaitTime();
         Thread.sleep(sendWaitTime);
     }
 
-    private void closeTransport()
+    private void closeConnections(Map<Map<Object, Object>, Connection> connections)
     {
-        if (this.currentTransport != null) {
-            try {
-                this.currentTransport.close();
-            } catch (MessagingException e) {
-                this.logger.warn("Failed to close JavaMail Transport connection. Reason [{}]",
-                    ExceptionUtils.getRootCauseMessage(e));
-            }
+        Iterator<Connection> iterator = connections.values().iterator();
+        while (iterator.hasNext()) {
+            closeTransport(iterator.next().transport);
+            iterator.remove();
+        }
+    }
+
+    private void closeTransport(Transport transport)
+    {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            this.logger.warn("Failed to close JavaMail Transport connection. Reason [{}]",
+                ExceptionUtils.getRootCauseMessage(e));
         }
     }
 }
@@ -21,8 +21,10 @@
 
 import java.io.File;
 import java.util.Collections;
+import java.util.Date;
 import java.util.Map;
 
+import javax.activation.FileDataSource;
 import javax.mail.MessagingException;
 import javax.mail.internet.MimeBodyPart;
 
@@ -30,15 +32,22 @@
 import org.junit.Rule;
 import org.junit.Test;
 import org.xwiki.environment.Environment;
+import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.test.mockito.MockitoComponentMockingRule;
 
 import com.xpn.xwiki.api.Attachment;
+import com.xpn.xwiki.api.Document;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -126,4 +135,76 @@ public void createAttachmentBodyPartWhenWriteError() throws Exception
             assertEquals("Failed to save attachment [image.png] to the file system", expected.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void createAttachmentBodyPartsForTheSameAttachmentShareTheTemporaryFile() throws Exception
+    {
+        Environment environment = this.mocker.getInstance(Environment.class);
+        when(environment.getTemporaryDirectory()).thenReturn(new File(TEMPORARY_DIRECTORY));
+
+        Document document = mock(Document.class);
+        when(document.getDocumentReference()).thenReturn(new DocumentReference("wiki", "Space", "Page"));
+
+        Attachment attachment = mock(Attachment.class);
+        when(attachment.getDocument()).thenReturn(document);
+        when(attachment.getVersion()).thenReturn("1.1");
+        when(attachment.getContent()).thenReturn("Lorem Ipsum".getBytes());
+        when(attachment.getFilename()).thenReturn("image.png");
+        when(attachment.getMimeType()).thenReturn("image/png");
+
+        MimeBodyPart part1 = this.mocker.getComponentUnderTest().create(attachment,
+            Collections.<String, Object>emptyMap());
+        MimeBodyPart part2 = this.mocker.getComponentUnderTest().create(attachment,
+            Collections.<String, Object>emptyMap());
+
+        SharedFileDataSource source1 = (SharedFileDataSource) part1.getDataHandler().getDataSource();
+        SharedFileDataSource source2 = (SharedFileDataSource) part2.getDataHandler().getDataSource();
+        assertSame(source1.getFile(), source2.getFile());
+        assertEquals("Lorem Ipsum", IOUtils.toString(part2.getDataHandler().getInputStream()));
+        verify(attachment, times(1)).getContent();
+
+        // The shared file is deleted once all the messages using it are released
+        source1.release();
+        source1.release();
+        assertTrue(source2.getFile().exists());
+        source2.release();
+        assertFalse(source2.getFile().exists());
+
+        // A new file is created for the next messages
+        MimeBodyPart part3 = this.mocker.getComponentUnderTest().create(attachment,
+            Collections.<String, Object>emptyMap());
+        assertEquals("Lorem Ipsum", IOUtils.toString(part3.getDataHandler().getInputStream()));
+        verify(attachment, times(2)).getContent();
+    }
+
+    @Test
+    public void createAttachmentBodyPartsForAnAttachmentUploadedAgain() throws Exception
+    {
+        Environment environment = this.mocker.getInstance(Environment.class);
+        when(environment.getTemporaryDirectory()).thenReturn(new File(TEMPORARY_DIRECTORY));
+
+        Document document = mock(Document.class);
+        when(document.getDocumentReference()).thenReturn(new DocumentReference("wiki", "Space", "Page"));
+
+        Attachment attachment = mock(Attachment.class);
+        when(attachment.getDocument()).thenReturn(document);
+        when(attachment.getVersion()).thenReturn("1.1");
+        when(attachment.getDate()).thenReturn(new Date(1000));
+        when(attachment.getContent()).thenReturn("Lorem Ipsum".getBytes());
+        when(attachment.getFilename()).thenReturn("image.png");
+
+        MimeBodyPart part1 = this.mocker.getComponentUnderTest().create(attachment,
+            Collections.<String, Object>emptyMap());
+
+        // The attachment is deleted and uploaded again with a different content but the same version and size
+        when(attachment.getDate()).thenReturn(new Date(2000));
+        when(attachment.getContent()).thenReturn("Dolor Sitam".getBytes());
+
+        MimeBodyPart part2 = this.mocker.getComponentUnderTest().create(attachment,
+            Collections.<String, Object>emptyMap());
+
+        assertNotEquals(((FileDataSource) part1.getDataHandler().getDataSource()).getFile(),
+            ((FileDataSource) part2.getDataHandler().getDataSource()).getFile());
+        assertEquals("Dolor Sitam", IOUtils.toString(part2.getDataHandler().getInputStream()));
+    }
+}
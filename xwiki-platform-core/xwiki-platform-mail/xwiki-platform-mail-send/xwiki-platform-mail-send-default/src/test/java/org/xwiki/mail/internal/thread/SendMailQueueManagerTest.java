@@ -0,0 +1,98 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.mail.internal.thread;
+
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.mail.Session;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.xwiki.mail.MailSenderConfiguration;
+import org.xwiki.test.mockito.MockitoComponentMockingRule;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link SendMailQueueManager}.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+public class SendMailQueueManagerTest
+{
+    @Rule
+    public MockitoComponentMockingRule<SendMailQueueManager> mocker =
+        new MockitoComponentMockingRule<>(SendMailQueueManager.class);
+
+    @Before
+    public void setUp() throws Exception
+    {
+        MailSenderConfiguration configuration = this.mocker.getInstance(MailSenderConfiguration.class);
+        when(configuration.getSendQueueCapacity()).thenReturn(2);
+    }
+
+    @Test
+    public void putMessageWaitsWhenQueueIsFull() throws Exception
+    {
+        SendMailQueueManager queueManager = this.mocker.getComponentUnderTest();
+
+        Session session = Session.getDefaultInstance(new Properties());
+        SendMailQueueItem item1 = new SendMailQueueItem("message1", session, null, "batch", "wiki");
+        SendMailQueueItem item2 = new SendMailQueueItem("message2", session, null, "batch", "wiki");
+        SendMailQueueItem item3 = new SendMailQueueItem("message3", session, null, "batch", "wiki");
+
+        queueManager.putMessage(item1);
+        queueManager.putMessage(item2);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> put = executor.submit(() -> {
+                queueManager.putMessage(item3);
+                return null;
+            });
+
+            // The queue is full so the preparation of the third message waits
+            try {
+                put.get(100, TimeUnit.MILLISECONDS);
+                fail("The message should not have been added to a full queue");
+            } catch (TimeoutException expected) {
+                // Expected
+            }
+
+            // Sending a message makes room for the third one
+            assertSame(item1, queueManager.takeMessage(1, TimeUnit.SECONDS));
+            put.get(1, TimeUnit.SECONDS);
+
+            assertSame(item2, queueManager.takeMessage(1, TimeUnit.SECONDS));
+            assertSame(item3, queueManager.takeMessage(1, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -25,7 +25,9 @@
 import java.util.UUID;
 
 import javax.inject.Provider;
+import javax.mail.Message.RecipientType;
 import javax.mail.Session;
+import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 
 import org.junit.Before;
@@ -36,6 +38,7 @@
 import org.xwiki.mail.ExtendedMimeMessage;
 import org.xwiki.mail.MailContentStore;
 import org.xwiki.mail.MailListener;
+import org.xwiki.mail.MailSenderConfiguration;
 import org.xwiki.mail.MailState;
 import org.xwiki.mail.MailStatus;
 import org.xwiki.mail.MailStoreException;
@@ -44,9 +47,12 @@
 import org.xwiki.test.annotation.ComponentList;
 import org.xwiki.test.mockito.MockitoComponentMockingRule;
 
+import com.icegreen.greenmail.junit.GreenMailRule;
+import com.icegreen.greenmail.util.ServerSetupTest;
 import com.xpn.xwiki.XWikiContext;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
 
@@ -62,6 +68,9 @@
 })
 public class SendMailRunnableTest
 {
+    @Rule
+    public GreenMailRule mail = new GreenMailRule(ServerSetupTest.SMTP);
+
     @Rule
     public MockitoComponentMockingRule<SendMailRunnable> mocker =
         new MockitoComponentMockingRule<>(SendMailRunnable.class);
@@ -206,4 +215,57 @@ public void sendMailWhenMailRetrievalFails() throws Exception
         }
         assertEquals(2, errorCount);
     }
+
+    @Test
+    public void sendMailsWithSeveralThreads() throws Exception
+    {
+        MailSenderConfiguration configuration = this.mocker.getInstance(MailSenderConfiguration.class);
+        when(configuration.getSendThreadCount()).thenReturn(3);
+
+        Properties properties = new Properties();
+        properties.setProperty("mail.smtp.host", "localhost");
+        properties.setProperty("mail.smtp.port", Integer.toString(this.mail.getSmtp().getPort()));
+
+        MemoryMailListener listener = this.mocker.getInstance(MailListener.class, "memory");
+        String batchId = UUID.randomUUID().toString();
+        listener.onPrepareBegin(batchId, Collections.<String, Object>emptyMap());
+        ((UpdateableMailStatusResult) listener.getMailStatusResult()).setTotalSize(20);
+
+        MailQueueManager mailQueueManager = this.mocker.getInstance(
+            new DefaultParameterizedType(null, MailQueueManager.class, SendMailQueueItem.class));
+        MailContentStore contentStore = this.mocker.getInstance(MailContentStore.class, "filesystem");
+
+        // Use a new session for each mail, as for separate batches: they should still share the same connections
+        // since they have the same configuration.
+        for (int i = 0; i < 20; i++) {
+            Session session = Session.getInstance(properties);
+            MimeMessage msg = new MimeMessage(session);
+            msg.setFrom(new InternetAddress("mary@doe.com"));
+            msg.setRecipient(RecipientType.TO, new InternetAddress("john@doe.com"));
+            msg.setSubject("subject" + i);
+            msg.setText("Content" + i);
+            ExtendedMimeMessage message = new ExtendedMimeMessage(msg);
+            String id = message.getUniqueMessageId();
+            listener.onPrepareMessageSuccess(message, Collections.<String, Object>emptyMap());
+            when(contentStore.load(session, batchId, id)).thenReturn(message);
+            mailQueueManager.addToQueue(new SendMailQueueItem(id, session, listener, batchId, "xwiki"));
+        }
+
+        MailRunnable runnable = this.mocker.getComponentUnderTest();
+        Thread thread = new Thread(runnable);
+        thread.start();
+
+        // Wait for the mails to have been processed.
+        try {
+            listener.getMailStatusResult().waitTillProcessed(30000L);
+        } finally {
+            runnable.stopProcessing();
+            thread.interrupt();
+            thread.join();
+        }
+
+        assertTrue(listener.getMailStatusResult().isProcessed());
+        assertFalse(listener.getMailStatusResult().getAllErrors().hasNext());
+        assertEquals(20, this.mail.getReceivedMessages().length);
+    }
 }
@@ -19,10 +19,12 @@
  */
 package org.xwiki.mail;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
 import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
 
 /**
  * Save, load and search mail results.
@@ -43,6 +45,24 @@
      */
     void save(MailStatus status, Map<String, Object> parameters) throws MailStoreException;
 
+    /**
+     * Saves several mail statuses in the store at once. Implementations should override this method when they can
+     * save them more efficiently than one by one (e.g. in a single transaction).
+     *
+     * @param statuses the mail statuses to be saved
+     * @param parameters some parameters specifying addition context data (for example the current wiki is stored under
+     *        the {@code wiki} key)
+     * @throws MailStoreException when an error occurs saving the data
+     * @since 10.5RC1
+     */
+    @Unstable
+    default void save(Collection<MailStatus> statuses, Map<String, Object> parameters) throws MailStoreException
+    {
+        for (MailStatus status : statuses) {
+            save(status, parameters);
+        }
+    }
+
     /**
      * Load message status for the message matching the given message Id.
      *
@@ -86,4 +106,22 @@ List<MailStatus> load(Map<String, Object> filterMap, int offset, int count, Stri
      * @throws MailStoreException when an error occurs deleting the message
      */
     void delete(String uniqueMessageId, Map<String, Object> parameters) throws MailStoreException;
+
+    /**
+     * Delete several messages at once. Implementations should override this method when they can delete them more
+     * efficiently than one by one.
+     *
+     * @param uniqueMessageIds the ids of the messages to delete
+     * @param parameters some parameters specifying addition context data (for example the current wiki is stored under
+     *        the {@code wiki} key)
+     * @throws MailStoreException when an error occurs deleting the messages
+     * @since 10.5RC1
+     */
+    @Unstable
+    default void delete(Collection<String> uniqueMessageIds, Map<String, Object> parameters) throws MailStoreException
+    {
+        for (String uniqueMessageId : uniqueMessageIds) {
+            delete(uniqueMessageId, parameters);
+        }
+    }
 }
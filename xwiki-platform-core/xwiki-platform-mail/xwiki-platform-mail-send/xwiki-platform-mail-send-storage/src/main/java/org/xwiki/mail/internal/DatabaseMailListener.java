@@ -19,7 +19,10 @@
  */
 package org.xwiki.mail.internal;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -44,6 +47,10 @@
 
 /**
  * Saves mail statuses in the database.
+ * <p>
+ * The statuses of prepared messages are saved right away so that they can be resent after a restart, but the statuses
+ * resulting from sending them are accumulated and written in batches, and the batch is only reported as processed
+ * once all its statuses have been written.
  *
  * @version $Id$
  * @since 6.4M3
@@ -53,6 +60,16 @@
 @InstantiationStrategy(ComponentInstantiationStrategy.PER_LOOKUP)
 public class DatabaseMailListener extends AbstractMailListener implements Initializable
 {
+    /**
+     * The maximum number of sent message statuses to accumulate before writing them.
+     */
+    private static final int FLUSH_SIZE = 100;
+
+    /**
+     * The maximum delay, in milliseconds, after which the accumulated statuses are written.
+     */
+    private static final long FLUSH_DELAY = 1000L;
+
     @Inject
     private Execution execution;
 
@@ -69,6 +86,21 @@ public class DatabaseMailListener extends AbstractMailListener implements Initia
 
     private DatabaseMailStatusResult mailStatusResult;
 
+    /**
+     * The statuses saved when the messages were prepared, so that they don't need to be loaded back when sent.
+     */
+    private final Map<String, MailStatus> preparedStatuses = new ConcurrentHashMap<>();
+
+    private final List<MailStatus> statusesToSave = new ArrayList<>();
+
+    private final List<String> statusesToDelete = new ArrayList<>();
+
+    private Map<String, Object> flushParameters;
+
+    private int pendingCount;
+
+    private long lastFlush = System.currentTimeMillis();
+
     @Override
     public void initialize() throws InitializationException
     {
@@ -91,6 +123,7 @@ public void onPrepareMessageSuccess(ExtendedMimeMessage message, Map<String, Obj
         status.setWiki(
             ((XWikiContext) execution.getContext().getProperty(XWikiContext.EXECUTIONCONTEXT_KEY)).getWikiId());
         saveStatus(status, parameters);
+        this.preparedStatuses.put(status.getMessageId(), status);
     }
 
     @Override
@@ -105,7 +138,9 @@ public void onPrepareMessageError(ExtendedMimeMessage message, Exception excepti
         saveStatus(status, parameters);
 
         // This mail will not reach the send queue, so its processing is done now.
-        mailStatusResult.incrementCurrentSize();
+        synchronized (this) {
+            messageProcessed(parameters);
+        }
     }
 
     @Override
@@ -117,6 +152,18 @@ public void onPrepareFatalError(Exception exception, Map<String, Object> paramet
         logger.error("Failure during preparation phase of thread [" + getBatchId() + "]", exception);
     }
 
+    @Override
+    public void onPrepareEnd(Map<String, Object> parameters)
+    {
+        super.onPrepareEnd(parameters);
+
+        // The total number of messages is now known: write what was accumulated so that the batch can be reported as
+        // processed if all its messages have already been sent.
+        synchronized (this) {
+            flush();
+        }
+    }
+
     @Override
     public void onSendMessageSuccess(ExtendedMimeMessage message, Map<String, Object> parameters)
     {
@@ -137,13 +184,14 @@ public void onSendMessageSuccess(ExtendedMimeMessage message, Map<String, Object
         deleteMailContent(status);
 
         // If the user doesn't want to keep success status, we remove the mail status, otherwise we just update it
-        if (configuration.discardSuccessStatuses()) {
-            deleteStatus(status, parameters);
-        } else {
-            saveStatus(status, parameters);
+        synchronized (this) {
+            if (configuration.discardSuccessStatuses()) {
+                this.statusesToDelete.add(status.getMessageId());
+            } else {
+                this.statusesToSave.add(status);
+            }
+            messageProcessed(parameters);
         }
-
-        mailStatusResult.incrementCurrentSize();
     }
 
     @Override
@@ -153,16 +201,17 @@ public void onSendMessageFatalError(String uniqueMessageId, Exception exception,
 
         MailStatus status = retrieveExistingMailStatus(uniqueMessageId, MailState.SEND_FATAL_ERROR);
 
-        if (status != null) {
-            status.setState(MailState.SEND_FATAL_ERROR);
-            status.setError(exception);
-            saveStatus(status, parameters);
-        } else {
-            this.logger.error("Unable to report the fatal error encountered during mail sending for message [{}] "
+        synchronized (this) {
+            if (status != null) {
+                status.setState(MailState.SEND_FATAL_ERROR);
+                status.setError(exception);
+                this.statusesToSave.add(status);
+            } else {
+                this.logger.error("Unable to report the fatal error encountered during mail sending for message [{}] "
                     + "of batch [{}].", uniqueMessageId, getBatchId(), exception);
+            }
+            messageProcessed(parameters);
         }
-
-        this.mailStatusResult.incrementCurrentSize();
     }
 
     @Override
@@ -181,14 +230,71 @@ public void onSendMessageError(ExtendedMimeMessage message, Exception exception,
             status = new MailStatus(getBatchId(), message, MailState.SEND_ERROR);
         }
         status.setError(exception);
-        saveStatus(status, parameters);
 
-        this.mailStatusResult.incrementCurrentSize();
+        synchronized (this) {
+            this.statusesToSave.add(status);
+            messageProcessed(parameters);
+        }
+    }
+
+    /**
+     * Counts a processed message and writes the accumulated statuses when there are enough of them, when they have
+     * been waiting for too long or when this message is the last one of the batch.
+     * <p>
+     * Must be called while holding the lock on this listener.
+     */
+    private void messageProcessed(Map<String, Object> parameters)
+    {
+        this.pendingCount++;
+        this.flushParameters = parameters;
+
+        long totalCount = this.mailStatusResult.getTotalMailCount();
+        if (this.statusesToSave.size() + this.statusesToDelete.size() >= FLUSH_SIZE
+            || System.currentTimeMillis() - this.lastFlush >= FLUSH_DELAY
+            || (totalCount >= 0 && this.mailStatusResult.getProcessedMailCount() + this.pendingCount >= totalCount)) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the accumulated statuses and only then reports the corresponding messages as processed, so that someone
+     * waiting for the batch to be processed always finds the final statuses in the database.
+     * <p>
+     * Must be called while holding the lock on this listener.
+     */
+    private void flush()
+    {
+        if (!this.statusesToSave.isEmpty()) {
+            if (this.statusesToSave.size() == 1) {
+                saveStatus(this.statusesToSave.get(0), this.flushParameters);
+            } else {
+                saveStatuses(new ArrayList<>(this.statusesToSave), this.flushParameters);
+            }
+            this.statusesToSave.clear();
+        }
+        if (!this.statusesToDelete.isEmpty()) {
+            if (this.statusesToDelete.size() == 1) {
+                deleteStatus(this.statusesToDelete.get(0), this.flushParameters);
+            } else {
+                deleteStatuses(new ArrayList<>(this.statusesToDelete), this.flushParameters);
+            }
+            this.statusesToDelete.clear();
+        }
+
+        while (this.pendingCount > 0) {
+            this.mailStatusResult.incrementCurrentSize();
+            this.pendingCount--;
+        }
+        this.lastFlush = System.currentTimeMillis();
     }
 
     private MailStatus retrieveExistingMailStatus(String uniqueMessageId, MailState state)
     {
-        MailStatus status;
+        MailStatus status = this.preparedStatuses.remove(uniqueMessageId);
+        if (status != null) {
+            return status;
+        }
+
         try {
             status = mailStatusStore.load(uniqueMessageId);
             if (status == null) {
@@ -223,13 +329,33 @@ private void saveStatus(MailStatus status, Map<String, Object> parameters)
         }
     }
 
-    private void deleteStatus(MailStatus status, Map<String, Object> parameters)
+    private void saveStatuses(List<MailStatus> statuses, Map<String, Object> parameters)
+    {
+        try {
+            mailStatusStore.save(statuses, parameters);
+        } catch (MailStoreException e) {
+            // Failed to save the statuses in the DB, we continue but log an error
+            logger.error("Failed to save mail statuses {} to the database", statuses, e);
+        }
+    }
+
+    private void deleteStatus(String messageId, Map<String, Object> parameters)
     {
         try {
-            mailStatusStore.delete(status.getMessageId(), parameters);
+            mailStatusStore.delete(messageId, parameters);
         } catch (MailStoreException e) {
             // Failed to delete the status in the DB, we continue but log an error
-            logger.error("Failed to delete mail status [{}] from the database", status, e);
+            logger.error("Failed to delete mail status for message [{}] from the database", messageId, e);
+        }
+    }
+
+    private void deleteStatuses(List<String> messageIds, Map<String, Object> parameters)
+    {
+        try {
+            mailStatusStore.delete(messageIds, parameters);
+        } catch (MailStoreException e) {
+            // Failed to delete the statuses in the DB, we continue but log an error
+            logger.error("Failed to delete mail statuses for messages {} from the database", messageIds, e);
         }
     }
 
@@ -19,6 +19,8 @@
  */
 package org.xwiki.mail.internal;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -56,6 +58,8 @@ public class DatabaseMailStatusStore implements MailStatusStore
 {
     private static final String ID_PARAMETER_NAME = "id";
 
+    private static final String IDS_PARAMETER_NAME = "ids";
+
     @Inject
     private Logger logger;
 
@@ -99,6 +103,55 @@ public Object doInHibernate(Session session) throws HibernateException, XWikiExc
         }
     }
 
+    @Override
+    public void save(final Collection<MailStatus> statuses, final Map<String, Object> parameters)
+        throws MailStoreException
+    {
+        if (statuses.isEmpty()) {
+            return;
+        }
+
+        XWikiHibernateBaseStore store = (XWikiHibernateBaseStore) this.hibernateStore;
+
+        XWikiContext xwikiContext = this.contextProvider.get();
+        // Save in the main wiki
+        String currentWiki = xwikiContext.getWikiId();
+        xwikiContext.setWikiId(xwikiContext.getMainXWiki());
+
+        final List<String> messageIds = new ArrayList<>(statuses.size());
+        for (MailStatus status : statuses) {
+            messageIds.add(status.getMessageId());
+        }
+
+        try {
+            // Replace the previous states of all the messages in a single transaction
+            store.executeWrite(xwikiContext, new XWikiHibernateBaseStore.HibernateCallback<Object>()
+            {
+                @Override
+                public Object doInHibernate(Session session) throws HibernateException, XWikiException
+                {
+                    deleteAll(session, messageIds);
+                    for (MailStatus status : statuses) {
+                        session.save(status);
+                    }
+                    return null;
+                }
+            });
+
+            // Log the save for debugging purpose
+            if (this.logger.isDebugEnabled()) {
+                for (MailStatus status : statuses) {
+                    this.logger.debug("Saved mail status [{}]", status);
+                }
+            }
+        } catch (Exception e) {
+            throw new MailStoreException(
+                String.format("Failed to save mail statuses for messages %s to the database.", messageIds), e);
+        } finally {
+            xwikiContext.setWikiId(currentWiki);
+        }
+    }
+
     @Override
     public MailStatus load(String uniqueMessageId) throws MailStoreException
     {
@@ -232,6 +285,45 @@ public Object doInHibernate(Session session) throws HibernateException, XWikiExc
         }
     }
 
+    @Override
+    public void delete(final Collection<String> uniqueMessageIds, Map<String, Object> parameters)
+        throws MailStoreException
+    {
+        if (uniqueMessageIds.isEmpty()) {
+            return;
+        }
+
+        XWikiHibernateBaseStore store = (XWikiHibernateBaseStore) this.hibernateStore;
+
+        XWikiContext xwikiContext = this.contextProvider.get();
+        // Delete from the main wiki
+        String currentWiki = xwikiContext.getWikiId();
+        xwikiContext.setWikiId(xwikiContext.getMainXWiki());
+
+        try {
+            store.executeWrite(xwikiContext, new XWikiHibernateBaseStore.HibernateCallback<Object>()
+            {
+                @Override
+                public Object doInHibernate(Session session) throws HibernateException, XWikiException
+                {
+                    deleteAll(session, uniqueMessageIds);
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            throw new MailStoreException(String.format("Failed to delete mail statuses (message ids %s) "
+                + "from the database.", uniqueMessageIds), e);
+        } finally {
+            xwikiContext.setWikiId(currentWiki);
+        }
+    }
+
+    private void deleteAll(Session session, Collection<String> uniqueMessageIds)
+    {
+        String queryString = String.format("delete from %s where mail_id in (:ids)", MailStatus.class.getName());
+        session.createQuery(queryString).setParameterList(IDS_PARAMETER_NAME, uniqueMessageIds).executeUpdate();
+    }
+
     protected String computeQueryString(String prefix,
         Map<String, Object> filterMap, String sortField, boolean sortAscending)
     {
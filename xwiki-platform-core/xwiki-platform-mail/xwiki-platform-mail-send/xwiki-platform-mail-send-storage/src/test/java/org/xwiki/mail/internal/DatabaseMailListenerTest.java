@@ -19,8 +19,11 @@
  */
 package org.xwiki.mail.internal;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
 import org.junit.Before;
@@ -45,10 +48,13 @@
 import com.xpn.xwiki.XWikiContext;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -144,6 +150,7 @@ public void onSendMessageSuccess() throws Exception
 
         MailListener listener = this.mocker.getComponentUnderTest();
         listener.onPrepareBegin(batchId, Collections.<String, Object>emptyMap());
+        ((UpdateableMailStatusResult) listener.getMailStatusResult()).setTotalSize(1);
         listener.onSendMessageSuccess(this.message, Collections.<String, Object>emptyMap());
 
         verify(mailStatusStore).load(this.messageId);
@@ -161,6 +168,7 @@ public void onSuccessWhenStatusLoadFails() throws Exception
 
         MailListener listener = this.mocker.getComponentUnderTest();
         listener.onPrepareBegin(batchId, Collections.<String, Object>emptyMap());
+        ((UpdateableMailStatusResult) listener.getMailStatusResult()).setTotalSize(1);
         listener.onSendMessageSuccess(this.message, Collections.<String, Object>emptyMap());
 
         assertEquals("Error when looking for a previous mail status for message [" + this.messageId + "] of batch ["
@@ -187,6 +195,7 @@ public void onSuccessWhenMailContentDeletionFails() throws Exception
 
         MailListener listener = this.mocker.getComponentUnderTest();
         listener.onPrepareBegin(batchId, Collections.<String, Object>emptyMap());
+        ((UpdateableMailStatusResult) listener.getMailStatusResult()).setTotalSize(1);
         listener.onSendMessageSuccess(this.message, Collections.<String, Object>emptyMap());
 
         assertEquals("Failed to remove previously failing message [" + this.messageId + "] (batch id ["
@@ -204,6 +213,7 @@ public void onSendMessageError() throws Exception
 
         MailListener listener = this.mocker.getComponentUnderTest();
         listener.onPrepareBegin(batchId, Collections.<String, Object>emptyMap());
+        ((UpdateableMailStatusResult) listener.getMailStatusResult()).setTotalSize(1);
         listener.onSendMessageError(this.message, new Exception("Error"), Collections.<String, Object>emptyMap());
 
         verify(mailStatusStore).load(this.messageId);
@@ -220,12 +230,53 @@ public void onSendMessageFatalError() throws Exception
 
         MailListener listener = this.mocker.getComponentUnderTest();
         listener.onPrepareBegin(batchId, Collections.<String, Object>emptyMap());
+        ((UpdateableMailStatusResult) listener.getMailStatusResult()).setTotalSize(1);
         listener.onSendMessageFatalError(this.messageId, new Exception("Error"), Collections.<String, Object>emptyMap());
 
         verify(mailStatusStore).load(this.messageId);
         verify(mailStatusStore).save(argThat(new isSameMailStatus(MailState.SEND_FATAL_ERROR, "otherwiki")), anyMap());
     }
 
+    @Test
+    public void onSendMessageSuccessSavesStatusesInBatch() throws Exception
+    {
+        MailStatusStore mailStatusStore = this.mocker.getInstance(MailStatusStore.class, "database");
+
+        MailListener listener = this.mocker.getComponentUnderTest();
+        listener.onPrepareBegin(batchId, Collections.<String, Object>emptyMap());
+
+        List<ExtendedMimeMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ExtendedMimeMessage otherMessage = new ExtendedMimeMessage();
+            otherMessage.setType("type");
+            otherMessage.saveChanges();
+            otherMessage.setHeader("Message-ID", "<" + i + "." + mimeMessageId.substring(1));
+            listener.onPrepareMessageSuccess(otherMessage, Collections.<String, Object>emptyMap());
+            messages.add(otherMessage);
+        }
+        ((UpdateableMailStatusResult) listener.getMailStatusResult()).setTotalSize(3);
+
+        listener.onSendMessageSuccess(messages.get(0), Collections.<String, Object>emptyMap());
+        listener.onSendMessageSuccess(messages.get(1), Collections.<String, Object>emptyMap());
+
+        // Nothing is written and reported as processed before the last message of the batch is sent
+        verify(mailStatusStore, never()).save(any(Collection.class), anyMap());
+        assertEquals(0, listener.getMailStatusResult().getProcessedMailCount());
+
+        listener.onSendMessageSuccess(messages.get(2), Collections.<String, Object>emptyMap());
+
+        ArgumentCaptor<Collection<MailStatus>> statusesCapture = ArgumentCaptor.forClass(Collection.class);
+        verify(mailStatusStore).save(statusesCapture.capture(), anyMap());
+        assertEquals(3, statusesCapture.getValue().size());
+        for (MailStatus status : statusesCapture.getValue()) {
+            assertEquals(MailState.SEND_SUCCESS.toString(), status.getState());
+        }
+        assertTrue(listener.getMailStatusResult().isProcessed());
+
+        // The statuses saved when preparing the messages are reused
+        verify(mailStatusStore, never()).load(anyString());
+    }
+
     /**
      * Custom Mokito Argument Matchers.
      */
@@ -33,6 +33,7 @@
 import org.xwiki.notifications.CompositeEvent;
 import org.xwiki.notifications.NotificationException;
 import org.xwiki.notifications.NotificationFormat;
+import org.xwiki.notifications.sources.NotificationDigest;
 import org.xwiki.notifications.sources.NotificationManager;
 
 /**
@@ -51,16 +52,35 @@ public class DefaultPeriodicMimeMessageIterator extends AbstractMimeMessageItera
 
     private Date lastTrigger;
 
+    /**
+     * The events happened since the last trigger, loaded once for all the users of the iterator.
+     */
+    private NotificationDigest digest;
+
+    private boolean digestCreated;
+
     @Override
     public void initialize(NotificationUserIterator userIterator, Map<String, Object> factoryParameters,
             Date lastTrigger, DocumentReference templateReference)
     {
         this.lastTrigger = lastTrigger;
+        this.digest = null;
+        this.digestCreated = false;
         super.initialize(userIterator, factoryParameters, templateReference);
     }
 
     protected List<CompositeEvent> retrieveCompositeEventList(DocumentReference user) throws NotificationException
     {
+        if (!digestCreated) {
+            digestCreated = true;
+            digest = notificationManager.createDigest(lastTrigger);
+        }
+
+        if (digest != null) {
+            return notificationManager.getEvents(serializer.serialize(user), NotificationFormat.EMAIL, lastTrigger,
+                    digest);
+        }
+
         return notificationManager.getEvents(serializer.serialize(user),
                 NotificationFormat.EMAIL, Integer.MAX_VALUE / 4, null,
                 lastTrigger, Collections.emptyList());
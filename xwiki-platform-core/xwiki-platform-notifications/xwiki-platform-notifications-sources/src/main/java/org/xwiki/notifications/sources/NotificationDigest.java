@@ -0,0 +1,48 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.sources;
+
+import java.util.List;
+
+import org.xwiki.notifications.CompositeEvent;
+import org.xwiki.notifications.NotificationException;
+import org.xwiki.stability.Unstable;
+
+/**
+ * The events of an interval, loaded once so that the notifications of many users (e.g. the recipients of a daily or
+ * weekly digest) can be computed without searching the event store again for each of them.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+@FunctionalInterface
+@Unstable
+public interface NotificationDigest
+{
+    /**
+     * Get the events of the digest matching the given parameters.
+     *
+     * @param parameters parameters to take care of (their start date should not be older than the start date of the
+     *     digest)
+     * @return a list of the corresponding composite events
+     * @throws NotificationException if an error occurs
+     */
+    List<CompositeEvent> getEvents(NotificationParameters parameters) throws NotificationException;
+}
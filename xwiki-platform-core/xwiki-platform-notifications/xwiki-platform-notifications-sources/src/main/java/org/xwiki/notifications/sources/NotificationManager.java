@@ -19,6 +19,7 @@
  */
 package org.xwiki.notifications.sources;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -108,6 +109,38 @@ List<CompositeEvent> getEvents(String userId, NotificationFormat format, int exp
      */
     long getEventsCount(String userId, int maxCount) throws NotificationException;
 
+    /**
+     * Load the events happened since the given date once, so that the notifications of many users can then be
+     * computed for that interval with {@link #getEvents(String, NotificationFormat, Date, NotificationDigest)}.
+     *
+     * @param fromDate the start date of the interval
+     * @return the digest of the events of the interval, or {@code null} if digests are not supported
+     * @throws NotificationException if an error happens
+     * @since 10.5RC1
+     */
+    default NotificationDigest createDigest(Date fromDate) throws NotificationException
+    {
+        return null;
+    }
+
+    /**
+     * Return events to display as notifications concerning the specified user, taken from a digest created with
+     * {@link #createDigest(Date)}.
+     *
+     * @param userId id of the user
+     * @param format format of the notifications
+     * @param fromDate do not return events happened before this date
+     * @param digest the digest of the events of the interval
+     * @return the matching events for the user
+     * @throws NotificationException if an error happens
+     * @since 10.5RC1
+     */
+    default List<CompositeEvent> getEvents(String userId, NotificationFormat format, Date fromDate,
+            NotificationDigest digest) throws NotificationException
+    {
+        return getEvents(userId, format, Integer.MAX_VALUE / 4, null, fromDate, Collections.emptyList());
+    }
+
     /**
      * Set the start date for every notification preference of the given user.
      *
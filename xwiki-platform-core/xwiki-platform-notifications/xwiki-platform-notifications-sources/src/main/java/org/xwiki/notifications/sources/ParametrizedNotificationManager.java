@@ -19,6 +19,7 @@
  */
 package org.xwiki.notifications.sources;
 
+import java.util.Date;
 import java.util.List;
 
 import org.xwiki.component.annotation.Role;
@@ -42,4 +43,29 @@
      * @throws NotificationException if an error occurs
      */
     List<CompositeEvent> getEvents(NotificationParameters parameters) throws NotificationException;
+
+    /**
+     * Count the events matching the given parameters, without exceeding the expected count of the parameters.
+     * @param parameters parameters to take care of
+     * @return the number of composite events {@link #getEvents(NotificationParameters)} would return
+     * @throws NotificationException if an error occurs
+     * @since 10.5RC1
+     */
+    default long getEventsCount(NotificationParameters parameters) throws NotificationException
+    {
+        return getEvents(parameters).size();
+    }
+
+    /**
+     * Load the events happened since the given date once, so that the notifications of many users can then be
+     * computed for that interval without searching the event store for each of them.
+     * @param fromDate the start date of the interval
+     * @return the digest of the events of the interval
+     * @throws NotificationException if an error occurs
+     * @since 10.5RC1
+     */
+    default NotificationDigest createDigest(Date fromDate) throws NotificationException
+    {
+        return this::getEvents;
+    }
 }
@@ -0,0 +1,136 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.sources.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.xwiki.eventstream.Event;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.notifications.CompositeEvent;
+import org.xwiki.notifications.NotificationException;
+
+/**
+ * The composite events built for a request, indexed by the documents and the types of their events so that the
+ * events similar to a new one can be found without comparing it to every event already recorded.
+ * <p>
+ * Two events can only be similar (see {@link org.xwiki.notifications.internal.SimilarityCalculator}) if they concern
+ * the same document or, when the new event concerns no document, if they have the same type. The index may return
+ * composite events that no longer contain such an event, the similarity being computed again on their actual events.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+public class CompositeEventIndex
+{
+    private final List<CompositeEvent> compositeEvents = new ArrayList<>();
+
+    private final Map<CompositeEvent, Integer> positions = new HashMap<>();
+
+    private final Map<DocumentReference, Set<CompositeEvent>> byDocument = new HashMap<>();
+
+    private final Map<String, Set<CompositeEvent>> byType = new HashMap<>();
+
+    /**
+     * @return the composite events, in the order they have been created
+     */
+    public List<CompositeEvent> getCompositeEvents()
+    {
+        return compositeEvents;
+    }
+
+    /**
+     * @return the number of composite events
+     */
+    public int size()
+    {
+        return compositeEvents.size();
+    }
+
+    /**
+     * Record a new composite event.
+     *
+     * @param compositeEvent the composite event to add
+     */
+    public void add(CompositeEvent compositeEvent)
+    {
+        positions.put(compositeEvent, compositeEvents.size());
+        compositeEvents.add(compositeEvent);
+        for (Event event : compositeEvent.getEvents()) {
+            index(compositeEvent, event);
+        }
+    }
+
+    /**
+     * Add an event to a composite event already recorded.
+     *
+     * @param compositeEvent the composite event
+     * @param event the event to add
+     * @param similarity the similarity between the event to add and the events of the composite event
+     * @throws NotificationException if the addition is illegal
+     */
+    public void add(CompositeEvent compositeEvent, Event event, int similarity) throws NotificationException
+    {
+        compositeEvent.add(event, similarity);
+        index(compositeEvent, event);
+    }
+
+    /**
+     * @param event an event
+     * @return the composite events that may contain events similar to the given one, in the order they have been
+     *     created
+     */
+    public List<CompositeEvent> getCandidates(Event event)
+    {
+        Set<CompositeEvent> candidates = null;
+        if (event.getDocument() != null) {
+            candidates = byDocument.get(event.getDocument());
+        } else if (event.getType() != null) {
+            candidates = byType.get(event.getType());
+        }
+
+        if (candidates == null) {
+            return Collections.emptyList();
+        }
+
+        List<CompositeEvent> results = new ArrayList<>(candidates);
+        if (results.size() > 1) {
+            results.sort(Comparator.comparing(positions::get));
+        }
+
+        return results;
+    }
+
+    private void index(CompositeEvent compositeEvent, Event event)
+    {
+        if (event.getDocument() != null) {
+            byDocument.computeIfAbsent(event.getDocument(), k -> new LinkedHashSet<>()).add(compositeEvent);
+        }
+        if (event.getType() != null) {
+            byType.computeIfAbsent(event.getType(), k -> new LinkedHashSet<>()).add(compositeEvent);
+        }
+    }
+}
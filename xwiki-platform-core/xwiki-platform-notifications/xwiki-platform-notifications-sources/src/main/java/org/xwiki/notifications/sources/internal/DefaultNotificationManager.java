@@ -27,6 +27,7 @@
 
 import org.xwiki.bridge.DocumentAccessBridge;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.DocumentReferenceResolver;
 import org.xwiki.notifications.CompositeEvent;
 import org.xwiki.notifications.NotificationException;
@@ -34,6 +35,7 @@
 import org.xwiki.notifications.filters.NotificationFilterManager;
 import org.xwiki.notifications.preferences.NotificationPreference;
 import org.xwiki.notifications.preferences.NotificationPreferenceManager;
+import org.xwiki.notifications.sources.NotificationDigest;
 import org.xwiki.notifications.sources.NotificationManager;
 import org.xwiki.notifications.sources.NotificationParameters;
 import org.xwiki.notifications.sources.ParametrizedNotificationManager;
@@ -63,6 +65,9 @@ public class DefaultNotificationManager implements NotificationManager
     @Inject
     private ParametrizedNotificationManager parametrizedNotificationManager;
 
+    @Inject
+    private UnreadEventsCountCache unreadEventsCountCache;
+
     @Override
     public List<CompositeEvent> getEvents(String userId, int expectedCount)
             throws NotificationException
@@ -123,17 +128,50 @@ public long getEventsCount(String userId, int maxCount) throws NotificationExcep
         parameters.format = NotificationFormat.ALERT;
         parameters.expectedCount = maxCount;
         parameters.onlyUnread = true;
-        return getEvents(parameters).size();
+
+        Long count = unreadEventsCountCache.get(parameters.user, maxCount);
+        if (count == null) {
+            long generation = unreadEventsCountCache.getGeneration();
+            setUserPreferences(parameters);
+            count = parametrizedNotificationManager.getEventsCount(parameters);
+            unreadEventsCountCache.put(parameters.user, maxCount, count, generation);
+        }
+
+        return count;
+    }
+
+    @Override
+    public NotificationDigest createDigest(Date fromDate) throws NotificationException
+    {
+        return parametrizedNotificationManager.createDigest(fromDate);
+    }
+
+    @Override
+    public List<CompositeEvent> getEvents(String userId, NotificationFormat format, Date fromDate,
+            NotificationDigest digest) throws NotificationException
+    {
+        NotificationParameters parameters = new NotificationParameters();
+        parameters.user = documentReferenceResolver.resolve(userId);
+        parameters.format = format;
+        parameters.expectedCount = Integer.MAX_VALUE / 4;
+        parameters.fromDate = fromDate;
+        setUserPreferences(parameters);
+        return digest.getEvents(parameters);
     }
 
     private List<CompositeEvent> getEvents(NotificationParameters parameters)
             throws NotificationException
+    {
+        setUserPreferences(parameters);
+        return parametrizedNotificationManager.getEvents(parameters);
+    }
+
+    private void setUserPreferences(NotificationParameters parameters) throws NotificationException
     {
         parameters.preferences = notificationPreferenceManager.getPreferences(parameters.user, true,
                 parameters.format);
         parameters.filters = notificationFilterManager.getAllFilters(parameters.user, true);
         parameters.filterPreferences = notificationFilterManager.getFilterPreferences(parameters.user);
-        return parametrizedNotificationManager.getEvents(parameters);
     }
 
     @Override
@@ -152,6 +190,8 @@ public List<NotificationPreference> getPreferences(String userId) throws Notific
     @Override
     public void setStartDate(String userId, Date startDate) throws NotificationException
     {
-        notificationPreferenceManager.setStartDateForUser(documentReferenceResolver.resolve(userId), startDate);
+        DocumentReference user = documentReferenceResolver.resolve(userId);
+        notificationPreferenceManager.setStartDateForUser(user, startDate);
+        unreadEventsCountCache.invalidate(user);
     }
 }
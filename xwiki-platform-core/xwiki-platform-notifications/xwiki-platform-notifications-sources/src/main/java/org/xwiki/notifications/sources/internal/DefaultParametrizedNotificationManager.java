@@ -21,13 +21,18 @@
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.eventstream.Event;
 import org.xwiki.eventstream.EventStream;
@@ -36,9 +41,11 @@
 import org.xwiki.notifications.CompositeEvent;
 import org.xwiki.notifications.NotificationException;
 import org.xwiki.notifications.filters.NotificationFilter;
+import org.xwiki.notifications.filters.expression.ExpressionNode;
 import org.xwiki.notifications.filters.internal.status.EventReadAlertFilter;
 import org.xwiki.notifications.filters.internal.status.EventReadEmailFilter;
 import org.xwiki.notifications.internal.SimilarityCalculator;
+import org.xwiki.notifications.sources.NotificationDigest;
 import org.xwiki.notifications.sources.NotificationParameters;
 import org.xwiki.notifications.sources.ParametrizedNotificationManager;
 import org.xwiki.query.Query;
@@ -55,6 +62,12 @@
 @Singleton
 public class DefaultParametrizedNotificationManager implements ParametrizedNotificationManager
 {
+    /**
+     * Above this number of events in their interval, the digests search the event store for each user instead of
+     * keeping the events in memory.
+     */
+    private static final int DIGEST_MAX_EVENTS = 100000;
+
     @Inject
     private EventStream eventStream;
 
@@ -78,9 +91,107 @@ public class DefaultParametrizedNotificationManager implements ParametrizedNotif
     @Named(EventReadEmailFilter.FILTER_NAME)
     private NotificationFilter eventReadEmailFilter;
 
+    @Inject
+    private ExpressionNodeToMatcherConverter matcherConverter;
+
+    @Inject
+    private Logger logger;
+
     @Override
     public List<CompositeEvent> getEvents(NotificationParameters parameters)
             throws NotificationException
+    {
+        addReadFilters(parameters);
+        return getEvents(new CompositeEventIndex(), parameters);
+    }
+
+    @Override
+    public long getEventsCount(NotificationParameters parameters) throws NotificationException
+    {
+        addReadFilters(parameters);
+
+        // The database filters (including the read status) are applied by the query, so when the database count
+        // is zero there is no need to load, check and group the events. This is the most common case for unread
+        // notifications.
+        try {
+            Query query = queryGenerator.generateQuery(parameters);
+            if (query == null || eventStream.countEvents(query) == 0) {
+                return 0;
+            }
+        } catch (Exception e) {
+            throw new NotificationException("Fail to count the notifications.", e);
+        }
+
+        return getEvents(new CompositeEventIndex(), parameters).size();
+    }
+
+    @Override
+    public NotificationDigest createDigest(Date fromDate) throws NotificationException
+    {
+        List<IndexedEvent> events = fromDate != null ? loadEvents(fromDate) : null;
+        if (events == null) {
+            return this::getEvents;
+        }
+
+        return parameters -> getDigestEvents(parameters, events);
+    }
+
+    private List<IndexedEvent> loadEvents(Date fromDate) throws NotificationException
+    {
+        try {
+            Query query = queryGenerator.generateQuery(fromDate, null);
+            query.setLimit(DIGEST_MAX_EVENTS + 1);
+            List<Event> events = eventStream.searchEvents(query);
+            if (events.size() > DIGEST_MAX_EVENTS) {
+                logger.info("More than [{}] events happened since [{}], the notifications will be searched in the "
+                    + "event store for each user.", DIGEST_MAX_EVENTS, fromDate);
+                return null;
+            }
+
+            // The hidden flag is not part of the Event API, and it's not set for some events
+            Set<String> hiddenEvents =
+                new HashSet<>(getEventsIds(eventStream.searchEvents(queryGenerator.generateQuery(fromDate, true))));
+            Set<String> visibleEvents =
+                new HashSet<>(getEventsIds(eventStream.searchEvents(queryGenerator.generateQuery(fromDate, false))));
+
+            List<IndexedEvent> indexedEvents = new ArrayList<>(events.size());
+            for (Event event : events) {
+                indexedEvents.add(matcherConverter.index(event, getHidden(event, hiddenEvents, visibleEvents)));
+            }
+
+            return indexedEvents;
+        } catch (Exception e) {
+            throw new NotificationException("Fail to load the events of the digest.", e);
+        }
+    }
+
+    private List<CompositeEvent> getDigestEvents(NotificationParameters parameters, List<IndexedEvent> events)
+            throws NotificationException
+    {
+        addReadFilters(parameters);
+
+        ExpressionNode expression = queryGenerator.generateQueryExpression(parameters);
+        if (expression == null) {
+            return Collections.emptyList();
+        }
+
+        Predicate<IndexedEvent> matcher = matcherConverter.parse(expression);
+        if (matcher == null) {
+            // Some filters of the user can only be evaluated by the event store
+            return getEvents(new CompositeEventIndex(), parameters);
+        }
+
+        CompositeEventIndex results = new CompositeEventIndex();
+        for (IndexedEvent event : events) {
+            if (matcher.test(event) && recordVisibleEvent(results, event.getEvent(), parameters)) {
+                break;
+            }
+        }
+
+        return results.getCompositeEvents();
+    }
+
+    private void addReadFilters(NotificationParameters parameters)
     {
         if (Boolean.TRUE.equals(parameters.onlyUnread) && !parameters.filters.contains(eventReadAlertFilter)) {
             parameters.filters.add(eventReadAlertFilter);
@@ -88,10 +199,9 @@ public List<CompositeEvent> getEvents(NotificationParameters parameters)
         if (Boolean.TRUE.equals(parameters.onlyUnread) && !parameters.filters.contains(eventReadEmailFilter)) {
             parameters.filters.add(eventReadEmailFilter);
         }
-        return getEvents(new ArrayList<>(), parameters);
     }
 
-    private List<CompositeEvent> getEvents(List<CompositeEvent> results, NotificationParameters parameters)
+    private List<CompositeEvent> getEvents(CompositeEventIndex results, NotificationParameters parameters)
             throws NotificationException
     {
         // Because the user might not be able to see all notifications because of the rights, we take from the database
@@ -110,22 +220,9 @@ private List<CompositeEvent> getEvents(List<CompositeEvent> results, Notificatio
 
             // Add to the results the events the user has the right to see
             for (Event event : batch) {
-                DocumentReference document = event.getDocument();
-                // Don't record events concerning a doc the user cannot see
-                if (document != null && !authorizationManager.hasAccess(Right.VIEW, parameters.user,
-                        document)) {
-                    continue;
-                }
-
-                if (filterEvent(event, parameters)) {
-                    continue;
-                }
-
-                // Record this event
-                recordEvent(results, event);
                 // If the expected count is reached, stop now
-                if (results.size() >= parameters.expectedCount) {
-                    return results;
+                if (recordVisibleEvent(results, event, parameters)) {
+                    return results.getCompositeEvents();
                 }
             }
 
@@ -135,12 +232,31 @@ private List<CompositeEvent> getEvents(List<CompositeEvent> results, Notificatio
                 getEvents(results, parameters);
             }
 
-            return results;
+            return results.getCompositeEvents();
         } catch (Exception e) {
             throw new NotificationException("Fail to get the list of notifications.", e);
         }
     }
 
+    private boolean recordVisibleEvent(CompositeEventIndex results, Event event, NotificationParameters parameters)
+            throws NotificationException
+    {
+        DocumentReference document = event.getDocument();
+        // Don't record events concerning a doc the user cannot see
+        if (document != null && !authorizationManager.hasAccess(Right.VIEW, parameters.user, document)) {
+            return false;
+        }
+
+        if (filterEvent(event, parameters)) {
+            return false;
+        }
+
+        // Record this event
+        recordEvent(results, event);
+
+        return results.size() >= parameters.expectedCount;
+    }
+
     private boolean filterEvent(Event event, NotificationParameters parameters)
     {
         // Don't record events that have a target that don't include the current user
@@ -167,6 +283,17 @@ private boolean filterEvent(Event event, NotificationParameters parameters)
         return false;
     }
 
+    private Boolean getHidden(Event event, Set<String> hiddenEvents, Set<String> visibleEvents)
+    {
+        if (hiddenEvents.contains(event.getId())) {
+            return true;
+        } else if (visibleEvents.contains(event.getId())) {
+            return false;
+        }
+
+        return null;
+    }
+
     private List<String> getEventsIds(List<Event> events)
     {
         return events.stream().map(Event::getId).collect(Collectors.toList());
@@ -193,7 +320,7 @@ public boolean isCompositeEventCompatibleWith(Event event)
         }
     }
 
-    private void recordEvent(List<CompositeEvent> results, Event event) throws NotificationException
+    private void recordEvent(CompositeEventIndex results, Event event) throws NotificationException
     {
         BestSimilarity bestSimilarity = getBestSimilarity(results, event);
 
@@ -222,9 +349,9 @@ private void recordEvent(List<CompositeEvent> results, Event event) throws Notif
                     // (or vice versa)
                     // It means the "update" event X has been triggered for technical reason, but the interesting event
                     // is Y, which we can group with the event E.
-                    bestSecondChoice.compositeEvent.add(bestSimilarity.event,
+                    results.add(bestSecondChoice.compositeEvent, bestSimilarity.event,
                             bestSecondChoice.compositeEvent.getSimilarityBetweenEvents());
-                    bestSecondChoice.compositeEvent.add(event,
+                    results.add(bestSecondChoice.compositeEvent, event,
                             bestSecondChoice.compositeEvent.getSimilarityBetweenEvents());
                 } else {
                     CompositeEvent newCompositeEvent = new CompositeEvent(event);
@@ -237,7 +364,7 @@ private void recordEvent(List<CompositeEvent> results, Event event) throws Notif
                 // We have found a composite event C1 made of events (A, B, C) which have the same similarity between
                 // themselves than between A end E.
                 // All we need to do it to add E to C1.
-                bestSimilarity.compositeEvent.add(event, bestSimilarity.value);
+                results.add(bestSimilarity.compositeEvent, event, bestSimilarity.value);
                 return;
             } else if (bestSimilarity.isCompositeEventCompatibleWith(event)) {
                 // We have found a composite event C1 made of events (A, B) which have a greater similarity between
@@ -250,7 +377,7 @@ private void recordEvent(List<CompositeEvent> results, Event event) throws Notif
                 // (or vice versa)
                 // It means the "update" event A has been triggered for technical reason, but the interesting event is
                 // B, which we can group with the event E.
-                bestSimilarity.compositeEvent.add(event,
+                results.add(bestSimilarity.compositeEvent, event,
                         bestSimilarity.compositeEvent.getSimilarityBetweenEvents());
                 return;
             }
@@ -259,12 +386,13 @@ private void recordEvent(List<CompositeEvent> results, Event event) throws Notif
         results.add(new CompositeEvent(event));
     }
 
-    private BestSimilarity getBestSimilarity(List<CompositeEvent> results, Event event)
+    private BestSimilarity getBestSimilarity(CompositeEventIndex results, Event event)
     {
         BestSimilarity bestSimilarity = new BestSimilarity();
 
-        // Looking for the most similar event inside the existing composite events
-        for (CompositeEvent existingCompositeEvent : results) {
+        // Looking for the most similar event inside the existing composite events (only the ones containing events
+        // concerning the same document, or having the same type when there is no document, can be similar)
+        for (CompositeEvent existingCompositeEvent : results.getCandidates(event)) {
             for (Event existingEvent : existingCompositeEvent.getEvents()) {
                 int similarity = similarityCalculator.computeSimilarity(event, existingEvent);
                 if (similarity < existingCompositeEvent.getSimilarityBetweenEvents()) {
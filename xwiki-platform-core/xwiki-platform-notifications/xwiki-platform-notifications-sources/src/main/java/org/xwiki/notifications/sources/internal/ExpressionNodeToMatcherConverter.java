@@ -0,0 +1,301 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.sources.internal;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.eventstream.Event;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.notifications.filters.expression.AndNode;
+import org.xwiki.notifications.filters.expression.BooleanValueNode;
+import org.xwiki.notifications.filters.expression.DateValueNode;
+import org.xwiki.notifications.filters.expression.EndsWith;
+import org.xwiki.notifications.filters.expression.EntityReferenceNode;
+import org.xwiki.notifications.filters.expression.EqualsNode;
+import org.xwiki.notifications.filters.expression.EventProperty;
+import org.xwiki.notifications.filters.expression.ExpressionNode;
+import org.xwiki.notifications.filters.expression.GreaterThanNode;
+import org.xwiki.notifications.filters.expression.InNode;
+import org.xwiki.notifications.filters.expression.LesserThanNode;
+import org.xwiki.notifications.filters.expression.NotEqualsNode;
+import org.xwiki.notifications.filters.expression.NotNode;
+import org.xwiki.notifications.filters.expression.OrNode;
+import org.xwiki.notifications.filters.expression.PropertyValueNode;
+import org.xwiki.notifications.filters.expression.StartsWith;
+import org.xwiki.notifications.filters.expression.StringValueNode;
+import org.xwiki.notifications.filters.expression.generics.AbstractBinaryOperatorNode;
+import org.xwiki.notifications.filters.expression.generics.AbstractValueNode;
+
+/**
+ * Converter used to evaluate {@link ExpressionNode} based abstract syntax trees against events loaded in memory,
+ * giving the same results than the HQL generated by {@link ExpressionNodeToHQLConverter}.
+ * <p>
+ * As in SQL, a comparison involving a missing value is unknown, and so is its negation: the matchers work with
+ * {@link Boolean} values where {@code null} stands for unknown. The strings are compared ignoring the case, as with the
+ * default collation of MySQL.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+@Component(roles = ExpressionNodeToMatcherConverter.class)
+@Singleton
+public class ExpressionNodeToMatcherConverter
+{
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    @Inject
+    @Named("compactwiki")
+    private EntityReferenceSerializer<String> compactSerializer;
+
+    /**
+     * Compute the values of the properties of an event, as they are stored in the event store.
+     *
+     * @param event the event to index
+     * @param hidden whether the event concerns a hidden document, {@code null} if it's not set in the event store
+     * @return the indexed event
+     */
+    public IndexedEvent index(Event event, Boolean hidden)
+    {
+        Object[] values = new Object[EventProperty.values().length];
+
+        values[EventProperty.ID.ordinal()] = event.getId();
+        values[EventProperty.GROUP_ID.ordinal()] = event.getGroupId();
+        values[EventProperty.STREAM.ordinal()] = event.getStream();
+        values[EventProperty.DATE.ordinal()] = event.getDate() != null ? event.getDate().getTime() : null;
+        values[EventProperty.APPLICATION.ordinal()] = event.getApplication();
+        values[EventProperty.BODY.ordinal()] = event.getBody();
+        values[EventProperty.TYPE.ordinal()] = event.getType();
+        values[EventProperty.HIDDEN.ordinal()] = hidden;
+        values[EventProperty.PAGE.ordinal()] = serialize(compactSerializer, event.getDocument(), event.getWiki());
+        values[EventProperty.IMPORTANCE.ordinal()] =
+            event.getImportance() != null ? (event.getImportance().ordinal() + 1) * 10 : null;
+        values[EventProperty.SPACE.ordinal()] = serialize(compactSerializer, event.getSpace(), event.getWiki());
+        values[EventProperty.TITLE.ordinal()] = event.getTitle();
+        values[EventProperty.USER.ordinal()] = serialize(serializer, event.getUser());
+        values[EventProperty.WIKI.ordinal()] = serialize(serializer, event.getWiki());
+        values[EventProperty.URL.ordinal()] = event.getUrl() != null ? event.getUrl().toString() : null;
+        values[EventProperty.DOCUMENT_VERSION.ordinal()] = event.getDocumentVersion();
+
+        return new IndexedEvent(event, values);
+    }
+
+    /**
+     * Convert an ExpressionNode to a predicate on indexed events.
+     *
+     * @param node the node to convert
+     * @return the predicate matching the events selected by the expression, or {@code null} if the expression
+     *     contains nodes that can only be evaluated by the event store
+     */
+    public Predicate<IndexedEvent> parse(ExpressionNode node)
+    {
+        Function<IndexedEvent, Boolean> matcher = parseBlock(node);
+        if (matcher == null) {
+            return null;
+        }
+
+        return event -> Boolean.TRUE.equals(matcher.apply(event));
+    }
+
+    private Function<IndexedEvent, Boolean> parseBlock(ExpressionNode node)
+    {
+        if (node instanceof NotNode) {
+            Function<IndexedEvent, Boolean> operand = parseBlock(((NotNode) node).getOperand());
+            return operand != null ? event -> not(operand.apply(event)) : null;
+        } else if (node instanceof AndNode || node instanceof OrNode) {
+            return parseLogicalOperator((AbstractBinaryOperatorNode) node);
+        } else if (node instanceof AbstractBinaryOperatorNode) {
+            return parseComparison((AbstractBinaryOperatorNode) node);
+        } else if (node instanceof InNode) {
+            return parseIn((InNode) node);
+        } else if (node instanceof OrderByNode) {
+            // The indexed events are already sorted by descending date, which is the only order the generated
+            // queries use
+            OrderByNode orderByNode = (OrderByNode) node;
+            return orderByNode.getProperty().getContent() == EventProperty.DATE
+                && orderByNode.getOrder() == OrderByNode.Order.DESC ? parseBlock(orderByNode.getQuery()) : null;
+        } else {
+            // Nodes such as InListOfReadEventsNode need the event store
+            return null;
+        }
+    }
+
+    private Function<IndexedEvent, Boolean> parseLogicalOperator(AbstractBinaryOperatorNode operator)
+    {
+        Function<IndexedEvent, Boolean> left = parseBlock(operator.getLeftOperand());
+        Function<IndexedEvent, Boolean> right = parseBlock(operator.getRightOperand());
+        if (left == null || right == null) {
+            return null;
+        }
+
+        if (operator instanceof AndNode) {
+            return event -> and(left.apply(event), right.apply(event));
+        } else {
+            return event -> or(left.apply(event), right.apply(event));
+        }
+    }
+
+    private Function<IndexedEvent, Boolean> parseComparison(AbstractBinaryOperatorNode operator)
+    {
+        if (!(operator.getLeftOperand() instanceof AbstractValueNode)
+            || !(operator.getRightOperand() instanceof AbstractValueNode)) {
+            return null;
+        }
+
+        Function<IndexedEvent, Object> left = parseValue((AbstractValueNode) operator.getLeftOperand());
+        Function<IndexedEvent, Object> right = parseValue((AbstractValueNode) operator.getRightOperand());
+        if (left == null || right == null) {
+            return null;
+        }
+
+        if (operator instanceof EqualsNode) {
+            return event -> compare(left.apply(event), right.apply(event), c -> c == 0);
+        } else if (operator instanceof NotEqualsNode) {
+            return event -> compare(left.apply(event), right.apply(event), c -> c != 0);
+        } else if (operator instanceof GreaterThanNode) {
+            return event -> compare(left.apply(event), right.apply(event), c -> c >= 0);
+        } else if (operator instanceof LesserThanNode) {
+            return event -> compare(left.apply(event), right.apply(event), c -> c <= 0);
+        } else if (operator instanceof StartsWith) {
+            return event -> test(left.apply(event), right.apply(event),
+                (l, r) -> l.regionMatches(true, 0, r, 0, r.length()));
+        } else if (operator instanceof EndsWith) {
+            return event -> test(left.apply(event), right.apply(event),
+                (l, r) -> l.regionMatches(true, l.length() - r.length(), r, 0, r.length()));
+        } else {
+            return null;
+        }
+    }
+
+    private Function<IndexedEvent, Boolean> parseIn(InNode operator)
+    {
+        if (!(operator.getLeftOperand() instanceof AbstractValueNode)) {
+            return null;
+        }
+
+        Function<IndexedEvent, Object> left = parseValue((AbstractValueNode) operator.getLeftOperand());
+        List<Function<IndexedEvent, Object>> values = new ArrayList<>();
+        for (AbstractValueNode value : operator.getValues()) {
+            values.add(parseValue(value));
+        }
+        if (left == null || values.contains(null)) {
+            return null;
+        }
+
+        return event -> {
+            Object leftValue = left.apply(event);
+            Boolean result = false;
+            for (Function<IndexedEvent, Object> value : values) {
+                result = or(result, compare(leftValue, value.apply(event), c -> c == 0));
+            }
+            return result;
+        };
+    }
+
+    private Function<IndexedEvent, Object> parseValue(AbstractValueNode value)
+    {
+        Object constant;
+
+        if (value instanceof PropertyValueNode) {
+            EventProperty property = ((PropertyValueNode) value).getContent();
+            return event -> event.getValue(property);
+        } else if (value instanceof StringValueNode) {
+            constant = ((StringValueNode) value).getContent();
+        } else if (value instanceof EntityReferenceNode) {
+            constant = serializer.serialize(((EntityReferenceNode) value).getContent());
+        } else if (value instanceof DateValueNode) {
+            Date date = ((DateValueNode) value).getContent();
+            constant = date != null ? date.getTime() : null;
+        } else if (value instanceof BooleanValueNode) {
+            constant = ((BooleanValueNode) value).getContent();
+        } else {
+            return null;
+        }
+
+        return event -> constant;
+    }
+
+    private String serialize(EntityReferenceSerializer<String> entitySerializer, EntityReference reference,
+        Object... parameters)
+    {
+        return reference != null ? entitySerializer.serialize(reference, parameters) : null;
+    }
+
+    private Boolean compare(Object left, Object right, Predicate<Integer> expected)
+    {
+        if (left == null || right == null) {
+            return null;
+        }
+
+        int comparison;
+        if (left instanceof Number && right instanceof Number) {
+            comparison = Long.compare(((Number) left).longValue(), ((Number) right).longValue());
+        } else if (left instanceof Boolean && right instanceof Boolean) {
+            comparison = Boolean.compare((Boolean) left, (Boolean) right);
+        } else {
+            comparison = left.toString().compareToIgnoreCase(right.toString());
+        }
+
+        return expected.test(comparison);
+    }
+
+    private Boolean test(Object left, Object right, BiPredicate<String, String> predicate)
+    {
+        if (left == null || right == null) {
+            return null;
+        }
+
+        return predicate.test(left.toString(), right.toString());
+    }
+
+    private Boolean not(Boolean value)
+    {
+        return value != null ? !value : null;
+    }
+
+    private Boolean and(Boolean left, Boolean right)
+    {
+        if (Boolean.FALSE.equals(left) || Boolean.FALSE.equals(right)) {
+            return false;
+        }
+
+        return left != null && right != null ? true : null;
+    }
+
+    private Boolean or(Boolean left, Boolean right)
+    {
+        if (Boolean.TRUE.equals(left) || Boolean.TRUE.equals(right)) {
+            return true;
+        }
+
+        return left != null && right != null ? false : null;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.sources.internal;
+
+import org.xwiki.eventstream.Event;
+import org.xwiki.notifications.filters.expression.EventProperty;
+
+/**
+ * An event loaded in memory along with the values of its properties, as they are stored in the event store.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+public final class IndexedEvent
+{
+    private final Event event;
+
+    private final Object[] values;
+
+    /**
+     * @param event the event
+     * @param values the values of the properties of the event, indexed by the ordinal of the {@link EventProperty}
+     */
+    IndexedEvent(Event event, Object[] values)
+    {
+        this.event = event;
+        this.values = values;
+    }
+
+    /**
+     * @return the event
+     */
+    public Event getEvent()
+    {
+        return event;
+    }
+
+    /**
+     * @param property a property of the event
+     * @return the value of the property, as it is stored in the event store
+     */
+    public Object getValue(EventProperty property)
+    {
+        return values[property.ordinal()];
+    }
+}
@@ -21,6 +21,7 @@
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -98,7 +99,40 @@
      */
     public Query generateQuery(NotificationParameters parameters) throws QueryException
     {
-        ExpressionNodeToHQLConverter.HQLQuery result = hqlConverter.parse(generateQueryExpression(parameters));
+        return generateQuery(generateQueryExpression(parameters));
+    }
+
+    /**
+     * Generate the query returning all the events happened since the given date, most recent first.
+     *
+     * @param fromDate the date from which the events should be returned
+     * @param hidden if not {@code null}, return only the events which hidden flag has this value
+     * @return the query to execute
+     * @throws QueryException if error happens
+     * @since 10.5RC1
+     */
+    public Query generateQuery(Date fromDate, Boolean hidden) throws QueryException
+    {
+        AbstractOperatorNode topNode = new GreaterThanNode(
+                new PropertyValueNode(EventProperty.DATE),
+                new DateValueNode(fromDate)
+        );
+
+        if (hidden != null) {
+            topNode = topNode.and(
+                    new EqualsNode(
+                            new PropertyValueNode(EventProperty.HIDDEN),
+                            new BooleanValueNode(hidden)
+                    )
+            );
+        }
+
+        return generateQuery(handleOrder(topNode));
+    }
+
+    private Query generateQuery(ExpressionNode expression) throws QueryException
+    {
+        ExpressionNodeToHQLConverter.HQLQuery result = hqlConverter.parse(expression);
         if (result.getQuery().isEmpty()) {
             return null;
         }
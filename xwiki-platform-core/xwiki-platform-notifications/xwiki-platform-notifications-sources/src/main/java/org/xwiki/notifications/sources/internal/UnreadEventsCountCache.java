@@ -0,0 +1,163 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.sources.internal;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.DocumentReference;
+
+/**
+ * Keep the number of unread notifications of the users so that it's not computed for each displayed page.
+ * <p>
+ * The count of a user is invalidated when the user changes the status of an event or its preferences, or is the
+ * target of a new event. Since the users concerned by other events can only be known by applying all their filters,
+ * and since some changes (rights, other cluster members) can't be tracked, the counts also expire after a minute.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+@Component(roles = UnreadEventsCountCache.class)
+@Singleton
+public class UnreadEventsCountCache
+{
+    private static final int CAPACITY = 10000;
+
+    private static final long TIME_TO_LIVE = 60000L;
+
+    private final ConcurrentMap<DocumentReference, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented on each invalidation so that a count computed before an invalidation is never stored.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * The generation of the last invalidation of each user.
+     */
+    private final ConcurrentMap<DocumentReference, Long> invalidations = new ConcurrentHashMap<>();
+
+    /**
+     * The generation of the last invalidation of all the users.
+     */
+    private volatile long allInvalidation;
+
+    private static final class Entry
+    {
+        private final long count;
+
+        private final int maxCount;
+
+        private final long time;
+
+        Entry(long count, int maxCount)
+        {
+            this.count = count;
+            this.maxCount = maxCount;
+            this.time = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * @return the current generation, to pass to {@link #put(DocumentReference, int, long, long)}
+     */
+    public long getGeneration()
+    {
+        return this.generation.get();
+    }
+
+    /**
+     * @param user the user
+     * @param maxCount the maximum number of events counted
+     * @return the cached number of unread events, {@code null} if unknown
+     */
+    public Long get(DocumentReference user, int maxCount)
+    {
+        Entry entry = this.entries.get(user);
+
+        if (entry != null && entry.maxCount == maxCount
+            && System.currentTimeMillis() - entry.time < TIME_TO_LIVE) {
+            return entry.count;
+        }
+
+        return null;
+    }
+
+    /**
+     * @param user the user
+     * @param maxCount the maximum number of events counted
+     * @param count the number of unread events
+     * @param countGeneration the generation returned by {@link #getGeneration()} before the count was computed
+     */
+    public void put(DocumentReference user, int maxCount, long count, long countGeneration)
+    {
+        if (this.entries.size() >= CAPACITY) {
+            this.entries.clear();
+        }
+
+        Entry entry = new Entry(count, maxCount);
+        this.entries.put(user, entry);
+
+        // Forget the count if it was invalidated while being computed
+        if (isInvalidated(user, countGeneration)) {
+            this.entries.remove(user, entry);
+        }
+    }
+
+    private boolean isInvalidated(DocumentReference user, long countGeneration)
+    {
+        if (this.allInvalidation > countGeneration) {
+            return true;
+        }
+
+        Long userInvalidation = this.invalidations.get(user);
+
+        return userInvalidation != null && userInvalidation > countGeneration;
+    }
+
+    /**
+     * @param user the user whose count should be forgotten
+     */
+    public void invalidate(DocumentReference user)
+    {
+        if (this.invalidations.size() >= CAPACITY) {
+            // The counts being computed can't be checked against the forgotten invalidations anymore
+            this.allInvalidation = this.generation.incrementAndGet();
+            this.invalidations.clear();
+        }
+
+        this.invalidations.put(user, this.generation.incrementAndGet());
+        this.entries.remove(user);
+    }
+
+    /**
+     * Forget the counts of all the users.
+     */
+    public void invalidateAll()
+    {
+        this.allInvalidation = this.generation.incrementAndGet();
+        this.invalidations.clear();
+        this.entries.clear();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.sources.internal;
+
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.bridge.DocumentModelBridge;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.eventstream.EventStatus;
+import org.xwiki.eventstream.events.EventStatusAddOrUpdatedEvent;
+import org.xwiki.eventstream.events.EventStreamAddedEvent;
+import org.xwiki.eventstream.events.EventStreamDeletedEvent;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+
+/**
+ * Invalidate the {@link UnreadEventsCountCache} when the stored events, their status or the users preferences change.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+@Component
+@Singleton
+@Named(UnreadEventsCountCacheListener.NAME)
+public class UnreadEventsCountCacheListener extends AbstractEventListener
+{
+    /**
+     * The name of the listener.
+     */
+    public static final String NAME = "Unread Events Count Cache Listener";
+
+    @Inject
+    private UnreadEventsCountCache cache;
+
+    @Inject
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    /**
+     * Constructs a new {@link UnreadEventsCountCacheListener}.
+     */
+    public UnreadEventsCountCacheListener()
+    {
+        super(NAME, new EventStreamAddedEvent(), new EventStreamDeletedEvent(), new EventStatusAddOrUpdatedEvent(),
+            new DocumentUpdatedEvent());
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        if (event instanceof EventStatusAddOrUpdatedEvent) {
+            this.cache.invalidate(this.documentReferenceResolver.resolve(((EventStatus) source).getEntityId()));
+        } else if (event instanceof DocumentUpdatedEvent) {
+            // The notification preferences and filters of a user are stored in its profile
+            this.cache.invalidate(((DocumentModelBridge) source).getDocumentReference());
+        } else {
+            // The users concerned by an event which has no explicit target can only be known by applying all their
+            // filters: their counts are refreshed when they expire
+            Set<String> targets = ((org.xwiki.eventstream.Event) source).getTarget();
+            if (targets != null) {
+                for (String target : targets) {
+                    this.cache.invalidate(this.documentReferenceResolver.resolve(target));
+                }
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@
  */
 package org.xwiki.notifications.sources.internal;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
@@ -34,9 +35,11 @@
 import org.xwiki.notifications.NotificationException;
 import org.xwiki.notifications.NotificationFormat;
 import org.xwiki.notifications.filters.NotificationFilter;
+import org.xwiki.notifications.filters.expression.ExpressionNode;
 import org.xwiki.notifications.internal.SimilarityCalculator;
 import org.xwiki.notifications.preferences.NotificationPreference;
 import org.xwiki.notifications.preferences.NotificationPreferenceProperty;
+import org.xwiki.notifications.sources.NotificationDigest;
 import org.xwiki.notifications.sources.NotificationParameters;
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryException;
@@ -52,6 +55,8 @@
 import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
@@ -132,6 +137,182 @@ public void getEventsWith2Queries() throws Exception
         assertEquals(event5, results.get(1).getEvents().get(0));
     }
 
+    @Test
+    public void getEventsCountWhenNoEventInDatabase() throws Exception
+    {
+        when(eventStream.countEvents(query)).thenReturn(0L);
+
+        NotificationParameters parameters = new NotificationParameters();
+        parameters.user = new DocumentReference("xwiki", "XWiki", "UserA");
+        parameters.expectedCount = 20;
+
+        assertEquals(0, mocker.getComponentUnderTest().getEventsCount(parameters));
+
+        verify(eventStream, never()).searchEvents(any());
+    }
+
+    @Test
+    public void getEventsCount() throws Exception
+    {
+        Event event1 = createMockedEvent();
+        Event event2 = createMockedEvent();
+        Event event3 = createMockedEvent();
+
+        DocumentReference doc1 = new DocumentReference("xwiki", "Main", "WebHome");
+        when(event1.getDocument()).thenReturn(doc1);
+        DocumentReference doc2 = new DocumentReference("xwiki", "PrivateSpace", "WebHome");
+        when(event2.getDocument()).thenReturn(doc2);
+        DocumentReference doc3 = new DocumentReference("xwiki", "Sandbox", "WebHome");
+        when(event3.getDocument()).thenReturn(doc3);
+
+        when(authorizationManager.hasAccess(Right.VIEW, userReference, doc1)).thenReturn(true);
+        when(authorizationManager.hasAccess(Right.VIEW, userReference, doc2)).thenReturn(false);
+        when(authorizationManager.hasAccess(Right.VIEW, userReference, doc3)).thenReturn(true);
+
+        when(event1.getType()).thenReturn("type1");
+        when(event2.getType()).thenReturn("type2");
+        when(event3.getType()).thenReturn("type3");
+
+        when(eventStream.countEvents(query)).thenReturn(3L);
+        when(eventStream.searchEvents(query)).thenReturn(Arrays.asList(event1, event2, event3));
+
+        NotificationParameters parameters = new NotificationParameters();
+        parameters.user = new DocumentReference("xwiki", "XWiki", "UserA");
+        parameters.expectedCount = 20;
+
+        assertEquals(2, mocker.getComponentUnderTest().getEventsCount(parameters));
+    }
+
+    @Test
+    public void getEventsWithManyEvents() throws Exception
+    {
+        // Facts:
+        // * 1000 events of 2 types on 10 documents, without group id
+
+        // Expected:
+        // * the events are grouped by type and document
+
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Event event = mock(Event.class);
+            when(event.getDate()).thenReturn(new Date(1000L - i));
+            when(event.getDocument()).thenReturn(new DocumentReference("xwiki", "Main", "Page" + (i % 10)));
+            when(event.getType()).thenReturn(i % 20 < 10 ? "update" : "addComment");
+            events.add(event);
+        }
+
+        when(authorizationManager.hasAccess(eq(Right.VIEW), eq(userReference), any(DocumentReference.class)))
+            .thenReturn(true);
+        when(eventStream.searchEvents(query)).thenReturn(events);
+
+        // Test
+        NotificationParameters parameters = new NotificationParameters();
+        parameters.user = userReference;
+        parameters.expectedCount = 100;
+        List<CompositeEvent> results = mocker.getComponentUnderTest().getEvents(parameters);
+
+        // Verify
+        assertEquals(20, results.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(50, results.get(i).getEvents().size());
+            assertEquals(events.get(i), results.get(i).getEvents().get(0));
+        }
+    }
+
+    @Test
+    public void createDigest() throws Exception
+    {
+        ExpressionNodeToMatcherConverter matcherConverter =
+            mocker.getInstance(ExpressionNodeToMatcherConverter.class);
+
+        Date fromDate = new Date(10L);
+        Query eventsQuery = mock(Query.class);
+        Query hiddenEventsQuery = mock(Query.class);
+        Query visibleEventsQuery = mock(Query.class);
+        when(queryGenerator.generateQuery(fromDate, null)).thenReturn(eventsQuery);
+        when(queryGenerator.generateQuery(fromDate, true)).thenReturn(hiddenEventsQuery);
+        when(queryGenerator.generateQuery(fromDate, false)).thenReturn(visibleEventsQuery);
+
+        Event event1 = createMockedEvent();
+        Event event2 = createMockedEvent();
+        Event event3 = createMockedEvent();
+        when(event1.getId()).thenReturn("event1");
+        when(event2.getId()).thenReturn("event2");
+        when(event3.getId()).thenReturn("event3");
+        when(event1.getType()).thenReturn("type1");
+        when(event2.getType()).thenReturn("type2");
+        when(event3.getType()).thenReturn("type3");
+        when(eventStream.searchEvents(eventsQuery)).thenReturn(Arrays.asList(event1, event2, event3));
+        when(eventStream.searchEvents(hiddenEventsQuery)).thenReturn(Arrays.asList(event2));
+        // The hidden flag of the third event is not set
+        when(eventStream.searchEvents(visibleEventsQuery)).thenReturn(Arrays.asList(event1));
+
+        IndexedEvent indexedEvent1 = new IndexedEvent(event1, new Object[0]);
+        IndexedEvent indexedEvent2 = new IndexedEvent(event2, new Object[0]);
+        IndexedEvent indexedEvent3 = new IndexedEvent(event3, new Object[0]);
+        when(matcherConverter.index(event1, false)).thenReturn(indexedEvent1);
+        when(matcherConverter.index(event2, true)).thenReturn(indexedEvent2);
+        when(matcherConverter.index(event3, null)).thenReturn(indexedEvent3);
+
+        NotificationParameters parametersA = new NotificationParameters();
+        parametersA.user = userReference;
+        parametersA.expectedCount = 10;
+        ExpressionNode expressionA = mock(ExpressionNode.class);
+        when(queryGenerator.generateQueryExpression(parametersA)).thenReturn(expressionA);
+        when(matcherConverter.parse(expressionA)).thenReturn(event -> true);
+
+        NotificationParameters parametersB = new NotificationParameters();
+        parametersB.user = new DocumentReference("xwiki", "XWiki", "UserB");
+        parametersB.expectedCount = 10;
+        ExpressionNode expressionB = mock(ExpressionNode.class);
+        when(queryGenerator.generateQueryExpression(parametersB)).thenReturn(expressionB);
+        when(matcherConverter.parse(expressionB)).thenReturn(event -> event == indexedEvent2);
+
+        // Test
+        NotificationDigest digest = mocker.getComponentUnderTest().createDigest(fromDate);
+        List<CompositeEvent> resultsA = digest.getEvents(parametersA);
+        List<CompositeEvent> resultsB = digest.getEvents(parametersB);
+
+        // Verify
+        assertEquals(3, resultsA.size());
+        assertEquals(event1, resultsA.get(0).getEvents().get(0));
+        assertEquals(event2, resultsA.get(1).getEvents().get(0));
+        assertEquals(event3, resultsA.get(2).getEvents().get(0));
+        assertEquals(1, resultsB.size());
+        assertEquals(event2, resultsB.get(0).getEvents().get(0));
+
+        // The events have been loaded once for all the users
+        verify(eventStream).searchEvents(eventsQuery);
+        verify(eventStream).searchEvents(hiddenEventsQuery);
+        verify(eventStream).searchEvents(visibleEventsQuery);
+        verify(eventStream, never()).searchEvents(query);
+    }
+
+    @Test
+    public void createDigestWhenFiltersNeedTheEventStore() throws Exception
+    {
+        Date fromDate = new Date(10L);
+        Query eventsQuery = mock(Query.class);
+        when(queryGenerator.generateQuery(eq(fromDate), any())).thenReturn(eventsQuery);
+        when(eventStream.searchEvents(eventsQuery)).thenReturn(Collections.emptyList());
+
+        Event event1 = createMockedEvent();
+        when(event1.getType()).thenReturn("type1");
+        when(eventStream.searchEvents(query)).thenReturn(Arrays.asList(event1));
+
+        NotificationParameters parameters = new NotificationParameters();
+        parameters.user = userReference;
+        parameters.expectedCount = 10;
+        when(queryGenerator.generateQueryExpression(parameters)).thenReturn(mock(ExpressionNode.class));
+
+        // Test
+        List<CompositeEvent> results = mocker.getComponentUnderTest().createDigest(fromDate).getEvents(parameters);
+
+        // Verify
+        assertEquals(1, results.size());
+        assertEquals(event1, results.get(0).getEvents().get(0));
+    }
+
     private Event createMockedEvent()
     {
         Event event = mock(Event.class);
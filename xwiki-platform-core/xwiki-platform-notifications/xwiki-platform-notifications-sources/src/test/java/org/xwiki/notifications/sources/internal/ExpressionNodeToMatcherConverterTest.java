@@ -0,0 +1,165 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.sources.internal;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.function.Predicate;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.xwiki.eventstream.Event;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.notifications.filters.expression.BooleanValueNode;
+import org.xwiki.notifications.filters.expression.EqualsNode;
+import org.xwiki.notifications.filters.expression.EventProperty;
+import org.xwiki.notifications.filters.expression.NotEqualsNode;
+import org.xwiki.notifications.filters.expression.PropertyValueNode;
+import org.xwiki.notifications.filters.internal.status.InListOfReadEventsNode;
+import org.xwiki.test.mockito.MockitoComponentMockingRule;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.xwiki.notifications.filters.expression.generics.ExpressionBuilder.not;
+import static org.xwiki.notifications.filters.expression.generics.ExpressionBuilder.value;
+
+/**
+ * Unit tests for {@link ExpressionNodeToMatcherConverter}.
+ *
+ * @version $Id$
+ */
+public class ExpressionNodeToMatcherConverterTest
+{
+    @Rule
+    public final MockitoComponentMockingRule<ExpressionNodeToMatcherConverter> mocker =
+            new MockitoComponentMockingRule<>(ExpressionNodeToMatcherConverter.class);
+
+    private ExpressionNodeToMatcherConverter converter;
+
+    private EntityReferenceSerializer<String> serializer;
+
+    private EntityReferenceSerializer<String> compactSerializer;
+
+    private WikiReference wiki = new WikiReference("xwiki");
+
+    private DocumentReference alice = new DocumentReference("xwiki", "XWiki", "Alice");
+
+    private DocumentReference bike = new DocumentReference("xwiki", "Main", "Bike");
+
+    @Before
+    public void setUp() throws Exception
+    {
+        serializer = mocker.getInstance(EntityReferenceSerializer.TYPE_STRING);
+        compactSerializer = mocker.getInstance(EntityReferenceSerializer.TYPE_STRING, "compactwiki");
+        converter = mocker.getComponentUnderTest();
+
+        when(serializer.serialize(alice)).thenReturn("xwiki:XWiki.Alice");
+        when(serializer.serialize(wiki)).thenReturn("xwiki");
+        when(compactSerializer.serialize(bike, wiki)).thenReturn("Main.Bike");
+    }
+
+    private Event createMockedEvent(String type, DocumentReference document, long date)
+    {
+        Event event = mock(Event.class);
+        when(event.getType()).thenReturn(type);
+        when(event.getDocument()).thenReturn(document);
+        when(event.getWiki()).thenReturn(wiki);
+        when(event.getUser()).thenReturn(alice);
+        when(event.getDate()).thenReturn(new Date(date));
+        return event;
+    }
+
+    @Test
+    public void parse() throws Exception
+    {
+        Predicate<IndexedEvent> matcher = converter.parse(
+            value(EventProperty.TYPE).eq(value("update"))
+                .and(value(EventProperty.DATE).greaterThan(value(new Date(500L))))
+                .and(value(EventProperty.PAGE).startsWith(value("Main.")))
+                .and(value(EventProperty.WIKI).eq(value("xwiki")))
+                .and(not(value(EventProperty.USER).inStrings(Arrays.asList("xwiki:XWiki.Bob"))))
+                .and(new NotEqualsNode(new PropertyValueNode(EventProperty.HIDDEN), new BooleanValueNode(true))));
+
+        assertTrue(matcher.test(converter.index(createMockedEvent("update", bike, 1000L), false)));
+        assertFalse(matcher.test(converter.index(createMockedEvent("update", bike, 1000L), true)));
+        assertFalse(matcher.test(converter.index(createMockedEvent("create", bike, 1000L), false)));
+        assertFalse(matcher.test(converter.index(createMockedEvent("update", bike, 100L), false)));
+    }
+
+    @Test
+    public void parseWithMissingValue() throws Exception
+    {
+        // As in SQL, comparing a missing value is unknown, and so is its negation
+        IndexedEvent event = converter.index(createMockedEvent("update", null, 1000L), false);
+
+        assertFalse(converter.parse(value(EventProperty.PAGE).eq(value("Main.Bike"))).test(event));
+        assertFalse(converter.parse(not(value(EventProperty.PAGE).eq(value("Main.Bike")))).test(event));
+        assertTrue(converter.parse(
+            value(EventProperty.PAGE).eq(value("Main.Bike")).or(value(EventProperty.TYPE).eq(value("update"))))
+            .test(event));
+    }
+
+    @Test
+    public void parseWithUnknownHidden() throws Exception
+    {
+        // As in SQL, "hidden <> true" does not select the events which hidden flag is not set
+        IndexedEvent event = converter.index(createMockedEvent("update", bike, 1000L), null);
+
+        assertFalse(converter.parse(
+            new NotEqualsNode(new PropertyValueNode(EventProperty.HIDDEN), new BooleanValueNode(true))).test(event));
+        assertFalse(converter.parse(
+            new EqualsNode(new PropertyValueNode(EventProperty.HIDDEN), new BooleanValueNode(true))).test(event));
+    }
+
+    @Test
+    public void parseIgnoresCase() throws Exception
+    {
+        IndexedEvent event = converter.index(createMockedEvent("update", bike, 1000L), false);
+
+        assertTrue(converter.parse(value(EventProperty.TYPE).eq(value("UPDATE"))).test(event));
+        assertTrue(converter.parse(value(EventProperty.PAGE).startsWith(value("main."))).test(event));
+        assertTrue(converter.parse(value(EventProperty.PAGE).endsWith(value(".BIKE"))).test(event));
+        assertFalse(converter.parse(value(EventProperty.PAGE).endsWith(value("Main.Bike.Wheel"))).test(event));
+        assertTrue(converter.parse(value(EventProperty.USER).inStrings(Arrays.asList("xwiki:xwiki.alice")))
+            .test(event));
+    }
+
+    @Test
+    public void parseWithOrderBy() throws Exception
+    {
+        Predicate<IndexedEvent> matcher = converter.parse(new OrderByNode(value(EventProperty.TYPE).eq(value("update")),
+            new PropertyValueNode(EventProperty.DATE), OrderByNode.Order.DESC));
+
+        assertTrue(matcher.test(converter.index(createMockedEvent("update", bike, 1000L), false)));
+    }
+
+    @Test
+    public void parseWithInListOfReadEventsNode() throws Exception
+    {
+        assertNull(converter.parse(value(EventProperty.TYPE).eq(value("update"))
+            .and(not(new InListOfReadEventsNode(alice)))));
+    }
+}
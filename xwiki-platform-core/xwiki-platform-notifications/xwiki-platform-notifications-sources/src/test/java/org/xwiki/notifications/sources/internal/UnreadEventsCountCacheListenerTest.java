@@ -0,0 +1,116 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.sources.internal;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.xwiki.bridge.DocumentModelBridge;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.eventstream.Event;
+import org.xwiki.eventstream.EventStatus;
+import org.xwiki.eventstream.events.EventStatusAddOrUpdatedEvent;
+import org.xwiki.eventstream.events.EventStreamAddedEvent;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.test.mockito.MockitoComponentMockingRule;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link UnreadEventsCountCacheListener}.
+ *
+ * @version $Id$
+ */
+public class UnreadEventsCountCacheListenerTest
+{
+    @Rule
+    public final MockitoComponentMockingRule<UnreadEventsCountCacheListener> mocker =
+        new MockitoComponentMockingRule<>(UnreadEventsCountCacheListener.class);
+
+    private UnreadEventsCountCache cache;
+
+    private DocumentReferenceResolver<String> documentReferenceResolver;
+
+    private DocumentReference userA = new DocumentReference("xwiki", "XWiki", "UserA");
+
+    private DocumentReference userB = new DocumentReference("xwiki", "XWiki", "UserB");
+
+    @Before
+    public void setUp() throws Exception
+    {
+        this.cache = this.mocker.getInstance(UnreadEventsCountCache.class);
+        this.documentReferenceResolver = this.mocker.getInstance(DocumentReferenceResolver.TYPE_STRING);
+
+        when(this.documentReferenceResolver.resolve("xwiki:XWiki.UserA")).thenReturn(this.userA);
+        when(this.documentReferenceResolver.resolve("xwiki:XWiki.UserB")).thenReturn(this.userB);
+    }
+
+    @Test
+    public void onEventStatusChange() throws Exception
+    {
+        EventStatus status = mock(EventStatus.class);
+        when(status.getEntityId()).thenReturn("xwiki:XWiki.UserA");
+
+        this.mocker.getComponentUnderTest().onEvent(new EventStatusAddOrUpdatedEvent(), status, null);
+
+        verify(this.cache).invalidate(this.userA);
+    }
+
+    @Test
+    public void onDocumentUpdated() throws Exception
+    {
+        DocumentModelBridge document = mock(DocumentModelBridge.class);
+        when(document.getDocumentReference()).thenReturn(this.userB);
+
+        this.mocker.getComponentUnderTest().onEvent(new DocumentUpdatedEvent(), document, null);
+
+        verify(this.cache).invalidate(this.userB);
+    }
+
+    @Test
+    public void onEventWithTargets() throws Exception
+    {
+        Event event = mock(Event.class);
+        when(event.getTarget()).thenReturn(new HashSet<>(Arrays.asList("xwiki:XWiki.UserA", "xwiki:XWiki.UserB")));
+
+        this.mocker.getComponentUnderTest().onEvent(new EventStreamAddedEvent(), event, null);
+
+        verify(this.cache).invalidate(this.userA);
+        verify(this.cache).invalidate(this.userB);
+        verify(this.cache, never()).invalidateAll();
+    }
+
+    @Test
+    public void onEventWithoutTarget() throws Exception
+    {
+        this.mocker.getComponentUnderTest().onEvent(new EventStreamAddedEvent(), mock(Event.class), null);
+
+        verify(this.cache, never()).invalidate(any());
+        verify(this.cache, never()).invalidateAll();
+    }
+}
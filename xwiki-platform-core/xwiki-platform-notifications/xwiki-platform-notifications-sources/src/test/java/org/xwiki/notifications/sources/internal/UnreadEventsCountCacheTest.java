@@ -0,0 +1,107 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.sources.internal;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.test.mockito.MockitoComponentMockingRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for {@link UnreadEventsCountCache}.
+ *
+ * @version $Id$
+ */
+public class UnreadEventsCountCacheTest
+{
+    @Rule
+    public final MockitoComponentMockingRule<UnreadEventsCountCache> mocker =
+        new MockitoComponentMockingRule<>(UnreadEventsCountCache.class);
+
+    private UnreadEventsCountCache cache;
+
+    private DocumentReference userA = new DocumentReference("xwiki", "XWiki", "UserA");
+
+    private DocumentReference userB = new DocumentReference("xwiki", "XWiki", "UserB");
+
+    @Before
+    public void setUp() throws Exception
+    {
+        this.cache = this.mocker.getComponentUnderTest();
+    }
+
+    @Test
+    public void getAfterPut()
+    {
+        assertNull(this.cache.get(this.userA, 20));
+
+        this.cache.put(this.userA, 20, 3, this.cache.getGeneration());
+
+        assertEquals(Long.valueOf(3), this.cache.get(this.userA, 20));
+        assertNull(this.cache.get(this.userA, 10));
+        assertNull(this.cache.get(this.userB, 20));
+    }
+
+    @Test
+    public void invalidate()
+    {
+        this.cache.put(this.userA, 20, 3, this.cache.getGeneration());
+        this.cache.put(this.userB, 20, 5, this.cache.getGeneration());
+
+        this.cache.invalidate(this.userA);
+
+        assertNull(this.cache.get(this.userA, 20));
+        assertEquals(Long.valueOf(5), this.cache.get(this.userB, 20));
+    }
+
+    @Test
+    public void countComputedBeforeInvalidationIsNotStored()
+    {
+        long generation = this.cache.getGeneration();
+
+        this.cache.invalidate(this.userA);
+
+        this.cache.put(this.userA, 20, 3, generation);
+        this.cache.put(this.userB, 20, 5, generation);
+
+        // Only the invalidated user is concerned
+        assertNull(this.cache.get(this.userA, 20));
+        assertEquals(Long.valueOf(5), this.cache.get(this.userB, 20));
+    }
+
+    @Test
+    public void invalidateAll()
+    {
+        long generation = this.cache.getGeneration();
+        this.cache.put(this.userA, 20, 3, generation);
+
+        this.cache.invalidateAll();
+
+        assertNull(this.cache.get(this.userA, 20));
+
+        this.cache.put(this.userB, 20, 5, generation);
+
+        assertNull(this.cache.get(this.userB, 20));
+    }
+}
@@ -19,7 +19,10 @@
  */
 package org.xwiki.observation.remote;
 
+import java.util.List;
+
 import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
 
 /**
  * Provide apis to manage the event network interface.
@@ -50,6 +53,21 @@
      */
     void notify(RemoteEventData event);
 
+    /**
+     * Inject several remote events, received in the same network message, in the local
+     * {@link org.xwiki.observation.ObservationManager}, in the order of the list.
+     *
+     * @param events the events
+     * @since 10.5RC1
+     */
+    @Unstable
+    default void notify(List<RemoteEventData> events)
+    {
+        for (RemoteEventData event : events) {
+            notify(event);
+        }
+    }
+
     /**
      * Stop a running channel.
      *
@@ -22,6 +22,7 @@
 import java.util.List;
 
 import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
 
 /**
  * Provide configuration for remote observation manager.
@@ -46,4 +47,25 @@
      * @return the identifier of the network adapter implementation to use to actually send and receive network messages
      */
     String getNetworkAdapter();
+
+    /**
+     * @return the time in milliseconds during which the events to send are accumulated to be sent in a single network
+     *         message, 0 to send each event as soon as it's produced
+     * @since 10.5RC1
+     */
+    @Unstable
+    default long getBatchDelay()
+    {
+        return 0L;
+    }
+
+    /**
+     * @return the maximum number of events sent in a single network message
+     * @since 10.5RC1
+     */
+    @Unstable
+    default int getBatchSize()
+    {
+        return 1;
+    }
 }
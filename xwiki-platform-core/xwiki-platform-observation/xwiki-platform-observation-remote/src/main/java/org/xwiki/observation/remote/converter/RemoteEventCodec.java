@@ -0,0 +1,78 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.converter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.observation.remote.RemoteEventData;
+import org.xwiki.stability.Unstable;
+
+/**
+ * Encode remote events in a compact binary form to send them to the other members of the cluster, instead of relying
+ * on Java serialization.
+ * <p>
+ * A codec is generally written for the remote events produced by a {@link LocalEventConverter}: it only has to write
+ * the references carried by the event (document reference, version, context user, etc.) in a stable order. The hint
+ * of the codec is sent with the encoded event so that it's decoded by the same codec on the receiving side; the events
+ * not supported by any codec are sent using Java serialization.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+@Role
+@Unstable
+public interface RemoteEventCodec
+{
+    /**
+     * @param remoteEvent the remote event to send
+     * @return true if this codec can encode the passed event
+     */
+    boolean supports(RemoteEventData remoteEvent);
+
+    /**
+     * @param remoteEvent the remote event to encode
+     * @param output where to write the encoded event
+     * @throws IOException when failing to write the event
+     */
+    void encode(RemoteEventData remoteEvent, DataOutput output) throws IOException;
+
+    /**
+     * @param input the encoded event, as written by {@link #encode(RemoteEventData, DataOutput)}
+     * @return the remote event
+     * @throws IOException when failing to read the event
+     */
+    RemoteEventData decode(DataInput input) throws IOException;
+
+    /**
+     * Indicate if receiving the passed event several times has the same effect on the other members than receiving it
+     * once (e.g. an event which only makes them invalidate a cache). Identical idempotent events waiting to be sent
+     * might be sent only once.
+     *
+     * @param remoteEvent an event supported by this codec
+     * @return true if the event is idempotent
+     */
+    default boolean isIdempotent(RemoteEventData remoteEvent)
+    {
+        return false;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.observation.remote.RemoteEventData;
+import org.xwiki.observation.remote.converter.RemoteEventCodec;
+
+/**
+ * Serialize remote events using the available {@link RemoteEventCodec}s.
+ * <p>
+ * The format is: a magic byte, the version of the format, the number of events and then for each event the hint of the
+ * codec and what the codec wrote. Events not supported by any codec are written with an empty hint followed by their
+ * Java serialized form. The magic byte is not a valid first byte for an object serialized by JGroups, which allows
+ * receiving events from members still sending Java serialized events.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+@Component(roles = CompactRemoteEventSerializer.class)
+@Singleton
+public class CompactRemoteEventSerializer
+{
+    private static final byte MAGIC = 'X';
+
+    private static final byte VERSION = 1;
+
+    private static final int HEADER_SIZE = 2;
+
+    private static final String JAVA_HINT = "";
+
+    @Inject
+    private Map<String, RemoteEventCodec> codecs;
+
+    /**
+     * @param remoteEvent the remote event to encode
+     * @return the encoded event, to be passed to {@link #serialize(Collection)}
+     * @throws IOException when failing to encode the event
+     */
+    public byte[] encode(RemoteEventData remoteEvent) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+
+        RemoteEventCodec codec = null;
+        for (Map.Entry<String, RemoteEventCodec> entry : this.codecs.entrySet()) {
+            if (entry.getValue().supports(remoteEvent)) {
+                output.writeUTF(entry.getKey());
+                codec = entry.getValue();
+                break;
+            }
+        }
+
+        if (codec != null) {
+            codec.encode(remoteEvent, output);
+        } else {
+            output.writeUTF(JAVA_HINT);
+
+            ByteArrayOutputStream javaBytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream javaOutput = new ObjectOutputStream(javaBytes)) {
+                javaOutput.writeObject(remoteEvent);
+            }
+            output.writeInt(javaBytes.size());
+            javaBytes.writeTo(output);
+        }
+
+        output.flush();
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param remoteEvent the remote event
+     * @return true if the event is encoded by a codec which indicates that the event is idempotent (see
+     *         {@link RemoteEventCodec#isIdempotent(RemoteEventData)})
+     */
+    public boolean isIdempotent(RemoteEventData remoteEvent)
+    {
+        for (RemoteEventCodec codec : this.codecs.values()) {
+            if (codec.supports(remoteEvent)) {
+                return codec.isIdempotent(remoteEvent);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @param encodedEvents the events encoded with {@link #encode(RemoteEventData)}
+     * @return the serialized events
+     * @throws IOException when failing to serialize the events
+     */
+    public byte[] serialize(Collection<byte[]> encodedEvents) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+
+        output.writeByte(MAGIC);
+        output.writeByte(VERSION);
+        output.writeInt(encodedEvents.size());
+        for (byte[] encodedEvent : encodedEvents) {
+            output.write(encodedEvent);
+        }
+
+        output.flush();
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param buffer the buffer containing the serialized events
+     * @param offset the position of the serialized events in the buffer
+     * @param length the length of the serialized events
+     * @return the remote events or {@code null} if the buffer does not contain compact events
+     * @throws IOException when failing to decode the events
+     */
+    public List<RemoteEventData> unserialize(byte[] buffer, int offset, int length) throws IOException
+    {
+        if (length < HEADER_SIZE || buffer[offset] != MAGIC) {
+            return null;
+        }
+
+        if (buffer[offset + 1] != VERSION) {
+            throw new IOException("Unsupported remote event format version [" + buffer[offset + 1] + "]");
+        }
+
+        DataInputStream input =
+            new DataInputStream(new ByteArrayInputStream(buffer, offset + HEADER_SIZE, length - HEADER_SIZE));
+
+        int size = input.readInt();
+        List<RemoteEventData> remoteEvents = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            remoteEvents.add(decode(input));
+        }
+
+        return remoteEvents;
+    }
+
+    private RemoteEventData decode(DataInputStream input) throws IOException
+    {
+        String hint = input.readUTF();
+
+        if (hint.equals(JAVA_HINT)) {
+            byte[] javaBytes = new byte[input.readInt()];
+            input.readFully(javaBytes);
+
+            try (ObjectInputStream javaInput = new ObjectInputStream(new ByteArrayInputStream(javaBytes))) {
+                return (RemoteEventData) javaInput.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Failed to unserialize remote event", e);
+            }
+        }
+
+        RemoteEventCodec codec = this.codecs.get(hint);
+        if (codec == null) {
+            throw new IOException("No remote event codec with hint [" + hint + "]");
+        }
+
+        return codec.decode(input);
+    }
+}
@@ -19,6 +19,8 @@
  */
 package org.xwiki.observation.remote.internal;
 
+import java.util.List;
+
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -157,6 +159,26 @@ public void notify(RemoteEventData remoteEvent)
         // Make sure the Execution context is properly initialized
         initializeContext();
 
+        notifyLocal(remoteEvent);
+    }
+
+    @Override
+    public void notify(List<RemoteEventData> remoteEvents)
+    {
+        // Make sure the Execution context is properly initialized, once for the whole batch
+        initializeContext();
+
+        for (RemoteEventData remoteEvent : remoteEvents) {
+            try {
+                notifyLocal(remoteEvent);
+            } catch (Exception e) {
+                this.logger.error("Failed to inject remote event [{}]", remoteEvent, e);
+            }
+        }
+    }
+
+    private void notifyLocal(RemoteEventData remoteEvent)
+    {
         LocalEventData localEvent = this.eventConverterManager.createLocalEventData(remoteEvent);
 
         // send event
@@ -40,6 +40,10 @@
 @Singleton
 public class DefaultRemoteObservationManagerConfiguration implements RemoteObservationManagerConfiguration
 {
+    private static final long DEFAULT_BATCH_DELAY = 10L;
+
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
     /**
      * USed to access configuration storage.
      */
@@ -69,4 +73,16 @@ public String getNetworkAdapter()
     {
         return this.configurationSource.getProperty("observation.remote.networkadapter", "jgroups");
     }
+
+    @Override
+    public long getBatchDelay()
+    {
+        return this.configurationSource.getProperty("observation.remote.batchDelay", DEFAULT_BATCH_DELAY);
+    }
+
+    @Override
+    public int getBatchSize()
+    {
+        return this.configurationSource.getProperty("observation.remote.batchSize", DEFAULT_BATCH_SIZE);
+    }
 }
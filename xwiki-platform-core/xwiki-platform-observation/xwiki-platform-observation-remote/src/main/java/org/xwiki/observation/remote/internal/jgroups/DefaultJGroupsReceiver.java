@@ -19,6 +19,9 @@
  */
 package org.xwiki.observation.remote.internal.jgroups;
 
+import java.util.Collections;
+import java.util.List;
+
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -30,6 +33,7 @@
 import org.xwiki.component.manager.ComponentManager;
 import org.xwiki.observation.remote.RemoteEventData;
 import org.xwiki.observation.remote.RemoteObservationManager;
+import org.xwiki.observation.remote.internal.CompactRemoteEventSerializer;
 import org.xwiki.observation.remote.jgroups.JGroupsReceiver;
 
 /**
@@ -60,6 +64,12 @@ public class DefaultJGroupsReceiver extends ReceiverAdapter implements JGroupsRe
     @Inject
     private Logger logger;
 
+    /**
+     * Used to decode the events sent in a compact form, possibly several in the same message.
+     */
+    @Inject
+    private CompactRemoteEventSerializer compactSerializer;
+
     /**
      * @return the RemoteObservationManager
      */
@@ -79,10 +89,21 @@ public RemoteObservationManager getRemoteObservationManager()
     @Override
     public void receive(Message msg)
     {
-        RemoteEventData remoteEvent = (RemoteEventData) msg.getObject();
+        List<RemoteEventData> remoteEvents;
+        try {
+            remoteEvents = this.compactSerializer.unserialize(msg.getRawBuffer(), msg.getOffset(), msg.getLength());
+            if (remoteEvents == null) {
+                // Not sent in compact form
+                remoteEvents = Collections.singletonList((RemoteEventData) msg.getObject());
+            }
+        } catch (Exception e) {
+            this.logger.error("Failed to decode JGroups remote events", e);
+
+            return;
+        }
 
-        this.logger.debug("Received JGroups remote event [{}]", remoteEvent);
+        this.logger.debug("Received JGroups remote events [{}]", remoteEvents);
 
-        getRemoteObservationManager().notify(remoteEvent);
+        getRemoteObservationManager().notify(remoteEvents);
     }
 }
@@ -22,9 +22,18 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -40,16 +49,26 @@
 import org.jgroups.jmx.JmxConfigurator;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
 import org.xwiki.component.manager.ComponentLookupException;
 import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
 import org.xwiki.environment.Environment;
 import org.xwiki.observation.remote.NetworkAdapter;
 import org.xwiki.observation.remote.RemoteEventData;
 import org.xwiki.observation.remote.RemoteEventException;
+import org.xwiki.observation.remote.RemoteObservationManagerConfiguration;
+import org.xwiki.observation.remote.internal.CompactRemoteEventSerializer;
 import org.xwiki.observation.remote.jgroups.JGroupsReceiver;
 
 /**
  * JGroups based implementation of {@link NetworkAdapter}.
+ * <p>
+ * The events produced during {@link RemoteObservationManagerConfiguration#getBatchDelay()} are sent in a single message.
+ * An idempotent event (see {@link org.xwiki.observation.remote.converter.RemoteEventCodec#isIdempotent}) identical to
+ * one already waiting in the batch is not sent again, unless a non idempotent event was produced in between.
  *
  * @version $Id$
  * @since 2.0RC1
@@ -57,7 +76,7 @@
 @Component
 @Named("jgroups")
 @Singleton
-public class JGroupsNetworkAdapter implements NetworkAdapter
+public class JGroupsNetworkAdapter implements NetworkAdapter, Initializable, Disposable
 {
     /**
      * Relative path where to find jgroups channels configurations.
@@ -76,26 +95,158 @@ public class JGroupsNetworkAdapter implements NetworkAdapter
     @Inject
     private Logger logger;
 
+    /**
+     * Used to send the events in a compact form when possible.
+     */
+    @Inject
+    private CompactRemoteEventSerializer compactSerializer;
+
+    /**
+     * Used to know how to group the events sent to the network.
+     */
+    @Inject
+    private RemoteObservationManagerConfiguration configuration;
+
     /**
      * The network channels.
      */
     private Map<String, JChannel> channels = new ConcurrentHashMap<String, JChannel>();
 
+    /**
+     * The encoded events waiting to be sent, in the order they were produced.
+     */
+    private final List<byte[]> pendingEvents = new ArrayList<>();
+
+    /**
+     * The idempotent events waiting to be sent since the last non idempotent one.
+     */
+    private final Set<ByteBuffer> pendingIdempotentEvents = new HashSet<>();
+
+    private final Object flushLock = new Object();
+
+    private long batchDelay;
+
+    private int batchSize;
+
+    /**
+     * Send the pending events at the end of the batch delay, {@code null} when events are sent as soon as produced.
+     */
+    private ScheduledExecutorService flushExecutor;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        this.batchDelay = this.configuration.getBatchDelay();
+        this.batchSize = this.configuration.getBatchSize();
+
+        if (this.batchDelay > 0) {
+            this.flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "XWiki remote events sender");
+                thread.setDaemon(true);
+
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        flush();
+
+        if (this.flushExecutor != null) {
+            this.flushExecutor.shutdownNow();
+        }
+    }
+
     @Override
     public void send(RemoteEventData remoteEvent)
     {
         this.logger.debug("Send JGroups remote event [" + remoteEvent + "]");
 
-        // Send the message to the whole group
-        Message message = new Message(null, remoteEvent);
+        byte[] encodedEvent;
+        boolean idempotent;
+        try {
+            encodedEvent = this.compactSerializer.encode(remoteEvent);
+            idempotent = this.compactSerializer.isIdempotent(remoteEvent);
+        } catch (Exception e) {
+            this.logger.error("Failed to encode remote event [{}]", remoteEvent, e);
+
+            return;
+        }
+
+        if (this.flushExecutor == null) {
+            send(Collections.singletonList(encodedEvent));
+
+            return;
+        }
+
+        boolean full;
+        synchronized (this.pendingEvents) {
+            if (idempotent) {
+                // An identical idempotent event (same type, references and context) is already going to be sent
+                if (!this.pendingIdempotentEvents.add(ByteBuffer.wrap(encodedEvent))) {
+                    return;
+                }
+            } else {
+                // The idempotent events produced before this event can't be merged with the ones produced after it
+                this.pendingIdempotentEvents.clear();
+            }
+
+            this.pendingEvents.add(encodedEvent);
+
+            if (this.pendingEvents.size() == 1) {
+                this.flushExecutor.schedule(this::flush, this.batchDelay, TimeUnit.MILLISECONDS);
+            }
+
+            full = this.pendingEvents.size() >= this.batchSize;
+        }
+
+        if (full) {
+            flush();
+        }
+    }
+
+    /**
+     * Send the pending events.
+     */
+    private void flush()
+    {
+        // Make sure batches are sent in the order they were produced
+        synchronized (this.flushLock) {
+            List<byte[]> encodedEvents;
+            synchronized (this.pendingEvents) {
+                if (this.pendingEvents.isEmpty()) {
+                    return;
+                }
+
+                encodedEvents = new ArrayList<>(this.pendingEvents);
+                this.pendingEvents.clear();
+                this.pendingIdempotentEvents.clear();
+            }
+
+            send(encodedEvents);
+        }
+    }
+
+    private void send(List<byte[]> encodedEvents)
+    {
+        Message message;
+        try {
+            message = new Message(null, this.compactSerializer.serialize(encodedEvents));
+        } catch (Exception e) {
+            this.logger.error("Failed to serialize [{}] remote events", encodedEvents.size(), e);
+
+            return;
+        }
 
         // Send message to JGroups channels
         for (Map.Entry<String, JChannel> entry : this.channels.entrySet()) {
             try {
                 entry.getValue().send(message);
             } catch (Exception e) {
-                this.logger
-                    .error("Failed to send message [" + remoteEvent + "] to the channel [" + entry.getKey() + "]", e);
+                this.logger.error("Failed to send [{}] remote events to the channel [{}]", encodedEvents.size(),
+                    entry.getKey(), e);
             }
         }
     }
@@ -137,6 +288,9 @@ public void stopChannel(String channelId) throws RemoteEventException
             throw new RemoteEventException(MessageFormat.format("Channel [{0}] is not started", channelId));
         }
 
+        // Don't lose the events not yet sent
+        flush();
+
         channel.close();
 
         this.channels.remove(channelId);
@@ -218,6 +372,9 @@ private ProtocolStackConfigurator loadChannelConfiguration(String channelId) thr
     @Override
     public void stopAllChannels() throws RemoteEventException
     {
+        // Don't lose the events not yet sent
+        flush();
+
         for (Map.Entry<String, JChannel> channelEntry : this.channels.entrySet()) {
             channelEntry.getValue().close();
         }
@@ -19,21 +19,50 @@
  */
 package org.xwiki.observation.remote;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import org.jmock.Expectations;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.xwiki.observation.event.Event;
 import org.xwiki.logging.event.LogEvent;
 import org.xwiki.observation.EventListener;
 import org.xwiki.observation.remote.test.AbstractROMTestCase;
 import org.xwiki.observation.remote.test.TestEvent;
 
+import static org.junit.Assert.assertEquals;
+
 public class TCPROMTest extends AbstractROMTestCase
 {
     static class Unserializable { }
 
+    static class CollectingListener implements EventListener
+    {
+        final List<Object> sources = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String getName()
+        {
+            return "collecting";
+        }
+
+        @Override
+        public List<Event> getEvents()
+        {
+            return Arrays.<Event>asList(new TestEvent());
+        }
+
+        @Override
+        public void onEvent(Event event, Object source, Object data)
+        {
+            this.sources.add(source);
+        }
+    }
+
     @Override
     @Before
     public void setUp() throws Exception
@@ -91,4 +120,59 @@ public void testSerializableEvent() throws InterruptedException
         // Make sure JGroups has enough time to send the message
         Thread.sleep(1000);
     }
-}
\ No newline at end of file
+
+    /**
+     * Validate that many events sent in a short time are all received, in the same order.
+     */
+    @Test
+    public void testManyEvents() throws InterruptedException
+    {
+        CollectingListener remoteListener = new CollectingListener();
+        getObservationManager2().addListener(remoteListener);
+
+        List<Object> sources = new ArrayList<>();
+        for (int i = 0; i < 5000; ++i) {
+            sources.add("source" + i);
+        }
+
+        TestEvent event = new TestEvent();
+        for (Object source : sources) {
+            getObservationManager1().notify(event, source, "some data");
+        }
+
+        for (int i = 0; i < 100 && remoteListener.sources.size() < sources.size(); ++i) {
+            Thread.sleep(100);
+        }
+
+        assertEquals(sources, remoteListener.sources);
+    }
+
+    /**
+     * Validate that identical idempotent events sent in the same batch are only received once, at the position of the
+     * first one, and that other events are never merged.
+     */
+    @Test
+    public void testIdenticalIdempotentEventsAreCoalesced() throws InterruptedException
+    {
+        getConfigurationSource1().setProperty("observation.remote.batchDelay", 500L);
+
+        CollectingListener remoteListener = new CollectingListener();
+        getObservationManager2().addListener(remoteListener);
+
+        TestEvent event = new TestEvent();
+        // Encoded by TestEventCodec, which indicates that they are idempotent
+        getObservationManager1().notify(event, "source1", "some data");
+        getObservationManager1().notify(event, "source2", "some data");
+        getObservationManager1().notify(event, "source1", "some data");
+        // Java serialized
+        getObservationManager1().notify(event, 1, "some data");
+        getObservationManager1().notify(event, 1, "some data");
+        // Not merged with the events produced before the Java serialized ones
+        getObservationManager1().notify(event, "source1", "some data");
+
+        // Make sure JGroups has enough time to send the message
+        Thread.sleep(1500);
+
+        assertEquals(Arrays.asList("source1", "source2", 1, 1, "source1"), remoteListener.sources);
+    }
+}
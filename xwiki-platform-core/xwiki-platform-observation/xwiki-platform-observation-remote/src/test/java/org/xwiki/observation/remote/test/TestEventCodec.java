@@ -0,0 +1,73 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.observation.remote.test;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.observation.remote.RemoteEventData;
+import org.xwiki.observation.remote.converter.RemoteEventCodec;
+
+/**
+ * Encode the {@link TestEvent}s with a {@link String} source and data, which are considered idempotent.
+ * 
+ * @version $Id$
+ */
+@Component
+@Named("test")
+@Singleton
+public class TestEventCodec implements RemoteEventCodec
+{
+    @Override
+    public boolean supports(RemoteEventData remoteEvent)
+    {
+        return remoteEvent.getEvent() instanceof TestEvent && remoteEvent.getSource() instanceof String
+            && remoteEvent.getData() instanceof String;
+    }
+
+    @Override
+    public void encode(RemoteEventData remoteEvent, DataOutput output) throws IOException
+    {
+        output.writeUTF((String) remoteEvent.getSource());
+        output.writeUTF((String) remoteEvent.getData());
+    }
+
+    @Override
+    public RemoteEventData decode(DataInput input) throws IOException
+    {
+        RemoteEventData remoteEvent = new RemoteEventData();
+        remoteEvent.setEvent(new TestEvent());
+        remoteEvent.setSource(input.readUTF());
+        remoteEvent.setData(input.readUTF());
+
+        return remoteEvent;
+    }
+
+    @Override
+    public boolean isIdempotent(RemoteEventData remoteEvent)
+    {
+        return true;
+    }
+}
@@ -72,11 +72,21 @@ public Element[] getProperties()
         Property[] properties = new Property[coll.size()];
         int i = 0;
         for (BaseProperty prop : coll) {
-            properties[i++] = new Property(prop, getXWikiContext());
+            properties[i++] = new Property(getExposedProperty(prop), getXWikiContext());
         }
         return properties;
     }
 
+    /**
+     * @param property a property of the wrapped collection
+     * @return the property instance to wrap in the {@link Property} returned to the caller
+     * @since 10.5RC1
+     */
+    protected BaseProperty getExposedProperty(BaseProperty property)
+    {
+        return property;
+    }
+
     public Property getProperty(String name)
     {
         try {
@@ -85,7 +95,7 @@ public Property getProperty(String name)
                 return null;
             }
 
-            return new Property((BaseProperty) prop, getXWikiContext());
+            return new Property(getExposedProperty((BaseProperty) prop), getXWikiContext());
         } catch (Exception e) {
             return null;
         }
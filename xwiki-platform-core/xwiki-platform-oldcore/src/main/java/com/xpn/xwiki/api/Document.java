@@ -224,6 +224,36 @@ protected XWikiDocument getDoc()
         return this.doc;
     }
 
+    /**
+     * Read only accessors share the objects of the wrapped document (which is generally the one stored in the document
+     * cache) instead of cloning the whole document. This method is called by {@link Object} before any modification
+     * to find the matching object in the private copy of the document.
+     *
+     * @param object an object of the wrapped document
+     * @return the matching object in the private copy of the document, {@code null} if it cannot be found
+     * @since 10.5RC1
+     */
+    BaseObject getModifiableXObject(BaseObject object)
+    {
+        // Only the objects of the shared document need to be copied
+        if (object.getOwnerDocument() != this.initialDoc) {
+            return object;
+        }
+
+        return getDoc().getXObject(object.getXClassReference(), object.getNumber());
+    }
+
+    /**
+     * @param object an object of the wrapped document
+     * @return {@code true} if the passed object belongs to the shared document and thus must not be exposed to
+     *         modifications
+     * @since 10.5RC1
+     */
+    boolean isShared(BaseObject object)
+    {
+        return object.getOwnerDocument() == this.initialDoc;
+    }
+
     /**
      * return the ID of the document. this ID is unique across the wiki.
      *
@@ -1077,7 +1107,7 @@ public int getObjectNumbers(String classname)
      */
     public Map<String, Vector<Object>> getxWikiObjects()
     {
-        Map<DocumentReference, List<BaseObject>> map = this.getDoc().getXObjects();
+        Map<DocumentReference, List<BaseObject>> map = this.doc.getXObjects();
         Map<String, Vector<Object>> resultmap = new HashMap<String, Vector<Object>>();
         for (Map.Entry<DocumentReference, List<BaseObject>> entry : map.entrySet()) {
             List<BaseObject> objects = entry.getValue();
@@ -1109,7 +1139,7 @@ protected Vector<Object> getXObjects(List<BaseObject> objects)
      */
     public Vector<Object> getObjects(String className)
     {
-        List<BaseObject> objects = this.getDoc().getXObjects(this.doc.resolveClassReference(className));
+        List<BaseObject> objects = this.doc.getXObjects(this.doc.resolveClassReference(className));
         return getXObjects(objects);
     }
 
@@ -1122,7 +1152,7 @@ public Vector<Object> getObjects(String className)
     public Object getFirstObject(String fieldname)
     {
         try {
-            BaseObject obj = this.getDoc().getFirstObject(fieldname, getXWikiContext());
+            BaseObject obj = this.doc.getFirstObject(fieldname, getXWikiContext());
             if (obj == null) {
                 return null;
             } else {
@@ -1145,7 +1175,7 @@ public Object getFirstObject(String fieldname)
     public Object getObject(String classname, String key, String value, boolean failover)
     {
         try {
-            BaseObject obj = this.getDoc().getObject(classname, key, value, failover);
+            BaseObject obj = this.doc.getObject(classname, key, value, failover);
             if (obj == null) {
                 return null;
             } else {
@@ -1172,7 +1202,7 @@ public Vector<Object> getObjects(String classname, String key, String value)
             return getObjects(classname);
         }
         try {
-            Vector<BaseObject> allObjects = this.getDoc().getObjects(classname);
+            Vector<BaseObject> allObjects = this.doc.getObjects(classname);
             if (allObjects == null || allObjects.size() == 0) {
                 return result;
             } else {
@@ -1205,7 +1235,7 @@ public Vector<Object> getObjects(String classname, String key, String value)
     public Object getObject(String classname, String key, String value)
     {
         try {
-            BaseObject obj = this.getDoc().getObject(classname, key, value);
+            BaseObject obj = this.doc.getObject(classname, key, value);
             if (obj == null) {
                 return null;
             } else {
@@ -1238,7 +1268,7 @@ public Object getObject(String classname)
     public Object getObject(String classname, boolean create)
     {
         try {
-            BaseObject obj = getDoc().getObject(classname, create, getXWikiContext());
+            BaseObject obj = (create ? getDoc() : this.doc).getObject(classname, create, getXWikiContext());
 
             if (obj == null) {
                 return null;
@@ -1260,7 +1290,7 @@ public Object getObject(String classname, boolean create)
     public Object getObject(String classname, int nb)
     {
         try {
-            BaseObject obj = this.getDoc().getObject(classname, nb);
+            BaseObject obj = this.doc.getObject(classname, nb);
             if (obj == null) {
                 return null;
             } else {
@@ -1273,7 +1303,10 @@ public Object getObject(String classname, int nb)
 
     private Object newObjectApi(BaseObject obj, XWikiContext context)
     {
-        return obj.newObjectApi(obj, context);
+        Object object = obj.newObjectApi(obj, context);
+        object.setDocument(this);
+
+        return object;
     }
 
     public String getXMLContent() throws XWikiException
@@ -2091,7 +2124,9 @@ public java.lang.Object getValue(String fieldName)
     {
         Object object;
         if (this.currentObj == null) {
-            object = new Object(this.getDoc().getFirstObject(fieldName, getXWikiContext()), getXWikiContext());
+            BaseObject baseObject = this.doc.getFirstObject(fieldName, getXWikiContext());
+            // Make sure the returned value is not the one of the shared object (see Object#getExposedProperty)
+            object = baseObject != null ? newObjectApi(baseObject, getXWikiContext()) : null;
         } else {
             object = this.currentObj;
         }
@@ -2628,7 +2663,9 @@ public boolean isProgrammaticContent()
      */
     public boolean removeObject(Object object)
     {
-        return getDoc().removeObject(object.getBaseObject());
+        BaseObject baseObject = getModifiableXObject(object.getBaseObject());
+
+        return baseObject != null && getDoc().removeObject(baseObject);
     }
 
     /**
@@ -24,23 +24,70 @@
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.objects.BaseObject;
 import com.xpn.xwiki.objects.BaseObjectReference;
+import com.xpn.xwiki.objects.BaseProperty;
 
 public class Object extends Collection
 {
+    /**
+     * The document API this object was taken from. When set, the wrapped object might be shared with other readers
+     * (e.g. the document cache) and must not be modified before asking the document for a modifiable copy.
+     */
+    private Document document;
+
     public Object(BaseObject obj, XWikiContext context)
     {
         super(obj, context);
     }
 
+    /**
+     * @param document the document API this object was taken from
+     * @since 10.5RC1
+     */
+    void setDocument(Document document)
+    {
+        this.document = document;
+    }
+
     protected BaseObject getBaseObject()
     {
         return (BaseObject) getCollection();
     }
 
+    /**
+     * @return the wrapped object, after making sure it's not shared with any other reader and thus safe to modify
+     * @since 10.5RC1
+     */
+    protected BaseObject getModifiableBaseObject()
+    {
+        if (this.document != null) {
+            BaseObject modifiableObject = this.document.getModifiableXObject(getBaseObject());
+            if (modifiableObject == null) {
+                // The object is not part of the document anymore (e.g. it has been removed from it): work on a copy
+                // attached to the private copy of the document so that the shared object is never modified
+                modifiableObject = getBaseObject().clone();
+                modifiableObject.setOwnerDocument(this.document.getDoc());
+            }
+            this.element = modifiableObject;
+        }
+
+        return getBaseObject();
+    }
+
+    @Override
+    protected BaseProperty getExposedProperty(BaseProperty property)
+    {
+        // Don't expose the properties of a shared object since they could be modified through the returned property
+        if (this.document != null && this.document.isShared(getBaseObject())) {
+            return (BaseProperty) property.clone();
+        }
+
+        return property;
+    }
+
     public BaseObject getXWikiObject()
     {
         if (hasProgrammingRights()) {
-            return (BaseObject) getCollection();
+            return getModifiableBaseObject();
         } else {
             return null;
         }
@@ -53,7 +100,7 @@ public String getGuid()
 
     public void setGuid(String guid)
     {
-        getBaseObject().setGuid(guid);
+        getModifiableBaseObject().setGuid(guid);
     }
 
     /**
@@ -107,10 +154,12 @@ public void set(String fieldname, java.lang.Object value)
     {
         XWikiContext xcontext = getXWikiContext();
 
-        getBaseObject().set(fieldname, value, xcontext);
+        BaseObject baseObject = getModifiableBaseObject();
+
+        baseObject.set(fieldname, value, xcontext);
 
         // Temporary set as author of the document the current script author (until the document is saved)
-        getBaseObject().getOwnerDocument().setAuthorReference(xcontext.getAuthorReference());
+        baseObject.getOwnerDocument().setAuthorReference(xcontext.getAuthorReference());
     }
 
     @Override
@@ -32,6 +32,7 @@
 import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.io.output.ProxyOutputStream;
 import org.xwiki.environment.Environment;
+import org.xwiki.stability.Unstable;
 import org.xwiki.store.UnexpectedException;
 
 import com.xpn.xwiki.web.Utils;
@@ -334,6 +335,17 @@ public long getLongSize()
         return this.file != null ? this.file.getSize() : 0;
     }
 
+    /**
+     * @return the file holding the content of the attachment when it's stored as is on the filesystem and can be read
+     *         directly, {@code null} otherwise
+     * @since 10.5RC1
+     */
+    @Unstable
+    public File getContentFile()
+    {
+        return null;
+    }
+
     /**
      * Set the owner document in order to propagate the content dirty flag.
      *
@@ -0,0 +1,183 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.observation.remote.converter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.xwiki.observation.event.CancelableEvent;
+import org.xwiki.observation.event.Event;
+import org.xwiki.observation.event.filter.AlwaysMatchingEventFilter;
+import org.xwiki.observation.event.filter.EventFilter;
+import org.xwiki.observation.event.filter.FixedNameEventFilter;
+import org.xwiki.observation.remote.RemoteEventData;
+import org.xwiki.observation.remote.converter.RemoteEventCodec;
+
+/**
+ * Provide some tools to encode the remote events produced by the {@link AbstractXWikiEventConverter}s.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+public abstract class AbstractXWikiEventCodec implements RemoteEventCodec
+{
+    private static final byte FILTER_ALWAYS = 0;
+
+    private static final byte FILTER_FIXED = 1;
+
+    /**
+     * @param remoteEvent the remote event to check
+     * @return true if the filter and the context of the event can be encoded and the event has not been canceled
+     */
+    protected boolean isEncodable(RemoteEventData remoteEvent)
+    {
+        if (!(remoteEvent.getData() instanceof Map)) {
+            return false;
+        }
+
+        Event event = (Event) remoteEvent.getEvent();
+        if (event instanceof CancelableEvent && ((CancelableEvent) event).isCanceled()) {
+            return false;
+        }
+
+        EventFilter filter = event.getEventFilter();
+
+        return filter.getClass() == FixedNameEventFilter.class || filter.getClass() == AlwaysMatchingEventFilter.class;
+    }
+
+    /**
+     * @param event the event from which to write the filter
+     * @param output the output to write to
+     * @throws IOException when failing to write
+     */
+    protected void writeFilter(Event event, DataOutput output) throws IOException
+    {
+        EventFilter filter = event.getEventFilter();
+
+        if (filter instanceof FixedNameEventFilter) {
+            output.writeByte(FILTER_FIXED);
+            output.writeUTF(filter.getFilter());
+        } else {
+            output.writeByte(FILTER_ALWAYS);
+        }
+    }
+
+    /**
+     * @param input the input to read from
+     * @return the filter
+     * @throws IOException when failing to read
+     */
+    protected EventFilter readFilter(DataInput input) throws IOException
+    {
+        byte type = input.readByte();
+
+        switch (type) {
+            case FILTER_FIXED:
+                return new FixedNameEventFilter(input.readUTF());
+            case FILTER_ALWAYS:
+                return new AlwaysMatchingEventFilter();
+            default:
+                throw new IOException("Unknown event filter type [" + type + "]");
+        }
+    }
+
+    /**
+     * @param <E> the type of event
+     * @param eventClass the type of event to create
+     * @param filter the filter of the event
+     * @return the new event
+     * @throws IOException when failing to create the event
+     */
+    protected <E extends Event> E createEvent(Class<E> eventClass, EventFilter filter) throws IOException
+    {
+        try {
+            return eventClass.getConstructor(EventFilter.class).newInstance(filter);
+        } catch (Exception e) {
+            throw new IOException("Failed to create event of type [" + eventClass + "]", e);
+        }
+    }
+
+    /**
+     * @param value the string to write, can be {@code null}
+     * @param output the output to write to
+     * @throws IOException when failing to write
+     */
+    protected void writeString(String value, DataOutput output) throws IOException
+    {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+
+    /**
+     * @param input the input to read from
+     * @return the string, can be {@code null}
+     * @throws IOException when failing to read
+     */
+    protected String readString(DataInput input) throws IOException
+    {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+    /**
+     * @param remoteEvent the remote event from which to write the context
+     * @param output the output to write to
+     * @throws IOException when failing to write
+     */
+    protected void writeContext(RemoteEventData remoteEvent, DataOutput output) throws IOException
+    {
+        Map<String, Serializable> context = (Map<String, Serializable>) remoteEvent.getData();
+
+        writeString((String) context.get(AbstractXWikiEventConverter.CONTEXT_WIKI), output);
+        writeString((String) context.get(AbstractXWikiEventConverter.CONTEXT_USER), output);
+    }
+
+    /**
+     * @param input the input to read from
+     * @return the context as produced by {@link AbstractXWikiEventConverter#serializeXWikiContext}
+     * @throws IOException when failing to read
+     */
+    protected HashMap<String, Serializable> readContext(DataInput input) throws IOException
+    {
+        HashMap<String, Serializable> context = new HashMap<>();
+
+        context.put(AbstractXWikiEventConverter.CONTEXT_WIKI, readString(input));
+        context.put(AbstractXWikiEventConverter.CONTEXT_USER, readString(input));
+
+        return context;
+    }
+
+    /**
+     * @param map the map to fill
+     * @param key the key
+     * @param value the value, not added to the map when {@code null}
+     */
+    protected void putNotNull(Map<String, Serializable> map, String key, Serializable value)
+    {
+        if (value != null) {
+            map.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.observation.remote.converter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.bridge.event.AbstractDocumentEvent;
+import org.xwiki.bridge.event.DocumentCreatedEvent;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.localization.LocaleUtils;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.observation.remote.RemoteEventData;
+
+/**
+ * Encode the remote document events produced by {@link DocumentEventConverter} without relying on Java serialization.
+ * <p>
+ * Only the references, versions and languages of the documents are sent, as the {@link DocumentEventConverter} does.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+@Component
+@Singleton
+@Named("document")
+public class DocumentEventCodec extends AbstractXWikiEventCodec
+{
+    /**
+     * The events supported by this codec, the index in the list is used as the identifier of the event type so new
+     * events should only be added at the end.
+     */
+    private static final List<Class<? extends AbstractDocumentEvent>> EVENTS =
+        Arrays.asList(DocumentCreatedEvent.class, DocumentUpdatedEvent.class, DocumentDeletedEvent.class);
+
+    private static final String[] SOURCE_STRINGS = {AbstractXWikiEventConverter.DOC_VERSION,
+        AbstractXWikiEventConverter.DOC_LANGUAGE, AbstractXWikiEventConverter.ORIGDOC_VERSION,
+        AbstractXWikiEventConverter.ORIGDOC_LANGUAGE};
+
+    @Override
+    public boolean supports(RemoteEventData remoteEvent)
+    {
+        return remoteEvent.getEvent() != null && EVENTS.contains(remoteEvent.getEvent().getClass())
+            && remoteEvent.getSource() instanceof Map
+            && ((Map<?, ?>) remoteEvent.getSource()).get(AbstractXWikiEventConverter.DOC_NAME)
+                instanceof DocumentReference
+            && isEncodable(remoteEvent);
+    }
+
+    @Override
+    public void encode(RemoteEventData remoteEvent, DataOutput output) throws IOException
+    {
+        AbstractDocumentEvent event = (AbstractDocumentEvent) remoteEvent.getEvent();
+        output.writeByte(EVENTS.indexOf(event.getClass()));
+        writeFilter(event, output);
+
+        Map<String, Serializable> source = (Map<String, Serializable>) remoteEvent.getSource();
+        writeDocumentReference((DocumentReference) source.get(AbstractXWikiEventConverter.DOC_NAME), output);
+        for (String key : SOURCE_STRINGS) {
+            writeString((String) source.get(key), output);
+        }
+
+        writeContext(remoteEvent, output);
+    }
+
+    @Override
+    public boolean isIdempotent(RemoteEventData remoteEvent)
+    {
+        // The other members only have to reload the updated document, which is the same after several identical events
+        return remoteEvent.getEvent() instanceof DocumentUpdatedEvent;
+    }
+
+    @Override
+    public RemoteEventData decode(DataInput input) throws IOException
+    {
+        int eventIndex = input.readByte();
+        if (eventIndex < 0 || eventIndex >= EVENTS.size()) {
+            throw new IOException("Unknown document event type [" + eventIndex + "]");
+        }
+
+        RemoteEventData remoteEvent = new RemoteEventData();
+        remoteEvent.setEvent(createEvent(EVENTS.get(eventIndex), readFilter(input)));
+
+        HashMap<String, Serializable> source = new HashMap<>();
+        source.put(AbstractXWikiEventConverter.DOC_NAME, readDocumentReference(input));
+        for (String key : SOURCE_STRINGS) {
+            putNotNull(source, key, readString(input));
+        }
+        remoteEvent.setSource(source);
+
+        remoteEvent.setData(readContext(input));
+
+        return remoteEvent;
+    }
+
+    private void writeDocumentReference(DocumentReference reference, DataOutput output) throws IOException
+    {
+        output.writeUTF(reference.getWikiReference().getName());
+
+        List<SpaceReference> spaces = reference.getSpaceReferences();
+        output.writeShort(spaces.size());
+        for (SpaceReference space : spaces) {
+            output.writeUTF(space.getName());
+        }
+
+        output.writeUTF(reference.getName());
+
+        Locale locale = reference.getLocale();
+        writeString(locale != null ? locale.toString() : null, output);
+    }
+
+    private DocumentReference readDocumentReference(DataInput input) throws IOException
+    {
+        String wiki = input.readUTF();
+
+        int spaceCount = input.readShort();
+        List<String> spaces = new ArrayList<>(spaceCount);
+        for (int i = 0; i < spaceCount; ++i) {
+            spaces.add(input.readUTF());
+        }
+
+        String name = input.readUTF();
+
+        String locale = readString(input);
+
+        return new DocumentReference(wiki, spaces, name, locale != null ? LocaleUtils.toLocale(locale) : null);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.observation.remote.converter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.bridge.event.AbstractWikiEvent;
+import org.xwiki.bridge.event.WikiCreatedEvent;
+import org.xwiki.bridge.event.WikiDeletedEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.observation.remote.RemoteEventData;
+
+/**
+ * Encode the remote wiki events produced by {@link WikiEventConverter} without relying on Java serialization.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+@Component
+@Singleton
+@Named("wiki")
+public class WikiEventCodec extends AbstractXWikiEventCodec
+{
+    /**
+     * The events supported by this codec, the index in the list is used as the identifier of the event type so new
+     * events should only be added at the end.
+     */
+    private static final List<Class<? extends AbstractWikiEvent>> EVENTS =
+        Arrays.asList(WikiCreatedEvent.class, WikiDeletedEvent.class);
+
+    @Override
+    public boolean supports(RemoteEventData remoteEvent)
+    {
+        return remoteEvent.getEvent() != null && EVENTS.contains(remoteEvent.getEvent().getClass())
+            && (remoteEvent.getSource() == null || remoteEvent.getSource() instanceof String)
+            && isEncodable(remoteEvent);
+    }
+
+    @Override
+    public void encode(RemoteEventData remoteEvent, DataOutput output) throws IOException
+    {
+        AbstractWikiEvent event = (AbstractWikiEvent) remoteEvent.getEvent();
+        output.writeByte(EVENTS.indexOf(event.getClass()));
+        writeFilter(event, output);
+
+        writeString((String) remoteEvent.getSource(), output);
+
+        writeContext(remoteEvent, output);
+    }
+
+    @Override
+    public RemoteEventData decode(DataInput input) throws IOException
+    {
+        int eventIndex = input.readByte();
+        if (eventIndex < 0 || eventIndex >= EVENTS.size()) {
+            throw new IOException("Unknown wiki event type [" + eventIndex + "]");
+        }
+
+        RemoteEventData remoteEvent = new RemoteEventData();
+        remoteEvent.setEvent(createEvent(EVENTS.get(eventIndex), readFilter(input)));
+        remoteEvent.setSource(readString(input));
+        remoteEvent.setData(readContext(input));
+
+        return remoteEvent;
+    }
+}
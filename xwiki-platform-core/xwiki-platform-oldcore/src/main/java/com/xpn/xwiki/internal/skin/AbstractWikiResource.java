@@ -60,6 +60,15 @@ public DocumentReference getAuthorReference()
         return this.authorReference;
     }
 
+    /**
+     * @return the reference of the document holding the resource
+     * @since 10.5RC1
+     */
+    public DocumentReference getDocumentReference()
+    {
+        return new DocumentReference(this.reference.extractReference(EntityType.DOCUMENT));
+    }
+
     protected XWikiDocument getDocument() throws XWikiException
     {
         EntityReference documentReference = this.reference.extractReference(EntityType.DOCUMENT);
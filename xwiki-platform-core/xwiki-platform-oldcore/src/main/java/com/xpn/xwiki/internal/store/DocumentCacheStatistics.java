@@ -0,0 +1,130 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.store;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the document cache, exposed through JMX.
+ * 
+ * @version $Id$
+ * @since 10.5RC1
+ */
+public class DocumentCacheStatistics implements DocumentCacheStatisticsMBean
+{
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong negativeHits = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final AtomicLong skippedEvictions = new AtomicLong();
+
+    /**
+     * A document has been found in the cache.
+     */
+    public void hit()
+    {
+        this.hits.incrementAndGet();
+    }
+
+    /**
+     * A document had to be loaded from the underlying store.
+     */
+    public void miss()
+    {
+        this.misses.incrementAndGet();
+    }
+
+    /**
+     * A document was known to not exist.
+     */
+    public void negativeHit()
+    {
+        this.negativeHits.incrementAndGet();
+    }
+
+    /**
+     * A cache entry has been removed.
+     */
+    public void eviction()
+    {
+        this.evictions.incrementAndGet();
+    }
+
+    /**
+     * A remote invalidation has been ignored.
+     */
+    public void skippedEviction()
+    {
+        this.skippedEvictions.incrementAndGet();
+    }
+
+    @Override
+    public long getHits()
+    {
+        return this.hits.get();
+    }
+
+    @Override
+    public long getMisses()
+    {
+        return this.misses.get();
+    }
+
+    @Override
+    public double getHitRatio()
+    {
+        long currentHits = getHits();
+        long total = currentHits + getMisses();
+
+        return total > 0 ? (double) currentHits / total : 0;
+    }
+
+    @Override
+    public long getNegativeHits()
+    {
+        return this.negativeHits.get();
+    }
+
+    @Override
+    public long getEvictions()
+    {
+        return this.evictions.get();
+    }
+
+    @Override
+    public long getSkippedEvictions()
+    {
+        return this.skippedEvictions.get();
+    }
+
+    @Override
+    public void reset()
+    {
+        this.hits.set(0);
+        this.misses.set(0);
+        this.negativeHits.set(0);
+        this.evictions.set(0);
+        this.skippedEvictions.set(0);
+    }
+}
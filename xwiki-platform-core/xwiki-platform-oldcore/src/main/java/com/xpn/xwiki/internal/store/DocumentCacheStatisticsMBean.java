@@ -0,0 +1,64 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.store;
+
+/**
+ * Expose the statistics of the document cache through JMX.
+ * 
+ * @version $Id$
+ * @since 10.5RC1
+ */
+public interface DocumentCacheStatisticsMBean
+{
+    /**
+     * @return the number of documents found in the cache
+     */
+    long getHits();
+
+    /**
+     * @return the number of documents which had to be loaded from the underlying store
+     */
+    long getMisses();
+
+    /**
+     * @return the number of documents found in the cache divided by the total number of lookups
+     */
+    double getHitRatio();
+
+    /**
+     * @return the number of documents which were known to not exist without asking the underlying store
+     */
+    long getNegativeHits();
+
+    /**
+     * @return the number of cache entries removed because of a modification
+     */
+    long getEvictions();
+
+    /**
+     * @return the number of remote invalidations ignored because the cached document was already up to date
+     */
+    long getSkippedEvictions();
+
+    /**
+     * Reset all the counters.
+     */
+    void reset();
+}
@@ -0,0 +1,156 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.store.hibernate.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryFilter;
+import org.xwiki.query.QueryResultIterator;
+
+/**
+ * Iterates the results of a HQL query through a forward only {@link ScrollableResults}. The results are read by batch
+ * and the query filters are applied to each batch. The query is executed in a dedicated session (and transaction),
+ * different from the one of the context, so that the caller can access the store while iterating. The session is
+ * closed when the results are exhausted or when the iterator is closed.
+ *
+ * @param <T> the type of the results
+ * @version $Id$
+ * @since 10.5RC1
+ */
+public class HqlQueryResultIterator<T> implements QueryResultIterator<T>
+{
+    private final Query query;
+
+    private final Session session;
+
+    private final Transaction transaction;
+
+    private final ScrollableResults results;
+
+    private final int batchSize;
+
+    private Iterator<T> batch = Collections.emptyIterator();
+
+    private boolean exhausted;
+
+    private boolean closed;
+
+    /**
+     * @param query the executed query, used to filter the results
+     * @param session the dedicated session in which the query was executed
+     * @param transaction the transaction of the dedicated session
+     * @param results the results of the query
+     * @param batchSize the number of results to read at once
+     */
+    public HqlQueryResultIterator(Query query, Session session, Transaction transaction, ScrollableResults results,
+        int batchSize)
+    {
+        this.query = query;
+        this.session = session;
+        this.transaction = transaction;
+        this.results = results;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        while (!this.batch.hasNext() && !this.exhausted && !this.closed) {
+            this.batch = nextBatch();
+        }
+
+        if (!this.batch.hasNext()) {
+            close();
+
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public T next()
+    {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        return this.batch.next();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Iterator<T> nextBatch()
+    {
+        List<T> rows = new ArrayList<>(this.batchSize);
+
+        try {
+            while (rows.size() < this.batchSize && this.results.next()) {
+                // Same as Query#list(): a single selected field is not wrapped in an array
+                Object[] row = this.results.get();
+                rows.add((T) (row.length == 1 ? row[0] : row));
+            }
+
+            // The returned entities don't need to be tracked by the session, release them to keep the memory bounded
+            this.session.clear();
+        } catch (RuntimeException e) {
+            close();
+
+            throw e;
+        }
+
+        this.exhausted = rows.size() < this.batchSize;
+
+        List<T> filteredRows = rows;
+        if (this.query.getFilters() != null) {
+            for (QueryFilter filter : this.query.getFilters()) {
+                filteredRows = filter.filterResults(filteredRows);
+            }
+        }
+
+        return filteredRows.iterator();
+    }
+
+    @Override
+    public void close()
+    {
+        if (!this.closed) {
+            this.closed = true;
+
+            try {
+                this.results.close();
+            } finally {
+                try {
+                    // Nothing was modified
+                    this.transaction.rollback();
+                } finally {
+                    this.session.close();
+                }
+            }
+        }
+    }
+}
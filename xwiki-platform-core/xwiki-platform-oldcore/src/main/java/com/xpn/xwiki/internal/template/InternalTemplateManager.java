@@ -19,6 +19,7 @@
  */
 package com.xpn.xwiki.internal.template;
 
+import java.io.File;
 import java.io.PrintWriter;
 import java.io.StringReader;
 import java.io.StringWriter;
@@ -33,6 +34,8 @@
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -44,9 +47,17 @@
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.manager.ComponentLookupException;
 import org.xwiki.component.manager.ComponentManager;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
 import org.xwiki.configuration.ConfigurationSource;
 import org.xwiki.environment.Environment;
 import org.xwiki.filter.input.InputSource;
@@ -56,6 +67,9 @@
 import org.xwiki.job.event.status.JobProgressManager;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.event.Event;
 import org.xwiki.properties.BeanManager;
 import org.xwiki.properties.ConverterManager;
 import org.xwiki.properties.PropertyException;
@@ -83,10 +97,15 @@
 import org.xwiki.skin.Skin;
 import org.xwiki.template.Template;
 import org.xwiki.template.TemplateContent;
+import org.xwiki.template.event.TemplateDeletedEvent;
+import org.xwiki.template.event.TemplateEvent;
+import org.xwiki.template.event.TemplateUpdatedEvent;
 import org.xwiki.velocity.VelocityManager;
 
 import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.internal.skin.AbstractEnvironmentResource;
+import com.xpn.xwiki.internal.skin.AbstractWikiResource;
 import com.xpn.xwiki.internal.skin.InternalSkinManager;
 import com.xpn.xwiki.internal.skin.WikiResource;
 import com.xpn.xwiki.user.api.XWikiRightService;
@@ -99,7 +118,7 @@
  */
 @Component(roles = InternalTemplateManager.class)
 @Singleton
-public class InternalTemplateManager
+public class InternalTemplateManager implements Initializable
 {
     private static final Pattern PROPERTY_LINE = Pattern.compile("^##!(.+)=(.*)$\r?\n?", Pattern.MULTILINE);
 
@@ -162,10 +181,27 @@
     @Inject
     private JobProgressManager progress;
 
+    @Inject
+    private ObservationManager observation;
+
+    @Inject
+    private CacheManager cacheManager;
+
     @Inject
     private Logger logger;
 
-    private static abstract class AbtractTemplate<T extends TemplateContent, R extends Resource<?>> implements Template
+    /**
+     * The content of the templates indexed by resource id. The id of a skin resource already identifies the skin (skin
+     * directory or skin document).
+     */
+    private Cache<DefaultTemplateContent> contentCache;
+
+    /**
+     * The ids of the cached wiki templates indexed by the reference of the skin document holding them.
+     */
+    private final Map<DocumentReference, Set<String>> wikiTemplateIds = new ConcurrentHashMap<>();
+
+    private abstract class AbtractTemplate<T extends DefaultTemplateContent, R extends Resource<?>> implements Template
     {
         protected R resource;
 
@@ -192,30 +228,73 @@ public String getPath()
         public TemplateContent getContent() throws Exception
         {
             if (this.content == null) {
-                // TODO: work with streams instead of forcing String
-                String strinContent;
-
-                try (InputSource source = this.resource.getInputSource()) {
-                    if (source instanceof StringInputSource) {
-                        strinContent = source.toString();
-                    } else if (source instanceof ReaderInputSource) {
-                        strinContent = IOUtils.toString(((ReaderInputSource) source).getReader());
-                    } else if (source instanceof InputStreamInputSource) {
-                        // It's impossible to know the real attachment encoding, but let's assume that they respect the
-                        // standard and use UTF-8 (which is required for the files located on the filesystem)
-                        strinContent = IOUtils.toString(((InputStreamInputSource) source).getInputStream(),
-                            StandardCharsets.UTF_8);
-                    } else {
-                        return null;
+                // Resources without id (e.g. string templates) are not cached
+                String id = getId();
+                long lastModified = getLastModified();
+                if (id != null) {
+                    T cachedContent = (T) contentCache.get(id);
+                    // Make sure the resource did not change since it was cached
+                    if (cachedContent != null && cachedContent.lastModified == lastModified) {
+                        this.content = cachedContent;
                     }
                 }
 
-                this.content = getContentInternal(strinContent);
+                if (this.content == null) {
+                    this.content = readContent();
+
+                    if (id != null && this.content != null) {
+                        this.content.lastModified = lastModified;
+                        cacheContent(id);
+                    }
+                }
             }
 
             return this.content;
         }
 
+        /**
+         * @return the date of the last modification of the resource in milliseconds, 0 if it's unknown or if the
+         *         modifications of the resource are notified through events
+         */
+        protected long getLastModified()
+        {
+            return 0;
+        }
+
+        private void cacheContent(String id)
+        {
+            contentCache.set(id, this.content);
+
+            if (this.resource instanceof AbstractWikiResource) {
+                // Remember the templates to invalidate when the skin document is modified
+                wikiTemplateIds.computeIfAbsent(((AbstractWikiResource<?, ?>) this.resource).getDocumentReference(),
+                    key -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+
+        private T readContent() throws Exception
+        {
+            // TODO: work with streams instead of forcing String
+            String strinContent;
+
+            try (InputSource source = this.resource.getInputSource()) {
+                if (source instanceof StringInputSource) {
+                    strinContent = source.toString();
+                } else if (source instanceof ReaderInputSource) {
+                    strinContent = IOUtils.toString(((ReaderInputSource) source).getReader());
+                } else if (source instanceof InputStreamInputSource) {
+                    // It's impossible to know the real attachment encoding, but let's assume that they respect the
+                    // standard and use UTF-8 (which is required for the files located on the filesystem)
+                    strinContent = IOUtils.toString(((InputStreamInputSource) source).getInputStream(),
+                        StandardCharsets.UTF_8);
+                } else {
+                    return null;
+                }
+            }
+
+            return getContentInternal(strinContent);
+        }
+
         protected abstract T getContentInternal(String content) throws Exception;
 
         @Override
@@ -237,6 +316,22 @@ protected FilesystemTemplateContent getContentInternal(String content)
         {
             return new FilesystemTemplateContent(content);
         }
+
+        @Override
+        protected long getLastModified()
+        {
+            // The templates located on the filesystem can be modified at any time
+            try {
+                URL url = environment.getResource(getPath());
+                if (url != null && "file".equals(url.getProtocol())) {
+                    return new File(url.toURI()).lastModified();
+                }
+            } catch (Exception e) {
+                logger.debug("Failed to get the last modification date of template [{}]", getPath(), e);
+            }
+
+            return 0;
+        }
     }
 
     private class ClassloaderTemplate extends AbtractTemplate<FilesystemTemplateContent, ClassloaderResource>
@@ -299,6 +394,16 @@ private class DefaultTemplateContent implements RawProperties, TemplateContent
 
         protected Map<String, Object> properties = new HashMap<>();
 
+        /**
+         * The result of the parsing of the content, shared by all the executions of the template.
+         */
+        private volatile XDOM xdom;
+
+        /**
+         * The date of the last modification of the resource when this content was read.
+         */
+        protected long lastModified;
+
         DefaultTemplateContent(String content)
         {
             this.content = content;
@@ -374,6 +479,20 @@ public String getContent()
             return this.content;
         }
 
+        /**
+         * @return a copy of the result of the parsing of the content with the source syntax
+         * @throws Exception when failing to parse the content
+         */
+        XDOM getXDOM() throws Exception
+        {
+            if (this.xdom == null) {
+                this.xdom = parser.parse(this.content, this.sourceSyntax);
+            }
+
+            // The XDOM is going to be modified by the transformations
+            return this.xdom.clone();
+        }
+
         @PropertyHidden
         @Override
         public boolean isAuthorProvided()
@@ -457,6 +576,38 @@ public void setPrivileged(boolean privileged)
         }
     }
 
+    @Override
+    public void initialize() throws InitializationException
+    {
+        // Initialize cache
+        try {
+            this.contentCache = this.cacheManager.createNewCache(new LRUCacheConfiguration("templates", 500));
+        } catch (CacheException e) {
+            throw new InitializationException("Failed to initialize cache", e);
+        }
+
+        // Initialize listener
+        this.observation.addListener(new AbstractEventListener("templates.cache", new TemplateUpdatedEvent(),
+            new TemplateDeletedEvent(), new DocumentUpdatedEvent(), new DocumentDeletedEvent())
+        {
+            @Override
+            public void onEvent(Event event, Object source, Object data)
+            {
+                if (event instanceof TemplateEvent) {
+                    InternalTemplateManager.this.contentCache.remove(((TemplateEvent) event).getId());
+                } else {
+                    // The author of the wiki templates can change without any modification of their content so all
+                    // the templates of a modified skin document are invalidated
+                    Set<String> ids = InternalTemplateManager.this.wikiTemplateIds
+                        .remove(((XWikiDocument) source).getDocumentReference());
+                    if (ids != null) {
+                        ids.forEach(InternalTemplateManager.this.contentCache::remove);
+                    }
+                }
+            }
+        });
+    }
+
     private String getResourcePath(String suffixPath, String templateName, boolean testExist)
     {
         String templatePath = suffixPath + templateName;
@@ -580,7 +731,11 @@ private XDOM getXDOM(Template template, TemplateContent content) throws Exceptio
         XDOM xdom;
 
         if (content.getSourceSyntax() != null) {
-            xdom = this.parser.parse(content.getContent(), content.getSourceSyntax());
+            if (content instanceof DefaultTemplateContent) {
+                xdom = ((DefaultTemplateContent) content).getXDOM();
+            } else {
+                xdom = this.parser.parse(content.getContent(), content.getSourceSyntax());
+            }
         } else {
             String result = evaluateContent(template, content);
             if (StringUtils.isEmpty(result)) {
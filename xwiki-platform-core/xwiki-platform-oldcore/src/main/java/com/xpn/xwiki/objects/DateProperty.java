@@ -101,6 +101,7 @@ public DateProperty clone()
     protected void cloneInternal(BaseProperty clone)
     {
         DateProperty property = (DateProperty) clone;
-        property.setValue(getValue());
+        // Date is mutable
+        property.setValue(this.value != null ? this.value.clone() : null);
     }
 }
@@ -19,11 +19,17 @@
  */
 package com.xpn.xwiki.store;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +44,7 @@
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.annotation.InstantiationStrategy;
 import org.xwiki.component.descriptor.ComponentInstantiationStrategy;
+import org.xwiki.component.phase.Disposable;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
 import org.xwiki.configuration.ConfigurationSource;
@@ -55,6 +62,7 @@
 import com.xpn.xwiki.doc.XWikiLink;
 import com.xpn.xwiki.doc.XWikiLock;
 import com.xpn.xwiki.internal.store.AbstractXWikiStore;
+import com.xpn.xwiki.internal.store.DocumentCacheStatistics;
 import com.xpn.xwiki.objects.classes.BaseClass;
 import com.xpn.xwiki.web.Utils;
 
@@ -69,10 +77,18 @@
 @Named("cache")
 @InstantiationStrategy(ComponentInstantiationStrategy.PER_LOOKUP)
 public class XWikiCacheStore extends AbstractXWikiStore
-    implements XWikiCacheStoreInterface, EventListener, Initializable
+    implements XWikiCacheStoreInterface, EventListener, Initializable, Disposable
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(XWikiCacheStore.class);
 
+    private static final String STATISTICS_OBJECT_NAME_PREFIX =
+        "org.xwiki:type=Cache,name=xwiki.store.pagecache,instance=";
+
+    /**
+     * Used to give a distinct JMX name to the statistics of each instance (the component is per lookup).
+     */
+    private static final AtomicInteger INSTANCE_COUNTER = new AtomicInteger();
+
     /**
      * Used to know if a received event is a local or remote one.
      */
@@ -102,6 +118,21 @@ public class XWikiCacheStore extends AbstractXWikiStore
 
     private Cache<Boolean> pageExistCache;
 
+    /**
+     * Remember the documents which don't exist when they should expire after a while (otherwise they are stored in
+     * {@link #pageExistCache}).
+     */
+    private Cache<Boolean> pageNotExistCache;
+
+    /**
+     * True if a remote modification should only remove the cached document when it's older than the modified one.
+     */
+    private boolean versionedInvalidation;
+
+    private final DocumentCacheStatistics statistics = new DocumentCacheStatistics();
+
+    private ObjectName statisticsName;
+
     /**
      * Default constructor generally used by the Component Manager.
      */
@@ -126,6 +157,8 @@ public XWikiCacheStore(XWikiStoreInterface store, XWikiContext context) throws X
         initCache(context);
 
         initListener();
+
+        initStatistics();
     }
 
     @Override
@@ -138,6 +171,23 @@ public void initialize() throws InitializationException
         }
 
         initListener();
+
+        initStatistics();
+    }
+
+    @Override
+    public void dispose()
+    {
+        if (this.statisticsName != null) {
+            try {
+                MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+                if (mbs.isRegistered(this.statisticsName)) {
+                    mbs.unregisterMBean(this.statisticsName);
+                }
+            } catch (Exception e) {
+                LOGGER.warn("Failed to unregister the document cache statistics from the JMX Server", e);
+            }
+        }
     }
 
     @Override
@@ -159,6 +209,19 @@ private void initListener()
         this.observationManager.addListener(this);
     }
 
+    private void initStatistics()
+    {
+        // Register the statistics against the JMX Server
+        try {
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(STATISTICS_OBJECT_NAME_PREFIX + INSTANCE_COUNTER.incrementAndGet());
+            mbs.registerMBean(this.statistics, name);
+            this.statisticsName = name;
+        } catch (Exception e) {
+            LOGGER.warn("Failed to register the document cache statistics against the JMX Server", e);
+        }
+    }
+
     private void initCache() throws CacheException
     {
         int pageCacheCapacity = this.configuration.getProperty("xwiki.store.cache.capacity", 500);
@@ -168,6 +231,17 @@ private void initCache() throws CacheException
         int pageExistCacheCapacity = this.configuration.getProperty("xwiki.store.cache.pageexistcapacity", 10000);
         this.pageExistCache = this.cacheManager
             .createNewCache(new LRUCacheConfiguration("xwiki.store.pageexistcache", pageExistCacheCapacity));
+
+        int negativeTTL = this.configuration.getProperty("xwiki.store.cache.pageexist.negativettl", 0);
+        if (negativeTTL > 0) {
+            LRUCacheConfiguration notExistCacheConfiguration =
+                new LRUCacheConfiguration("xwiki.store.pagenotexistcache", pageExistCacheCapacity);
+            notExistCacheConfiguration.getLRUEvictionConfiguration().setLifespan(negativeTTL);
+            this.pageNotExistCache = this.cacheManager.createNewCache(notExistCacheConfiguration);
+        }
+
+        this.versionedInvalidation =
+            this.configuration.getProperty("xwiki.store.cache.versionedinvalidation", 0) == 1;
     }
 
     @Deprecated
@@ -220,8 +294,7 @@ public void saveXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext, boolean
             // We need to flush so that caches
             // on the cluster are informed about the change
             String key = getKey(doc, context);
-            getCache().remove(key);
-            getPageExistCache().remove(key);
+            remove(key);
 
             /*
              * We do not want to save the document in the cache at this time. If we did, this would introduce the
@@ -239,6 +312,72 @@ public void flushCache()
     {
         getCache().removeAll();
         getPageExistCache().removeAll();
+        if (this.pageNotExistCache != null) {
+            this.pageNotExistCache.removeAll();
+        }
+    }
+
+    /**
+     * @return the statistics of the document cache
+     * @since 10.5RC1
+     */
+    public DocumentCacheStatistics getStatistics()
+    {
+        return this.statistics;
+    }
+
+    private void remove(String key)
+    {
+        if (getCache() != null) {
+            getCache().remove(key);
+        }
+        if (getPageExistCache() != null) {
+            getPageExistCache().remove(key);
+        }
+        if (this.pageNotExistCache != null) {
+            this.pageNotExistCache.remove(key);
+        }
+
+        this.statistics.eviction();
+    }
+
+    private Boolean getExists(String key)
+    {
+        Boolean result = getPageExistCache().get(key);
+
+        if (result == null && this.pageNotExistCache != null) {
+            result = this.pageNotExistCache.get(key);
+        }
+
+        return result;
+    }
+
+    private void setExists(String key, boolean exists)
+    {
+        if (!exists && this.pageNotExistCache != null) {
+            getPageExistCache().remove(key);
+            this.pageNotExistCache.set(key, Boolean.FALSE);
+        } else {
+            if (this.pageNotExistCache != null) {
+                this.pageNotExistCache.remove(key);
+            }
+            getPageExistCache().set(key, Boolean.valueOf(exists));
+        }
+    }
+
+    /**
+     * @param cachedDocument the document currently in the cache
+     * @param document the document carried by the remote event
+     * @return true if the cached document is at least as recent as the one carried by the event
+     */
+    private boolean isUpToDate(XWikiDocument cachedDocument, XWikiDocument document)
+    {
+        if (document.isNew() || document.getDate() == null || cachedDocument.getDate() == null) {
+            return false;
+        }
+
+        return cachedDocument.getRCSVersion().compareVersions(document.getRCSVersion()) >= 0
+            && !cachedDocument.getDate().before(document.getDate());
     }
 
     @Override
@@ -253,12 +392,17 @@ public void onEvent(Event event, Object source, Object data)
 
                 String key = doc.getKey();
 
-                if (getCache() != null) {
-                    getCache().remove(key);
-                }
-                if (getPageExistCache() != null) {
-                    getPageExistCache().remove(key);
+                if (this.versionedInvalidation && !(event instanceof DocumentDeletedEvent) && getCache() != null) {
+                    XWikiDocument cachedDocument = getCache().get(key);
+                    if (cachedDocument != null && isUpToDate(cachedDocument, doc)) {
+                        // The remote modification is already known (or older than what we have)
+                        this.statistics.skippedEviction();
+
+                        return;
+                    }
                 }
+
+                remove(key);
             }
         }
     }
@@ -333,11 +477,15 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
             if (cachedoc != null) {
                 cachedoc.setFromCache(true);
 
+                this.statistics.hit();
+
                 LOGGER.debug("Cache: got doc {} from cache", key);
             } else {
-                Boolean result = getPageExistCache().get(key);
+                Boolean result = getExists(key);
 
                 if (result == Boolean.FALSE) {
+                    this.statistics.negativeHit();
+
                     LOGGER.debug("Cache: The document {} does not exist, return an empty one", key);
 
                     cachedoc = doc;
@@ -350,17 +498,19 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
                 } else {
                     LOGGER.debug("Cache: Trying to get doc {} from persistent storage", key);
 
+                    this.statistics.miss();
+
                     cachedoc = this.store.loadXWikiDoc(doc, context);
 
                     LOGGER.debug("Cache: Got doc {} from storage", key);
 
                     if (cachedoc.isNew()) {
-                        getPageExistCache().set(key, Boolean.FALSE);
+                        setExists(key, false);
                     } else {
                         getCache().set(key, cachedoc);
 
                         // Also update exist cache
-                        getPageExistCache().set(key, Boolean.TRUE);
+                        setExists(key, true);
                     }
 
                     LOGGER.debug("Cache: put doc {} in cache", key);
@@ -377,6 +527,92 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
         }
     }
 
+    @Override
+    public List<XWikiDocument> loadXWikiDocs(Collection<DocumentReference> references, XWikiContext inputxcontext)
+        throws XWikiException
+    {
+        // Make sure to use the right XWikiContext instance to avoid issues
+        XWikiContext context = getExecutionXContext(inputxcontext, true);
+
+        try {
+            List<XWikiDocument> documents = new ArrayList<>(references.size());
+            List<Integer> missingIndexes = new ArrayList<>();
+            List<DocumentReference> missingReferences = new ArrayList<>();
+            List<String> missingKeys = new ArrayList<>();
+
+            for (DocumentReference reference : references) {
+                XWikiDocument doc = new XWikiDocument(reference, reference.getLocale());
+
+                // Unlike #getKey(XWikiDocument, XWikiContext) we keep the wiki of the reference since the documents
+                // can come from various wikis
+                String key = this.uidStringEntityReferenceSerializer.serialize(doc.getDocumentReferenceWithLocale());
+
+                XWikiDocument cachedoc;
+                try {
+                    cachedoc = getCache().get(key);
+                } catch (Exception e) {
+                    LOGGER.error("Failed to get document from the cache", e);
+
+                    cachedoc = null;
+                }
+
+                if (cachedoc != null) {
+                    cachedoc.setFromCache(true);
+
+                    this.statistics.hit();
+
+                    LOGGER.debug("Cache: got doc {} from cache", key);
+                } else if (getExists(key) == Boolean.FALSE) {
+                    this.statistics.negativeHit();
+
+                    LOGGER.debug("Cache: The document {} does not exist, return an empty one", key);
+
+                    cachedoc = doc;
+                    cachedoc.setNew(true);
+                    cachedoc
+                        .setOriginalDocument(new XWikiDocument(cachedoc.getDocumentReference(), cachedoc.getLocale()));
+                    cachedoc.setStore(this.store);
+                } else {
+                    this.statistics.miss();
+
+                    missingIndexes.add(documents.size());
+                    missingReferences.add(reference);
+                    missingKeys.add(key);
+                }
+
+                documents.add(cachedoc);
+            }
+
+            if (!missingReferences.isEmpty()) {
+                LOGGER.debug("Cache: Trying to get docs {} from persistent storage", missingKeys);
+
+                List<XWikiDocument> loadedDocuments = this.store.loadXWikiDocs(missingReferences, context);
+
+                for (int i = 0; i < loadedDocuments.size(); ++i) {
+                    XWikiDocument loadedDocument = loadedDocuments.get(i);
+                    String key = missingKeys.get(i);
+
+                    if (loadedDocument.isNew()) {
+                        setExists(key, false);
+                    } else {
+                        getCache().set(key, loadedDocument);
+
+                        // Also update exist cache
+                        setExists(key, true);
+                    }
+
+                    loadedDocument.setStore(this.store);
+
+                    documents.set(missingIndexes.get(i), loadedDocument);
+                }
+            }
+
+            return documents;
+        } finally {
+            restoreExecutionXContext();
+        }
+    }
+
     @Override
     public void deleteXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext) throws XWikiException
     {
@@ -389,9 +625,8 @@ public void deleteXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext) throws
 
             this.store.deleteXWikiDoc(doc, context);
 
-            getCache().remove(key);
-            getPageExistCache().remove(key);
-            getPageExistCache().set(key, Boolean.FALSE);
+            remove(key);
+            setExists(key, false);
         } finally {
             restoreExecutionXContext();
         }
@@ -706,7 +941,7 @@ public boolean exists(XWikiDocument doc, XWikiContext inputxcontext) throws XWik
             String key = getKey(doc, context);
 
             try {
-                Boolean result = getPageExistCache().get(key);
+                Boolean result = getExists(key);
 
                 if (result != null) {
                     return result;
@@ -715,7 +950,7 @@ public boolean exists(XWikiDocument doc, XWikiContext inputxcontext) throws XWik
             }
 
             boolean result = this.store.exists(doc, context);
-            getPageExistCache().set(key, Boolean.valueOf(result));
+            setExists(key, result);
 
             return result;
         } finally {
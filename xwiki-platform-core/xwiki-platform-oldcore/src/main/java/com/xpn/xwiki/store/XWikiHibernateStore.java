@@ -31,6 +31,7 @@
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
@@ -43,6 +44,7 @@
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.EntityMode;
@@ -117,6 +119,14 @@
 @Singleton
 public class XWikiHibernateStore extends XWikiHibernateBaseStore implements XWikiStoreInterface
 {
+    /**
+     * The maximum number of values passed to a single {@code IN (...)} clause when loading several documents at once.
+     * Some databases (e.g. Oracle) don't accept more than 1000.
+     */
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    private static final String GROUPS_CLASS_NAME = "XWiki.XWikiGroups";
+
     @Inject
     private Logger logger;
 
@@ -1044,6 +1054,369 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
         }
     }
 
+    @Override
+    public List<XWikiDocument> loadXWikiDocs(Collection<DocumentReference> references, XWikiContext inputxcontext)
+        throws XWikiException
+    {
+        XWikiContext context = getExecutionXContext(inputxcontext, true);
+
+        try {
+            List<XWikiDocument> documents = new ArrayList<>(references.size());
+            Map<String, List<Integer>> indexesByWiki = new LinkedHashMap<>();
+            for (DocumentReference reference : references) {
+                indexesByWiki.computeIfAbsent(reference.getWikiReference().getName(), k -> new ArrayList<>())
+                    .add(documents.size());
+                documents.add(new XWikiDocument(reference, reference.getLocale()));
+            }
+
+            String currentWiki = context.getWikiId();
+            try {
+                for (Map.Entry<String, List<Integer>> entry : indexesByWiki.entrySet()) {
+                    context.setWikiId(entry.getKey());
+
+                    List<XWikiDocument> wikiDocuments = new ArrayList<>(entry.getValue().size());
+                    for (Integer index : entry.getValue()) {
+                        wikiDocuments.add(documents.get(index));
+                    }
+
+                    List<XWikiDocument> loadedDocuments;
+                    if (context.getWiki().hasDynamicCustomMappings()) {
+                        // Dynamic custom mappings require a dedicated session factory for each document
+                        loadedDocuments = new ArrayList<>(wikiDocuments.size());
+                        for (XWikiDocument document : wikiDocuments) {
+                            loadedDocuments.add(loadXWikiDoc(document, context));
+                        }
+                    } else {
+                        loadedDocuments = loadXWikiDocsInternal(wikiDocuments, context);
+                    }
+
+                    for (int i = 0; i < loadedDocuments.size(); ++i) {
+                        documents.set(entry.getValue().get(i), loadedDocuments.get(i));
+                    }
+                }
+            } finally {
+                context.setWikiId(currentWiki);
+            }
+
+            return documents;
+        } finally {
+            restoreExecutionXContext();
+        }
+    }
+
+    /**
+     * Load documents located in the current wiki using a fixed number of queries for documents, objects, properties and
+     * attachments instead of a few queries per document.
+     *
+     * @return the loaded documents, in the same order as the passed ones (which are returned as new documents when
+     *         they don't exist)
+     */
+    private List<XWikiDocument> loadXWikiDocsInternal(List<XWikiDocument> documents, XWikiContext context)
+        throws XWikiException
+    {
+        boolean bTransaction = true;
+        MonitorPlugin monitor = Util.getMonitorPlugin(context);
+        try {
+            // Start monitoring timer
+            if (monitor != null) {
+                monitor.startTimer(HINT);
+            }
+            checkHibernate(context);
+
+            bTransaction = beginTransaction(context);
+            Session session = getSession(context);
+            session.setFlushMode(FlushMode.MANUAL);
+
+            // The document rows (the id is a hash of the local reference and the locale)
+            Set<Long> ids = new LinkedHashSet<>();
+            for (XWikiDocument doc : documents) {
+                ids.add(doc.getId());
+            }
+            Map<Long, XWikiDocument> documentsById = new HashMap<>();
+            for (List<Long> batch : ListUtils.partition(new ArrayList<>(ids), LOAD_BATCH_SIZE)) {
+                Query query = session.createQuery("from XWikiDocument as doc where doc.id in (:ids)");
+                query.setParameterList("ids", batch);
+                @SuppressWarnings("unchecked")
+                List<XWikiDocument> list = query.list();
+                for (XWikiDocument doc : list) {
+                    documentsById.put(doc.getId(), doc);
+                }
+            }
+
+            List<XWikiDocument> loadedDocuments = new ArrayList<>(documentsById.values());
+            for (XWikiDocument doc : loadedDocuments) {
+                doc.setStore(this);
+                doc.setNew(false);
+                doc.setMostRecent(true);
+                // Fix for XWIKI-1651
+                doc.setDate(new Date(doc.getDate().getTime()));
+                doc.setCreationDate(new Date(doc.getCreationDate().getTime()));
+                doc.setContentUpdateDate(new Date(doc.getContentUpdateDate().getTime()));
+
+                BaseClass bclass = new BaseClass();
+                String cxml = doc.getXClassXML();
+                if (cxml != null) {
+                    bclass.fromXML(cxml);
+                    doc.setXClass(bclass);
+                    bclass.setDirty(false);
+                }
+
+                // Store this XWikiClass in the context so that we can use it in case of recursive usage
+                // of classes
+                context.addBaseClass(bclass);
+            }
+
+            loadAttachmentLists(loadedDocuments, session);
+            loadXObjects(loadedDocuments, session, context);
+
+            for (XWikiDocument doc : loadedDocuments) {
+                doc.setContentDirty(false);
+                doc.setMetaDataDirty(false);
+
+                // We need to ensure that the loaded document becomes the original document
+                doc.setOriginalDocument(doc.clone());
+
+                this.logger.debug("Loaded XWikiDocument: [{}]", doc.getDocumentReference());
+            }
+
+            List<XWikiDocument> result = new ArrayList<>(documents.size());
+            for (XWikiDocument doc : documents) {
+                XWikiDocument loadedDocument = documentsById.get(doc.getId());
+                if (loadedDocument == null) {
+                    doc.setStore(this);
+                    doc.setNew(true);
+
+                    // Make sure to always return a document with an original version, even for one that does not exist.
+                    // Allow writing more generic code.
+                    doc.setOriginalDocument(new XWikiDocument(doc.getDocumentReference(), doc.getLocale()));
+
+                    loadedDocument = doc;
+                }
+                result.add(loadedDocument);
+            }
+
+            return result;
+        } catch (XWikiException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new XWikiException(XWikiException.MODULE_XWIKI_STORE,
+                XWikiException.ERROR_XWIKI_STORE_HIBERNATE_READING_DOC, "Exception while reading documents", e);
+        } finally {
+            try {
+                if (bTransaction) {
+                    endTransaction(context, false);
+                }
+            } catch (Exception e) {
+            }
+
+            // End monitoring timer
+            if (monitor != null) {
+                monitor.endTimer(HINT);
+            }
+        }
+    }
+
+    private void loadAttachmentLists(List<XWikiDocument> documents, Session session)
+    {
+        Map<Long, XWikiDocument> documentsById = new HashMap<>();
+        for (XWikiDocument doc : documents) {
+            if (doc.hasElement(XWikiDocument.HAS_ATTACHMENTS)) {
+                documentsById.put(doc.getId(), doc);
+            }
+        }
+
+        for (List<Long> ids : ListUtils.partition(new ArrayList<>(documentsById.keySet()), LOAD_BATCH_SIZE)) {
+            Query query = session.createQuery("from XWikiAttachment as attach where attach.docId in (:docids)");
+            query.setParameterList("docids", ids);
+            @SuppressWarnings("unchecked")
+            List<XWikiAttachment> list = query.list();
+            for (XWikiAttachment attachment : list) {
+                documentsById.get(attachment.getDocId()).setAttachment(attachment);
+            }
+        }
+    }
+
+    private void loadXObjects(List<XWikiDocument> documents, Session session, XWikiContext context)
+        throws XWikiException
+    {
+        Map<String, List<XWikiDocument>> documentsByName = new HashMap<>();
+        for (XWikiDocument doc : documents) {
+            if (doc.hasElement(XWikiDocument.HAS_OBJECTS)) {
+                // Translations share the objects of the default document
+                documentsByName.computeIfAbsent(doc.getFullName(), k -> new ArrayList<>()).add(doc);
+            }
+        }
+        if (documentsByName.isEmpty()) {
+            return;
+        }
+
+        EntityReference localGroupEntityReference = new EntityReference("XWikiGroups", EntityType.DOCUMENT,
+            new EntityReference("XWiki", EntityType.SPACE));
+        DocumentReference groupsDocumentReference = new DocumentReference(context.getWikiId(),
+            localGroupEntityReference.getParent().getName(), localGroupEntityReference.getName());
+
+        List<String> names = new ArrayList<>(documentsByName.keySet());
+        Map<Long, BaseObject> objectsToLoad = new LinkedHashMap<>();
+        Set<String> namesWithGroups = new HashSet<>();
+        for (List<String> batch : ListUtils.partition(names, LOAD_BATCH_SIZE)) {
+            Query query = session
+                .createQuery("from BaseObject as bobject where bobject.name in (:names) order by bobject.number");
+            query.setParameterList("names", batch);
+            @SuppressWarnings("unchecked")
+            List<BaseObject> objects = query.list();
+
+            for (BaseObject object : objects) {
+                DocumentReference classReference = object.getXClassReference();
+
+                if (classReference == null) {
+                    continue;
+                }
+
+                List<XWikiDocument> objectDocuments = documentsByName.get(object.getName());
+                if (objectDocuments == null) {
+                    continue;
+                }
+
+                for (XWikiDocument doc : objectDocuments) {
+                    // The search is case insensitive on some databases, make sure the object really belongs to this
+                    // document
+                    if (!object.getDocumentReference().equals(doc.getDocumentReference())) {
+                        continue;
+                    }
+
+                    if (classReference.equals(groupsDocumentReference)) {
+                        // Groups objects are handled differently.
+                        namesWithGroups.add(doc.getFullName());
+                        continue;
+                    }
+
+                    BaseObject newobject;
+                    if (classReference.equals(doc.getDocumentReference())) {
+                        newobject = doc.getXClass().newCustomClassInstance(context);
+                    } else {
+                        newobject = BaseClass.newCustomClassInstance(classReference, context);
+                    }
+                    if (newobject == null) {
+                        newobject = object;
+                    } else {
+                        newobject.setId(object.getId());
+                        newobject.setXClassReference(object.getRelativeXClassReference());
+                        newobject.setDocumentReference(object.getDocumentReference());
+                        newobject.setNumber(object.getNumber());
+                        newobject.setGuid(object.getGuid());
+                    }
+
+                    BaseClass bclass =
+                        classReference.equals(doc.getDocumentReference()) ? doc.getXClass() : null;
+                    if (bclass == null) {
+                        bclass = newobject.getXClass(context);
+                    }
+                    if ((bclass != null && bclass.hasCustomMapping() && context.getWiki().hasCustomMappings())
+                        || objectsToLoad.containsKey(newobject.getId())) {
+                        // Custom mapped objects and objects shared with a translation are loaded one by one
+                        loadXWikiCollectionInternal(newobject, doc, context, false, true);
+                    } else {
+                        objectsToLoad.put(newobject.getId(), newobject);
+                    }
+
+                    doc.setXObject(newobject.getNumber(), newobject);
+                }
+            }
+        }
+
+        loadXObjectsProperties(objectsToLoad, session, context);
+
+        if (!namesWithGroups.isEmpty()) {
+            loadGroupsObjects(new ArrayList<>(namesWithGroups), documentsByName, localGroupEntityReference,
+                groupsDocumentReference, session, context);
+        }
+    }
+
+    private void loadXObjectsProperties(Map<Long, BaseObject> objects, Session session, XWikiContext context)
+        throws XWikiException
+    {
+        // Find out the name and type of all the properties at once
+        Map<String, Map<Long, Set<String>>> propertiesByType = new HashMap<>();
+        for (List<Long> ids : ListUtils.partition(new ArrayList<>(objects.keySet()), LOAD_BATCH_SIZE)) {
+            Query query = session.createQuery(
+                "select prop.id.id, prop.name, prop.classType from BaseProperty as prop where prop.id.id in (:ids)");
+            query.setParameterList("ids", ids);
+            @SuppressWarnings("unchecked")
+            List<Object[]> results = query.list();
+            for (Object[] result : results) {
+                propertiesByType.computeIfAbsent((String) result[2], k -> new HashMap<>())
+                    .computeIfAbsent((Long) result[0], k -> new HashSet<>()).add((String) result[1]);
+            }
+        }
+
+        // Load the values with one query per property type
+        for (Map.Entry<String, Map<Long, Set<String>>> entry : propertiesByType.entrySet()) {
+            String classType = entry.getKey();
+            Map<Long, Set<String>> namesById = entry.getValue();
+
+            if (session.getSessionFactory().getClassMetadata(classType) != null) {
+                for (List<Long> ids : ListUtils.partition(new ArrayList<>(namesById.keySet()), LOAD_BATCH_SIZE)) {
+                    Query query = session.createQuery("from " + classType + " as prop where prop.id.id in (:ids)");
+                    query.setParameterList("ids", ids);
+                    @SuppressWarnings("unchecked")
+                    List<BaseProperty> properties = query.list();
+                    for (BaseProperty property : properties) {
+                        Set<String> names = namesById.get(property.getId());
+                        if (names != null && names.remove(property.getName())) {
+                            BaseObject object = objects.get(property.getId());
+                            property.setObject(object);
+                            fixLoadedProperty(property);
+                            if (property instanceof ListProperty) {
+                                ((ListProperty) property).getList();
+                            }
+                            object.addField(property.getName(), property);
+                        }
+                    }
+                }
+            }
+
+            // Whatever could not be found in the expected table (e.g. mismatch between string and large string) is
+            // loaded the old way
+            for (Map.Entry<Long, Set<String>> remaining : namesById.entrySet()) {
+                BaseObject object = objects.get(remaining.getKey());
+                for (String name : remaining.getValue()) {
+                    BaseProperty property =
+                        loadXWikiProperty(object, object.getXClass(context), name, classType, context);
+                    object.addField(name, property);
+                }
+            }
+        }
+    }
+
+    private void loadGroupsObjects(List<String> names, Map<String, List<XWikiDocument>> documentsByName,
+        EntityReference localGroupEntityReference, DocumentReference groupsDocumentReference, Session session,
+        XWikiContext context) throws XWikiException
+    {
+        // Each group member would otherwise cost 2 database queries, load all of them in a single query
+        for (List<String> batch : ListUtils.partition(names, LOAD_BATCH_SIZE)) {
+            Query query = session.createQuery("select bobject.name, bobject.number, prop.value"
+                + " from StringProperty as prop, BaseObject as bobject where bobject.name in (:names)"
+                + " and bobject.className='" + GROUPS_CLASS_NAME + "' and bobject.id=prop.id.id"
+                + " and prop.id.name='member' order by bobject.number");
+            query.setParameterList("names", batch);
+            @SuppressWarnings("unchecked")
+            List<Object[]> results = query.list();
+            for (Object[] result : results) {
+                String name = (String) result[0];
+                Integer number = (Integer) result[1];
+                String member = (String) result[2];
+                for (XWikiDocument doc : documentsByName.getOrDefault(name, Collections.emptyList())) {
+                    BaseObject obj = BaseClass.newCustomClassInstance(groupsDocumentReference, context);
+                    obj.setDocumentReference(doc.getDocumentReference());
+                    obj.setXClassReference(localGroupEntityReference);
+                    obj.setNumber(number.intValue());
+                    obj.setStringValue("member", member);
+                    doc.setXObject(obj.getNumber(), obj);
+                }
+            }
+        }
+    }
+
     @Override
     public void deleteXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext) throws XWikiException
     {
@@ -1399,53 +1772,7 @@ private void loadXWikiCollectionInternal(BaseCollection object1, XWikiDocument d
                         continue;
                     }
                     String classType = (String) result[1];
-                    BaseProperty property = null;
-
-                    try {
-                        property = (BaseProperty) Class.forName(classType).newInstance();
-                        property.setObject(object);
-                        property.setName(name);
-                        loadXWikiProperty(property, context, false);
-                    } catch (Exception e) {
-                        // WORKAROUND IN CASE OF MIXMATCH BETWEEN STRING AND LARGESTRING
-                        try {
-                            if (property instanceof StringProperty) {
-                                LargeStringProperty property2 = new LargeStringProperty();
-                                property2.setObject(object);
-                                property2.setName(name);
-                                loadXWikiProperty(property2, context, false);
-                                property.setValue(property2.getValue());
-
-                                if (bclass != null) {
-                                    if (bclass.get(name) instanceof TextAreaClass) {
-                                        property = property2;
-                                    }
-                                }
-
-                            } else if (property instanceof LargeStringProperty) {
-                                StringProperty property2 = new StringProperty();
-                                property2.setObject(object);
-                                property2.setName(name);
-                                loadXWikiProperty(property2, context, false);
-                                property.setValue(property2.getValue());
-
-                                if (bclass != null) {
-                                    if (bclass.get(name) instanceof StringClass) {
-                                        property = property2;
-                                    }
-                                }
-                            } else {
-                                throw e;
-                            }
-                        } catch (Throwable e2) {
-                            Object[] args =
-                                { object.getName(), object.getClass(), Integer.valueOf(object.getNumber() + ""), name };
-                            throw new XWikiException(XWikiException.MODULE_XWIKI_STORE,
-                                XWikiException.ERROR_XWIKI_STORE_HIBERNATE_LOADING_OBJECT,
-                                "Exception while loading object '{0}' of class '{1}', number '{2}' and property '{3}'",
-                                e, args);
-                        }
-                    }
+                    BaseProperty property = loadXWikiProperty(object, bclass, name, classType, context);
 
                     object.addField(name, property);
                 }
@@ -1473,6 +1800,60 @@ private void loadXWikiCollectionInternal(BaseCollection object1, XWikiDocument d
 
     }
 
+    private BaseProperty loadXWikiProperty(BaseCollection object, BaseClass bclass, String name, String classType,
+        XWikiContext context) throws XWikiException
+    {
+        BaseProperty property = null;
+
+        try {
+            property = (BaseProperty) Class.forName(classType).newInstance();
+            property.setObject(object);
+            property.setName(name);
+            loadXWikiProperty(property, context, false);
+        } catch (Exception e) {
+            // WORKAROUND IN CASE OF MIXMATCH BETWEEN STRING AND LARGESTRING
+            try {
+                if (property instanceof StringProperty) {
+                    LargeStringProperty property2 = new LargeStringProperty();
+                    property2.setObject(object);
+                    property2.setName(name);
+                    loadXWikiProperty(property2, context, false);
+                    property.setValue(property2.getValue());
+
+                    if (bclass != null) {
+                        if (bclass.get(name) instanceof TextAreaClass) {
+                            property = property2;
+                        }
+                    }
+
+                } else if (property instanceof LargeStringProperty) {
+                    StringProperty property2 = new StringProperty();
+                    property2.setObject(object);
+                    property2.setName(name);
+                    loadXWikiProperty(property2, context, false);
+                    property.setValue(property2.getValue());
+
+                    if (bclass != null) {
+                        if (bclass.get(name) instanceof StringClass) {
+                            property = property2;
+                        }
+                    }
+                } else {
+                    throw e;
+                }
+            } catch (Throwable e2) {
+                Object[] args =
+                    { object.getName(), object.getClass(), Integer.valueOf(object.getNumber() + ""), name };
+                throw new XWikiException(XWikiException.MODULE_XWIKI_STORE,
+                    XWikiException.ERROR_XWIKI_STORE_HIBERNATE_LOADING_OBJECT,
+                    "Exception while loading object '{0}' of class '{1}', number '{2}' and property '{3}'",
+                    e, args);
+            }
+        }
+
+        return property;
+    }
+
     /**
      * @deprecated This is internal to XWikiHibernateStore and may be removed in the future.
      */
@@ -1574,15 +1955,7 @@ private void loadXWikiProperty(PropertyInterface property, XWikiContext context,
 
             try {
                 session.load(property, (Serializable) property);
-                // In Oracle, empty string are converted to NULL. Since an undefined property is not found at all, it is
-                // safe to assume that a retrieved NULL value should actually be an empty string.
-                if (property instanceof BaseStringProperty) {
-                    BaseStringProperty stringProperty = (BaseStringProperty) property;
-                    if (stringProperty.getValue() == null) {
-                        stringProperty.setValue("");
-                    }
-                }
-                ((BaseProperty) property).setValueDirty(false);
+                fixLoadedProperty((BaseProperty) property);
             } catch (ObjectNotFoundException e) {
                 // Let's accept that there is no data in property tables but log it
                 this.logger.error("No data for property [{}] of object id [{}]", property.getName(), property.getId());
@@ -1616,6 +1989,19 @@ private void loadXWikiProperty(PropertyInterface property, XWikiContext context,
         }
     }
 
+    private void fixLoadedProperty(BaseProperty property)
+    {
+        // In Oracle, empty string are converted to NULL. Since an undefined property is not found at all, it is
+        // safe to assume that a retrieved NULL value should actually be an empty string.
+        if (property instanceof BaseStringProperty) {
+            BaseStringProperty stringProperty = (BaseStringProperty) property;
+            if (stringProperty.getValue() == null) {
+                stringProperty.setValue("");
+            }
+        }
+        property.setValueDirty(false);
+    }
+
     private void saveXWikiPropertyInternal(final PropertyInterface property, final XWikiContext context,
         final boolean runInOwnTransaction) throws XWikiException
     {
@@ -2711,7 +3097,8 @@ public List<XWikiDocument> searchDocuments(String wheresql, boolean distinctbyla
 
         // Resolve documents. We use two separated sessions because rights service could need to switch database to
         // check rights
-        List<XWikiDocument> documents = new ArrayList<>();
+        List<DocumentReference> documentReferences = new ArrayList<>();
+        List<String> locales = new ArrayList<>();
         WikiReference currentWikiReference = new WikiReference(context.getWikiId());
         for (Object result : documentDatas) {
             String fullName;
@@ -2734,16 +3121,18 @@ public List<XWikiDocument> searchDocuments(String wheresql, boolean distinctbyla
                 }
             }
 
-            DocumentReference documentReference = doc.getDocumentReference();
-            if (distinctbylanguage) {
-                XWikiDocument document = context.getWiki().getDocument(documentReference, context);
-                if (StringUtils.isEmpty(locale)) {
-                    documents.add(document);
-                } else {
-                    documents.add(document.getTranslatedDocument(locale, context));
+            documentReferences.add(doc.getDocumentReference());
+            locales.add(locale);
+        }
+
+        // Load all the documents at once
+        List<XWikiDocument> documents = context.getWiki().getStore().loadXWikiDocs(documentReferences, context);
+        if (distinctbylanguage) {
+            for (int i = 0; i < documents.size(); ++i) {
+                String locale = locales.get(i);
+                if (StringUtils.isNotEmpty(locale)) {
+                    documents.set(i, documents.get(i).getTranslatedDocument(locale, context));
                 }
-            } else {
-                documents.add(context.getWiki().getDocument(documentReference, context));
             }
         }
 
@@ -19,6 +19,8 @@
  */
 package com.xpn.xwiki.store;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.xwiki.component.annotation.Role;
@@ -41,6 +43,30 @@
 
     XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext context) throws XWikiException;
 
+    /**
+     * Load several documents at once. Implementations are expected to do it in a more efficient way than calling
+     * {@link #loadXWikiDoc(XWikiDocument, XWikiContext)} for each document (fewer database queries, cache lookups,
+     * etc.).
+     *
+     * @param references the references of the documents to load, the locale of each reference indicates which
+     *            translation to load
+     * @param context the XWiki context
+     * @return the loaded documents, in the same order as the passed references; a document which does not exist is
+     *         returned as a new document
+     * @throws XWikiException when failing to load the documents
+     * @since 10.5RC1
+     */
+    default List<XWikiDocument> loadXWikiDocs(Collection<DocumentReference> references, XWikiContext context)
+        throws XWikiException
+    {
+        List<XWikiDocument> documents = new ArrayList<>(references.size());
+        for (DocumentReference reference : references) {
+            documents.add(loadXWikiDoc(new XWikiDocument(reference, reference.getLocale()), context));
+        }
+
+        return documents;
+    }
+
     void deleteXWikiDoc(XWikiDocument doc, XWikiContext context) throws XWikiException;
 
     List<String> getClassList(XWikiContext context) throws XWikiException;
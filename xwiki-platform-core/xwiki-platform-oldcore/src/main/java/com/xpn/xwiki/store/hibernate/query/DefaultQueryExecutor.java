@@ -29,6 +29,7 @@
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryException;
 import org.xwiki.query.QueryExecutor;
+import org.xwiki.query.QueryResultIterator;
 
 /**
  * The default QueryExecutor, this uses The HqlQueryExecutor since XWikiHibernateStore is the default store. Wrapping
@@ -51,4 +52,10 @@ public <T> List<T> execute(final Query query) throws QueryException
     {
         return this.executor.execute(query);
     }
+
+    @Override
+    public <T> QueryResultIterator<T> scroll(Query query) throws QueryException
+    {
+        return this.executor.scroll(query);
+    }
 }
@@ -34,7 +34,9 @@
 
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.SQLQuery;
+import org.hibernate.ScrollMode;
 import org.hibernate.Session;
+import org.hibernate.Transaction;
 import org.hibernate.cfg.Configuration;
 import org.hibernate.engine.NamedQueryDefinition;
 import org.hibernate.engine.NamedSQLQueryDefinition;
@@ -50,14 +52,19 @@
 import org.xwiki.query.QueryExecutor;
 import org.xwiki.query.QueryFilter;
 import org.xwiki.query.QueryParameter;
+import org.xwiki.query.QueryResultIterator;
 import org.xwiki.query.SecureQuery;
 import org.xwiki.query.WrappingQuery;
+import org.xwiki.query.internal.QueryStatementCache;
 import org.xwiki.security.authorization.ContextualAuthorizationManager;
 import org.xwiki.security.authorization.Right;
+import org.xwiki.stability.Unstable;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.internal.store.hibernate.query.HqlQueryResultIterator;
 import com.xpn.xwiki.internal.store.hibernate.query.HqlQueryUtils;
+import com.xpn.xwiki.store.DatabaseProduct;
 import com.xpn.xwiki.store.XWikiHibernateBaseStore.HibernateCallback;
 import com.xpn.xwiki.store.XWikiHibernateStore;
 import com.xpn.xwiki.store.hibernate.HibernateSessionFactory;
@@ -81,6 +88,23 @@ public class HqlQueryExecutor implements QueryExecutor, Initializable
 
     private static final String ESCAPE_LIKE_PARAMETERS_FILTER = "escapeLikeParameters";
 
+    /**
+     * The maximum number of statements for which the safety verdict is remembered.
+     */
+    private static final int SAFE_STATEMENTS_CACHE_CAPACITY = 1000;
+
+    /**
+     * The safety verdicts, by HQL statement. Parsing the statement is costly and the verdict only depends on the
+     * statement.
+     */
+    private static final QueryStatementCache<Boolean> SAFE_STATEMENTS =
+        new QueryStatementCache<>(SAFE_STATEMENTS_CACHE_CAPACITY);
+
+    /**
+     * The number of results fetched at once when scrolling a query.
+     */
+    private static final int SCROLL_BATCH_SIZE = 100;
+
     /**
      * Session factory needed for register named queries mapping.
      */
@@ -142,7 +166,28 @@ private Set<String> getAllowedNamedQueries()
      */
     protected static boolean isSafeSelect(String statementString)
     {
-        return HqlQueryUtils.isShortFormStatement(statementString) || HqlQueryUtils.isSafe(statementString);
+        if (HqlQueryUtils.isShortFormStatement(statementString)) {
+            return true;
+        }
+
+        Boolean safe = SAFE_STATEMENTS.get(statementString);
+        if (safe == null) {
+            safe = HqlQueryUtils.isSafe(statementString);
+
+            SAFE_STATEMENTS.set(statementString, safe);
+        }
+
+        return safe;
+    }
+
+    /**
+     * @return the cache of the safety verdicts of the HQL statements
+     * @since 10.5RC1
+     */
+    @Unstable
+    public static QueryStatementCache<Boolean> getSafeStatementCache()
+    {
+        return SAFE_STATEMENTS;
     }
 
     protected void checkAllowed(final Query query) throws QueryException
@@ -200,6 +245,62 @@ public List<T> doInHibernate(Session session)
         }
     }
 
+    @Override
+    public <T> QueryResultIterator<T> scroll(final Query query) throws QueryException
+    {
+        // Make sure the query is allowed in the current context
+        checkAllowed(query);
+
+        XWikiContext xcontext = getContext();
+        XWikiHibernateStore store = getStore();
+
+        // The results are fetched while the caller is iterating them and the caller might need the store in the
+        // meantime (e.g. to load the documents). So we execute the query in a dedicated session which is not bound to
+        // the context and which is closed with the returned iterator.
+        String oldDatabase = xcontext.getWikiId();
+        Session currentSession = store.getSession(xcontext);
+        Transaction currentTransaction = store.getTransaction(xcontext);
+        store.setSession(null, xcontext);
+        store.setTransaction(null, xcontext);
+        try {
+            this.progress.startStep(query, "query.hql.progress.scroll", "Scroll HQL query [{}]", query);
+
+            if (query.getWiki() != null) {
+                xcontext.setWikiId(query.getWiki());
+            }
+
+            store.checkHibernate(xcontext);
+            store.beginTransaction(xcontext);
+            Session session = store.getSession(xcontext);
+            Transaction transaction = store.getTransaction(xcontext);
+            try {
+                org.hibernate.Query hquery = createHibernateQuery(session, query);
+                hquery.setReadOnly(true);
+                if (DatabaseProduct.MYSQL == store.getDatabaseProductName()) {
+                    // The MySQL driver only streams the results (instead of loading them all) with this fetch size
+                    hquery.setFetchSize(Integer.MIN_VALUE);
+                } else {
+                    hquery.setFetchSize(SCROLL_BATCH_SIZE);
+                }
+
+                return new HqlQueryResultIterator<>(query, session, transaction,
+                    hquery.scroll(ScrollMode.FORWARD_ONLY), SCROLL_BATCH_SIZE);
+            } catch (Exception e) {
+                store.endTransaction(xcontext, false);
+
+                throw e;
+            }
+        } catch (Exception e) {
+            throw new QueryException("Exception while scrolling query", query, e);
+        } finally {
+            store.setSession(currentSession, xcontext);
+            store.setTransaction(currentTransaction, xcontext);
+            xcontext.setWikiId(oldDatabase);
+
+            this.progress.endStep(query);
+        }
+    }
+
     protected org.hibernate.Query createHibernateQuery(Session session, Query query)
     {
         org.hibernate.Query hquery;
@@ -19,9 +19,16 @@
  */
 package com.xpn.xwiki.web;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -34,7 +41,7 @@
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -53,6 +60,7 @@
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiAttachmentContent;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.plugin.XWikiPluginManager;
 import com.xpn.xwiki.util.Util;
@@ -91,7 +99,22 @@ public class DownloadAction extends XWikiAction
     private static final String RANGE_HEADER_NAME = "Range";
 
     /** The format of a valid range header. */
-    private static final Pattern RANGE_HEADER_PATTERN = Pattern.compile("bytes=([0-9]+)?-([0-9]+)?");
+    private static final Pattern RANGE_HEADER_PATTERN = Pattern.compile("bytes=(.+)");
+
+    /** The format of a valid byte range in a range header. */
+    private static final Pattern BYTE_RANGE_PATTERN = Pattern.compile("([0-9]+)?-([0-9]+)?");
+
+    /** The maximum number of byte ranges accepted in a range header, the range header is ignored beyond that. */
+    private static final int MAX_RANGES = 20;
+
+    /** The content type of a response containing several byte ranges. */
+    private static final String MULTIPART_BYTERANGES = "multipart/byteranges; boundary=";
+
+    /** The name of the HTTP Header giving the range of the sent bytes. */
+    private static final String CONTENT_RANGE_HEADER_NAME = "Content-Range";
+
+    /** The line separator used in multipart responses. */
+    private static final String CRLF = "\r\n";
 
     /**
      * Default constructor.
@@ -199,7 +222,7 @@ private void throwNotFoundException(String filename) throws XWikiException
 
     /**
      * Respond to a range request, either with the requested bytes, or with a {@code 416 REQUESTED RANGE NOT
-     * SATISFIABLE} response if the requested byte range falls outside the length of the attachment. If the range
+     * SATISFIABLE} response if all the requested byte ranges fall outside the length of the attachment. If the range
      * request header is syntactically invalid, nothing is written, and instead {@code false} is returned, letting the
      * action handler ignore the Range header and treat this as a normal (full) download request.
      *
@@ -220,63 +243,155 @@ private boolean sendPartialContent(final XWikiAttachment attachment,
     {
         String range = request.getHeader(RANGE_HEADER_NAME);
         Matcher m = RANGE_HEADER_PATTERN.matcher(range);
-        if (m.matches()) {
-            String startStr = m.group(1);
-            String endStr = m.group(2);
-            Long start = NumberUtils.createLong(startStr);
-            Long end = NumberUtils.createLong(endStr);
-            if (start == null && end != null && end > 0) {
-                // Tail request, output the last <end> bytes
-                start = Math.max(attachment.getContentSize(context) - end, 0L);
-                end = attachment.getContentSize(context) - 1L;
-            }
-            if (!isValidRange(start, end)) {
+        if (!m.matches()) {
+            return false;
+        }
+
+        String[] byteRanges = StringUtils.split(m.group(1), ',');
+        if (byteRanges.length > MAX_RANGES) {
+            return false;
+        }
+
+        long contentSize = attachment.getContentLongSize(context);
+        List<Pair<Long, Long>> ranges = new ArrayList<>(byteRanges.length);
+        for (String byteRange : byteRanges) {
+            Pair<Long, Long> parsedRange = parseByteRange(byteRange.trim(), contentSize);
+            if (parsedRange == null) {
                 return false;
             }
-            if (end == null) {
-                end = attachment.getContentSize(context) - 1L;
+            // Ranges starting after the end of the attachment cannot be satisfied
+            if (parsedRange.getLeft() < contentSize) {
+                ranges.add(parsedRange);
             }
-            end = Math.min(end, attachment.getContentSize(context) - 1L);
-            writeByteRange(attachment, start, end, request, response, context);
-            return true;
         }
-        return false;
+
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        } else if (ranges.size() == 1) {
+            writeByteRange(attachment, ranges.get(0), contentSize, request, response, context);
+        } else {
+            writeByteRanges(attachment, ranges, contentSize, request, response, context);
+        }
+
+        return true;
     }
 
     /**
-     * Write a byte range from the attachment to the response, if the requested range is valid and falls within the file
-     * limits.
+     * @param byteRange a byte range from the range header (e.g. {@code 0-99}, {@code 100-} or {@code -100})
+     * @param contentSize the size of the attachment content
+     * @return the first and last bytes of the range, or {@code null} if the range is syntactically invalid
+     */
+    private Pair<Long, Long> parseByteRange(String byteRange, long contentSize)
+    {
+        Matcher m = BYTE_RANGE_PATTERN.matcher(byteRange);
+        if (!m.matches()) {
+            return null;
+        }
+
+        Long start = NumberUtils.createLong(m.group(1));
+        Long end = NumberUtils.createLong(m.group(2));
+        if (start == null && end != null && end > 0) {
+            // Tail request, output the last <end> bytes
+            start = Math.max(contentSize - end, 0L);
+            end = contentSize - 1L;
+        }
+        if (!isValidRange(start, end)) {
+            return null;
+        }
+        if (start == null) {
+            // Empty tail request, which cannot be satisfied
+            return new ImmutablePair<>(contentSize, contentSize);
+        }
+        if (end == null) {
+            end = contentSize - 1L;
+        }
+
+        return new ImmutablePair<>(start, Math.min(end, contentSize - 1L));
+    }
+
+    /**
+     * Write a byte range from the attachment to the response.
      *
      * @param attachment the attachment to get content from
-     * @param start the first byte to write
-     * @param end the last byte to write
+     * @param range the first and last bytes to write
+     * @param contentSize the size of the attachment content
      * @param request the current client request
      * @param response the response to write to.
      * @param context the current request context
      * @throws XWikiException if the attachment content cannot be retrieved
      * @throws IOException if the response cannot be written
      */
-    private void writeByteRange(final XWikiAttachment attachment, Long start, Long end,
+    private void writeByteRange(final XWikiAttachment attachment, Pair<Long, Long> range, long contentSize,
         final XWikiRequest request,
         final XWikiResponse response,
         final XWikiContext context)
         throws XWikiException, IOException
     {
-        if (start >= 0 && start < attachment.getContentSize(context)) {
-            InputStream data = attachment.getContentInputStream(context);
-            data = new BoundedInputStream(data, end + 1);
-            data.skip(start);
-            setCommonHeaders(attachment, request, response, context);
-            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
-            if ((end - start + 1L) < Integer.MAX_VALUE) {
-                response.setContentLength((int) (end - start + 1));
-            }
-            response.setHeader("Content-Range", "bytes " + start + "-" + end + SEPARATOR
-                + attachment.getContentSize(context));
-            IOUtils.copyLarge(data, response.getOutputStream());
-        } else {
-            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        long start = range.getLeft();
+        long end = range.getRight();
+
+        setCommonHeaders(attachment, request, response, context);
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if ((end - start + 1L) < Integer.MAX_VALUE) {
+            response.setContentLength((int) (end - start + 1));
+        }
+        response.setHeader(CONTENT_RANGE_HEADER_NAME, getContentRange(start, end, contentSize));
+        writeContent(attachment, start, end - start + 1, response.getOutputStream(), context);
+    }
+
+    /**
+     * Write several byte ranges from the attachment to the response, as a {@code multipart/byteranges} content.
+     *
+     * @param attachment the attachment to get content from
+     * @param ranges the first and last bytes of each range to write
+     * @param contentSize the size of the attachment content
+     * @param request the current client request
+     * @param response the response to write to.
+     * @param context the current request context
+     * @throws XWikiException if the attachment content cannot be retrieved
+     * @throws IOException if the response cannot be written
+     */
+    private void writeByteRanges(final XWikiAttachment attachment, List<Pair<Long, Long>> ranges, long contentSize,
+        final XWikiRequest request,
+        final XWikiResponse response,
+        final XWikiContext context)
+        throws XWikiException, IOException
+    {
+        String boundary = RandomStringUtils.randomAlphanumeric(32);
+        String mimetype = attachment.getMimeType(context);
+
+        // Prepare the part headers first in order to know the length of the response
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (Pair<Long, Long> range : ranges) {
+            String partHeader = CRLF + "--" + boundary + CRLF + "Content-Type: " + mimetype + CRLF
+                + CONTENT_RANGE_HEADER_NAME + ": " + getContentRange(range.getLeft(), range.getRight(), contentSize)
+                + CRLF + CRLF;
+            partHeaders.add(partHeader.getBytes(StandardCharsets.ISO_8859_1));
+            contentLength += partHeaders.get(partHeaders.size() - 1).length + range.getRight() - range.getLeft() + 1;
+        }
+        byte[] closeDelimiter = (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.ISO_8859_1);
+        contentLength += closeDelimiter.length;
+
+        setCommonHeaders(attachment, request, response, context);
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType(MULTIPART_BYTERANGES + boundary);
+        if (contentLength < Integer.MAX_VALUE) {
+            response.setContentLength((int) contentLength);
+        }
+
+        OutputStream output = response.getOutputStream();
+        for (int i = 0; i < ranges.size(); i++) {
+            Pair<Long, Long> range = ranges.get(i);
+            output.write(partHeaders.get(i));
+            writeContent(attachment, range.getLeft(), range.getRight() - range.getLeft() + 1, output, context);
         }
+        output.write(closeDelimiter);
+    }
+
+    private String getContentRange(long start, long end, long contentSize)
+    {
+        return "bytes " + start + "-" + end + SEPARATOR + contentSize;
     }
 
     /**
@@ -296,19 +411,52 @@ private void sendContent(final XWikiAttachment attachment,
         final XWikiContext context)
         throws XWikiException
     {
-        InputStream stream = null;
         try {
             setCommonHeaders(attachment, request, response, context);
             response.setContentLength(attachment.getContentSize(context));
-            stream = attachment.getContentInputStream(context);
-            IOUtils.copy(stream, response.getOutputStream());
+            writeContent(attachment, 0, -1, response.getOutputStream(), context);
         } catch (IOException e) {
             throw new XWikiException(XWikiException.MODULE_XWIKI_APP,
                 XWikiException.ERROR_XWIKI_APP_SEND_RESPONSE_EXCEPTION,
                 "Exception while sending response", e);
-        } finally {
-            if (stream != null) {
-                IOUtils.closeQuietly(stream);
+        }
+    }
+
+    /**
+     * Write a part of the attachment content. When the content is stored as is in a file, it's transferred directly
+     * from the file channel instead of going through the buffered input streams of the attachment content.
+     *
+     * @param attachment the attachment to get content from
+     * @param start the first byte to write
+     * @param length the number of bytes to write, or a negative number to write until the end of the content
+     * @param output the stream to write to
+     * @param context the current request context
+     * @throws XWikiException if the attachment content cannot be retrieved
+     * @throws IOException if the content cannot be written
+     */
+    private void writeContent(XWikiAttachment attachment, long start, long length, OutputStream output,
+        XWikiContext context) throws XWikiException, IOException
+    {
+        XWikiAttachmentContent content = attachment.getAttachment_content();
+        File file = content != null ? content.getContentFile() : null;
+
+        if (file != null) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(output);
+                long position = start;
+                long end = length < 0 ? channel.size() : start + length;
+                while (position < end) {
+                    long transferred = channel.transferTo(position, end - position, target);
+                    if (transferred <= 0) {
+                        // The end of the file has been reached
+                        break;
+                    }
+                    position += transferred;
+                }
+            }
+        } else {
+            try (InputStream stream = attachment.getContentInputStream(context)) {
+                IOUtils.copyLarge(stream, output, start, length);
             }
         }
     }
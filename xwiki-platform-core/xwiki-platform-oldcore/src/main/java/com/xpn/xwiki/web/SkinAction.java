@@ -28,6 +28,7 @@
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xwiki.container.servlet.HttpServletUtils;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.EntityReferenceSerializer;
@@ -297,7 +298,7 @@ private boolean renderFileFromFilesystem(String path, XWikiContext context) thro
                 // Write the content to the response's output stream.
                 setupHeaders(response, mimetype, modified, data.length);
                 try {
-                    response.getOutputStream().write(data);
+                    writeContent(data, context);
                 } catch (IOException e) {
                     throw new XWikiException(XWikiException.MODULE_XWIKI_APP,
                         XWikiException.ERROR_XWIKI_APP_SEND_RESPONSE_EXCEPTION, "Exception while sending response", e);
@@ -354,7 +355,7 @@ public boolean renderFileFromObjectField(String filename, XWikiDocument doc, fin
             // Write the content to the response's output stream.
             byte[] data = content.getBytes(ENCODING);
             setupHeaders(response, mimetype, doc.getDate(), data.length);
-            response.getOutputStream().write(data);
+            writeContent(data, context);
 
             return true;
         } else {
@@ -427,11 +428,17 @@ public boolean renderFileFromAttachment(String filename, XWikiDocument doc, XWik
                 // Write the content to the response's output stream.
                 data = evaluatedContent.getBytes(ENCODING);
                 setupHeaders(response, mimetype, attachment.getDate(), data.length);
-                response.getOutputStream().write(data);
+                writeContent(data, context);
             } else {
                 // Otherwise, return the raw content.
                 setupHeaders(response, mimetype, attachment.getDate(), attachment.getContentSize(context));
-                IOUtils.copy(attachment.getContentInputStream(context), response.getOutputStream());
+                // Identify the raw content by its version and date instead of hashing it (the date distinguishes an
+                // attachment deleted and uploaded again, which restarts at the same version)
+                String etag = HttpServletUtils.computeETag((attachment.getReference() + "@" + attachment.getVersion()
+                    + "@" + attachment.getDate().getTime()).getBytes(ENCODING));
+                if (!checkNotModified(etag, context)) {
+                    IOUtils.copy(attachment.getContentInputStream(context), response.getOutputStream());
+                }
             }
 
             return true;
@@ -442,6 +449,20 @@ public boolean renderFileFromAttachment(String filename, XWikiDocument doc, XWik
         return false;
     }
 
+    /**
+     * Write the content to the response's output stream, unless the client already has it.
+     *
+     * @param data the content to send
+     * @param context the XWiki context
+     * @throws IOException if the response cannot be sent
+     */
+    private void writeContent(byte[] data, XWikiContext context) throws IOException
+    {
+        if (!checkNotModified(HttpServletUtils.computeETag(data), context)) {
+            context.getResponse().getOutputStream().write(data);
+        }
+    }
+
     /**
      * Checks if a mimetype indicates a javascript file.
      *
@@ -43,6 +43,7 @@
 import org.xwiki.bridge.event.ActionExecutingEvent;
 import org.xwiki.component.util.DefaultParameterizedType;
 import org.xwiki.container.Container;
+import org.xwiki.container.servlet.HttpServletUtils;
 import org.xwiki.container.servlet.ServletContainerException;
 import org.xwiki.container.servlet.ServletContainerInitializer;
 import org.xwiki.context.Execution;
@@ -73,6 +74,7 @@
 import org.xwiki.resource.entity.EntityResourceReference;
 import org.xwiki.resource.internal.DefaultResourceReferenceHandlerChain;
 import org.xwiki.script.ScriptContextManager;
+import org.xwiki.stability.Unstable;
 import org.xwiki.template.TemplateManager;
 import org.xwiki.velocity.VelocityManager;
 
@@ -827,6 +829,21 @@ protected void sendRedirect(XWikiResponse response, String url) throws XWikiExce
         }
     }
 
+    /**
+     * Set the entity tag of the response and check if the client already has the corresponding content, in which case
+     * the response status is set to 304 (Not Modified) and the content should not be sent.
+     *
+     * @param etag the entity tag of the content to send, see {@link HttpServletUtils#computeETag(byte[])}
+     * @param context the XWiki context
+     * @return true if the client already has the content
+     * @since 10.5RC1
+     */
+    @Unstable
+    protected boolean checkNotModified(String etag, XWikiContext context)
+    {
+        return HttpServletUtils.checkNotModified(etag, context.getRequest(), context.getResponse());
+    }
+
     /**
      * Gets the translated version of a document, in the specified language. If the translation does not exist, a new
      * document translation is created. If the requested language does not correspond to a translation (is not defined
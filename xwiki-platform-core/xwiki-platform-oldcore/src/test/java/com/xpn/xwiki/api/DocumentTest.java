@@ -19,6 +19,9 @@
  */
 package com.xpn.xwiki.api;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 
 import org.junit.Rule;
@@ -36,7 +39,9 @@
 
 import static com.xpn.xwiki.test.mockito.OldcoreMatchers.anyXWikiContext;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
@@ -120,6 +125,100 @@ public void testRemoveObjectDoesntCauseDataLoss() throws XWikiException
         }
     }
 
+    @Test
+    public void testReadingObjectsDoesNotCopyDocument() throws XWikiException
+    {
+        XWikiDocument commentDocument = new XWikiDocument(new DocumentReference("wiki", "XWiki", "XWikiComments"));
+        commentDocument.getXClass().addTextAreaField("comment", "comment", 60, 20);
+        this.oldcore.getSpyXWiki().saveDocument(commentDocument, this.oldcore.getXWikiContext());
+
+        XWikiDocument xdoc = new XWikiDocument(new DocumentReference("wiki", "Space", "Page"));
+        for (int i = 0; i < 500; ++i) {
+            xdoc.newXObject(commentDocument.getDocumentReference(), this.oldcore.getXWikiContext());
+        }
+
+        Document adoc = xdoc.newDocument(this.oldcore.getXWikiContext());
+
+        List<Object> objects = adoc.getObjects("XWiki.XWikiComments");
+        assertEquals(500, objects.size());
+        for (Object object : objects) {
+            assertNull(object.getValue("comment"));
+        }
+
+        // Reading objects does not copy the wrapped document
+        assertSame(xdoc, adoc.doc);
+
+        Object object = adoc.getObject("XWiki.XWikiComments", 42);
+        object.set("comment", "Comment");
+
+        // Modifying an object works on a copy of the document
+        assertNotSame(xdoc, adoc.doc);
+        assertNull(xdoc.getXObject(commentDocument.getDocumentReference(), 42).get("comment"));
+        assertEquals("Comment", ((BaseProperty) adoc.doc.getXObject(commentDocument.getDocumentReference(), 42)
+            .get("comment")).getValue());
+        assertSame(adoc.doc, object.getBaseObject().getOwnerDocument());
+
+        // Objects obtained before the copy are now modified in the copy
+        objects.get(7).set("comment", "Other comment");
+        assertNull(xdoc.getXObject(commentDocument.getDocumentReference(), 7).get("comment"));
+        assertEquals("Other comment", ((BaseProperty) adoc.doc.getXObject(commentDocument.getDocumentReference(), 7)
+            .get("comment")).getValue());
+    }
+
+    @Test
+    public void testSharedObjectsAreNotExposedToModifications() throws XWikiException
+    {
+        XWikiDocument commentDocument = new XWikiDocument(new DocumentReference("wiki", "XWiki", "XWikiComments"));
+        commentDocument.getXClass().addTextAreaField("comment", "comment", 60, 20);
+        this.oldcore.getSpyXWiki().saveDocument(commentDocument, this.oldcore.getXWikiContext());
+
+        XWikiDocument xdoc = new XWikiDocument(new DocumentReference("wiki", "Space", "Page"));
+        BaseObject xobject = xdoc.newXObject(commentDocument.getDocumentReference(), this.oldcore.getXWikiContext());
+        xobject.setLargeStringValue("comment", "Comment");
+
+        Document adoc = xdoc.newDocument(this.oldcore.getXWikiContext());
+        Object object = adoc.getObject("XWiki.XWikiComments");
+
+        // Properties of a shared object are copies
+        assertNotSame(xobject.get("comment"), object.getProperty("comment").getBaseProperty());
+        assertNotSame(xobject.get("comment"), object.getProperties()[0].element);
+        assertEquals("Comment", object.getValue("comment"));
+
+        // Modifying an object which was removed from the document does not modify the shared object
+        assertTrue(adoc.removeObject(object));
+        object.set("comment", "Other comment");
+
+        assertEquals("Comment", ((BaseProperty) xobject.get("comment")).getValue());
+        assertSame(xobject, xdoc.getXObject(commentDocument.getDocumentReference()));
+        assertNull(adoc.getObject("XWiki.XWikiComments"));
+        assertNotSame(xobject, object.getBaseObject());
+        assertEquals("Other comment", object.getValue("comment"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testValuesOfSharedObjectsAreNotExposedToModifications() throws XWikiException
+    {
+        XWikiDocument classDocument = new XWikiDocument(new DocumentReference("wiki", "Space", "TagsClass"));
+        classDocument.getXClass().addStaticListField("tags", "Tags", 5, true, "a|b|c");
+        classDocument.getXClass().addDateField("date", "Date");
+        this.oldcore.getSpyXWiki().saveDocument(classDocument, this.oldcore.getXWikiContext());
+
+        XWikiDocument xdoc = new XWikiDocument(new DocumentReference("wiki", "Space", "Page"));
+        BaseObject xobject = xdoc.newXObject(classDocument.getDocumentReference(), this.oldcore.getXWikiContext());
+        xobject.setStringListValue("tags", new ArrayList<>(Arrays.asList("a", "b")));
+        xobject.setDateValue("date", new Date(1000L));
+
+        Document adoc = xdoc.newDocument(this.oldcore.getXWikiContext());
+
+        ((List<String>) adoc.getValue("tags")).add("c");
+        ((Date) adoc.getValue("date")).setTime(2000L);
+
+        assertEquals(Arrays.asList("a", "b"), xobject.getListValue("tags"));
+        assertEquals(new Date(1000L), xobject.getDateValue("date"));
+        assertEquals(Arrays.asList("a", "b"), adoc.getValue("tags"));
+    }
+
     @Test
     public void testSaveAsAuthorUsesGuestIfDroppedPermissions() throws XWikiException
     {
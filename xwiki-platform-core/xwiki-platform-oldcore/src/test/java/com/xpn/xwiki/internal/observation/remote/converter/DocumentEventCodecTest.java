@@ -0,0 +1,146 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.observation.remote.converter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.Test;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.observation.remote.RemoteEventData;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Validate {@link DocumentEventCodec}.
+ *
+ * @version $Id$
+ */
+public class DocumentEventCodecTest
+{
+    private DocumentEventCodec codec = new DocumentEventCodec();
+
+    private RemoteEventData createRemoteEvent(DocumentReference reference)
+    {
+        RemoteEventData remoteEvent = new RemoteEventData();
+        remoteEvent.setEvent(new DocumentUpdatedEvent(reference));
+
+        HashMap<String, Serializable> source = new HashMap<>();
+        source.put(AbstractXWikiEventConverter.DOC_NAME, reference);
+        source.put(AbstractXWikiEventConverter.DOC_VERSION, "2.1");
+        source.put(AbstractXWikiEventConverter.DOC_LANGUAGE, "");
+        source.put(AbstractXWikiEventConverter.ORIGDOC_VERSION, "1.1");
+        source.put(AbstractXWikiEventConverter.ORIGDOC_LANGUAGE, "");
+        remoteEvent.setSource(source);
+
+        HashMap<String, Serializable> data = new HashMap<>();
+        data.put(AbstractXWikiEventConverter.CONTEXT_WIKI, "wiki");
+        data.put(AbstractXWikiEventConverter.CONTEXT_USER, "XWiki.Admin");
+        remoteEvent.setData(data);
+
+        return remoteEvent;
+    }
+
+    private byte[] encode(RemoteEventData remoteEvent) throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        this.codec.encode(remoteEvent, output);
+        output.flush();
+
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void encodeAndDecode() throws Exception
+    {
+        DocumentReference reference =
+            new DocumentReference("wiki", Arrays.asList("space1", "space2"), "page", Locale.FRENCH);
+        RemoteEventData remoteEvent = createRemoteEvent(reference);
+
+        assertTrue(this.codec.supports(remoteEvent));
+
+        byte[] bytes = encode(remoteEvent);
+        RemoteEventData decoded = this.codec.decode(new DataInputStream(new ByteArrayInputStream(bytes)));
+
+        assertEquals(DocumentUpdatedEvent.class, decoded.getEvent().getClass());
+        assertTrue(((DocumentUpdatedEvent) decoded.getEvent()).matches(new DocumentUpdatedEvent(reference)));
+        assertFalse(((DocumentUpdatedEvent) decoded.getEvent())
+            .matches(new DocumentUpdatedEvent(new DocumentReference("wiki", "space", "page"))));
+        assertEquals(remoteEvent.getSource(), decoded.getSource());
+        assertEquals(remoteEvent.getData(), decoded.getData());
+    }
+
+    @Test
+    public void decodeKeepsMissingVersions() throws Exception
+    {
+        DocumentReference reference = new DocumentReference("wiki", "space", "page");
+        RemoteEventData remoteEvent = new RemoteEventData();
+        remoteEvent.setEvent(new DocumentDeletedEvent(reference));
+        HashMap<String, Serializable> source = new HashMap<>();
+        source.put(AbstractXWikiEventConverter.DOC_NAME, reference);
+        remoteEvent.setSource(source);
+        remoteEvent.setData(new HashMap<String, Serializable>());
+
+        RemoteEventData decoded =
+            this.codec.decode(new DataInputStream(new ByteArrayInputStream(encode(remoteEvent))));
+
+        assertEquals(DocumentDeletedEvent.class, decoded.getEvent().getClass());
+        assertEquals(source, decoded.getSource());
+        assertEquals(null, ((Map<?, ?>) decoded.getData()).get(AbstractXWikiEventConverter.CONTEXT_USER));
+    }
+
+    @Test
+    public void encodedEventIsSmallerThanJavaSerialization() throws Exception
+    {
+        RemoteEventData remoteEvent = createRemoteEvent(new DocumentReference("wiki", "space", "page"));
+
+        ByteArrayOutputStream javaBytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(javaBytes)) {
+            output.writeObject(remoteEvent);
+        }
+
+        byte[] compactBytes = encode(remoteEvent);
+
+        assertTrue("Compact form [" + compactBytes.length + "] is not much smaller than Java serialization ["
+            + javaBytes.size() + "]", compactBytes.length * 5 < javaBytes.size());
+    }
+
+    @Test
+    public void doesNotSupportCanceledEvents()
+    {
+        RemoteEventData remoteEvent = createRemoteEvent(new DocumentReference("wiki", "space", "page"));
+        ((DocumentUpdatedEvent) remoteEvent.getEvent()).cancel();
+
+        assertFalse(this.codec.supports(remoteEvent));
+    }
+}
@@ -20,11 +20,15 @@
 package com.xpn.xwiki.internal.template;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.velocity.VelocityContext;
 import org.junit.Before;
 import org.junit.Rule;
@@ -35,9 +39,11 @@
 import org.xwiki.configuration.ConfigurationSource;
 import org.xwiki.configuration.internal.MemoryConfigurationSource;
 import org.xwiki.environment.Environment;
+import org.xwiki.observation.ObservationManager;
 import org.xwiki.rendering.transformation.TransformationManager;
 import org.xwiki.security.authorization.ContextualAuthorizationManager;
 import org.xwiki.template.TemplateManager;
+import org.xwiki.template.event.TemplateUpdatedEvent;
 import org.xwiki.test.annotation.AfterComponent;
 import org.xwiki.test.annotation.AllComponents;
 import org.xwiki.test.internal.MockConfigurationSource;
@@ -131,6 +137,50 @@ public void testRenderWiki() throws Exception
         assertEquals("<p>first line<br/>second line</p>", mocker.getComponentUnderTest().render("template"));
     }
 
+    @Test
+    public void testRenderWikiFromCache() throws Exception
+    {
+        setTemplateContent("##!source.syntax=xwiki/2.1\nfirst line");
+
+        assertEquals("<p>first line</p>", mocker.getComponentUnderTest().render("template"));
+
+        setTemplateContent("##!source.syntax=xwiki/2.1\nsecond line");
+
+        // The template content is cached
+        assertEquals("<p>first line</p>", mocker.getComponentUnderTest().render("template"));
+
+        this.mocker.<ObservationManager>getInstance(ObservationManager.class)
+            .notify(new TemplateUpdatedEvent("/templates/template"), null);
+
+        assertEquals("<p>second line</p>", mocker.getComponentUnderTest().render("template"));
+    }
+
+    @Test
+    public void testRenderWikiAfterFileModification() throws Exception
+    {
+        File file = File.createTempFile("template", null);
+        file.deleteOnExit();
+
+        when(this.environmentMock.getResource("/templates/template")).thenReturn(file.toURI().toURL());
+        when(this.environmentMock.getResourceAsStream("/templates/template"))
+            .then(invocation -> new FileInputStream(file));
+
+        FileUtils.write(file, "##!source.syntax=xwiki/2.1\nfirst line", StandardCharsets.UTF_8);
+        file.setLastModified(1000000000000L);
+
+        assertEquals("<p>first line</p>", mocker.getComponentUnderTest().render("template"));
+
+        FileUtils.write(file, "##!source.syntax=xwiki/2.1\nsecond line", StandardCharsets.UTF_8);
+        file.setLastModified(1000000000000L);
+
+        // The file did not change as far as the cache is concerned
+        assertEquals("<p>first line</p>", mocker.getComponentUnderTest().render("template"));
+
+        file.setLastModified(1000000010000L);
+
+        assertEquals("<p>second line</p>", mocker.getComponentUnderTest().render("template"));
+    }
+
     @Test
     public void testRenderClassloaderTemplate() throws ComponentLookupException, Exception
     {
@@ -19,9 +19,20 @@
  */
 package com.xpn.xwiki.store;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
 import org.xwiki.cache.Cache;
 import org.xwiki.cache.CacheManager;
 import org.xwiki.model.internal.reference.UidStringEntityReferenceSerializer;
@@ -34,11 +45,14 @@
 import com.xpn.xwiki.test.MockitoOldcoreRule;
 
 import static com.xpn.xwiki.test.mockito.OldcoreMatchers.isCacheConfiguration;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -115,4 +129,109 @@ public void testLoadXWikiDoc() throws Exception
         verifyNoMoreInteractions(this.cache);
         verifyNoMoreInteractions(this.existCache);
     }
+
+    @Test
+    public void testLoadXWikiDocs() throws Exception
+    {
+        this.oldcore.getXWikiContext().setWikiId("wiki");
+
+        DocumentReference cachedReference = new DocumentReference("wiki", "space", "cached");
+        DocumentReference notExistingReference = new DocumentReference("wiki", "space", "missing");
+        DocumentReference storedReference = new DocumentReference("wiki", "space", "page");
+
+        XWikiDocument cachedDocument = new XWikiDocument(cachedReference);
+        when(this.cache.get("4:wiki5:space6:cached")).thenReturn(cachedDocument);
+        when(this.existCache.get("4:wiki5:space7:missing")).thenReturn(Boolean.FALSE);
+
+        XWikiStoreInterface mockStore = this.oldcore.getMockStore();
+        when(mockStore.loadXWikiDocs(any(), any())).then(invocation -> {
+            Collection<DocumentReference> references = invocation.getArgument(0);
+            List<XWikiDocument> documents = new ArrayList<>();
+            for (DocumentReference reference : references) {
+                XWikiDocument document = new XWikiDocument(reference);
+                document.setNew(false);
+                documents.add(document);
+            }
+            return documents;
+        });
+
+        XWikiCacheStore store = new XWikiCacheStore(mockStore, this.oldcore.getXWikiContext());
+
+        List<XWikiDocument> documents =
+            store.loadXWikiDocs(Arrays.asList(cachedReference, notExistingReference, storedReference),
+                this.oldcore.getXWikiContext());
+
+        assertEquals(3, documents.size());
+        assertSame(cachedDocument, documents.get(0));
+        assertTrue(documents.get(0).isFromCache());
+        assertTrue(documents.get(1).isNew());
+        assertEquals(notExistingReference, documents.get(1).getDocumentReference());
+        assertFalse(documents.get(2).isNew());
+        assertEquals(storedReference, documents.get(2).getDocumentReference());
+
+        // Only the documents which are not in any cache are asked to the store, all at once
+        verify(mockStore).loadXWikiDocs(Arrays.asList(storedReference), this.oldcore.getXWikiContext());
+        verify(this.cache).set("4:wiki5:space4:page", documents.get(2));
+        verify(this.existCache).set("4:wiki5:space4:page", Boolean.TRUE);
+    }
+
+    @Test
+    public void testVersionedRemoteInvalidation() throws Exception
+    {
+        this.oldcore.getMockXWikiCfg().setProperty("xwiki.store.cache.versionedinvalidation", 1);
+        RemoteObservationManagerContext remoteContext =
+            this.oldcore.getMocker().getInstance(RemoteObservationManagerContext.class);
+        when(remoteContext.isRemoteState()).thenReturn(true);
+
+        Date date = new Date();
+
+        XWikiDocument cachedDocument = new XWikiDocument(new DocumentReference("wiki", "space", "page"));
+        cachedDocument.setNew(false);
+        cachedDocument.setVersion("2.1");
+        cachedDocument.setDate(date);
+        when(this.cache.get(cachedDocument.getKey())).thenReturn(cachedDocument);
+
+        XWikiCacheStore store = new XWikiCacheStore(this.oldcore.getMockStore(), this.oldcore.getXWikiContext());
+
+        // Same version: nothing to do
+        XWikiDocument sameDocument = new XWikiDocument(new DocumentReference("wiki", "space", "page"));
+        sameDocument.setNew(false);
+        sameDocument.setVersion("2.1");
+        sameDocument.setDate(date);
+        store.onEvent(new DocumentUpdatedEvent(), sameDocument, this.oldcore.getXWikiContext());
+
+        verify(this.cache, never()).remove(any());
+        assertEquals(1, store.getStatistics().getSkippedEvictions());
+
+        // More recent version: the cached document is removed
+        XWikiDocument newDocument = new XWikiDocument(new DocumentReference("wiki", "space", "page"));
+        newDocument.setNew(false);
+        newDocument.setVersion("3.1");
+        newDocument.setDate(new Date(date.getTime() + 1000));
+        store.onEvent(new DocumentUpdatedEvent(), newDocument, this.oldcore.getXWikiContext());
+
+        verify(this.cache).remove(cachedDocument.getKey());
+        verify(this.existCache).remove(cachedDocument.getKey());
+        assertEquals(1, store.getStatistics().getEvictions());
+    }
+
+    @Test
+    public void statisticsAreRegisteredForEachInstance() throws Exception
+    {
+        MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+        ObjectName pattern = new ObjectName("org.xwiki:type=Cache,name=xwiki.store.pagecache,*");
+        int registered = mbs.queryNames(pattern, null).size();
+
+        XWikiCacheStore store1 = new XWikiCacheStore(this.oldcore.getMockStore(), this.oldcore.getXWikiContext());
+        XWikiCacheStore store2 = new XWikiCacheStore(this.oldcore.getMockStore(), this.oldcore.getXWikiContext());
+
+        assertEquals(registered + 2, mbs.queryNames(pattern, null).size());
+
+        // Disposing a store doesn't unregister the statistics of the other one
+        store1.dispose();
+        assertEquals(registered + 1, mbs.queryNames(pattern, null).size());
+
+        store2.dispose();
+        assertEquals(registered, mbs.queryNames(pattern, null).size());
+    }
 }
@@ -19,6 +19,7 @@
  */
 package com.xpn.xwiki.store;
 
+import java.io.Serializable;
 import java.sql.Statement;
 import java.util.Arrays;
 import java.util.Collections;
@@ -52,6 +53,8 @@
 import com.xpn.xwiki.store.migration.DataMigrationManager;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -330,4 +333,31 @@ public void getTranslationList() throws Exception
         verify(query).bindValue("space", "Path.To");
         verify(query).bindValue("name", documentReference.getName());
     }
+
+    @Test
+    public void loadXWikiDocs() throws Exception
+    {
+        DocumentReference storedReference = new DocumentReference("wiki", "Space", "Stored");
+        DocumentReference missingReference = new DocumentReference("wiki", "Space", "Missing");
+
+        XWikiDocument storedDocument = new XWikiDocument(storedReference);
+        Query query = mock(Query.class);
+        when(session.createQuery("from XWikiDocument as doc where doc.id in (:ids)")).thenReturn(query);
+        when(query.list()).thenReturn(Collections.singletonList(storedDocument));
+
+        List<XWikiDocument> documents =
+            store.loadXWikiDocs(Arrays.asList(storedReference, missingReference), xcontext);
+
+        assertEquals(2, documents.size());
+        assertSame(storedDocument, documents.get(0));
+        assertFalse(documents.get(0).isNew());
+        assertEquals(missingReference, documents.get(1).getDocumentReference());
+        assertTrue(documents.get(1).isNew());
+
+        // All the document rows are loaded with a single query, and the documents have no object or attachment
+        verify(query).setParameterList("ids",
+            Arrays.asList(storedDocument.getId(), new XWikiDocument(missingReference).getId()));
+        verify(session, times(1)).createQuery(any(String.class));
+        verify(session, never()).load(any(Object.class), any(Serializable.class));
+    }
 }
@@ -19,6 +19,7 @@
  */
 package com.xpn.xwiki.store.hibernate.query;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
@@ -29,7 +30,10 @@
 import javax.inject.Provider;
 
 import org.hibernate.SQLQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
+import org.hibernate.Transaction;
 import org.hibernate.cfg.Configuration;
 import org.hibernate.engine.NamedSQLQueryDefinition;
 import org.junit.Before;
@@ -44,6 +48,7 @@
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryException;
 import org.xwiki.query.QueryFilter;
+import org.xwiki.query.QueryResultIterator;
 import org.xwiki.query.WrappingQuery;
 import org.xwiki.query.internal.DefaultQuery;
 import org.xwiki.security.authorization.ContextualAuthorizationManager;
@@ -89,6 +94,8 @@
 
     private XWikiHibernateStore store;
 
+    private XWikiContext xwikiContext;
+
     @Before
     public void before() throws Exception
     {
@@ -114,12 +121,12 @@ public Boolean answer(InvocationOnMock invocation) throws Throwable
         Execution execution = this.mocker.getInstance(Execution.class);
         ExecutionContext executionContext = mock(ExecutionContext.class);
         when(execution.getContext()).thenReturn(executionContext);
-        XWikiContext xwikiContext = mock(XWikiContext.class);
-        when(executionContext.getProperty(XWikiContext.EXECUTIONCONTEXT_KEY)).thenReturn(xwikiContext);
-        when(xwikiContext.getWikiId()).thenReturn("currentwikid");
+        this.xwikiContext = mock(XWikiContext.class);
+        when(executionContext.getProperty(XWikiContext.EXECUTIONCONTEXT_KEY)).thenReturn(this.xwikiContext);
+        when(this.xwikiContext.getWikiId()).thenReturn("currentwikid");
 
         com.xpn.xwiki.XWiki xwiki = mock(com.xpn.xwiki.XWiki.class);
-        when(xwikiContext.getWiki()).thenReturn(xwiki);
+        when(this.xwikiContext.getWiki()).thenReturn(xwiki);
         this.store = mock(XWikiHibernateStore.class);
         when(xwiki.getHibernateStore()).thenReturn(store);
     }
@@ -271,6 +278,51 @@ public void executeWhenStoreException() throws Exception
         }
     }
 
+    @Test
+    public void scroll() throws Exception
+    {
+        Session currentSession = mock(Session.class, "current");
+        Transaction currentTransaction = mock(Transaction.class, "current");
+        Session session = mock(Session.class);
+        Transaction transaction = mock(Transaction.class);
+        when(this.store.getSession(this.xwikiContext)).thenReturn(currentSession, session);
+        when(this.store.getTransaction(this.xwikiContext)).thenReturn(currentTransaction, transaction);
+
+        org.hibernate.Query hquery = mock(org.hibernate.Query.class);
+        when(session.createQuery("select doc.fullName from XWikiDocument doc")).thenReturn(hquery);
+        ScrollableResults results = mock(ScrollableResults.class);
+        when(hquery.scroll(ScrollMode.FORWARD_ONLY)).thenReturn(results);
+        when(results.next()).thenReturn(true, true, false);
+        when(results.get()).thenReturn(new Object[] { "A.B" }, new Object[] { "C.D" });
+
+        DefaultQuery query =
+            new DefaultQuery("select doc.fullName from XWikiDocument doc", Query.HQL, this.executor);
+        query.setWiki("otherwiki");
+
+        List<String> fullNames = new ArrayList<>();
+        try (QueryResultIterator<String> iterator = this.executor.scroll(query)) {
+            // The query is executed in a dedicated session and the context one is restored right away
+            verify(this.store).setSession(null, this.xwikiContext);
+            verify(this.store).beginTransaction(this.xwikiContext);
+            verify(this.store).setSession(currentSession, this.xwikiContext);
+            verify(this.store).setTransaction(currentTransaction, this.xwikiContext);
+            verify(this.xwikiContext).setWikiId("otherwiki");
+            verify(this.xwikiContext).setWikiId("currentwikid");
+            verify(hquery).setReadOnly(true);
+
+            iterator.forEachRemaining(fullNames::add);
+
+            // The dedicated session is released once all the results have been read
+            verify(results).close();
+            verify(transaction).rollback();
+            verify(session).close();
+        }
+
+        assertEquals(Arrays.asList("A.B", "C.D"), fullNames);
+        // Closing the exhausted iterator has no effect
+        verify(session).close();
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void createNamedNativeHibernateQuery() throws Exception
@@ -388,6 +440,26 @@ public void executeShortFromHQLQueryWithoutProgrammingRights() throws QueryExcep
         execute(", BaseObject as obj", false);
     }
 
+    @Test
+    public void executeWhenNotAllowedSelectTwice() throws Exception
+    {
+        String statement = "select notallowed.name from NotAllowedTable notallowed where notallowed.id = 42";
+        long hits = HqlQueryExecutor.getSafeStatementCache().getHitCount();
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                execute(statement, false);
+                fail("Should have thrown an exception here");
+            } catch (QueryException expected) {
+                assertEquals("The query requires programming right. Query statement = [" + statement + "]",
+                    expected.getMessage());
+            }
+        }
+
+        // The statement is analyzed only once
+        assertEquals(hits + 1, HqlQueryExecutor.getSafeStatementCache().getHitCount());
+    }
+
     // Not allowed
 
     @Test
@@ -20,6 +20,7 @@
 package com.xpn.xwiki.web;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.Date;
@@ -30,6 +31,8 @@
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.apache.commons.io.FileUtils;
 import org.mockito.ArgumentMatcher;
 import org.xwiki.model.reference.AttachmentReference;
 import org.xwiki.model.reference.DocumentReference;
@@ -42,6 +45,7 @@
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiAttachmentContent;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.plugin.XWikiPluginManager;
 import com.xpn.xwiki.test.MockitoOldcoreRule;
@@ -52,6 +56,7 @@
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -73,6 +78,9 @@
     @Rule
     public MockitoOldcoreRule oldcore = new MockitoOldcoreRule();
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     /** Mocked context document. */
     private XWikiDocument document;
 
@@ -590,12 +598,73 @@ public void downloadWhenEmptyRange() throws XWikiException, IOException
         verifyResponseExpectations(d.getTime(), this.fileContent.length);
     }
 
-    private void createAttachment(Date d, String name) throws IOException
+    @Test
+    public void downloadWhenMultipleRanges() throws XWikiException, IOException
+    {
+        Date d = new Date();
+        createAttachment(d, DEFAULT_FILE_NAME);
+        setRequestExpectations(DEFAULT_URI, null, null, "bytes=0-1, 5-7", -1L, DEFAULT_FILE_NAME);
+
+        assertNull(this.action.render(this.oldcore.getXWikiContext()));
+
+        verify(this.response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        verify(this.response).setContentType(startsWith("multipart/byteranges; boundary="));
+        verifyOutputExpectations(0, 2);
+        verifyOutputExpectations(5, 8);
+    }
+
+    @Test
+    public void downloadWhenMultipleRangesWithOnlyOneSatisfiable() throws XWikiException, IOException
+    {
+        Date d = new Date();
+        createAttachment(d, DEFAULT_FILE_NAME);
+        setRequestExpectations(DEFAULT_URI, null, null, "bytes=129-145,3-5", -1L, DEFAULT_FILE_NAME);
+
+        assertNull(this.action.render(this.oldcore.getXWikiContext()));
+
+        verify(this.response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        verify(this.response).setHeader("Content-Range", "bytes 3-5/" + DownloadActionTest.this.fileContent.length);
+        verifyResponseExpectations(d.getTime(), 3);
+        verifyOutputExpectations(3, 6);
+    }
+
+    @Test
+    public void downloadWhenContentStoredInFile() throws XWikiException, IOException
+    {
+        // Use a different content in the file to make sure it's the one being sent
+        byte[] storedContent = "ABCDEFGHIJKLMN".getBytes(XWiki.DEFAULT_ENCODING);
+        File file = this.temporaryFolder.newFile();
+        FileUtils.writeByteArrayToFile(file, storedContent);
+
+        Date d = new Date();
+        XWikiAttachment filetxt = createAttachment(d, DEFAULT_FILE_NAME);
+        XWikiAttachmentContent content = new XWikiAttachmentContent(filetxt)
+        {
+            @Override
+            public File getContentFile()
+            {
+                return file;
+            }
+        };
+        content.setContent(new ByteArrayInputStream(this.fileContent));
+        filetxt.setAttachment_content(content);
+        setRequestExpectations(DEFAULT_URI, null, null, "bytes=3-5", -1L, DEFAULT_FILE_NAME);
+
+        assertNull(this.action.render(this.oldcore.getXWikiContext()));
+
+        verify(this.response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        verifyResponseExpectations(d.getTime(), 3);
+        verifyOutputExpectations(storedContent, 3, 6);
+    }
+
+    private XWikiAttachment createAttachment(Date d, String name) throws IOException
     {
         XWikiAttachment filetxt = new XWikiAttachment(this.document, name);
         filetxt.setContent(new ByteArrayInputStream(this.fileContent));
         filetxt.setDate(d);
         this.document.getAttachmentList().add(filetxt);
+
+        return filetxt;
     }
 
     private void setRequestExpectations(String uri, String id, String forceDownload, String range, long modifiedSince,
@@ -627,6 +696,11 @@ private void verifyResponseExpectations(long modified, int length, String mime,
     }
 
     private void verifyOutputExpectations(final int start, final int end) throws IOException
+    {
+        verifyOutputExpectations(this.fileContent, start, end);
+    }
+
+    private void verifyOutputExpectations(final byte[] content, final int start, final int end) throws IOException
     {
         verify(this.out).write(argThat(new ArgumentMatcher<byte[]>()
         {
@@ -634,7 +708,7 @@ private void verifyOutputExpectations(final int start, final int end) throws IOE
             public boolean matches(byte[] argument)
             {
                 for (int i = start; i < end; ++i) {
-                    if (argument[i - start] != DownloadActionTest.this.fileContent[i]) {
+                    if (argument[i - start] != content[i]) {
                         return false;
                     }
                 }
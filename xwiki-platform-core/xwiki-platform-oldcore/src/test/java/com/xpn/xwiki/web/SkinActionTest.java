@@ -22,6 +22,14 @@
 import java.io.IOException;
 
 import org.jmock.cglib.MockObjectTestCase;
+import org.xwiki.container.servlet.HttpServletUtils;
+
+import com.xpn.xwiki.XWikiContext;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Unit tests for the {@link com.xpn.xwiki.web.SkinAction} class.
@@ -117,4 +125,33 @@ public void testIncorrectResourceFile()
             // good
         }
     }
+
+    public void testCheckNotModifiedWhenETagMatches()
+    {
+        XWikiContext context = new XWikiContext();
+        context.setRequest(mock(XWikiRequest.class));
+        context.setResponse(mock(XWikiResponse.class));
+
+        String etag = HttpServletUtils.computeETag("content".getBytes());
+        when(context.getRequest().getHeader("If-None-Match")).thenReturn("\"other\", W/" + etag);
+
+        assertTrue(this.action.checkNotModified(etag, context));
+        verify(context.getResponse()).setHeader("ETag", etag);
+        verify(context.getResponse()).setStatus(304);
+    }
+
+    public void testCheckNotModifiedWhenETagDoesNotMatch()
+    {
+        XWikiContext context = new XWikiContext();
+        context.setRequest(mock(XWikiRequest.class));
+        context.setResponse(mock(XWikiResponse.class));
+
+        String etag = HttpServletUtils.computeETag("content".getBytes());
+        when(context.getRequest().getHeader("If-None-Match"))
+            .thenReturn(HttpServletUtils.computeETag("other content".getBytes()));
+
+        assertFalse(this.action.checkNotModified(etag, context));
+        verify(context.getResponse()).setHeader("ETag", etag);
+        verify(context.getResponse(), never()).setStatus(304);
+    }
 }
@@ -22,6 +22,8 @@
 import java.util.List;
 import java.util.Map;
 
+import org.xwiki.stability.Unstable;
+
 /**
  * This is a Query interface, representing all queries in various languages for various stores.
  *
@@ -177,4 +179,20 @@ default QueryParameter bindValue(String var)
      * @throws QueryException if something goes wrong.
      */
     <T> List<T> execute() throws QueryException;
+
+    /**
+     * Execute the query and iterate its results while they are fetched from the store, instead of loading them all in
+     * memory like {@link #execute()} does. Useful to walk a large number of results (e.g. all the documents of a
+     * wiki) without having to paginate with an increasing offset. The returned iterator must be closed.
+     *
+     * @param <T> expected type of elements in the result iterator. If several fields are selected then T=Object[].
+     * @return an iterator over the results of the query
+     * @throws QueryException if something goes wrong
+     * @since 10.5RC1
+     */
+    @Unstable
+    default <T> QueryResultIterator<T> scroll() throws QueryException
+    {
+        return QueryResultIterator.of(this.<T>execute());
+    }
 }
@@ -22,6 +22,7 @@
 import java.util.List;
 
 import org.xwiki.component.annotation.Role;
+import org.xwiki.stability.Unstable;
 
 /**
  * Execute a query for a given language (one implementation per language).
@@ -41,4 +42,21 @@
      * @see Query#execute()
      */
     <T> List<T> execute(Query query) throws QueryException;
+
+    /**
+     * The default implementation loads all the results in memory, executors able to fetch the results incrementally
+     * should override it.
+     *
+     * @param <T> expected type of elements in the result iterator
+     * @param query query to execute
+     * @return an iterator over the results of the query, to close once done
+     * @throws QueryException if something goes wrong
+     * @see Query#scroll()
+     * @since 10.5RC1
+     */
+    @Unstable
+    default <T> QueryResultIterator<T> scroll(Query query) throws QueryException
+    {
+        return QueryResultIterator.of(this.<T>execute(query));
+    }
 }
@@ -0,0 +1,77 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.query;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.xwiki.stability.Unstable;
+
+/**
+ * Iterates the results of a query while they are fetched from the store, so that the whole result set doesn't have to
+ * be loaded in memory. The iterator holds store resources until it is exhausted or closed so it should always be used
+ * in a try-with-resources statement. These resources (e.g. a database session) are bound to the thread creating the
+ * iterator, so it should be iterated and closed by that same thread, right away.
+ *
+ * @param <T> the type of the results. If several fields are selected then T=Object[].
+ * @version $Id$
+ * @since 10.5RC1
+ * @see Query#scroll()
+ */
+@Unstable
+public interface QueryResultIterator<T> extends Iterator<T>, AutoCloseable
+{
+    /**
+     * Release the store resources held by this iterator. Calling it more than once has no effect.
+     */
+    @Override
+    void close();
+
+    /**
+     * @param <T> the type of the results
+     * @param results the already fetched results
+     * @return an iterator over the passed results, for query executors which don't support scrolling
+     */
+    static <T> QueryResultIterator<T> of(List<T> results)
+    {
+        Iterator<T> iterator = results.iterator();
+
+        return new QueryResultIterator<T>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next()
+            {
+                return iterator.next();
+            }
+
+            @Override
+            public void close()
+            {
+                // Nothing to release
+            }
+        };
+    }
+}
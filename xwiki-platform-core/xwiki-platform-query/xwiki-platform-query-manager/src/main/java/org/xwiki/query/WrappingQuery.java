@@ -157,4 +157,10 @@ public <T> List<T> execute() throws QueryException
     {
         return getWrappedQuery().execute();
     }
+
+    @Override
+    public <T> QueryResultIterator<T> scroll() throws QueryException
+    {
+        return getWrappedQuery().scroll();
+    }
 }
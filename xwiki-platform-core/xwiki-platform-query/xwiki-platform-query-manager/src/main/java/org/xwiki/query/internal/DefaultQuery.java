@@ -31,6 +31,7 @@
 import org.xwiki.query.QueryExecutor;
 import org.xwiki.query.QueryFilter;
 import org.xwiki.query.QueryParameter;
+import org.xwiki.query.QueryResultIterator;
 import org.xwiki.query.SecureQuery;
 
 /**
@@ -296,6 +297,12 @@ public <T> List<T> execute() throws QueryException
         return getExecuter().execute(this);
     }
 
+    @Override
+    public <T> QueryResultIterator<T> scroll() throws QueryException
+    {
+        return getExecuter().scroll(this);
+    }
+
     /**
      * @return QueryExecutor interface for execute the query.
      */
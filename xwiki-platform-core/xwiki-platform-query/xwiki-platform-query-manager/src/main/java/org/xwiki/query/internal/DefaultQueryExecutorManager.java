@@ -37,6 +37,7 @@
 import org.xwiki.query.QueryException;
 import org.xwiki.query.QueryExecutor;
 import org.xwiki.query.QueryExecutorManager;
+import org.xwiki.query.QueryResultIterator;
 
 /**
  * Default implementation of {@link QueryExecutorManager}.
@@ -63,13 +64,23 @@ public class DefaultQueryExecutorManager implements QueryExecutorManager
 
     @Override
     public <T> List<T> execute(Query query) throws QueryException
+    {
+        return getExecutor(query).execute(query);
+    }
+
+    @Override
+    public <T> QueryResultIterator<T> scroll(Query query) throws QueryException
+    {
+        return getExecutor(query).scroll(query);
+    }
+
+    private QueryExecutor getExecutor(Query query) throws QueryException
     {
         if (query.isNamed()) {
-            return this.namedQueryExecutorProvider.get().execute(query);
+            return this.namedQueryExecutorProvider.get();
         } else {
             try {
-                return this.componentManagerProvider.get()
-                    .<QueryExecutor>getInstance(QueryExecutor.class, query.getLanguage()).execute(query);
+                return this.componentManagerProvider.get().getInstance(QueryExecutor.class, query.getLanguage());
             } catch (ComponentLookupException e) {
                 throw new QueryException("Fail to lookup query executor", query, e);
             }
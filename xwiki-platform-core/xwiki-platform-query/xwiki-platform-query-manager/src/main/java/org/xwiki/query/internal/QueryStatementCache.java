@@ -0,0 +1,139 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.query.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Bounded cache of values computed from query statements (translated statement, safety verdict, etc.) which also
+ * counts its hits and misses. Each instance is dedicated to the statements of a single query language.
+ *
+ * @param <V> the type of the cached values
+ * @version $Id$
+ * @since 10.5RC1
+ */
+public class QueryStatementCache<V>
+{
+    private final Map<String, V> values;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param capacity the maximum number of statements to keep, the least recently used ones are removed first
+     */
+    public QueryStatementCache(final int capacity)
+    {
+        this.values = new LinkedHashMap<String, V>(16, 0.75F, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest)
+            {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @param statement the query statement
+     * @return the cached value or {@code null} if there is none
+     */
+    public V get(String statement)
+    {
+        return get(statement, value -> true);
+    }
+
+    /**
+     * @param statement the query statement
+     * @param validator used to check if the cached value can still be used
+     * @return the cached value or {@code null} if there is none or if it's not valid anymore
+     */
+    public V get(String statement, Predicate<V> validator)
+    {
+        V value;
+        synchronized (this.values) {
+            value = this.values.get(statement);
+        }
+
+        if (value != null && validator.test(value)) {
+            this.hits.incrementAndGet();
+
+            return value;
+        }
+
+        this.misses.incrementAndGet();
+
+        return null;
+    }
+
+    /**
+     * @param statement the query statement
+     * @param value the value computed from the statement
+     */
+    public void set(String statement, V value)
+    {
+        synchronized (this.values) {
+            this.values.put(statement, value);
+        }
+    }
+
+    /**
+     * @return the number of values currently in the cache
+     */
+    public int size()
+    {
+        synchronized (this.values) {
+            return this.values.size();
+        }
+    }
+
+    /**
+     * @return the number of times a valid value was found in the cache
+     */
+    public long getHitCount()
+    {
+        return this.hits.get();
+    }
+
+    /**
+     * @return the number of times no valid value was found in the cache
+     */
+    public long getMissCount()
+    {
+        return this.misses.get();
+    }
+
+    /**
+     * @return the proportion of lookups which found a valid value in the cache, between 0 and 1
+     */
+    public double getHitRate()
+    {
+        long hitCount = getHitCount();
+        long total = hitCount + getMissCount();
+
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+}
@@ -19,8 +19,11 @@
  */
 package org.xwiki.query.internal;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -60,18 +63,34 @@ public String filterStatement(String statement, String language)
     @Override
     public List filterResults(List results)
     {
-        List<Object> filteredResults = new LinkedList<>();
+        List<EntityReference> entityReferences = new ArrayList<>(results.size());
         for (Object result : results) {
-            EntityReference entityReference = null;
-            if (result instanceof EntityReference) {
-                entityReference = (EntityReference) result;
-            } else if (result instanceof Object[] && ((Object[]) result)[0] instanceof EntityReference) {
-                entityReference = (EntityReference) ((Object[]) result)[0];
-            }
-            if (entityReference != null && this.authorization.hasAccess(Right.VIEW, entityReference)) {
-                filteredResults.add(result);
+            entityReferences.add(getEntityReference(result));
+        }
+
+        // Check all the references at once so that the authorization manager can share the common hierarchy checks.
+        Set<EntityReference> referencesToCheck = new LinkedHashSet<>(entityReferences);
+        referencesToCheck.remove(null);
+        Set<EntityReference> viewableReferences =
+            new HashSet<>(this.authorization.filterAccessible(Right.VIEW, referencesToCheck));
+
+        List<Object> filteredResults = new ArrayList<>(viewableReferences.size());
+        for (int i = 0; i < results.size(); i++) {
+            EntityReference entityReference = entityReferences.get(i);
+            if (entityReference != null && viewableReferences.contains(entityReference)) {
+                filteredResults.add(results.get(i));
             }
         }
         return filteredResults;
     }
+
+    private EntityReference getEntityReference(Object result)
+    {
+        if (result instanceof EntityReference) {
+            return (EntityReference) result;
+        } else if (result instanceof Object[] && ((Object[]) result)[0] instanceof EntityReference) {
+            return (EntityReference) ((Object[]) result)[0];
+        }
+        return null;
+    }
 }
@@ -0,0 +1,64 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.query.internal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for {@link QueryStatementCache}.
+ *
+ * @version $Id$
+ */
+public class QueryStatementCacheTest
+{
+    @Test
+    public void getAndSet()
+    {
+        QueryStatementCache<String> cache = new QueryStatementCache<>(10);
+
+        assertNull(cache.get("statement"));
+        cache.set("statement", "value");
+        assertEquals("value", cache.get("statement"));
+        assertNull(cache.get("statement", value -> false));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1D / 3, cache.getHitRate(), 0);
+    }
+
+    @Test
+    public void leastRecentlyUsedStatementIsRemoved()
+    {
+        QueryStatementCache<String> cache = new QueryStatementCache<>(2);
+
+        cache.set("statement1", "value1");
+        cache.set("statement2", "value2");
+        cache.get("statement1");
+        cache.set("statement3", "value3");
+
+        assertEquals(2, cache.size());
+        assertEquals("value1", cache.get("statement1"));
+        assertNull(cache.get("statement2"));
+        assertEquals("value3", cache.get("statement3"));
+    }
+}
@@ -21,6 +21,7 @@
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 import org.junit.Before;
@@ -61,6 +62,7 @@ public void configure() throws Exception
         this.authorization = this.mocker.getInstance(ContextualAuthorizationManager.class);
         when(this.authorization.hasAccess(Right.VIEW, authorized)).thenReturn(true);
         when(this.authorization.hasAccess(Right.VIEW, unauthorized)).thenReturn(false);
+        when(this.authorization.filterAccessible(any(), any())).thenCallRealMethod();
     }
 
     @Test
@@ -93,6 +95,17 @@ public void filterResultsWithTwoColumnsAndEntityReference() throws Exception
         assertArrayEquals(new Object[] {this.authorized, 17}, (Object[]) filteredResults.get(0));
     }
 
+    @Test
+    public void filterResultsChecksAllReferencesAtOnce() throws Exception
+    {
+        List<Object> results = Arrays.asList(this.authorized, this.unauthorized, "Path.To.Page", this.authorized);
+        assertEquals(Arrays.asList(this.authorized, this.authorized),
+            this.mocker.getComponentUnderTest().filterResults(results));
+
+        verify(this.authorization).filterAccessible(Right.VIEW,
+            new LinkedHashSet<>(Arrays.asList(this.authorized, this.unauthorized)));
+    }
+
     @Test
     public void filterResultsWithOneColumnNotEntityReference() throws Exception
     {
@@ -20,6 +20,7 @@
 package org.xwiki.query.xwql.internal;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -56,6 +57,16 @@
 
     private DocumentAccessBridge documentAccessBridge;
 
+    /**
+     * Types of the class properties used in the query, by class and property name.
+     */
+    private Map<List<String>, String> propertyTypes = new HashMap<List<String>, String>();
+
+    /**
+     * Custom mapping of the class properties used in the query, by class and property name.
+     */
+    private Map<List<String>, Boolean> customMappedProperties = new HashMap<List<String>, Boolean>();
+
     public QueryContext(Start tree, DocumentAccessBridge documentAccessBridge)
     {
         this.tree = tree;
@@ -72,6 +83,24 @@ public AliasGenerator getAliasGenerator()
         return aliasGenerator;
     }
 
+    /**
+     * @return the types of the class properties used in the query, by class and property name
+     * @since 10.5RC1
+     */
+    public Map<List<String>, String> getPropertyTypes()
+    {
+        return propertyTypes;
+    }
+
+    /**
+     * @return the custom mapping of the class properties used in the query, by class and property name
+     * @since 10.5RC1
+     */
+    public Map<List<String>, Boolean> getCustomMappedProperties()
+    {
+        return customMappedProperties;
+    }
+
     public class DocumentInfo
     {
         public String alias;
@@ -145,12 +174,16 @@ public PropertyInfo(String name, ObjectInfo object)
 
         public String getType() throws Exception
         {
-            return documentAccessBridge.getPropertyType(object.className, name);
+            String type = documentAccessBridge.getPropertyType(object.className, name);
+            propertyTypes.put(Arrays.asList(object.className, name), type);
+            return type;
         }
 
         public boolean isCustomMapped() throws Exception
         {
-            return documentAccessBridge.isPropertyCustomMapped(object.className, name);
+            boolean customMapped = documentAccessBridge.isPropertyCustomMapped(object.className, name);
+            customMappedProperties.put(Arrays.asList(object.className, name), customMapped);
+            return customMapped;
         }
 
         public String getValueField() throws Exception
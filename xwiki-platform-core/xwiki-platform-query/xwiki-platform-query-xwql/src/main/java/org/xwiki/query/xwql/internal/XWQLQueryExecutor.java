@@ -40,6 +40,7 @@
 import org.xwiki.query.QueryExecutor;
 import org.xwiki.query.QueryFilter;
 import org.xwiki.query.QueryManager;
+import org.xwiki.query.QueryResultIterator;
 import org.xwiki.query.SecureQuery;
 
 @Component
@@ -47,6 +48,17 @@
 @Singleton
 public class XWQLQueryExecutor implements QueryExecutor
 {
+    /**
+     * Executes the translated query.
+     *
+     * @param <R> the type of the result
+     */
+    @FunctionalInterface
+    private interface NativeQueryRunner<R>
+    {
+        R run(Query nativeQuery) throws QueryException;
+    }
+
     @Inject
     @Named("hql")
     private QueryTranslator translator;
@@ -77,6 +89,17 @@ public static boolean isShortFormStatement(String statement)
 
     @Override
     public <T> List<T> execute(Query query) throws QueryException
+    {
+        return run(query, nativeQuery -> nativeQuery.<T>execute());
+    }
+
+    @Override
+    public <T> QueryResultIterator<T> scroll(Query query) throws QueryException
+    {
+        return run(query, nativeQuery -> nativeQuery.<T>scroll());
+    }
+
+    private <R> R run(Query query, NativeQueryRunner<R> runner) throws QueryException
     {
         EntityReference currentEntityReference = this.context.getCurrentEntityReference();
 
@@ -121,7 +144,7 @@ public <T> List<T> execute(Query query) throws QueryException
                 ((SecureQuery) nativeQuery).checkCurrentUser(((SecureQuery) query).isCurrentUserChecked());
             }
 
-            return nativeQuery.execute();
+            return runner.run(nativeQuery);
         } catch (Exception e) {
             if (e instanceof QueryException) {
                 throw (QueryException) e;
@@ -0,0 +1,90 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.query.xwql.internal.hql;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.xwiki.bridge.DocumentAccessBridge;
+import org.xwiki.query.xwql.internal.QueryContext;
+
+/**
+ * A statement translated to HQL along with the class properties information the translation depends on.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+public class TranslatedStatement
+{
+    private final String statement;
+
+    private final Map<List<String>, String> propertyTypes;
+
+    private final Map<List<String>, Boolean> customMappedProperties;
+
+    /**
+     * @param statement the translated statement
+     * @param context the context of the translation
+     */
+    public TranslatedStatement(String statement, QueryContext context)
+    {
+        this.statement = statement;
+        this.propertyTypes = new HashMap<>(context.getPropertyTypes());
+        this.customMappedProperties = new HashMap<>(context.getCustomMappedProperties());
+    }
+
+    /**
+     * @return the translated statement
+     */
+    public String getStatement()
+    {
+        return this.statement;
+    }
+
+    /**
+     * @param documentAccessBridge used to access the current classes
+     * @return {@code true} if the classes used in the statement did not change in a way that affects the translation
+     */
+    public boolean isValid(DocumentAccessBridge documentAccessBridge)
+    {
+        try {
+            for (Map.Entry<List<String>, String> entry : this.propertyTypes.entrySet()) {
+                String type = documentAccessBridge.getPropertyType(entry.getKey().get(0), entry.getKey().get(1));
+                if (!Objects.equals(type, entry.getValue())) {
+                    return false;
+                }
+            }
+
+            for (Map.Entry<List<String>, Boolean> entry : this.customMappedProperties.entrySet()) {
+                boolean customMapped =
+                    documentAccessBridge.isPropertyCustomMapped(entry.getKey().get(0), entry.getKey().get(1));
+                if (customMapped != entry.getValue()) {
+                    return false;
+                }
+            }
+        } catch (Exception e) {
+            return false;
+        }
+
+        return true;
+    }
+}
@@ -23,6 +23,7 @@
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.xwiki.query.internal.QueryStatementCache;
 import org.xwiki.query.internal.jpql.node.Start;
 import org.xwiki.query.jpql.internal.JPQLParser;
 import org.xwiki.query.xwql.internal.QueryAnalyzer;
@@ -37,13 +38,39 @@
 @Singleton
 public class XWQLtoHQLTranslator implements QueryTranslator
 {
+    /**
+     * The maximum number of translated statements to keep.
+     */
+    private static final int CACHE_CAPACITY = 1000;
+
     @Inject
     protected DocumentAccessBridge documentAccessBridge;
 
+    /**
+     * The translated statements, by XWQL statement.
+     */
+    private final QueryStatementCache<TranslatedStatement> statementCache =
+        new QueryStatementCache<>(CACHE_CAPACITY);
+
     @Override
     public String translate(String input) throws Exception
     {
-        input = input.trim();
+        // The translation depends on the current definition of the classes used in the statement
+        TranslatedStatement translatedStatement =
+            this.statementCache.get(input, translated -> translated.isValid(getDocumentAccessBridge()));
+
+        if (translatedStatement == null) {
+            translatedStatement = translateStatement(input);
+
+            this.statementCache.set(input, translatedStatement);
+        }
+
+        return translatedStatement.getStatement();
+    }
+
+    private TranslatedStatement translateStatement(String statement) throws Exception
+    {
+        String input = statement.trim();
         String lcInput = input.toLowerCase();
         String addition = "select doc.fullName from Document as doc ";
         if (lcInput.startsWith("where") || lcInput.startsWith("order") || lcInput.length() == 0) {
@@ -58,7 +85,16 @@ public String translate(String input) throws Exception
         tree.apply(new QueryAnalyzer(context));
 
         Printer printer = getPrinter(context);
-        return printer.print();
+        return new TranslatedStatement(printer.print(), context);
+    }
+
+    /**
+     * @return the cache of translated statements
+     * @since 10.5RC1
+     */
+    public QueryStatementCache<TranslatedStatement> getStatementCache()
+    {
+        return this.statementCache;
     }
 
     @Override
@@ -28,6 +28,7 @@
 import org.xwiki.query.xwql.internal.hql.XWQLtoHQLTranslator;
 import org.xwiki.test.jmock.JMockRule;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 public class XWQLtoHQLTranslatorTest
@@ -112,6 +113,18 @@ public void testProperty() throws Exception
                 "where ( user_email1.value = 'some' ) and doc.fullName=user.name and user.className='XWiki.XWikiUsers' and user_email1.id.id=user.id and user_email1.id.name='email'");
     }
 
+    @Test
+    public void testTranslationIsCached() throws Exception
+    {
+        String statement =
+            "select doc from Document as doc, doc.object(XWiki.XWikiUsers) as user where user.email = 'some'";
+
+        String translation = translator.translate(statement);
+        assertEquals(translation, translator.translate(statement));
+        assertEquals(1, translator.getStatementCache().getHitCount());
+        assertEquals(1, translator.getStatementCache().getMissCount());
+    }
+
     @Test
     public void testShort() throws Exception
     {
@@ -34,6 +34,7 @@
 import org.xwiki.container.Container;
 import org.xwiki.container.Request;
 import org.xwiki.container.Response;
+import org.xwiki.container.servlet.HttpServletUtils;
 import org.xwiki.container.servlet.ServletRequest;
 import org.xwiki.container.servlet.ServletResponse;
 import org.xwiki.resource.AbstractResourceReferenceHandler;
@@ -42,6 +43,7 @@
 import org.xwiki.resource.ResourceReferenceHandlerChain;
 import org.xwiki.resource.ResourceReferenceHandlerException;
 import org.xwiki.resource.ResourceType;
+import org.xwiki.stability.Unstable;
 import org.xwiki.tika.internal.TikaUtils;
 
 /**
@@ -174,6 +176,9 @@ private void serveResource(R resourceReference, InputStream rawResourceStream)
         try {
             Response response = this.container.getResponse();
             setResponseHeaders(response, resourceReference);
+            if (isNotModified(resourceReference, response)) {
+                return;
+            }
             response.setContentType(TikaUtils.detect(resourceStream, resourceName));
             IOUtils.copy(resourceStream, response.getOutputStream());
         } catch (Exception e) {
@@ -183,6 +188,42 @@ private void serveResource(R resourceReference, InputStream rawResourceStream)
         }
     }
 
+    /**
+     * @param resourceReference the reference of the requested resource
+     * @return the entity tag identifying the content of the specified resource, {@code null} if the resource has no
+     *         entity tag (the default). The entity tag should be cheap to compute (e.g. derived from the version of
+     *         the resource instead of its content) since it's computed for each request.
+     * @see HttpServletUtils#computeETag(byte[])
+     * @since 10.5RC1
+     */
+    @Unstable
+    protected String getResourceETag(R resourceReference)
+    {
+        return null;
+    }
+
+    /**
+     * Set the entity tag of the response and check if the browser already has the corresponding content.
+     *
+     * @param resourceReference the reference of the requested resource
+     * @param response the response
+     * @return {@code true} if the response status has been set to 304 (Not Modified), {@code false} otherwise
+     */
+    private boolean isNotModified(R resourceReference, Response response)
+    {
+        Request request = this.container.getRequest();
+        if (request instanceof ServletRequest && response instanceof ServletResponse
+            && isResourceCacheable(resourceReference)) {
+            String etag = getResourceETag(resourceReference);
+            if (etag != null) {
+                return HttpServletUtils.checkNotModified(etag, ((ServletRequest) request).getHttpServletRequest(),
+                    ((ServletResponse) response).getHttpServletResponse());
+            }
+        }
+
+        return false;
+    }
+
     /**
      * Filter the resource before sending it to the client.
      * 
@@ -22,13 +22,16 @@
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Formatter;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.ws.rs.core.UriBuilderException;
 
 import org.apache.commons.lang3.StringUtils;
+import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.SpaceReference;
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryException;
@@ -131,9 +134,9 @@ protected List<SearchResult> searchPages(List<SearchScope> searchScopes, String
         String space, boolean hasProgrammingRights, int number, int start, String orderField, String order,
         Boolean withPrettyNames) throws QueryException, IllegalArgumentException, UriBuilderException, XWikiException
     {
-        XWiki xwikiApi = Utils.getXWikiApi(componentManager);
+        XWikiContext xwikiContext = Utils.getXWikiContext(componentManager);
 
-        String database = Utils.getXWikiContext(componentManager).getWikiId();
+        String database = xwikiContext.getWikiId();
 
         /* This try is just needed for executing the finally clause. */
         try {
@@ -231,6 +234,9 @@ protected List<SearchResult> searchPages(List<SearchScope> searchScopes, String
                         .execute();
             }
 
+            /* Check at once which found documents the user has the right to see */
+            Set<DocumentReference> viewableReferences = getViewableDocuments(queryResult, xwikiContext);
+
             for (Object object : queryResult) {
                 Object[] fields = (Object[]) object;
 
@@ -242,9 +248,11 @@ protected List<SearchResult> searchPages(List<SearchScope> searchScopes, String
                 String pageId = Utils.getPageId(wikiName, spaces, pageName);
                 String pageFullName = Utils.getPageFullName(wikiName, spaces, pageName);
 
-                /* Check if the user has the right to see the found document */
-                if (xwikiApi.hasAccessLevel("view", pageId)) {
-                    Document doc = xwikiApi.getDocument(pageFullName);
+                DocumentReference pageReference = getDocumentReference(fields, xwikiContext);
+                if (viewableReferences.contains(pageReference)) {
+                    // The access has already been checked
+                    Document doc =
+                        xwikiContext.getWiki().getDocument(pageReference, xwikiContext).newDocument(xwikiContext);
                     String title = doc.getDisplayTitle();
                     SearchResult searchResult = objectFactory.createSearchResult();
                     searchResult.setType("page");
@@ -374,9 +382,7 @@ protected List<SearchResult> searchObjects(String keywords, String wikiName, Str
     {
         XWikiContext xwikiContext = Utils.getXWikiContext(componentManager);
 
-        XWiki xwikiApi = Utils.getXWikiApi(componentManager);
-
-        String database = Utils.getXWikiContext(componentManager).getWikiId();
+        String database = xwikiContext.getWikiId();
 
         /* This try is just needed for executing the finally clause. */
         try {
@@ -445,6 +451,9 @@ protected List<SearchResult> searchObjects(String keywords, String wikiName, Str
                         .execute();
             }
 
+            /* Check at once which found documents the user has the right to see */
+            Set<DocumentReference> viewableReferences = getViewableDocuments(queryResult, xwikiContext);
+
             /* Build the result. */
             for (Object object : queryResult) {
                 Object[] fields = (Object[]) object;
@@ -464,8 +473,11 @@ protected List<SearchResult> searchObjects(String keywords, String wikiName, Str
                  * Check if the user has the right to see the found document. We also prevent guest users to access
                  * object data in order to avoid leaking important information such as emails to crawlers.
                  */
-                if (xwikiApi.hasAccessLevel("view", pageId) && xwikiContext.getUserReference() != null) {
-                    Document doc = xwikiApi.getDocument(pageFullName);
+                DocumentReference pageReference = getDocumentReference(fields, xwikiContext);
+                if (viewableReferences.contains(pageReference) && xwikiContext.getUserReference() != null) {
+                    // The access has already been checked
+                    Document doc =
+                        xwikiContext.getWiki().getDocument(pageReference, xwikiContext).newDocument(xwikiContext);
                     String title = doc.getDisplayTitle();
                     SearchResult searchResult = objectFactory.createSearchResult();
                     searchResult.setType("object");
@@ -556,6 +568,30 @@ protected List<SearchResult> searchQuery(String query, String queryTypeString, S
         }
     }
 
+    /**
+     * Check with a single call which of the documents found by a query the current user is allowed to view.
+     *
+     * @param queryResult the query results, with the document space and name as second and third columns
+     * @param xwikiContext the XWiki context
+     * @return the references of the documents the current user is allowed to view
+     */
+    private Set<DocumentReference> getViewableDocuments(List<Object> queryResult, XWikiContext xwikiContext)
+    {
+        List<DocumentReference> references = new ArrayList<>(queryResult.size());
+        for (Object object : queryResult) {
+            references.add(getDocumentReference((Object[]) object, xwikiContext));
+        }
+
+        return new HashSet<>(this.authorizationManager.filterAccessible(Right.VIEW, references));
+    }
+
+    private DocumentReference getDocumentReference(Object[] fields, XWikiContext xwikiContext)
+    {
+        // The queries are executed on the current wiki
+        return new DocumentReference(xwikiContext.getWikiId(), Utils.getSpacesFromSpaceId((String) fields[1]),
+            (String) fields[2]);
+    }
+
     /**
      * Return a list of {@link SearchScope} objects by parsing the strings provided in the search scope strings. If the
      * list doesn't contain any valid scope string, then CONTENT is added by default.
@@ -19,11 +19,18 @@
  */
 package org.xwiki.rest.internal.resources.pages;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.WikiReference;
 import org.xwiki.query.Query;
 import org.xwiki.rest.XWikiResource;
 import org.xwiki.rest.XWikiRestException;
@@ -31,7 +38,10 @@
 import org.xwiki.rest.internal.Utils;
 import org.xwiki.rest.model.jaxb.Pages;
 import org.xwiki.rest.resources.pages.PageChildrenResource;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
 
+import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.api.Document;
 
 /**
@@ -41,6 +51,13 @@
 @Named("org.xwiki.rest.internal.resources.pages.PageChildrenResourceImpl")
 public class PageChildrenResourceImpl extends XWikiResource implements PageChildrenResource
 {
+    @Inject
+    private ContextualAuthorizationManager authorization;
+
+    @Inject
+    @Named("current")
+    private DocumentReferenceResolver<String> resolver;
+
     @Override
     public Pages getPageChildren(String wikiName, String spaceName, String pageName, Integer start, Integer number,
             Boolean withPrettyNames) throws XWikiRestException
@@ -59,20 +76,33 @@ public Pages getPageChildren(String wikiName, String spaceName, String pageName,
                     queryManager.createQuery(queryString, Query.XWQL).bindValue("parent", doc.getFullName()).setOffset(
                             start).setLimit(number).execute();
 
+            WikiReference wikiReference = new WikiReference(wikiName);
+            List<DocumentReference> childPageReferences = new ArrayList<>(childPageFullNames.size());
             for (String childPageFullName : childPageFullNames) {
-                String pageId = Utils.getPageId(wikiName, childPageFullName);
+                childPageReferences.add(this.resolver.resolve(childPageFullName, wikiReference));
+            }
+
+            /* Check at once which pages the user has the right to see */
+            Set<DocumentReference> viewableReferences =
+                new HashSet<>(this.authorization.filterAccessible(Right.VIEW, childPageReferences));
+
+            XWikiContext xcontext = Utils.getXWikiContext(componentManager);
+            for (DocumentReference childPageReference : childPageReferences) {
+                /* We only add pages we have the right to access */
+                if (!viewableReferences.contains(childPageReference)) {
+                    continue;
+                }
 
-                if (!Utils.getXWikiApi(componentManager).exists(pageId)) {
+                if (!xcontext.getWiki().exists(childPageReference, xcontext)) {
                     getLogger().warn("Page [{}] appears to be in space [{}] but no information is available.", pageName,
                         spaceName);
                 } else {
-                    Document childDoc = Utils.getXWikiApi(componentManager).getDocument(pageId);
+                    // The access has already been checked
+                    Document childDoc =
+                        xcontext.getWiki().getDocument(childPageReference, xcontext).newDocument(xcontext);
 
-                    /* We only add pages we have the right to access */
-                    if (childDoc != null) {
-                        pages.getPageSummaries().add(DomainObjectFactory.createPageSummary(objectFactory,
-                                uriInfo.getBaseUri(), childDoc, Utils.getXWikiApi(componentManager), withPrettyNames));
-                    }
+                    pages.getPageSummaries().add(DomainObjectFactory.createPageSummary(objectFactory,
+                            uriInfo.getBaseUri(), childDoc, Utils.getXWikiApi(componentManager), withPrettyNames));
                 }
             }
 
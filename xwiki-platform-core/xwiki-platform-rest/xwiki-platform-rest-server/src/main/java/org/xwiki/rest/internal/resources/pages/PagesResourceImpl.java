@@ -19,12 +19,17 @@
  */
 package org.xwiki.rest.internal.resources.pages;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Pattern;
 
+import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryFilter;
 import org.xwiki.rest.XWikiResource;
@@ -33,7 +38,10 @@
 import org.xwiki.rest.internal.Utils;
 import org.xwiki.rest.model.jaxb.Pages;
 import org.xwiki.rest.resources.pages.PagesResource;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
 
+import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.api.Document;
 
 /**
@@ -43,6 +51,9 @@
 @Named("org.xwiki.rest.internal.resources.pages.PagesResourceImpl")
 public class PagesResourceImpl extends XWikiResource implements PagesResource
 {
+    @Inject
+    private ContextualAuthorizationManager authorization;
+
     @Override
     public Pages getPages(String wikiName, String spaceName, Integer start, Integer number,
             String parentFilterExpression, String order, Boolean withPrettyNames)
@@ -75,33 +86,44 @@ public Pages getPages(String wikiName, String spaceName, Integer start, Integer
                 }
             }
 
+            List<DocumentReference> pageReferences = new ArrayList<>(pageNames.size());
             for (String pageName : pageNames) {
-                String pageFullName = Utils.getPageId(wikiName, spaces, pageName);
+                pageReferences.add(new DocumentReference(wikiName, spaces, pageName));
+            }
 
-                if (!Utils.getXWikiApi(componentManager).exists(pageFullName)) {
-                    getLogger().warn("Page [{}] appears to be in space [{}] but no information is available.", pageName,
-                        spaceId);
+            /* Check at once which pages the user has the right to see */
+            Set<DocumentReference> viewableReferences =
+                new HashSet<>(this.authorization.filterAccessible(Right.VIEW, pageReferences));
+
+            XWikiContext xcontext = Utils.getXWikiContext(componentManager);
+            for (DocumentReference pageReference : pageReferences) {
+                /* We only add pages we have the right to access */
+                if (!viewableReferences.contains(pageReference)) {
+                    continue;
+                }
+
+                if (!xcontext.getWiki().exists(pageReference, xcontext)) {
+                    getLogger().warn("Page [{}] appears to be in space [{}] but no information is available.",
+                        pageReference.getName(), spaceId);
                 } else {
-                    Document doc = Utils.getXWikiApi(componentManager).getDocument(pageFullName);
+                    // The access has already been checked
+                    Document doc = xcontext.getWiki().getDocument(pageReference, xcontext).newDocument(xcontext);
 
-                    /* We only add pages we have the right to access */
-                    if (doc != null) {
-                        boolean add = true;
+                    boolean add = true;
 
-                        Document parent = Utils.getParentDocument(doc, Utils.getXWikiApi(componentManager));
+                    Document parent = Utils.getParentDocument(doc, Utils.getXWikiApi(componentManager));
 
-                        if (parentFilter != null) {
-                            String parentId = "";
-                            if (parent != null && !parent.isNew()) {
-                                parentId = parent.getPrefixedFullName();
-                            }
-                            add = parentFilter.matcher(parentId).matches();
+                    if (parentFilter != null) {
+                        String parentId = "";
+                        if (parent != null && !parent.isNew()) {
+                            parentId = parent.getPrefixedFullName();
                         }
+                        add = parentFilter.matcher(parentId).matches();
+                    }
 
-                        if (add) {
-                            pages.getPageSummaries().add(DomainObjectFactory.createPageSummary(objectFactory,
-                                    uriInfo.getBaseUri(), doc, Utils.getXWikiApi(componentManager), withPrettyNames));
-                        }
+                    if (add) {
+                        pages.getPageSummaries().add(DomainObjectFactory.createPageSummary(objectFactory,
+                                uriInfo.getBaseUri(), doc, Utils.getXWikiApi(componentManager), withPrettyNames));
                     }
                 }
             }
@@ -19,14 +19,24 @@
  */
 package org.xwiki.search.solr.internal;
 
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.solr.common.SolrInputDocument;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
@@ -48,6 +58,7 @@
 import org.xwiki.search.solr.internal.api.SolrConfiguration;
 import org.xwiki.search.solr.internal.api.SolrIndexer;
 import org.xwiki.search.solr.internal.api.SolrIndexerException;
+import org.xwiki.search.solr.internal.api.SolrIndexerStatistics;
 import org.xwiki.search.solr.internal.api.SolrInstance;
 import org.xwiki.search.solr.internal.job.IndexerJob;
 import org.xwiki.search.solr.internal.job.IndexerRequest;
@@ -63,6 +74,10 @@
  * This implementation does not directly process the given leaf-references, but adds them to a processing queue, in the
  * order they were received. The {@link Runnable} part of this implementation is the one that sequentially reads and
  * processes the queue.
+ * <p>
+ * When several indexer threads are configured, the metadata of the next entries of the queue are extracted in parallel
+ * while the operations are still sent to Solr in the order of the queue, so that a delete following an update of the
+ * same entity is still applied last.
  * 
  * @version $Id$
  * @since 5.1M2
@@ -97,6 +112,16 @@ public class DefaultSolrIndexer implements SolrIndexer, Initializable, Disposabl
          */
         public IndexOperation operation;
 
+        /**
+         * The metadata being extracted by the extraction threads, {@code null} when extracted by the index thread.
+         */
+        public Future<LengthSolrInputDocument> document;
+
+        /**
+         * The future to complete when the entry is reached, for {@link IndexOperation#FLUSH} entries.
+         */
+        public CompletableFuture<Void> flushed;
+
         /**
          * @param indexReference the reference of the entity to index.
          * @param operation the indexing operation to perform.
@@ -117,6 +142,15 @@ public IndexQueueEntry(String deleteQuery, IndexOperation operation)
             this.operation = operation;
         }
 
+        /**
+         * @param flushed the future to complete when the entry is reached
+         */
+        public IndexQueueEntry(CompletableFuture<Void> flushed)
+        {
+            this.flushed = flushed;
+            this.operation = IndexOperation.FLUSH;
+        }
+
         @Override
         public String toString()
         {
@@ -129,6 +163,9 @@ public String toString()
                 case DELETE:
                     str = "DELETE " + this.deleteQuery;
                     break;
+                case FLUSH:
+                    str = "FLUSH";
+                    break;
                 case STOP:
                     str = "STOP";
                     break;
@@ -163,6 +200,12 @@ public String toString()
          */
         public IndexOperation operation;
 
+        /**
+         * The future to complete when the entry is reached by the index thread, for {@link IndexOperation#FLUSH}
+         * entries.
+         */
+        public CompletableFuture<Void> flushed;
+
         /**
          * @param reference the reference of the entity to index.
          * @param recurse also apply operation to reference children.
@@ -174,6 +217,15 @@ public ResolveQueueEntry(EntityReference reference, boolean recurse, IndexOperat
             this.recurse = recurse;
             this.operation = operation;
         }
+
+        /**
+         * @param flushed the future to complete when the entry is reached by the index thread
+         */
+        public ResolveQueueEntry(CompletableFuture<Void> flushed)
+        {
+            this.flushed = flushed;
+            this.operation = IndexOperation.FLUSH;
+        }
     }
 
     /**
@@ -216,6 +268,8 @@ public void runInternal()
                         for (EntityReference reference : references) {
                             indexQueue.put(new IndexQueueEntry(reference, queueEntry.operation));
                         }
+                    } else if (queueEntry.operation == IndexOperation.FLUSH) {
+                        indexQueue.put(new IndexQueueEntry(queueEntry.flushed));
                     } else {
                         if (queueEntry.recurse) {
                             indexQueue.put(new IndexQueueEntry(solrRefereceResolver.getQuery(queueEntry.reference),
@@ -315,6 +369,39 @@ public void runInternal()
      */
     private volatile int batchSize;
 
+    /**
+     * The threads extracting metadata ahead of the index thread, {@code null} if extracted by the index thread.
+     */
+    private ExecutorService extractionExecutor;
+
+    /**
+     * The number of entries taken from the index queue for which the extraction has been started.
+     */
+    private int extractionWindowSize;
+
+    /**
+     * The entries taken from the index queue, in the queue order, which metadata is being extracted.
+     */
+    private final Deque<IndexQueueEntry> extractionWindow = new ArrayDeque<>();
+
+    /**
+     * The current size of the extraction window (which is only manipulated by the index thread).
+     */
+    private volatile int extractionQueueSize;
+
+    /**
+     * The flush markers which have not been reached yet.
+     */
+    private final Set<CompletableFuture<Void>> pendingFlushes = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong extractedCount = new AtomicLong();
+
+    private volatile long committedCount;
+
+    private volatile double throughput;
+
+    private long batchStartTime;
+
     @Override
     public void initialize() throws InitializationException
     {
@@ -322,6 +409,19 @@ public void initialize() throws InitializationException
         this.resolveQueue = new LinkedBlockingQueue<>();
         this.indexQueue = new LinkedBlockingQueue<>(this.configuration.getIndexerQueueCapacity());
 
+        // Start the metadata extraction threads
+        int threads = this.configuration.getIndexerThreads();
+        if (threads > 1) {
+            BasicThreadFactory factory =
+                new BasicThreadFactory.Builder().namingPattern("XWiki Solr extraction thread %d").daemon(true)
+                    .priority(Thread.NORM_PRIORITY - 1).build();
+            this.extractionExecutor = Executors.newFixedThreadPool(threads, factory);
+            // Keep the extraction threads busy without accumulating too many extracted documents in memory
+            this.extractionWindowSize = threads * 2;
+        } else {
+            this.extractionWindowSize = 1;
+        }
+
         // Launch the resolve thread
         this.resolveThread = new Thread(new Resolver());
         this.resolveThread.setName("XWiki Solr resolve thread");
@@ -354,6 +454,20 @@ public void dispose() throws ComponentLifecycleException
         // the index queue was full) and just one entry will be added to the queue before the special stop entry.
         this.indexQueue.clear();
         this.indexQueue.offer(INDEX_QUEUE_ENTRY_STOP);
+
+        // The flush markers which were in the queues are never going to be reached
+        cancelPendingFlushes();
+    }
+
+    /**
+     * Cancel the flush markers which have not been reached yet.
+     */
+    private void cancelPendingFlushes()
+    {
+        for (CompletableFuture<Void> flushed : this.pendingFlushes) {
+            flushed.cancel(false);
+        }
+        this.pendingFlushes.clear();
     }
 
     @Override
@@ -379,6 +493,13 @@ public void run()
             }
         }
 
+        // Stop the extraction threads
+        if (this.extractionExecutor != null) {
+            this.extractionExecutor.shutdownNow();
+        }
+
+        cancelPendingFlushes();
+
         this.logger.debug("Stop SOLR indexer thread");
     }
 
@@ -395,20 +516,41 @@ private boolean processBatch(IndexQueueEntry queueEntry)
 
         int length = 0;
 
-        for (IndexQueueEntry batchEntry = queueEntry; batchEntry != null; batchEntry = this.indexQueue.poll()) {
+        if (this.batchSize == 0) {
+            this.batchStartTime = System.nanoTime();
+        }
+
+        startExtraction(queueEntry);
+
+        for (IndexQueueEntry batchEntry = nextEntry(); batchEntry != null; batchEntry = nextEntry()) {
             if (batchEntry == INDEX_QUEUE_ENTRY_STOP) {
                 // Discard the current batch and stop the indexing thread.
+                clearExtractionWindow();
                 return false;
             }
 
             IndexOperation operation = batchEntry.operation;
 
+            if (operation == IndexOperation.FLUSH) {
+                // Make sure the operations queued before the marker are committed before notifying
+                if (this.batchSize > 0) {
+                    commit();
+                    length = 0;
+                }
+
+                this.pendingFlushes.remove(batchEntry.flushed);
+                batchEntry.flushed.complete(null);
+
+                continue;
+            }
+
             // For the current contiguous operations queue, group the changes
             try {
                 this.ecim.initialize(new ExecutionContext());
 
                 if (IndexOperation.INDEX.equals(operation)) {
-                    LengthSolrInputDocument solrDocument = getSolrDocument(batchEntry.reference);
+                    LengthSolrInputDocument solrDocument = batchEntry.document != null ? batchEntry.document.get()
+                        : extractSolrDocument(batchEntry.reference);
                     if (solrDocument != null) {
                         solrInstance.add(solrDocument);
                         length += solrDocument.getLength();
@@ -445,6 +587,80 @@ private boolean processBatch(IndexQueueEntry queueEntry)
         return true;
     }
 
+    /**
+     * Fill the extraction window with the entries available in the index queue and return the first one.
+     * 
+     * @return the next entry to send to Solr, {@code null} if there is none
+     */
+    private IndexQueueEntry nextEntry()
+    {
+        while (this.extractionWindow.size() < this.extractionWindowSize
+            && this.extractionWindow.peekLast() != INDEX_QUEUE_ENTRY_STOP) {
+            IndexQueueEntry queueEntry = this.indexQueue.poll();
+            if (queueEntry == null) {
+                break;
+            }
+            startExtraction(queueEntry);
+        }
+
+        IndexQueueEntry queueEntry = this.extractionWindow.poll();
+        this.extractionQueueSize = this.extractionWindow.size();
+
+        return queueEntry;
+    }
+
+    /**
+     * Add the entry to the extraction window, starting the extraction of its metadata in the extraction threads.
+     * 
+     * @param queueEntry the entry taken from the index queue
+     */
+    private void startExtraction(IndexQueueEntry queueEntry)
+    {
+        if (this.extractionExecutor != null && queueEntry.operation == IndexOperation.INDEX) {
+            queueEntry.document = this.extractionExecutor.submit(() -> {
+                this.ecim.initialize(new ExecutionContext());
+
+                try {
+                    return extractSolrDocument(queueEntry.reference);
+                } finally {
+                    this.execution.removeContext();
+                }
+            });
+        }
+
+        this.extractionWindow.add(queueEntry);
+        this.extractionQueueSize = this.extractionWindow.size();
+    }
+
+    /**
+     * Cancel the extraction of the entries which are not going to be sent.
+     */
+    private void clearExtractionWindow()
+    {
+        for (IndexQueueEntry queueEntry : this.extractionWindow) {
+            if (queueEntry.document != null) {
+                queueEntry.document.cancel(true);
+            }
+        }
+        this.extractionWindow.clear();
+        this.extractionQueueSize = 0;
+    }
+
+    /**
+     * @param reference the reference to extract metadata from
+     * @return the {@link SolrInputDocument} containing extracted metadata from the passed reference; {@code null} if
+     *         the reference type is not supported.
+     * @throws Exception if problems occur
+     */
+    private LengthSolrInputDocument extractSolrDocument(EntityReference reference) throws Exception
+    {
+        LengthSolrInputDocument solrDocument = getSolrDocument(reference);
+
+        this.extractedCount.incrementAndGet();
+
+        return solrDocument;
+    }
+
     /**
      * Commit.
      */
@@ -465,6 +681,14 @@ private void commit()
             }
         }
 
+        long now = System.nanoTime();
+        long duration = now - this.batchStartTime;
+        if (duration > 0) {
+            this.throughput = this.batchSize * 1000000000D / duration;
+        }
+        this.committedCount += this.batchSize;
+        this.batchStartTime = now;
+
         this.batchSize = 0;
     }
 
@@ -554,10 +778,42 @@ private void addToQueue(EntityReference reference, boolean recurse, IndexOperati
         }
     }
 
+    @Override
+    public Future<Void> flush()
+    {
+        CompletableFuture<Void> flushed = new CompletableFuture<>();
+
+        if (this.disposed) {
+            flushed.cancel(false);
+        } else {
+            this.pendingFlushes.add(flushed);
+
+            // Don't block because the capacity of the resolver queue is not limited.
+            try {
+                this.resolveQueue.put(new ResolveQueueEntry(flushed));
+            } catch (InterruptedException e) {
+                this.logger.error("Failed to add a flush marker to Solr indexing queue", e);
+
+                this.pendingFlushes.remove(flushed);
+                flushed.cancel(false);
+            }
+        }
+
+        return flushed;
+    }
+
     @Override
     public int getQueueSize()
     {
-        return this.indexQueue.size() + this.resolveQueue.size() + this.batchSize;
+        return this.indexQueue.size() + this.resolveQueue.size() + this.extractionQueueSize + this.batchSize;
+    }
+
+    @Override
+    public SolrIndexerStatistics getStatistics()
+    {
+        return new SolrIndexerStatistics(this.resolveQueue.size(), this.indexQueue.size(), this.extractionQueueSize,
+            this.batchSize, Math.max(this.configuration.getIndexerThreads(), 1), this.extractedCount.get(),
+            this.committedCount, this.throughput);
     }
 
     @Override
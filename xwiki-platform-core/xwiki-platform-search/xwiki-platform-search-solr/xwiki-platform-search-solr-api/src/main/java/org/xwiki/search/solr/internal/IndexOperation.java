@@ -37,6 +37,13 @@
      */
     DELETE,
 
+    /**
+     * Commit the operations which were queued before.
+     *
+     * @since 10.5RC1
+     */
+    FLUSH,
+
     // General operations
 
     /**
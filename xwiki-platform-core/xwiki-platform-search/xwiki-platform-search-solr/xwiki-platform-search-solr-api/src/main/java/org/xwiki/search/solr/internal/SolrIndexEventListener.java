@@ -40,6 +40,7 @@
 import org.xwiki.observation.EventListener;
 import org.xwiki.observation.event.Event;
 import org.xwiki.search.solr.internal.api.SolrIndexer;
+import org.xwiki.search.solr.internal.metadata.AttachmentTextCache;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
@@ -91,6 +92,9 @@ public class SolrIndexEventListener implements EventListener
     @Inject
     private Provider<SolrIndexer> solrIndexer;
 
+    @Inject
+    private Provider<AttachmentTextCache> attachmentTextCache;
+
     @Override
     public List<Event> getEvents()
     {
@@ -142,6 +146,11 @@ public void onEvent(Event event, Object source, Object data)
                 // See XWIKI-10003: Cache problem with Solr facet filter results count
                 this.solrIndexer.get().delete(
                     new DocumentReference(document.getDocumentReference(), document.getRealLocale()), false);
+
+                // The attachments are shared by all the translations
+                if (Locale.ROOT.equals(document.getLocale())) {
+                    this.attachmentTextCache.get().remove(document.getDocumentReference());
+                }
             } else if (event instanceof AttachmentUpdatedEvent || event instanceof AttachmentAddedEvent) {
                 XWikiDocument document = (XWikiDocument) source;
                 String fileName = ((AbstractAttachmentEvent) event).getName();
@@ -154,6 +163,7 @@ public void onEvent(Event event, Object source, Object data)
                 XWikiAttachment attachment = document.getAttachment(fileName);
 
                 this.solrIndexer.get().delete(attachment.getReference(), false);
+                this.attachmentTextCache.get().remove(attachment.getReference());
             } else if (event instanceof XObjectUpdatedEvent || event instanceof XObjectAddedEvent) {
                 EntityEvent entityEvent = (EntityEvent) event;
 
@@ -175,6 +185,7 @@ public void onEvent(Event event, Object source, Object data)
                 WikiReference wikiReference = new WikiReference(wikiName);
 
                 this.solrIndexer.get().delete(wikiReference, false);
+                this.attachmentTextCache.get().remove(wikiReference);
             }
         } catch (Exception e) {
             this.logger.error("Failed to handle event [{}] with source [{}]", event, source, e);
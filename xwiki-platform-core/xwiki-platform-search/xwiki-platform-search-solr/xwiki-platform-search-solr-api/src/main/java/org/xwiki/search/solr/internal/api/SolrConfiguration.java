@@ -73,9 +73,29 @@
      */
     int getIndexerQueueCapacity();
 
+    /**
+     * @return the number of threads extracting the metadata of the entities to index, 1 to extract them directly in
+     *         the thread sending them to Solr
+     * @since 10.5RC1
+     */
+    int getIndexerThreads();
+
+    /**
+     * @return the maximum number of characters extracted from the content of an attachment, -1 for no limit
+     * @since 10.5RC1
+     */
+    int getIndexerAttachmentMaxTextLength();
+
     /**
      * @return true if a full synchronization job between the database and SOLR index should be run when XWiki starts
      * @since 6.1M2
      */
     boolean synchronizeAtStartup();
+
+    /**
+     * @return true if the synchronization run when XWiki starts should only check the documents modified since the
+     *         last synchronization
+     * @since 10.5RC1
+     */
+    boolean synchronizeIncrementallyAtStartup();
 }
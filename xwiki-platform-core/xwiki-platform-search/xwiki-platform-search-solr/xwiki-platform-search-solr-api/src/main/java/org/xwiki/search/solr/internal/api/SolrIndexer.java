@@ -19,6 +19,8 @@
  */
 package org.xwiki.search.solr.internal.api;
 
+import java.util.concurrent.Future;
+
 import org.xwiki.component.annotation.Role;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.search.solr.internal.job.IndexerJob;
@@ -55,11 +57,26 @@
      */
     void delete(EntityReference reference, boolean recurse);
 
+    /**
+     * Add a marker to the queue, which is reached once all the operations added to the queue before it have been
+     * committed.
+     * 
+     * @return a future completed once all the operations added to the queue before this call have been committed
+     * @since 10.5RC1
+     */
+    Future<Void> flush();
+
     /**
      * @return the number of element in the index/delete queue
      */
     int getQueueSize();
 
+    /**
+     * @return the current state of the different indexing stages
+     * @since 10.5RC1
+     */
+    SolrIndexerStatistics getStatistics();
+
     /**
      * Start an indexing with specific criteria.
      * 
@@ -0,0 +1,132 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.api;
+
+/**
+ * Snapshot of the state of the different stages of the {@link SolrIndexer}.
+ * 
+ * @version $Id$
+ * @since 10.5RC1
+ */
+public class SolrIndexerStatistics
+{
+    private final int resolveQueueSize;
+
+    private final int indexQueueSize;
+
+    private final int extractionQueueSize;
+
+    private final int batchSize;
+
+    private final int extractionThreads;
+
+    private final long extractedCount;
+
+    private final long committedCount;
+
+    private final double throughput;
+
+    /**
+     * @param resolveQueueSize the number of references waiting to be resolved
+     * @param indexQueueSize the number of entities waiting for their metadata to be extracted
+     * @param extractionQueueSize the number of entities being extracted or waiting to be added to the batch
+     * @param batchSize the number of entities added to the batch but not yet committed
+     * @param extractionThreads the number of threads extracting metadata
+     * @param extractedCount the total number of entities which metadata has been extracted
+     * @param committedCount the total number of index operations committed
+     * @param throughput the number of index operations per second during the last committed batch
+     */
+    public SolrIndexerStatistics(int resolveQueueSize, int indexQueueSize, int extractionQueueSize, int batchSize,
+        int extractionThreads, long extractedCount, long committedCount, double throughput)
+    {
+        this.resolveQueueSize = resolveQueueSize;
+        this.indexQueueSize = indexQueueSize;
+        this.extractionQueueSize = extractionQueueSize;
+        this.batchSize = batchSize;
+        this.extractionThreads = extractionThreads;
+        this.extractedCount = extractedCount;
+        this.committedCount = committedCount;
+        this.throughput = throughput;
+    }
+
+    /**
+     * @return the number of references waiting to be resolved
+     */
+    public int getResolveQueueSize()
+    {
+        return this.resolveQueueSize;
+    }
+
+    /**
+     * @return the number of entities waiting for their metadata to be extracted
+     */
+    public int getIndexQueueSize()
+    {
+        return this.indexQueueSize;
+    }
+
+    /**
+     * @return the number of entities being extracted or waiting to be added to the batch
+     */
+    public int getExtractionQueueSize()
+    {
+        return this.extractionQueueSize;
+    }
+
+    /**
+     * @return the number of entities added to the batch but not yet committed
+     */
+    public int getBatchSize()
+    {
+        return this.batchSize;
+    }
+
+    /**
+     * @return the number of threads extracting metadata
+     */
+    public int getExtractionThreads()
+    {
+        return this.extractionThreads;
+    }
+
+    /**
+     * @return the total number of entities which metadata has been extracted
+     */
+    public long getExtractedCount()
+    {
+        return this.extractedCount;
+    }
+
+    /**
+     * @return the total number of index operations committed
+     */
+    public long getCommittedCount()
+    {
+        return this.committedCount;
+    }
+
+    /**
+     * @return the number of index operations per second during the last committed batch
+     */
+    public double getThroughput()
+    {
+        return this.throughput;
+    }
+}
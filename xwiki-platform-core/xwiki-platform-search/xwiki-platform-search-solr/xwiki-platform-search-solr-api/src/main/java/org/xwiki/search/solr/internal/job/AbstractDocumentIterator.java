@@ -19,6 +19,8 @@
  */
 package org.xwiki.search.solr.internal.job;
 
+import java.util.Date;
+
 import javax.inject.Inject;
 
 import org.slf4j.Logger;
@@ -49,15 +51,33 @@
      */
     protected EntityReference rootReference;
 
+    /**
+     * Specifies the date from which the modified documents are iterated. If {@code null} then all the documents are
+     * iterated.
+     */
+    protected Date modifiedSince;
+
     @Override
     public void remove()
     {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public void close()
+    {
+        // Nothing to release by default
+    }
+
     @Override
     public void setRootReference(EntityReference rootReference)
     {
         this.rootReference = rootReference;
     }
+
+    @Override
+    public void setModifiedSince(Date modifiedSince)
+    {
+        this.modifiedSince = modifiedSince;
+    }
 }
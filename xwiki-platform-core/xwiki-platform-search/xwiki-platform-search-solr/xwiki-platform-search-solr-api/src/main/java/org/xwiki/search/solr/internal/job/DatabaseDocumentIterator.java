@@ -47,6 +47,7 @@
 import org.xwiki.query.QueryException;
 import org.xwiki.query.QueryFilter;
 import org.xwiki.query.QueryManager;
+import org.xwiki.query.QueryResultIterator;
 import org.xwiki.wiki.descriptor.WikiDescriptorManager;
 import org.xwiki.wiki.manager.WikiManagerException;
 
@@ -62,14 +63,9 @@
 public class DatabaseDocumentIterator extends AbstractDocumentIterator<String>
 {
     /**
-     * The current index in the list of {@link #results}.
+     * The results of the current wiki, fetched from the database while they are iterated.
      */
-    private int index;
-
-    /**
-     * A 'page' of results taken from the database.
-     */
-    private List<Object[]> results = Collections.emptyList();
+    private QueryResultIterator<Object[]> results;
 
     /**
      * Used to get the list of available wikis.
@@ -87,11 +83,6 @@ public class DatabaseDocumentIterator extends AbstractDocumentIterator<String>
      */
     private String wiki;
 
-    /**
-     * The offset in the current wiki.
-     */
-    private int offset;
-
     /**
      * Used to query the underlying storage.
      */
@@ -126,13 +117,13 @@ public class DatabaseDocumentIterator extends AbstractDocumentIterator<String>
     @Override
     public boolean hasNext()
     {
-        return getResults().size() > index;
+        return getResults().hasNext();
     }
 
     @Override
     public Pair<DocumentReference, String> next()
     {
-        Object[] result = getResults().get(index++);
+        Object[] result = getResults().next();
         String localSpaceReference = (String) result[0];
         String name = (String) result[1];
         String locale = (String) result[2];
@@ -165,45 +156,57 @@ public long size()
         return size;
     }
 
+    @Override
+    public void close()
+    {
+        if (this.results != null) {
+            this.results.close();
+            this.results = null;
+        }
+        // Stop the iteration
+        this.wikisIterator = Collections.emptyIterator();
+    }
+
     /**
-     * The current 'page' of results. If the current page has been fully iterated then a new page is fetched
+     * The results of the current wiki. If they have been fully iterated then the results of the next wiki are fetched
      * automatically.
      * 
-     * @return the current 'page' of results taken from the database
+     * @return the results of the current wiki
      */
-    private List<Object[]> getResults()
+    private Iterator<Object[]> getResults()
     {
-        if (index >= results.size()) {
-            if (wiki == null) {
-                wiki = getNextWiki();
+        while (this.results == null || !this.results.hasNext()) {
+            if (this.results != null) {
+                this.results.close();
             }
-            while (wiki != null) {
-                fetchNextResults();
-                if (results.size() > 0) {
-                    break;
-                }
-                wiki = getNextWiki();
-                offset = 0;
+            this.wiki = getNextWiki();
+            if (this.wiki == null) {
+                this.results = null;
+                return Collections.emptyIterator();
             }
-            index = 0;
+            this.results = fetchResults();
         }
-        return results;
+
+        return this.results;
     }
 
     /**
-     * Fetches the next 'page' of results from the database.
+     * Fetches the documents of the current wiki from the database.
+     * 
+     * @return the results of the query, fetched while they are iterated
      */
-    private void fetchNextResults()
+    private QueryResultIterator<Object[]> fetchResults()
     {
         try {
-            // We use basic pagination (absolute offset) because we don't expect the database to change too much while
-            // the synchronization takes place. Also, the database is used as the reference store, meaning that we
-            // update the Solr index to match the database, not the other way around.
-            results = getQuery().setWiki(wiki).setOffset(offset).execute();
-            offset += LIMIT;
+            // We iterate all the documents of the wiki in one query (instead of using pagination) because the results
+            // are streamed from the database and we don't expect the database to change too much while the
+            // synchronization takes place. Also, the database is used as the reference store, meaning that we update
+            // the Solr index to match the database, not the other way around.
+            return getQuery().setWiki(this.wiki).scroll();
         } catch (QueryException e) {
-            results = Collections.emptyList();
             logger.error("Failed to query the database.", e);
+
+            return QueryResultIterator.of(Collections.<Object[]>emptyList());
         }
     }
 
@@ -225,15 +228,23 @@ private Query getQuery() throws QueryException
                 documentReference = rootReference.extractReference(EntityType.DOCUMENT);
             }
 
-            String whereClause = "";
+            List<String> constraints = new ArrayList<>();
             if (spaceReference != null) {
-                whereClause += " where doc.space = :space";
+                constraints.add("doc.space = :space");
                 if (documentReference != null) {
-                    whereClause += " and doc.name = :name";
+                    constraints.add("doc.name = :name");
                 }
             }
+            if (modifiedSince != null) {
+                constraints.add("doc.date >= :since");
+            }
 
-            query = queryManager.createQuery(select + whereClause + orderBy, Query.HQL).setLimit(LIMIT);
+            String whereClause = "";
+            if (!constraints.isEmpty()) {
+                whereClause = " where " + StringUtils.join(constraints, " and ");
+            }
+
+            query = queryManager.createQuery(select + whereClause + orderBy, Query.HQL);
             countQuery = queryManager.createQuery(whereClause, Query.HQL).addFilter(countFilter);
 
             if (spaceReference != null) {
@@ -242,6 +253,9 @@ private Query getQuery() throws QueryException
                     query.bindValue("name", documentReference.getName());
                 }
             }
+            if (modifiedSince != null) {
+                query.bindValue("since", modifiedSince);
+            }
 
             for (Map.Entry<String, Object> parameter : query.getNamedParameters().entrySet()) {
                 countQuery.bindValue(parameter.getKey(), parameter.getValue());
@@ -19,6 +19,7 @@
  */
 package org.xwiki.search.solr.internal.job;
 
+import java.util.Date;
 import java.util.Iterator;
 
 import org.apache.commons.lang3.tuple.Pair;
@@ -34,7 +35,7 @@
  * @since 5.4.5
  */
 @Role
-public interface DocumentIterator<T> extends Iterator<Pair<DocumentReference, T>>
+public interface DocumentIterator<T> extends Iterator<Pair<DocumentReference, T>>, AutoCloseable
 {
     /**
      * Limit the iterator to the specified entity (e.g. a wiki or a space). If the passed reference is {@code null} (or
@@ -45,8 +46,26 @@
      */
     void setRootReference(EntityReference rootReference);
 
+    /**
+     * Limit the iterator to the documents modified since the specified date. If the passed date is {@code null} (or if
+     * you don't call this method) then the documents are iterated whatever their modification date.
+     * 
+     * @param modifiedSince the date from which the modified documents should be iterated
+     * @since 10.5RC1
+     */
+    void setModifiedSince(Date modifiedSince);
+
     /**
      * @return estimate the size of the iterated store for showing progress information
      */
     long size();
+
+    /**
+     * Release the resources held to iterate the store (e.g. a database cursor), in case the iteration is stopped
+     * before reaching the end.
+     *
+     * @since 10.5RC1
+     */
+    @Override
+    void close();
 }
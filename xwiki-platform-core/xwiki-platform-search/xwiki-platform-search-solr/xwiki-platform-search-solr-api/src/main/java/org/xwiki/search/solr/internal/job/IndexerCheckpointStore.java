@@ -0,0 +1,132 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.job;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.Properties;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.environment.Environment;
+
+/**
+ * Persist, for each wiki, the date until which the Solr index is known to be synchronized with the database so that
+ * the next synchronization only has to check the documents modified since that date.
+ * <p>
+ * The checkpoints are stored in the permanent directory cache: deleting them is safe and only means that the next
+ * synchronization compares the whole database with the whole index.
+ * 
+ * @version $Id$
+ * @since 10.5RC1
+ */
+@Component(roles = IndexerCheckpointStore.class)
+@Singleton
+public class IndexerCheckpointStore
+{
+    private static final String FILE_PATH = "cache/solr/indexer-checkpoints.properties";
+
+    @Inject
+    private Environment environment;
+
+    @Inject
+    private Logger logger;
+
+    private Properties checkpoints;
+
+    /**
+     * @param wiki the identifier of the wiki
+     * @return the date until which the index of the passed wiki is synchronized, {@code null} if unknown
+     */
+    public synchronized Date getCheckpoint(String wiki)
+    {
+        String value = getCheckpoints().getProperty(wiki);
+
+        if (value != null) {
+            try {
+                return new Date(Long.parseLong(value));
+            } catch (NumberFormatException e) {
+                this.logger.warn("Ignoring invalid Solr index checkpoint [{}] for wiki [{}]", value, wiki);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param wiki the identifier of the wiki
+     * @param checkpoint the date until which the index of the passed wiki is synchronized, {@code null} to forget it
+     */
+    public synchronized void setCheckpoint(String wiki, Date checkpoint)
+    {
+        if (checkpoint != null) {
+            getCheckpoints().setProperty(wiki, String.valueOf(checkpoint.getTime()));
+        } else {
+            getCheckpoints().remove(wiki);
+        }
+
+        save();
+    }
+
+    private Properties getCheckpoints()
+    {
+        if (this.checkpoints == null) {
+            this.checkpoints = new Properties();
+
+            File file = getFile();
+            if (file.exists()) {
+                try (InputStream stream = Files.newInputStream(file.toPath())) {
+                    this.checkpoints.load(stream);
+                } catch (IOException e) {
+                    this.logger.warn("Failed to load the Solr index checkpoints from [{}]", file, e);
+                }
+            }
+        }
+
+        return this.checkpoints;
+    }
+
+    private void save()
+    {
+        File file = getFile();
+
+        try {
+            Files.createDirectories(file.toPath().getParent());
+
+            try (OutputStream stream = Files.newOutputStream(file.toPath())) {
+                this.checkpoints.store(stream, null);
+            }
+        } catch (IOException e) {
+            this.logger.warn("Failed to save the Solr index checkpoints in [{}]", file, e);
+        }
+    }
+
+    private File getFile()
+    {
+        return new File(this.environment.getPermanentDirectory(), FILE_PATH);
+    }
+}
@@ -19,10 +19,17 @@
  */
 package org.xwiki.search.solr.internal.job;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.inject.Provider;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.xwiki.component.annotation.Component;
@@ -33,13 +40,22 @@
 import org.xwiki.job.GroupedJob;
 import org.xwiki.job.JobGroupPath;
 import org.xwiki.job.Request;
+import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.WikiReference;
 import org.xwiki.search.solr.internal.api.SolrIndexer;
 import org.xwiki.search.solr.internal.job.DiffDocumentIterator.Action;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+import org.xwiki.wiki.manager.WikiManagerException;
 
 /**
  * Provide progress information and store logging of an advanced indexing.
+ * <p>
+ * When the request is incremental, the synchronization is done wiki by wiki and only checks the documents modified
+ * since the last synchronization of the wiki (see {@link IndexerCheckpointStore}). The checkpoint of a wiki is updated
+ * once it has been fully synchronized so that an interrupted synchronization resumes with the wikis not yet
+ * synchronized.
  * 
  * @version $Id$
  * @since 5.1RC1
@@ -60,6 +76,12 @@ public class IndexerJob extends AbstractJob<IndexerRequest, DefaultJobStatus<Ind
     // TODO: group indexers based on the IndexerRequest root entity
     private static final JobGroupPath GROUP = new JobGroupPath(Arrays.asList("solr", "indexer"));
 
+    /**
+     * Removed from the checkpoint when synchronizing to cover the database dates precision and the clock differences
+     * between cluster members.
+     */
+    private static final long CHECKPOINT_MARGIN = 60000L;
+
     /**
      * Used to send documents to index or delete to/from Solr index.
      */
@@ -68,11 +90,17 @@ public class IndexerJob extends AbstractJob<IndexerRequest, DefaultJobStatus<Ind
 
     @Inject
     @Named("database")
-    private transient DocumentIterator<String> databaseIterator;
+    private transient Provider<DocumentIterator<String>> databaseIteratorProvider;
 
     @Inject
     @Named("solr")
-    private transient DocumentIterator<String> solrIterator;
+    private transient Provider<DocumentIterator<String>> solrIteratorProvider;
+
+    @Inject
+    private transient IndexerCheckpointStore checkpointStore;
+
+    @Inject
+    private transient WikiDescriptorManager wikiDescriptorManager;
 
     @Override
     public String getType()
@@ -116,12 +144,120 @@ protected void runInternal() throws Exception
      */
     private void updateSolrIndex()
     {
-        DiffDocumentIterator<String> iterator = new DiffDocumentIterator<>(this.solrIterator, this.databaseIterator);
-        iterator.setRootReference(getRequest().getRootReference());
+        EntityReference rootReference = getRequest().getRootReference();
 
-        this.progressManager.pushLevelProgress(2, this);
+        if (getRequest().isIncremental() && (rootReference == null || rootReference.getType() == EntityType.WIKI)) {
+            List<String> wikis = getWikis(rootReference);
+
+            this.progressManager.pushLevelProgress(wikis.size(), this);
+
+            try {
+                for (String wiki : wikis) {
+                    this.progressManager.startStep(this);
+                    if (!updateWikiSolrIndex(wiki)) {
+                        break;
+                    }
+                    this.progressManager.endStep(this);
+                }
+            } finally {
+                this.progressManager.popLevelProgress(this);
+            }
+        } else {
+            updateSolrIndex(rootReference, null);
+        }
+    }
+
+    /**
+     * Update the Solr index of the passed wiki starting from its last checkpoint.
+     * 
+     * @param wiki the wiki to synchronize
+     * @return {@code true} if the wiki has been fully synchronized
+     */
+    private boolean updateWikiSolrIndex(String wiki)
+    {
+        WikiReference wikiReference = new WikiReference(wiki);
+
+        Date start = new Date();
+
+        Date modifiedSince = this.checkpointStore.getCheckpoint(wiki);
+        if (modifiedSince != null) {
+            // Don't trust the checkpoint if the index has been emptied since then
+            DocumentIterator<String> indexIterator = this.solrIteratorProvider.get();
+            indexIterator.setRootReference(wikiReference);
+            if (indexIterator.size() == 0) {
+                modifiedSince = null;
+            } else {
+                modifiedSince = new Date(modifiedSince.getTime() - CHECKPOINT_MARGIN);
+            }
+        }
+
+        if (modifiedSince != null) {
+            this.logger.info("Synchronize the Solr index of wiki [{}] with the documents modified since [{}].", wiki,
+                modifiedSince);
+        }
+
+        updateSolrIndex(wikiReference, modifiedSince);
 
+        // The indexer works asynchronously so we make sure what we sent is in the index before moving the checkpoint
         try {
+            this.indexer.flush().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            this.logger.warn("Interrupted while waiting for the Solr index of wiki [{}] to be updated.", wiki);
+
+            return false;
+        } catch (ExecutionException | CancellationException e) {
+            this.logger.warn("Failed to wait for the Solr index of wiki [{}] to be updated.", wiki, e);
+
+            return false;
+        }
+
+        this.checkpointStore.setCheckpoint(wiki, start);
+
+        return true;
+    }
+
+    /**
+     * @param rootReference the wiki to synchronize, {@code null} for all the wikis
+     * @return the wikis to synchronize, in alphabetical order
+     */
+    private List<String> getWikis(EntityReference rootReference)
+    {
+        if (rootReference != null) {
+            return Collections.singletonList(rootReference.getName());
+        }
+
+        List<String> wikis;
+        try {
+            wikis = new ArrayList<>(this.wikiDescriptorManager.getAllIds());
+            Collections.sort(wikis);
+        } catch (WikiManagerException e) {
+            this.logger.error("Failed to get the list of available wikis.", e);
+
+            wikis = Collections.emptyList();
+        }
+
+        return wikis;
+    }
+
+    /**
+     * Update the Solr index to match the current state of the database.
+     * 
+     * @param rootReference the entity to synchronize, {@code null} for all the wikis
+     * @param modifiedSince the date from which the modified documents are synchronized, {@code null} for all the
+     *            documents
+     */
+    private void updateSolrIndex(EntityReference rootReference, Date modifiedSince)
+    {
+        this.progressManager.pushLevelProgress(2, this);
+
+        // Make sure the database results are released even if the synchronization is interrupted
+        try (DiffDocumentIterator<String> iterator =
+            new DiffDocumentIterator<>(this.solrIteratorProvider.get(), this.databaseIteratorProvider.get())) {
+            iterator.setRootReference(rootReference);
+            iterator.setModifiedSince(modifiedSince);
+
             // Calculate index progress size
 
             this.progressManager.startStep(this);
@@ -19,6 +19,7 @@
  */
 package org.xwiki.search.solr.internal.job;
 
+import java.time.format.DateTimeFormatter;
 import java.util.Collections;
 import java.util.List;
 
@@ -146,6 +147,10 @@ private SolrQuery getQuery() throws SolrIndexerException
             query.setFields(FieldUtils.WIKI, FieldUtils.SPACES, FieldUtils.NAME, FieldUtils.DOCUMENT_LOCALE,
                 FieldUtils.VERSION);
             query.addFilterQuery(FieldUtils.TYPE + ':' + EntityType.DOCUMENT.name());
+            if (modifiedSince != null) {
+                query.addFilterQuery(String.format("%s:[%s TO *]", FieldUtils.DATE,
+                    DateTimeFormatter.ISO_INSTANT.format(modifiedSince.toInstant())));
+            }
             // This iterator must have the same order as the database iterator, otherwise the synchronization fails.
             // Note that we had two options:
             // (A) Sort the Solr index only by id and enable docValues on the id field to improve the speed. But then we
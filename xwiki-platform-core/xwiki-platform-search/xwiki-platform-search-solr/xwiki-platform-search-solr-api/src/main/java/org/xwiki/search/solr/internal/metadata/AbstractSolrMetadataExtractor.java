@@ -44,6 +44,7 @@
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.search.solr.internal.api.FieldUtils;
+import org.xwiki.search.solr.internal.api.SolrConfiguration;
 import org.xwiki.search.solr.internal.api.SolrIndexerException;
 import org.xwiki.search.solr.internal.reference.SolrReferenceResolver;
 import org.xwiki.tika.internal.TikaUtils;
@@ -114,6 +115,12 @@ public abstract class AbstractSolrMetadataExtractor implements SolrMetadataExtra
     @Inject
     protected ComponentManager componentManager;
 
+    @Inject
+    private SolrConfiguration configuration;
+
+    @Inject
+    private AttachmentTextCache attachmentTextCache;
+
     @Override
     public LengthSolrInputDocument getSolrDocument(EntityReference entityReference)
         throws SolrIndexerException, IllegalArgumentException
@@ -499,17 +506,25 @@ protected void addFieldValueOnce(SolrInputDocument solrDocument, String fieldNam
      */
     protected String getContentAsText(XWikiAttachment attachment)
     {
+        int maxLength = this.configuration.getIndexerAttachmentMaxTextLength();
+
+        // Avoid loading and parsing the content again when it did not change since the last time it was indexed
+        String text = this.attachmentTextCache.get(attachment, maxLength);
+        if (text != null) {
+            return text;
+        }
+
         try {
             Metadata metadata = new Metadata();
             metadata.set(TikaMetadataKeys.RESOURCE_NAME_KEY, attachment.getFilename());
 
-            InputStream in = attachment.getContentInputStream(this.xcontextProvider.get());
-
-            try {
-                return TikaUtils.parseToString(in, metadata);
-            } finally {
-                in.close();
+            try (InputStream in = attachment.getContentInputStream(this.xcontextProvider.get())) {
+                text = TikaUtils.parseToString(in, metadata, maxLength);
             }
+
+            this.attachmentTextCache.set(attachment, maxLength, text);
+
+            return text;
         } catch (Exception e) {
             this.logger.error("Failed to retrieve the content of attachment [{}]", attachment.getReference(), e);
             return null;
@@ -0,0 +1,208 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.metadata;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.environment.Environment;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.WikiReference;
+
+import com.xpn.xwiki.doc.XWikiAttachment;
+
+/**
+ * Keep on disk the text extracted from the attachments content so that reindexing an attachment which did not change
+ * does not require to load and parse its content again.
+ * <p>
+ * Each attachment has at most one entry, stored in a file named after the digest of the attachment name, in a
+ * directory of its document (itself in a directory of its wiki) so that the entries of a deleted document or wiki can
+ * be removed at once. The entry starts with a line identifying the extracted content (attachment version, date and
+ * size, and the maximum extracted length) which must match the current attachment for the entry to be used.
+ * 
+ * @version $Id$
+ * @since 10.5RC1
+ */
+@Component(roles = AttachmentTextCache.class)
+@Singleton
+public class AttachmentTextCache
+{
+    private static final String CACHE_PATH = "cache/solr/attachments";
+
+    private static final String FILE_EXTENSION = ".txt";
+
+    @Inject
+    private Environment environment;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    @Inject
+    @Named("local")
+    private EntityReferenceSerializer<String> localSerializer;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * @param attachment the attachment
+     * @param maxLength the maximum length of the extracted text
+     * @return the text previously extracted from the current content of the attachment, {@code null} if unknown
+     */
+    public String get(XWikiAttachment attachment, int maxLength)
+    {
+        File file = getFile(attachment.getReference());
+
+        if (file.exists()) {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                if (getIdentifier(attachment, maxLength).equals(reader.readLine())) {
+                    return IOUtils.toString(reader);
+                }
+            } catch (IOException e) {
+                this.logger.warn("Failed to read the cached text of attachment [{}]: {}", attachment.getReference(),
+                    e.getMessage());
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param attachment the attachment
+     * @param maxLength the maximum length of the extracted text
+     * @param text the text extracted from the current content of the attachment
+     */
+    public void set(XWikiAttachment attachment, int maxLength, String text)
+    {
+        File file = getFile(attachment.getReference());
+
+        try {
+            Path directory = Files.createDirectories(file.toPath().getParent());
+
+            // Write in a temporary file first so that a concurrent reader never sees a partial entry
+            Path temporary = Files.createTempFile(directory, file.getName(), null);
+            try {
+                try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                    writer.write(getIdentifier(attachment, maxLength));
+                    writer.write('\n');
+                    writer.write(text);
+                }
+
+                Files.move(temporary, file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            this.logger.warn("Failed to cache the text of attachment [{}]: {}", attachment.getReference(),
+                e.getMessage());
+        }
+    }
+
+    /**
+     * @param attachmentReference the reference of the attachment which text should be forgotten
+     */
+    public void remove(AttachmentReference attachmentReference)
+    {
+        try {
+            Files.deleteIfExists(getFile(attachmentReference).toPath());
+        } catch (IOException e) {
+            this.logger.warn("Failed to remove the cached text of attachment [{}]: {}", attachmentReference,
+                e.getMessage());
+        }
+    }
+
+    /**
+     * @param documentReference the reference of the document which attachments text should be forgotten
+     */
+    public void remove(DocumentReference documentReference)
+    {
+        try {
+            FileUtils.deleteDirectory(getDirectory(documentReference));
+        } catch (IOException e) {
+            this.logger.warn("Failed to remove the cached text of the attachments of document [{}]: {}",
+                documentReference, e.getMessage());
+        }
+    }
+
+    /**
+     * @param wikiReference the reference of the wiki which attachments text should be forgotten
+     */
+    public void remove(WikiReference wikiReference)
+    {
+        try {
+            FileUtils.deleteDirectory(getDirectory(wikiReference));
+        } catch (IOException e) {
+            this.logger.warn("Failed to remove the cached text of the attachments of wiki [{}]: {}", wikiReference,
+                e.getMessage());
+        }
+    }
+
+    private String getIdentifier(XWikiAttachment attachment, int maxLength)
+    {
+        // The version is not enough since it's reset when the document is deleted and then created again
+        StringBuilder identifier = new StringBuilder();
+        identifier.append(this.localSerializer.serialize(attachment.getReference()));
+        identifier.append('/').append(attachment.getVersion());
+        identifier.append('/').append(attachment.getDate() != null ? attachment.getDate().getTime() : 0);
+        identifier.append('/').append(attachment.getLongSize());
+        identifier.append('/').append(maxLength);
+
+        return identifier.toString().replace('\n', ' ');
+    }
+
+    private File getFile(AttachmentReference attachmentReference)
+    {
+        String digest = DigestUtils.sha1Hex(attachmentReference.getName());
+
+        return new File(getDirectory(attachmentReference.getDocumentReference()), digest + FILE_EXTENSION);
+    }
+
+    private File getDirectory(DocumentReference documentReference)
+    {
+        String digest = DigestUtils.sha1Hex(this.serializer.serialize(documentReference));
+
+        return new File(new File(getDirectory(documentReference.getWikiReference()), digest.substring(0, 2)), digest);
+    }
+
+    private File getDirectory(WikiReference wikiReference)
+    {
+        File directory = new File(this.environment.getPermanentDirectory(), CACHE_PATH);
+
+        return new File(directory, DigestUtils.sha1Hex(wikiReference.getName()));
+    }
+}
@@ -20,13 +20,27 @@
 package org.xwiki.search.solr.internal;
 
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Provider;
 
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.xwiki.component.util.DefaultParameterizedType;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.WikiReference;
 import org.xwiki.search.solr.internal.api.SolrConfiguration;
 import org.xwiki.search.solr.internal.api.SolrIndexer;
+import org.xwiki.search.solr.internal.api.SolrInstance;
+import org.xwiki.search.solr.internal.metadata.LengthSolrInputDocument;
+import org.xwiki.search.solr.internal.metadata.SolrMetadataExtractor;
 import org.xwiki.test.mockito.MockitoComponentMockingRule;
 
 import com.xpn.xwiki.XWiki;
@@ -34,9 +48,13 @@
 import com.xpn.xwiki.test.reference.ReferenceComponentList;
 import com.xpn.xwiki.web.Utils;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -91,4 +109,59 @@ public void testIndexEmptyWiki() throws Exception
 
         // index.index(wikiReference);
     }
+
+    @Test
+    public void indexWithSeveralExtractionThreads() throws Exception
+    {
+        when(this.mockConfig.getIndexerQueueCapacity()).thenReturn(100);
+        when(this.mockConfig.getIndexerThreads()).thenReturn(4);
+        when(this.mockConfig.getIndexerBatchSize()).thenReturn(1000);
+        when(this.mockConfig.getIndexerBatchMaxLengh()).thenReturn(10000000);
+
+        SolrInstance solrInstance = mock(SolrInstance.class);
+        Provider<SolrInstance> solrInstanceProvider = this.mocker
+            .registerMockComponent(new DefaultParameterizedType(null, Provider.class, SolrInstance.class));
+        when(solrInstanceProvider.get()).thenReturn(solrInstance);
+
+        // Extract the documents in a random order
+        Set<String> extractionThreads = ConcurrentHashMap.newKeySet();
+        SolrMetadataExtractor extractor = this.mocker.registerMockComponent(SolrMetadataExtractor.class, "document");
+        when(extractor.getSolrDocument(any(EntityReference.class))).then(invocation -> {
+            extractionThreads.add(Thread.currentThread().getName());
+            Thread.sleep((long) (Math.random() * 10));
+
+            LengthSolrInputDocument document = new LengthSolrInputDocument();
+            document.setField("id", invocation.<EntityReference>getArgument(0).getName());
+            return document;
+        });
+
+        SolrIndexer indexer = this.mocker.getComponentUnderTest();
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 20; ++i) {
+            expected.add("page" + i);
+            indexer.index(new DocumentReference("wiki", "space", "page" + i), false);
+        }
+
+        // Wait for the indexer to process the queue
+        indexer.flush().get(5, TimeUnit.SECONDS);
+        assertEquals(20, indexer.getStatistics().getCommittedCount());
+
+        // The documents are sent to Solr in the order of the queue
+        ArgumentCaptor<LengthSolrInputDocument> documentCaptor =
+            ArgumentCaptor.forClass(LengthSolrInputDocument.class);
+        verify(solrInstance, atLeastOnce()).add(documentCaptor.capture());
+        List<String> actual = new ArrayList<>();
+        for (LengthSolrInputDocument document : documentCaptor.getAllValues()) {
+            actual.add((String) document.getFieldValue("id"));
+        }
+        assertEquals(expected, actual);
+        verify(solrInstance, atLeastOnce()).commit();
+
+        // The metadata were extracted by the extraction threads
+        for (String thread : extractionThreads) {
+            assertTrue(thread, thread.startsWith("XWiki Solr extraction thread"));
+        }
+        assertEquals(20, indexer.getStatistics().getExtractedCount());
+    }
 }
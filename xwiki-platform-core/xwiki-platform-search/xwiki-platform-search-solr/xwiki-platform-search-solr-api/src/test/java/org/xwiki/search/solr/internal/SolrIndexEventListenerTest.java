@@ -27,10 +27,13 @@
 import org.junit.Test;
 import org.xwiki.bridge.event.DocumentDeletedEvent;
 import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.bridge.event.WikiDeletedEvent;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.WikiReference;
 import org.xwiki.observation.EventListener;
 import org.xwiki.search.solr.internal.api.SolrIndexer;
+import org.xwiki.search.solr.internal.metadata.AttachmentTextCache;
 import org.xwiki.test.mockito.MockitoComponentMockingRule;
 
 import com.xpn.xwiki.XWikiContext;
@@ -38,6 +41,7 @@
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -55,10 +59,13 @@
 
     private SolrIndexer indexer;
 
+    private AttachmentTextCache attachmentTextCache;
+
     @Before
     public void setUp() throws Exception
     {
         indexer = mocker.registerMockComponent(SolrIndexer.class);
+        attachmentTextCache = mocker.registerMockComponent(AttachmentTextCache.class);
     }
 
     @Test
@@ -73,6 +80,35 @@ public void onDocumentDeleted() throws Exception
         mocker.getComponentUnderTest().onEvent(new DocumentDeletedEvent(), document, null);
 
         verify(indexer).delete(new DocumentReference(documentReference, Locale.FRENCH), false);
+
+        // The attachments are kept by the default translation
+        verify(attachmentTextCache, never()).remove(any(DocumentReference.class));
+    }
+
+    @Test
+    public void onDocumentDefaultTranslationDeleted() throws Exception
+    {
+        DocumentReference documentReference = new DocumentReference("aWiki", "aSpace", "aPage");
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getOriginalDocument()).thenReturn(document);
+        when(document.getDocumentReference()).thenReturn(documentReference);
+        when(document.getLocale()).thenReturn(Locale.ROOT);
+        when(document.getRealLocale()).thenReturn(Locale.ENGLISH);
+
+        mocker.getComponentUnderTest().onEvent(new DocumentDeletedEvent(), document, null);
+
+        verify(indexer).delete(new DocumentReference(documentReference, Locale.ENGLISH), false);
+        verify(attachmentTextCache).remove(documentReference);
+    }
+
+    @Test
+    public void onWikiDeleted() throws Exception
+    {
+        mocker.getComponentUnderTest().onEvent(new WikiDeletedEvent("aWiki"), "aWiki", null);
+
+        WikiReference wikiReference = new WikiReference("aWiki");
+        verify(indexer).delete(wikiReference, false);
+        verify(attachmentTextCache).remove(wikiReference);
     }
 
     @Test
@@ -23,6 +23,7 @@
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -38,9 +39,11 @@
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReferenceResolver;
 import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.WikiReference;
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryFilter;
 import org.xwiki.query.QueryManager;
+import org.xwiki.query.QueryResultIterator;
 import org.xwiki.test.mockito.MockitoComponentMockingRule;
 import org.xwiki.wiki.descriptor.WikiDescriptorManager;
 
@@ -80,16 +83,11 @@ public void configure() throws Exception
     @Test
     public void iterateAllWikis() throws Exception
     {
-        Query emptyQuery = mock(Query.class);
-        when(emptyQuery.execute()).thenReturn(Collections.emptyList());
-
         Query chessQuery = mock(Query.class);
-        when(chessQuery.setOffset(0)).thenReturn(chessQuery);
-        when(chessQuery.setOffset(100)).thenReturn(emptyQuery);
-        when(chessQuery.execute()).thenReturn(Arrays.<Object> asList(
+        when(chessQuery.scroll()).thenReturn(QueryResultIterator.of(Arrays.<Object> asList(
             new Object[] {"Blog.Code", "WebHome", "", "3.2"},
             new Object[] {"Main", "Welcome", "en", "1.1"},
-            new Object[] {"XWiki.Syntax", "Links", "fr", "2.5"}));
+            new Object[] {"XWiki.Syntax", "Links", "fr", "2.5"})));
 
         DocumentReference chessBlogCodeWebHome =
             createDocumentReference("chess", Arrays.asList("Blog", "Code"), "WebHome", null);
@@ -99,11 +97,9 @@ public void iterateAllWikis() throws Exception
             createDocumentReference("chess", Arrays.asList("XWiki", "Syntax"), "Links", Locale.FRENCH);
 
         Query tennisQuery = mock(Query.class);
-        when(tennisQuery.setOffset(0)).thenReturn(tennisQuery);
-        when(tennisQuery.setOffset(100)).thenReturn(emptyQuery);
-        when(tennisQuery.execute()).thenReturn(Arrays.<Object> asList(
+        when(tennisQuery.scroll()).thenReturn(QueryResultIterator.of(Arrays.<Object> asList(
             new Object[] {"Main", "Welcome", "en", "2.1"},
-            new Object[] {"XWiki.Syntax", "Links", "fr", "1.3"}));
+            new Object[] {"XWiki.Syntax", "Links", "fr", "1.3"})));
 
         DocumentReference tennisMainWelcome =
             createDocumentReference("tennis", Arrays.asList("Main"), "Welcome", Locale.ENGLISH);
@@ -111,7 +107,6 @@ public void iterateAllWikis() throws Exception
             createDocumentReference("tennis", Arrays.asList("XWiki", "Syntax"), "Links", Locale.FRENCH);
 
         Query query = mock(Query.class);
-        when(query.setLimit(anyInt())).thenReturn(query);
         when(query.getNamedParameters()).thenReturn(Collections.<String, Object> emptyMap());
         when(query.setWiki("chess")).thenReturn(chessQuery);
         when(query.setWiki("tennis")).thenReturn(tennisQuery);
@@ -156,15 +151,10 @@ public void iterateOneWiki() throws Exception
     {
         DocumentReference rootReference = createDocumentReference("gang", Arrays.asList("A", "B"), "C", null);
 
-        Query emptyQuery = mock(Query.class);
-        when(emptyQuery.execute()).thenReturn(Collections.emptyList());
-
         Query query = mock(Query.class);
-        when(query.setLimit(anyInt())).thenReturn(query);
         when(query.setWiki(rootReference.getWikiReference().getName())).thenReturn(query);
-        when(query.setOffset(0)).thenReturn(query);
-        when(query.setOffset(100)).thenReturn(emptyQuery);
-        when(query.execute()).thenReturn(Collections.<Object>singletonList(new Object[] {"A.B", "C", "de", "3.1"}));
+        when(query.scroll()).thenReturn(
+            QueryResultIterator.of(Collections.<Object>singletonList(new Object[] {"A.B", "C", "de", "3.1"})));
 
         Map<String, Object> namedParameters = new HashMap<String, Object>();
         namedParameters.put("space", "A.B");
@@ -201,6 +191,82 @@ public void iterateOneWiki() throws Exception
         verify(countQuery).bindValue("name", "C");
     }
 
+    @Test
+    public void iterateModifiedSince() throws Exception
+    {
+        WikiReference rootReference = new WikiReference("gang");
+        Date modifiedSince = new Date(1525000000000L);
+
+        Query query = mock(Query.class);
+        when(query.setWiki(rootReference.getName())).thenReturn(query);
+        when(query.scroll()).thenReturn(
+            QueryResultIterator.of(Collections.<Object>singletonList(new Object[] {"A", "B", "", "2.1"})));
+        when(query.getNamedParameters()).thenReturn(Collections.<String, Object>singletonMap("since", modifiedSince));
+
+        Query countQuery = mock(Query.class);
+        when(countQuery.addFilter(mocker.<QueryFilter> getInstance(QueryFilter.class, "count"))).thenReturn(countQuery);
+
+        QueryManager queryManager = mocker.getInstance(QueryManager.class);
+        String whereClause = " where doc.date >= :since";
+        when(queryManager.createQuery("select doc.space, doc.name, doc.language, doc.version from XWikiDocument doc"
+            + whereClause + " order by doc.space, doc.name, doc.language", Query.HQL)).thenReturn(query);
+        when(queryManager.createQuery(whereClause, Query.HQL)).thenReturn(countQuery);
+
+        DocumentReference documentReference = createDocumentReference("gang", Arrays.asList("A"), "B", null);
+
+        DocumentIterator<String> iterator = mocker.getComponentUnderTest();
+        iterator.setRootReference(rootReference);
+        iterator.setModifiedSince(modifiedSince);
+
+        List<Pair<DocumentReference, String>> actualResults = new ArrayList<Pair<DocumentReference, String>>();
+        while (iterator.hasNext()) {
+            actualResults.add(iterator.next());
+        }
+
+        assertEquals(Collections.singletonList(new ImmutablePair<DocumentReference, String>(documentReference, "2.1")),
+            actualResults);
+
+        verify(query).bindValue("since", modifiedSince);
+        verify(countQuery).bindValue("since", modifiedSince);
+    }
+
+    @Test
+    public void closeBeforeTheEnd() throws Exception
+    {
+        WikiReference rootReference = new WikiReference("gang");
+
+        QueryResultIterator<Object> results = mock(QueryResultIterator.class);
+        when(results.hasNext()).thenReturn(true);
+        when(results.next()).thenReturn(new Object[] {"A", "B", "", "2.1"});
+
+        Query query = mock(Query.class);
+        when(query.setWiki(rootReference.getName())).thenReturn(query);
+        when(query.<Object>scroll()).thenReturn(results);
+        when(query.getNamedParameters()).thenReturn(Collections.<String, Object>emptyMap());
+
+        Query countQuery = mock(Query.class);
+        when(countQuery.addFilter(mocker.<QueryFilter> getInstance(QueryFilter.class, "count"))).thenReturn(countQuery);
+
+        QueryManager queryManager = mocker.getInstance(QueryManager.class);
+        when(queryManager.createQuery("select doc.space, doc.name, doc.language, doc.version from XWikiDocument doc"
+            + " order by doc.space, doc.name, doc.language", Query.HQL)).thenReturn(query);
+        when(queryManager.createQuery("", Query.HQL)).thenReturn(countQuery);
+
+        createDocumentReference("gang", Arrays.asList("A"), "B", null);
+
+        DocumentIterator<String> iterator = mocker.getComponentUnderTest();
+        iterator.setRootReference(rootReference);
+
+        assertTrue(iterator.hasNext());
+        iterator.next();
+
+        // The synchronization is stopped before the end of the results
+        iterator.close();
+
+        verify(results).close();
+        assertFalse(iterator.hasNext());
+    }
+
     private DocumentReference createDocumentReference(String wiki, List<String> spaces, String name, Locale locale)
     {
         DocumentReference documentReference = new DocumentReference(wiki, spaces, name);
@@ -24,6 +24,7 @@
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 
@@ -78,11 +79,21 @@ public void setRootReference(EntityReference rootReference)
         {
         }
 
+        @Override
+        public void setModifiedSince(Date modifiedSince)
+        {
+        }
+
         @Override
         public long size()
         {
             return size;
         }
+
+        @Override
+        public void close()
+        {
+        }
     }
 
     @Test
@@ -159,6 +170,20 @@ public void setRootReference()
         verify(next).setRootReference(rootReference);
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void close()
+    {
+        DocumentIterator<String> previous = mock(DocumentIterator.class, "previous");
+        DocumentIterator<String> next = mock(DocumentIterator.class, "next");
+        DiffDocumentIterator<String> iterator = new DiffDocumentIterator<String>(previous, next);
+
+        iterator.close();
+
+        verify(previous).close();
+        verify(next).close();
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void remove()
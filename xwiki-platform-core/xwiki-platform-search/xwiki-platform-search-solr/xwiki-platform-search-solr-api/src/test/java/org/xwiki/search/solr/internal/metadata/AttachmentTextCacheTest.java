@@ -0,0 +1,204 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal.metadata;
+
+import java.io.File;
+import java.util.Date;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.xwiki.environment.Environment;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.test.mockito.MockitoComponentMockingRule;
+
+import com.xpn.xwiki.doc.XWikiAttachment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link AttachmentTextCache}.
+ *
+ * @version $Id$
+ */
+public class AttachmentTextCacheTest
+{
+    @Rule
+    public MockitoComponentMockingRule<AttachmentTextCache> mocker =
+        new MockitoComponentMockingRule<>(AttachmentTextCache.class);
+
+    private File permanentDirectory = new File("target", "data-" + new Date().getTime());
+
+    private AttachmentTextCache cache;
+
+    private DocumentReference documentReference = new DocumentReference("wiki", "Space", "Page");
+
+    private XWikiAttachment attachment;
+
+    @Before
+    public void configure() throws Exception
+    {
+        Environment environment = this.mocker.getInstance(Environment.class);
+        when(environment.getPermanentDirectory()).thenReturn(this.permanentDirectory);
+
+        EntityReferenceSerializer<String> serializer = this.mocker.getInstance(EntityReferenceSerializer.TYPE_STRING);
+        when(serializer.serialize(any(EntityReference.class))).thenAnswer(
+            invocation -> invocation.getArgument(0).toString());
+        EntityReferenceSerializer<String> localSerializer =
+            this.mocker.getInstance(EntityReferenceSerializer.TYPE_STRING, "local");
+        when(localSerializer.serialize(any(EntityReference.class))).thenAnswer(
+            invocation -> invocation.getArgument(0).toString());
+
+        this.cache = this.mocker.getComponentUnderTest();
+
+        this.attachment = mockAttachment(this.documentReference, "file.pdf");
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        FileUtils.deleteDirectory(this.permanentDirectory);
+    }
+
+    private XWikiAttachment mockAttachment(DocumentReference documentReference, String fileName)
+    {
+        XWikiAttachment mockAttachment = mock(XWikiAttachment.class, fileName);
+        when(mockAttachment.getReference()).thenReturn(new AttachmentReference(fileName, documentReference));
+        when(mockAttachment.getVersion()).thenReturn("1.1");
+        when(mockAttachment.getDate()).thenReturn(new Date(1000));
+        when(mockAttachment.getLongSize()).thenReturn(10L);
+
+        return mockAttachment;
+    }
+
+    @Test
+    public void getWhenNotCached()
+    {
+        assertNull(this.cache.get(this.attachment, 100));
+    }
+
+    @Test
+    public void setAndGet()
+    {
+        this.cache.set(this.attachment, 100, "first line\nsecond line");
+
+        assertEquals("first line\nsecond line", this.cache.get(this.attachment, 100));
+    }
+
+    @Test
+    public void getWhenVersionChanged()
+    {
+        this.cache.set(this.attachment, 100, "text");
+
+        when(this.attachment.getVersion()).thenReturn("2.1");
+
+        assertNull(this.cache.get(this.attachment, 100));
+    }
+
+    @Test
+    public void getWhenDateChanged()
+    {
+        this.cache.set(this.attachment, 100, "text");
+
+        // Same version when the attachment is uploaded again after the document has been deleted
+        when(this.attachment.getDate()).thenReturn(new Date(2000));
+
+        assertNull(this.cache.get(this.attachment, 100));
+    }
+
+    @Test
+    public void getWhenSizeChanged()
+    {
+        this.cache.set(this.attachment, 100, "text");
+
+        when(this.attachment.getLongSize()).thenReturn(20L);
+
+        assertNull(this.cache.get(this.attachment, 100));
+    }
+
+    @Test
+    public void getWithOtherMaxLength()
+    {
+        this.cache.set(this.attachment, 100, "text");
+
+        assertNull(this.cache.get(this.attachment, 200));
+    }
+
+    @Test
+    public void setReplacesPreviousText()
+    {
+        this.cache.set(this.attachment, 100, "old text");
+
+        when(this.attachment.getVersion()).thenReturn("2.1");
+        this.cache.set(this.attachment, 100, "new text");
+
+        assertEquals("new text", this.cache.get(this.attachment, 100));
+    }
+
+    @Test
+    public void removeAttachment()
+    {
+        XWikiAttachment otherAttachment = mockAttachment(this.documentReference, "other.pdf");
+        this.cache.set(this.attachment, 100, "text");
+        this.cache.set(otherAttachment, 100, "other text");
+
+        this.cache.remove(this.attachment.getReference());
+
+        assertNull(this.cache.get(this.attachment, 100));
+        assertEquals("other text", this.cache.get(otherAttachment, 100));
+    }
+
+    @Test
+    public void removeDocument()
+    {
+        XWikiAttachment otherAttachment =
+            mockAttachment(new DocumentReference("wiki", "Space", "OtherPage"), "file.pdf");
+        this.cache.set(this.attachment, 100, "text");
+        this.cache.set(otherAttachment, 100, "other text");
+
+        this.cache.remove(this.documentReference);
+
+        assertNull(this.cache.get(this.attachment, 100));
+        assertEquals("other text", this.cache.get(otherAttachment, 100));
+    }
+
+    @Test
+    public void removeWiki()
+    {
+        XWikiAttachment otherAttachment =
+            mockAttachment(new DocumentReference("otherwiki", "Space", "Page"), "file.pdf");
+        this.cache.set(this.attachment, 100, "text");
+        this.cache.set(otherAttachment, 100, "other text");
+
+        this.cache.remove(this.documentReference.getWikiReference());
+
+        assertNull(this.cache.get(this.attachment, 100));
+        assertEquals("other text", this.cache.get(otherAttachment, 100));
+    }
+}
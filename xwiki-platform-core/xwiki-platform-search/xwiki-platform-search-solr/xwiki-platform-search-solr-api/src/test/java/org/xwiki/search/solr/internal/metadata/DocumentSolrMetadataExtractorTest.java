@@ -52,6 +52,7 @@
 import org.xwiki.rendering.renderer.BlockRenderer;
 import org.xwiki.rendering.renderer.printer.WikiPrinter;
 import org.xwiki.search.solr.internal.api.FieldUtils;
+import org.xwiki.search.solr.internal.api.SolrConfiguration;
 import org.xwiki.search.solr.internal.api.SolrFieldNameEncoder;
 import org.xwiki.search.solr.internal.api.SolrIndexerException;
 import org.xwiki.search.solr.internal.reference.SolrReferenceResolver;
@@ -78,9 +79,12 @@
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -159,6 +163,10 @@ public String answer(InvocationOnMock invocation) throws Throwable
         // Field Name Encoder
         SolrFieldNameEncoder fieldNameEncoder = this.mocker.getInstance(SolrFieldNameEncoder.class);
         when(fieldNameEncoder.encode(any())).then(AdditionalAnswers.returnsFirstArg());
+
+        // Configuration
+        SolrConfiguration configuration = this.mocker.getInstance(SolrConfiguration.class);
+        when(configuration.getIndexerAttachmentMaxTextLength()).thenReturn(100000);
     }
 
     @Test
@@ -580,6 +588,37 @@ public void getDocumentWithAttachments() throws Exception
             solrDocument.getFieldValues(FieldUtils.ATTACHMENT_AUTHOR_DISPLAY));
     }
 
+    @Test
+    public void getDocumentWithCachedAttachmentText() throws Exception
+    {
+        XWikiAttachment todo =
+            createMockAttachment("todo.txt", "text/plain", new Date(), "bar bar", "Bob", "Angry Bob");
+        when(this.document.getAttachmentList()).thenReturn(Arrays.<XWikiAttachment>asList(todo));
+
+        AttachmentTextCache cache = this.mocker.getInstance(AttachmentTextCache.class);
+        when(cache.get(todo, 100000)).thenReturn("cached text");
+
+        SolrInputDocument solrDocument =
+            this.mocker.getComponentUnderTest().getSolrDocument(this.frenchDocumentReference);
+
+        assertEquals(Arrays.asList("cached text"), solrDocument.getFieldValues("attcontent_fr"));
+        verify(todo, never()).getContentInputStream(any());
+        verify(cache, never()).set(any(), anyInt(), any());
+    }
+
+    @Test
+    public void getDocumentWithAttachmentTextToCache() throws Exception
+    {
+        XWikiAttachment todo =
+            createMockAttachment("todo.txt", "text/plain", new Date(), "bar bar", "Bob", "Angry Bob");
+        when(this.document.getAttachmentList()).thenReturn(Arrays.<XWikiAttachment>asList(todo));
+
+        this.mocker.getComponentUnderTest().getSolrDocument(this.frenchDocumentReference);
+
+        AttachmentTextCache cache = this.mocker.getInstance(AttachmentTextCache.class);
+        verify(cache).set(todo, 100000, "bar bar\n");
+    }
+
     @Test
     public void testAttachmentExtractFromTxt() throws Exception
     {
@@ -22,8 +22,12 @@
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -236,26 +240,37 @@ protected void filterResponse(QueryResponse response, List<DocumentReference> us
         SolrDocumentList results = response.getResults();
         long numFound = results.getNumFound();
 
+        // Resolve all the results first so that rights are checked at once for each user.
+        Map<SolrDocument, DocumentReference> resultReferences = new IdentityHashMap<>();
+        for (SolrDocument result : results) {
+            try {
+                resultReferences.put(result, this.solrDocumentReferenceResolver.resolve(result));
+            } catch (Exception e) {
+                this.logger.warn("Skipping bad result: {}", result, e);
+            }
+        }
+
+        Set<DocumentReference> allowedReferences = new HashSet<>(resultReferences.values());
+        for (DocumentReference user : usersToCheck) {
+            allowedReferences = new HashSet<>(this.authorization.filterAccessible(Right.VIEW, user, allowedReferences));
+        }
+
         // Since we are modifying the results collection, we need to iterate over its copy.
         for (SolrDocument result : new ArrayList<SolrDocument>(results)) {
-            try {
-                DocumentReference resultDocumentReference = this.solrDocumentReferenceResolver.resolve(result);
+            DocumentReference resultDocumentReference = resultReferences.get(result);
 
-                if (!isAllowed(resultDocumentReference, usersToCheck)) {
+            if (resultDocumentReference != null && !allowedReferences.contains(resultDocumentReference)) {
 
-                    // Remove the current incompatible result.
-                    results.remove(result);
+                // Remove the current incompatible result.
+                results.remove(result);
 
-                    // Decrement the number of results.
-                    numFound--;
+                // Decrement the number of results.
+                numFound--;
 
-                    // FIXME: We should update maxScore as well when removing the top scored item. How do we do that?
-                    // Sorting based on score might be a not so expensive option.
+                // FIXME: We should update maxScore as well when removing the top scored item. How do we do that?
+                // Sorting based on score might be a not so expensive option.
 
-                    // FIXME: What about highlighting, facets and all the other data inside the QueryResponse?
-                }
-            } catch (Exception e) {
-                this.logger.warn("Skipping bad result: {}", result, e);
+                // FIXME: What about highlighting, facets and all the other data inside the QueryResponse?
             }
         }
 
@@ -266,15 +281,4 @@ protected void filterResponse(QueryResponse response, List<DocumentReference> us
         }
         results.setNumFound(numFound);
     }
-
-    protected boolean isAllowed(DocumentReference resultDocumentReference, List<DocumentReference> usersToCheck)
-    {
-        for (DocumentReference user : usersToCheck) {
-            if (!this.authorization.hasAccess(Right.VIEW, user, resultDocumentReference)) {
-                return false;
-            }
-        }
-
-        return true;
-    }
 }
@@ -34,4 +34,14 @@
      * @return the hints to be used for looking up the authorization settler.
      */
     String getAuthorizationSettler();
+
+    /**
+     * @return the maximum number of settled access to keep in the index used to reload quickly the access evicted
+     *         from the security cache, 0 to disable the index
+     * @since 10.5RC1
+     */
+    default int getSettledAccessIndexCapacity()
+    {
+        return 0;
+    }
 }
@@ -19,6 +19,10 @@
  */
 package org.xwiki.security.authorization;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import org.xwiki.component.annotation.Role;
 import org.xwiki.model.reference.EntityReference;
 
@@ -80,4 +84,28 @@
      * @return {@code true} if the user has the specified right on the entity, {@code false} otherwise
      */
     boolean hasAccess(Right right, EntityReference entityReference);
+
+    /**
+     * Filter the provided entities, keeping only those on which access identified by {@code right} would be allowed
+     * in the current context. The result is the same as calling {@link #hasAccess(Right, EntityReference)} for each
+     * entity, but it is usually a lot faster when checking many entities (e.g. query results).
+     * This function should be used for interface matters, use {@link #checkAccess} at security checkpoints.
+     *
+     * @param <T> the type of the entity references
+     * @param right the right to check
+     * @param entityReferences the entities on which to check the right
+     * @return the entities on which access is allowed, in the same order as provided
+     * @since 10.5RC1
+     */
+    default <T extends EntityReference> List<T> filterAccessible(Right right, Collection<T> entityReferences)
+    {
+        List<T> accessibleReferences = new ArrayList<>(entityReferences.size());
+        for (T entityReference : entityReferences) {
+            if (hasAccess(right, entityReference)) {
+                accessibleReferences.add(entityReference);
+            }
+        }
+
+        return accessibleReferences;
+    }
 }
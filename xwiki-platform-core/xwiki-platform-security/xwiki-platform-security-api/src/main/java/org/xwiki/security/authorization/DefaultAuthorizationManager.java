@@ -19,6 +19,13 @@
  */
 package org.xwiki.security.authorization;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -33,6 +40,7 @@
 import org.xwiki.security.UserSecurityReference;
 import org.xwiki.security.authorization.cache.SecurityCache;
 import org.xwiki.security.authorization.cache.SecurityCacheLoader;
+import org.xwiki.security.authorization.cache.internal.SettledAccessIndex;
 import org.xwiki.security.internal.XWikiBridge;
 
 /**
@@ -57,6 +65,10 @@ public class DefaultAuthorizationManager implements AuthorizationManager
     @Inject
     private SecurityCacheLoader securityCacheLoader;
 
+    /** The access already settled, surviving cache evictions. */
+    @Inject
+    private SettledAccessIndex settledAccessIndex;
+
     /** The security reference factory. */
     @Inject
     private SecurityReferenceFactory securityReferenceFactory;
@@ -115,6 +127,46 @@ public boolean hasAccess(Right right, DocumentReference userReference, EntityRef
         }
     }
 
+    @Override
+    public <T extends EntityReference> List<T> filterAccessible(Right right, DocumentReference userReference,
+        Collection<T> entityReferences)
+    {
+        if (isSuperAdmin(userReference)) {
+            return new ArrayList<>(entityReferences);
+        }
+
+        if (right == null || right == Right.ILLEGAL || (!right.isReadOnly() && xwikiBridge.isWikiReadOnly())
+            || (userReference == null && xwikiBridge.needsAuthentication(right))) {
+            return Collections.emptyList();
+        }
+
+        UserSecurityReference user = securityReferenceFactory.newUserReference(userReference);
+
+        // Access settled on a parent entity while checking previous entities, entities sharing a parent (e.g.
+        // documents of the same space) without specific rules reuse it instead of walking the hierarchy again.
+        Map<SecurityReference, SecurityAccess> settledAccess = new HashMap<>();
+
+        List<T> accessibleReferences = new ArrayList<>(entityReferences.size());
+        for (T entityReference : entityReferences) {
+            try {
+                SecurityAccess securityAccess =
+                    getAccess(user, securityReferenceFactory.newEntityReference(entityReference), settledAccess);
+
+                RuleState access = securityAccess.get(right);
+                logAccess(access, userReference, entityReference, right, "bulk access inquiry", true);
+                if (access == RuleState.ALLOW) {
+                    accessibleReferences.add(entityReference);
+                }
+            } catch (Exception e) {
+                this.logger.error(String.format("Failed to load rights for user [%s] on [%s].",
+                    (userReference == null) ? AuthorizationException.NULL_USER : userReference,
+                    (entityReference == null) ? AuthorizationException.NULL_ENTITY : entityReference), e);
+            }
+        }
+
+        return accessibleReferences;
+    }
+
     /**
      * Verifies if the user identified by {@code userReference} has the access identified by {@code right} on the
      * entity identified by {@code entityReference}. Note that some rights may be checked higher in hierarchy of the
@@ -158,7 +210,8 @@ private boolean evaluateSecurityAccess(Right right, DocumentReference userRefere
     {
         SecurityAccess securityAccess = getAccess(
             securityReferenceFactory.newUserReference(userReference),
-            securityReferenceFactory.newEntityReference(entityReference)
+            securityReferenceFactory.newEntityReference(entityReference),
+            null
         );
 
         RuleState access = securityAccess.get(right);
@@ -178,6 +231,7 @@ public Right register(RightDescription rightDescription) throws UnableToRegister
             Right newRight = new Right(rightDescription);
             // cleanup the cache since a new right scheme enter in action
             securityCache.remove(securityReferenceFactory.newEntityReference(xwikiBridge.getMainWikiReference()));
+            settledAccessIndex.invalidateAll();
             return newRight;
         } catch (Throwable e) {
             Right right = Right.toRight(rightDescription.getName());
@@ -193,17 +247,26 @@ public Right register(RightDescription rightDescription) throws UnableToRegister
      *
      * @param user The user identity.
      * @param entity The entity.  May be of type DOCUMENT, WIKI, or SPACE.
+     * @param settledAccess The access already settled on parent entities for the same user, filled with the access
+     *            found on a parent entity, or {@code null} when not checking several entities.
      * @return the cached access entry.
      * @exception org.xwiki.security.authorization.AuthorizationException if an error occurs
      */
-    private SecurityAccess getAccess(UserSecurityReference user, SecurityReference entity)
-        throws AuthorizationException
+    private SecurityAccess getAccess(UserSecurityReference user, SecurityReference entity,
+        Map<SecurityReference, SecurityAccess> settledAccess) throws AuthorizationException
     {
         for (SecurityReference ref = entity; ref != null; ref = ref.getParentSecurityReference()) {
             if (Right.getEnabledRights(ref.getSecurityType()).isEmpty()) {
                 // Skip search on entity types that will obviously have empty/useless list of rules.
                 continue;
             }
+            if (settledAccess != null && ref != entity) {
+                // All the entities below this one have no rules, so the access is the one of this parent
+                SecurityAccess access = settledAccess.get(ref);
+                if (access != null) {
+                    return access;
+                }
+            }
             SecurityRuleEntry entry = securityCache.get(ref);
             if (entry == null) {
                 SecurityAccess access = securityCacheLoader.load(user, entity).getAccess();
@@ -225,6 +288,10 @@ private SecurityAccess getAccess(UserSecurityReference user, SecurityReference e
 
                     logger.debug("3. Got entry for user {} on {} from cache: [{}]", user, entity, access);
 
+                    if (settledAccess != null && ref != entity) {
+                        settledAccess.put(ref, access);
+                    }
+
                     return access;
                 }
             } 
@@ -27,6 +27,7 @@
 import java.util.HashSet;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.inject.Inject;
@@ -54,6 +55,10 @@
 
 /**
  * Default implementation of the security cache.
+ * <p>
+ * Modifications of the cache are serialized but reads are lock free: the underlying cache is thread safe and an entry
+ * never exposes a partially built list of parents, so a reader only sees fully linked entries (possibly in the process
+ * of being evicted, which is the same as reading them just before the eviction).
  *
  * @version $Id$
  * @since 4.0M2 
@@ -72,14 +77,8 @@ public class DefaultSecurityCache implements SecurityCache, Initializable
     @Inject
     private Logger logger;
 
-    /** Fair read-write lock used for fair scheduling of cache access. */
-    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock(true);
-
-    /** Fair read lock. */
-    private final Lock readLock = readWriteLock.readLock();
-
-    /** Fair write lock. */
-    private final Lock writeLock = readWriteLock.writeLock();
+    /** Fair lock used to serialize modifications of the cache, readers don't need it. */
+    private final Lock writeLock = new ReentrantLock(true);
 
     private final ReadWriteLock invalidationReadWriteLock = new ReentrantReadWriteLock(true);
 
@@ -135,12 +134,13 @@ private class SecurityCacheEntry implements DisposableCacheValue
         /**
          * The cached security entry.
          */
-        private SecurityEntry entry;
+        private volatile SecurityEntry entry;
 
         /**
-         * Parents of this cached entry.
+         * Parents of this cached entry. The collection is never modified once assigned so that it can be safely
+         * iterated without lock.
          */
-        private Collection<SecurityCacheEntry> parents;
+        private volatile Collection<SecurityCacheEntry> parents;
 
         /**
          * Children of this cached entry.
@@ -150,7 +150,7 @@ private class SecurityCacheEntry implements DisposableCacheValue
         /**
          * True if this entry has been removed.
          */
-        private boolean disposed;
+        private volatile boolean disposed;
 
         /**
          * Create a new cache entry for a security rule, linking it to its parent.
@@ -268,16 +268,17 @@ private SecurityCacheEntry(SecurityEntry entry, Collection<GroupSecurityReferenc
             this.entry = entry;
             int parentSize = groups.size() + ((parentReference == null) ? 0 : 1);
             if (parentSize > 0) {
-                this.parents = new ArrayList<SecurityCacheEntry>(parentSize);
+                Collection<SecurityCacheEntry> newParents = new ArrayList<SecurityCacheEntry>(parentSize);
                 if (parentReference != null) {
                     SecurityCacheEntry parent = DefaultSecurityCache.this.getEntry(parentReference);
                     if (parent == null) {
                         throw new ParentEntryEvictedException();
                     }
-                    this.parents.add(parent);
+                    newParents.add(parent);
                     parent.addChild(this);
                 }
-                addParentGroups(groups, parentReference);
+                addParentGroups(newParents, groups, parentReference);
+                this.parents = newParents;
                 logNewEntry();
             } else {
                 this.parents = null;
@@ -288,12 +289,14 @@ private SecurityCacheEntry(SecurityEntry entry, Collection<GroupSecurityReferenc
         /**
          * Add provided groups as parent of this entry, excluding the main parent reference.
          *
+         * @param newParents the collection of parents to fill.
          * @param groups the list of groups to add.
          * @param parentReference the main parent reference to exclude.
          * @throws ParentEntryEvictedException if the parents required are no more available in the cache.
          */
-        private void addParentGroups(Collection<GroupSecurityReference> groups,
-            SecurityReference parentReference) throws ParentEntryEvictedException
+        private void addParentGroups(Collection<SecurityCacheEntry> newParents,
+            Collection<GroupSecurityReference> groups, SecurityReference parentReference)
+            throws ParentEntryEvictedException
         {
             for (GroupSecurityReference group : groups) {
                 if (group.equals(parentReference)) {
@@ -306,7 +309,7 @@ private void addParentGroups(Collection<GroupSecurityReference> groups,
                 if (parent == null) {
                     throw new ParentEntryEvictedException();
                 }
-                this.parents.add(parent);
+                newParents.add(parent);
                 parent.addChild(this);
             }
         }
@@ -325,15 +328,18 @@ boolean updateParentGroups(Collection<GroupSecurityReference> groups)
             }
 
             if (groups != null && !groups.isEmpty()) {
+                // Build the new parents aside so that lock free readers never see a partial list
+                Collection<SecurityCacheEntry> newParents;
                 if (this.parents == null) {
-                    this.parents = new ArrayList<SecurityCacheEntry>(groups.size());
-                    addParentGroups(groups, null);
+                    newParents = new ArrayList<SecurityCacheEntry>(groups.size());
+                    addParentGroups(newParents, groups, null);
                 } else {
                     SecurityCacheEntry parent = this.parents.iterator().next();
-                    this.parents = new ArrayList<SecurityCacheEntry>(groups.size() + 1);
-                    this.parents.add(parent);
-                    addParentGroups(groups, parent.entry.getReference());
+                    newParents = new ArrayList<SecurityCacheEntry>(groups.size() + 1);
+                    newParents.add(parent);
+                    addParentGroups(newParents, groups, parent.entry.getReference());
                 }
+                this.parents = newParents;
             }
 
             return true;
@@ -545,12 +551,7 @@ private String getEntryKey(SecurityAccessEntry entry)
      */
     private SecurityCacheEntry getEntry(SecurityReference reference)
     {
-        readLock.lock();
-        try {
-            return cache.get(getEntryKey(reference));
-        } finally {
-            readLock.unlock();
-        }
+        return cache.get(getEntryKey(reference));
     }
 
     /**
@@ -561,12 +562,7 @@ private SecurityCacheEntry getEntry(SecurityReference reference)
      */
     private SecurityCacheEntry getEntry(UserSecurityReference userReference, SecurityReference reference)
     {
-        readLock.lock();
-        try {
-            return cache.get(getEntryKey(userReference, reference));
-        } finally {
-            readLock.unlock();
-        }
+        return cache.get(getEntryKey(userReference, reference));
     }
 
     /**
@@ -577,12 +573,7 @@ private SecurityCacheEntry getEntry(UserSecurityReference userReference, Securit
      */
     private SecurityCacheEntry getShadowEntry(SecurityReference userReference, SecurityReference wiki)
     {
-        readLock.lock();
-        try {
-            return cache.get(getShadowEntryKey(userReference, wiki));
-        } finally {
-            readLock.unlock();
-        }
+        return cache.get(getShadowEntryKey(userReference, wiki));
     }
 
     /**
@@ -930,6 +921,12 @@ private void addParentsWhenEntryIsShadow(SecurityCacheEntry shadow, UserSecurity
     {
         SecurityCacheEntry originalEntry = getEntry(user);
 
+        // The original entry is evicted before its shadows, but without lock it might disappear in the meantime
+        if (originalEntry == null) {
+            addParentsToTheListOfEntriesToExplore(shadow.parents, groups, entriesToExplore);
+            return;
+        }
+
         // We add the parents of the original (but not the original, otherwise we could have the same group twice)
         addParentsToTheListOfEntriesToExplore(originalEntry.parents, groups, entriesToExplore);
         // And we add the parent groups of the shadow
@@ -34,12 +34,14 @@
 
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.model.EntityType;
 import org.xwiki.security.GroupSecurityReference;
 import org.xwiki.security.SecurityReference;
 import org.xwiki.security.UserSecurityReference;
 import org.xwiki.security.authorization.AuthorizationException;
 import org.xwiki.security.authorization.AuthorizationSettler;
 import org.xwiki.security.authorization.Right;
+import org.xwiki.security.authorization.SecurityAccess;
 import org.xwiki.security.authorization.SecurityAccessEntry;
 import org.xwiki.security.authorization.SecurityEntryReader;
 import org.xwiki.security.authorization.SecurityRule;
@@ -48,6 +50,7 @@
 import org.xwiki.security.authorization.cache.ParentEntryEvictedException;
 import org.xwiki.security.authorization.cache.SecurityCacheLoader;
 import org.xwiki.security.authorization.cache.SecurityCacheRulesInvalidator;
+import org.xwiki.security.authorization.internal.AbstractSecurityAccessEntry;
 import org.xwiki.security.authorization.internal.AbstractSecurityRuleEntry;
 import org.xwiki.security.internal.UserBridge;
 
@@ -93,6 +96,10 @@ public class DefaultSecurityCacheLoader implements SecurityCacheLoader
     @Inject
     private Provider<AuthorizationSettler> authorizationSettlerProvider;
 
+    /** Access already settled, surviving the eviction of the cache entries. */
+    @Inject
+    private SettledAccessIndex settledAccessIndex;
+
     /**
      * Implementation of the SecurityRuleEntry.
      */
@@ -134,6 +141,49 @@ public boolean isEmpty()
         }
     }
 
+    /**
+     * Access entry reloaded from the {@link SettledAccessIndex}.
+     */
+    private static final class IndexedSecurityAccessEntry extends AbstractSecurityAccessEntry
+    {
+        private final UserSecurityReference userReference;
+
+        private final SecurityReference reference;
+
+        private final SecurityAccess access;
+
+        /**
+         * @param user the user reference
+         * @param reference the entity reference
+         * @param access the access
+         */
+        private IndexedSecurityAccessEntry(UserSecurityReference user, SecurityReference reference,
+            SecurityAccess access)
+        {
+            this.userReference = user;
+            this.reference = reference;
+            this.access = access;
+        }
+
+        @Override
+        public UserSecurityReference getUserReference()
+        {
+            return this.userReference;
+        }
+
+        @Override
+        public SecurityReference getReference()
+        {
+            return this.reference;
+        }
+
+        @Override
+        public SecurityAccess getAccess()
+        {
+            return this.access;
+        }
+    }
+
     @Override
     public SecurityAccessEntry load(UserSecurityReference user, SecurityReference entity)
         throws AuthorizationException
@@ -189,11 +239,46 @@ private SecurityAccessEntry loadRequiredEntries(UserSecurityReference user, Secu
                 loadUserEntry(user, user.getWikiReference(), null), null);
         }
 
+        // Remember the state of the index before loading any entry, so that an access settled from entries
+        // invalidated in the meantime is not indexed
+        long generation = this.settledAccessIndex.getGeneration();
+
         // Retrieve rules for the entity from the cache
         Deque<SecurityRuleEntry> ruleEntries = getRules(entity);
 
+        // The access might have already been settled on the same rules before being evicted from the cache, in which
+        // case there is no need to load the user and its groups again. It is not put back into the cache since it
+        // would require the user entry.
+        SecurityReference settledReference = getSettledReference(ruleEntries);
+        SecurityAccess indexedAccess = this.settledAccessIndex.get(user, settledReference);
+        if (indexedAccess != null) {
+            return new IndexedSecurityAccessEntry(user, settledReference, indexedAccess);
+        }
+
         // Evaluate, store and return the access right
-        return loadAccessEntries(user, entity, ruleEntries);
+        SecurityAccessEntry accessEntry = loadAccessEntries(user, entity, ruleEntries);
+
+        if (settledReference != null && settledReference.equals(accessEntry.getReference())) {
+            this.settledAccessIndex.put(user, settledReference, accessEntry.getAccess(), generation);
+        }
+
+        return accessEntry;
+    }
+
+    /**
+     * @param ruleEntries the rule entries of the entity hierarchy, starting from the entity
+     * @return the reference of the lowest entity holding rules, or the wiki when there is none, which is where the
+     *         settler stores the resulting access
+     */
+    private SecurityReference getSettledReference(Deque<SecurityRuleEntry> ruleEntries)
+    {
+        for (SecurityRuleEntry entry : ruleEntries) {
+            if (!entry.isEmpty() || entry.getReference().getType() == EntityType.WIKI) {
+                return entry.getReference();
+            }
+        }
+
+        return null;
     }
 
     /**
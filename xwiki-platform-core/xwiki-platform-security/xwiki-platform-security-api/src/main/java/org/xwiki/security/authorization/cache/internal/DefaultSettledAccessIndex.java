@@ -0,0 +1,180 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.security.authorization.cache.internal;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.security.SecurityReference;
+import org.xwiki.security.UserSecurityReference;
+import org.xwiki.security.authorization.AuthorizationManagerConfiguration;
+import org.xwiki.security.authorization.SecurityAccess;
+
+/**
+ * Default implementation of the {@link SettledAccessIndex}, entries are grouped by entity so that invalidating an
+ * entity does not require to look at all the users. When the capacity is reached, the entities which have been used
+ * the least recently are evicted.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+@Component
+@Singleton
+public class DefaultSettledAccessIndex implements SettledAccessIndex, Initializable
+{
+    /**
+     * The share of the capacity (1 / {@value}) which is freed when the capacity is reached, so that the eviction is
+     * not done again for each new entry.
+     */
+    private static final int EVICTION_SHARE = 10;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final float LOAD_FACTOR = 0.75F;
+
+    @Inject
+    private AuthorizationManagerConfiguration configuration;
+
+    @Inject
+    private Logger logger;
+
+    /** Access ordered map, the least recently used entity comes first. */
+    private final Map<SecurityReference, Map<UserSecurityReference, SecurityAccess>> index =
+        new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+
+    /** Number of entries in the index. */
+    private int size;
+
+    private long generation;
+
+    private int capacity;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        this.capacity = this.configuration.getSettledAccessIndexCapacity();
+    }
+
+    @Override
+    public synchronized SecurityAccess get(UserSecurityReference user, SecurityReference reference)
+    {
+        if (this.capacity <= 0 || reference == null) {
+            return null;
+        }
+
+        Map<UserSecurityReference, SecurityAccess> accesses = this.index.get(reference);
+
+        return accesses != null ? accesses.get(user) : null;
+    }
+
+    @Override
+    public synchronized long getGeneration()
+    {
+        return this.generation;
+    }
+
+    @Override
+    public synchronized void put(UserSecurityReference user, SecurityReference reference, SecurityAccess access,
+        long generation)
+    {
+        if (this.capacity <= 0 || reference == null || generation != this.generation) {
+            return;
+        }
+
+        if (this.index.computeIfAbsent(reference, k -> new HashMap<>()).put(user, access) == null) {
+            this.size++;
+
+            if (this.size > this.capacity) {
+                evict();
+            }
+        }
+    }
+
+    /**
+     * Evict the least recently used entities until a share of the capacity is free again.
+     */
+    private void evict()
+    {
+        int targetSize = this.capacity - Math.max(1, this.capacity / EVICTION_SHARE);
+
+        this.logger.debug("The settled access index reached its capacity of [{}] entries, evicting down to [{}].",
+            this.capacity, targetSize);
+
+        for (Iterator<Map<UserSecurityReference, SecurityAccess>> it = this.index.values().iterator();
+            it.hasNext() && this.size > targetSize;) {
+            this.size -= it.next().size();
+            it.remove();
+        }
+    }
+
+    @Override
+    public synchronized void invalidate(SecurityReference reference)
+    {
+        if (this.capacity <= 0 || reference == null) {
+            return;
+        }
+
+        this.generation++;
+
+        for (Iterator<Map.Entry<SecurityReference, Map<UserSecurityReference, SecurityAccess>>> it =
+            this.index.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<SecurityReference, Map<UserSecurityReference, SecurityAccess>> entry = it.next();
+            if (isAffected(entry.getKey(), reference)) {
+                it.remove();
+                this.size -= entry.getValue().size();
+            }
+        }
+    }
+
+    /**
+     * @param entity an entity of the index
+     * @param reference the invalidated entity
+     * @return {@code true} if the passed entity is the invalidated entity or one of its security descendants (which
+     *         includes the subwikis when the main wiki is invalidated)
+     */
+    private boolean isAffected(SecurityReference entity, SecurityReference reference)
+    {
+        for (SecurityReference current = entity; current != null; current = current.getParentSecurityReference()) {
+            if (current.equals(reference)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public synchronized void invalidateAll()
+    {
+        this.generation++;
+
+        this.index.clear();
+        this.size = 0;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.security.authorization.cache.internal;
+
+import org.xwiki.component.annotation.Role;
+import org.xwiki.security.SecurityReference;
+import org.xwiki.security.UserSecurityReference;
+import org.xwiki.security.authorization.SecurityAccess;
+
+/**
+ * Index of the access settled for users and groups on the entities holding security rules. Unlike the
+ * {@link SecurityCache}, it does not need the users, groups and rules entries to be kept, so it can hold a lot more
+ * entries and an access evicted from the security cache can be reloaded without resolving again the groups of the
+ * user and settling the rules.
+ * <p>
+ * The reference of an entry is the lowest entity holding rules in the hierarchy of the checked entity (or its wiki
+ * when there is no rules at all), so the access apply to any entity below it without rules.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+@Role
+public interface SettledAccessIndex
+{
+    /**
+     * @param user the user or group
+     * @param reference the entity holding the rules on which the access has been settled
+     * @return the indexed access, or {@code null} if not indexed
+     */
+    SecurityAccess get(UserSecurityReference user, SecurityReference reference);
+
+    /**
+     * @return the current generation of the index, which changes each time entries are invalidated
+     */
+    long getGeneration();
+
+    /**
+     * Index the access settled for a user or group on an entity. The access is ignored when the index has been
+     * invalidated since the passed generation, since it might have been settled from entries (user, groups, rules)
+     * which were invalidated meanwhile.
+     *
+     * @param user the user or group
+     * @param reference the entity holding the rules on which the access has been settled
+     * @param access the settled access
+     * @param generation the {@link #getGeneration() generation} of the index before loading the entries from which the
+     *            access has been settled
+     */
+    void put(UserSecurityReference user, SecurityReference reference, SecurityAccess access, long generation);
+
+    /**
+     * Remove the access settled on an entity and all the entities below it.
+     *
+     * @param reference the entity which rules has been modified
+     */
+    void invalidate(SecurityReference reference);
+
+    /**
+     * Remove all the indexed access, for example when group memberships are modified.
+     */
+    void invalidateAll();
+}
@@ -45,6 +45,9 @@ public class DefaultAuthorizationManagerConfiguration extends AbstractSecurityCo
     /** Prefix for right resolver configuration keys. */
     private static final String SETTLER = AUTHORIZATION + ".settler";
 
+    /** Capacity of the settled access index configuration key. */
+    private static final String SETTLED_ACCESS_INDEX_CAPACITY = AUTHORIZATION + ".settledAccessIndex.capacity";
+
     /** Default hint for component manager. */
     private static final String DEFAULT_SETTLER = "default";
 
@@ -58,4 +61,10 @@ public String getAuthorizationSettler()
     {
         return configuration.getProperty(SETTLER, DEFAULT_SETTLER);
     }
+
+    @Override
+    public int getSettledAccessIndexCapacity()
+    {
+        return configuration.getProperty(SETTLED_ACCESS_INDEX_CAPACITY, 0);
+    }
 }
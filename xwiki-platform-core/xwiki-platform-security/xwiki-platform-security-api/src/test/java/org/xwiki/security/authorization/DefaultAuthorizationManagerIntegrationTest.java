@@ -21,8 +21,10 @@
 package org.xwiki.security.authorization;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -49,6 +51,8 @@
 import org.xwiki.security.authorization.cache.SecurityCacheRulesInvalidator;
 import org.xwiki.security.authorization.cache.internal.DefaultSecurityCache;
 import org.xwiki.security.authorization.cache.internal.DefaultSecurityCacheLoader;
+import org.xwiki.security.authorization.cache.internal.DefaultSettledAccessIndex;
+import org.xwiki.security.authorization.cache.internal.SettledAccessIndex;
 import org.xwiki.security.authorization.cache.internal.TestCache;
 import org.xwiki.security.authorization.internal.AbstractSecurityRuleEntry;
 import org.xwiki.security.authorization.internal.DefaultAuthorizationSettler;
@@ -66,13 +70,18 @@
 import org.xwiki.test.annotation.BeforeComponent;
 import org.xwiki.test.annotation.ComponentList;
 
+import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.xwiki.security.authorization.Right.ADMIN;
 import static org.xwiki.security.authorization.Right.COMMENT;
@@ -101,6 +110,7 @@
     AuthorizationManagerConfiguration.class,
     DefaultSecurityReferenceFactory.class,
     DefaultSecurityCacheLoader.class,
+    DefaultSettledAccessIndex.class,
     DefaultAuthorizationSettler.class,
     DefaultAuthorizationManager.class,
     DefaultSymbolScheme.class
@@ -140,6 +150,10 @@ public void initializeMocks() throws Exception {
         userBridge = componentManager.registerMockComponent(UserBridge.class);
         securityEntryReader = componentManager.registerMockComponent(SecurityEntryReader.class);
         securityCacheRulesInvalidator = componentManager.registerMockComponent(SecurityCacheRulesInvalidator.class);
+
+        AuthorizationManagerConfiguration configuration =
+            componentManager.registerMockComponent(AuthorizationManagerConfiguration.class);
+        when(configuration.getSettledAccessIndexCapacity()).thenReturn(1000);
     }
 
     @Before
@@ -471,6 +485,78 @@ public void testInheritancePolicyForGlobalFullWikiAccess() throws Exception
         assertAccess(ALL_RIGHTS_EXCEPT_PROGRAMING_AND_CREATE_WIKI, getXUser("userA"), getDoc("docDenyA",     "any space",  "wikiAllowA"));
     }
 
+    @Test
+    public void testFilterAccessible() throws Exception
+    {
+        initialiseWikiMock("inheritancePolicyForGlobalFullWikiAccess");
+
+        List<EntityReference> entities = Arrays.asList(
+            getXDoc("any document", "any space"),
+            getXDoc("any document", "spaceAllowA"),
+            getXDoc("docDenyA", "spaceAllowA"),
+            getXDoc("docAllowA", "any space"),
+            getDoc("any document", "spaceAllowA", "wikiNoRules"),
+            getDoc("any document", "any space", "wikiAllowA"));
+
+        List<EntityReference> expected = Arrays.asList(entities.get(1), entities.get(2), entities.get(3),
+            entities.get(4), entities.get(5));
+
+        // Cold cache
+        assertThat(authorizationManager.filterAccessible(VIEW, getXUser("userA"), entities), equalTo(expected));
+
+        // Access settled on the spaces is reused for their documents
+        authorizationManager.hasAccess(VIEW, getXUser("userA"), getXSpace("spaceAllowA"));
+        authorizationManager.hasAccess(VIEW, getXUser("userA"), getXSpace("any space"));
+        List<EntityReference> moreEntities = new ArrayList<>(entities);
+        moreEntities.add(getXDoc("another document", "spaceAllowA"));
+        moreEntities.add(getXDoc("another document", "any space"));
+        List<EntityReference> moreExpected = new ArrayList<>(expected);
+        moreExpected.add(getXDoc("another document", "spaceAllowA"));
+        assertThat(authorizationManager.filterAccessible(VIEW, getXUser("userA"), moreEntities),
+            equalTo(moreExpected));
+
+        // Same result as individual checks for every right
+        for (Right right : values()) {
+            List<EntityReference> accessible = new ArrayList<>();
+            for (EntityReference entity : moreEntities) {
+                if (authorizationManager.hasAccess(right, getXUser("userA"), entity)) {
+                    accessible.add(entity);
+                }
+            }
+            assertThat(right.getName(), authorizationManager.filterAccessible(right, getXUser("userA"), moreEntities),
+                equalTo(accessible));
+        }
+
+        assertThat(authorizationManager.filterAccessible(VIEW, SUPERADMIN, entities), equalTo(entities));
+        assertThat(authorizationManager.filterAccessible(ILLEGAL, getXUser("userA"), entities).isEmpty(),
+            equalTo(true));
+    }
+
+    @Test
+    public void testSettledAccessReloadedFromIndex() throws Exception
+    {
+        initialiseWikiMock("inheritancePolicyForGlobalFullWikiAccess");
+
+        assertAccess(ALL_SPACE_RIGHTS, getXUser("userA"), getXDoc("any document", "spaceAllowA"));
+
+        // Dropping the user from the cache also drops its access entries
+        SecurityCache securityCache = componentManager.getInstance(SecurityCache.class);
+        securityCache.remove(securityReferenceFactory.newUserReference(getXUser("userA")));
+        clearInvocations(userBridge);
+
+        // The access settled on the space is reused without loading the user groups again
+        assertAccess(ALL_SPACE_RIGHTS, getXUser("userA"), getXDoc("any document", "spaceAllowA"));
+        assertAccess(ALL_SPACE_RIGHTS, getXUser("userA"), getXDoc("another document", "spaceAllowA"));
+        verify(userBridge, never()).getAllGroupsFor(any(UserSecurityReference.class), any(WikiReference.class));
+
+        // Once the space rules are invalidated, the access is settled again
+        componentManager.<SettledAccessIndex>getInstance(SettledAccessIndex.class)
+            .invalidate(securityReferenceFactory.newEntityReference(getXSpace("spaceAllowA")));
+        assertAccess(ALL_SPACE_RIGHTS, getXUser("userA"), getXDoc("any document", "spaceAllowA"));
+        verify(userBridge, atLeastOnce()).getAllGroupsFor(any(UserSecurityReference.class),
+            any(WikiReference.class));
+    }
+
     @Test
     public void testInheritancePolicyForLocalWikiAccess() throws Exception
     {
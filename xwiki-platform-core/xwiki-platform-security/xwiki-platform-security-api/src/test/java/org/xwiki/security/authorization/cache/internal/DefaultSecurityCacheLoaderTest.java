@@ -38,7 +38,9 @@
 import org.xwiki.security.SecurityReferenceFactory;
 import org.xwiki.security.UserSecurityReference;
 import org.xwiki.security.authorization.AuthorizationException;
+import org.xwiki.security.authorization.AuthorizationManagerConfiguration;
 import org.xwiki.security.authorization.AuthorizationSettler;
+import org.xwiki.security.authorization.SecurityAccess;
 import org.xwiki.security.authorization.SecurityAccessEntry;
 import org.xwiki.security.authorization.SecurityEntryReader;
 import org.xwiki.security.authorization.SecurityRuleEntry;
@@ -52,6 +54,8 @@
 import org.xwiki.test.mockito.MockitoComponentManagerRule;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.doThrow;
@@ -63,7 +67,8 @@
  * 
  * @version $Id$
  */
-@ComponentList({DefaultSecurityCacheLoader.class, DefaultSecurityReferenceFactory.class})
+@ComponentList({DefaultSecurityCacheLoader.class, DefaultSecurityReferenceFactory.class,
+    DefaultSettledAccessIndex.class})
 public class DefaultSecurityCacheLoaderTest
 {
     @Rule
@@ -88,6 +93,9 @@ public void setUp() throws Exception
         mocker.registerMockComponent(SecurityEntryReader.class);
         mocker.registerMockComponent(UserBridge.class);
         mocker.registerMockComponent(AuthorizationSettler.class);
+        AuthorizationManagerConfiguration configuration =
+            mocker.registerMockComponent(AuthorizationManagerConfiguration.class);
+        when(configuration.getSettledAccessIndexCapacity()).thenReturn(100);
         securityCacheLoader = mocker.getInstance(SecurityCacheLoader.class);
     }
 
@@ -147,4 +155,62 @@ public void loadWithConflictingInsertionException() throws Exception
         assertEquals(1, this.logRule.size());
         assertEquals("Failed to load the cache in 5 attempts. Giving up.", this.logRule.getMessage(0));
     }
+
+    @Test
+    public void accessSettledDuringGroupUpdateIsNotIndexed() throws Exception
+    {
+        DocumentReference userReference = new DocumentReference("wiki", "Users", "mflorea");
+        UserSecurityReference user = securityReferenceFactory.newUserReference(userReference);
+
+        DocumentReference documentReference = new DocumentReference("wiki", "Space", "Document");
+        SecurityReference entity = securityReferenceFactory.newEntityReference(documentReference);
+        SecurityReference wiki = entity.getWikiReference();
+
+        SecurityRuleEntry documentEntry = mock(SecurityRuleEntry.class, "document");
+        when(documentEntry.getReference()).thenReturn(entity);
+        when(documentEntry.isEmpty()).thenReturn(true);
+
+        SecurityRuleEntry spaceEntry = mock(SecurityRuleEntry.class, "space");
+        when(spaceEntry.getReference()).thenReturn(entity.getParentSecurityReference());
+        when(spaceEntry.isEmpty()).thenReturn(true);
+
+        SecurityRuleEntry wikiEntry = mock(SecurityRuleEntry.class, "wiki");
+        when(wikiEntry.getReference()).thenReturn(wiki);
+        when(wikiEntry.isEmpty()).thenReturn(true);
+
+        SecurityCache securityCache = mocker.getInstance(SecurityCache.class);
+        when(securityCache.get(entity)).thenReturn(documentEntry);
+        when(securityCache.get(entity.getParentSecurityReference())).thenReturn(spaceEntry);
+        when(securityCache.get(wiki)).thenReturn(wikiEntry);
+
+        SettledAccessIndex settledAccessIndex = mocker.getInstance(SettledAccessIndex.class);
+
+        // The group memberships are modified while the groups of the user are loaded
+        UserBridge userBridge = mocker.getInstance(UserBridge.class);
+        DocumentReference groupReference = new DocumentReference("wiki", "Groups", "AllGroup");
+        Set<GroupSecurityReference> groups =
+            Collections.singleton(securityReferenceFactory.newGroupReference(groupReference));
+        when(userBridge.getAllGroupsFor(user, userReference.getWikiReference())).thenAnswer(invocation -> {
+            settledAccessIndex.invalidateAll();
+            return groups;
+        }).thenReturn(groups);
+
+        SecurityAccess access = mock(SecurityAccess.class);
+        SecurityAccessEntry securityAccessEntry = mock(SecurityAccessEntry.class);
+        when(securityAccessEntry.getReference()).thenReturn(wiki);
+        when(securityAccessEntry.getAccess()).thenReturn(access);
+
+        AuthorizationSettler authorizationSettler = mocker.getInstance(AuthorizationSettler.class);
+        Deque<SecurityRuleEntry> securityRuleEntries =
+            new LinkedList<SecurityRuleEntry>(Arrays.asList(documentEntry, spaceEntry, wikiEntry));
+        when(authorizationSettler.settle(user, groups, securityRuleEntries)).thenReturn(securityAccessEntry);
+
+        // The access might have been settled from the previous groups of the user
+        assertSame(securityAccessEntry, securityCacheLoader.load(user, entity));
+        assertNull(settledAccessIndex.get(user, wiki));
+
+        // Without concurrent modification, the access is indexed
+        assertSame(securityAccessEntry, securityCacheLoader.load(user, entity));
+        assertSame(access, settledAccessIndex.get(user, wiki));
+    }
 }
@@ -26,6 +26,10 @@
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -809,4 +813,64 @@ public boolean keepAccess(SecurityAccessEntry entry) {
             }
         });
     }
+
+    @Test
+    public void testConcurrentReadsWhileWriting() throws Exception
+    {
+        // Fill the cache
+        InsertUsers();
+        InsertEntities();
+
+        // Mocks are prepared upfront since stubbing is not thread safe
+        final List<SecurityRuleEntry> docEntries = new ArrayList<SecurityRuleEntry>();
+        for (int i = 0; i < 10; i++) {
+            docEntries.add(mockSecurityRuleEntry(docRef));
+        }
+        final SecurityEntry spaceEntry = securityCache.get(spaceRef);
+
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+
+            futures.add(executor.submit(new Callable<Void>()
+            {
+                @Override
+                public Void call() throws Exception
+                {
+                    for (int i = 0; i < 1000; i++) {
+                        securityCache.remove(docRef);
+                        securityCache.add(docEntries.get(i % docEntries.size()));
+                    }
+                    return null;
+                }
+            }));
+
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws Exception
+                    {
+                        for (int i = 0; i < 1000; i++) {
+                            SecurityEntry entry = securityCache.get(docRef);
+                            if (entry != null) {
+                                assertThat(docEntries.contains(entry), is(true));
+                            }
+                            assertThat(securityCache.get(spaceRef), sameInstance(spaceEntry));
+                            assertThat(securityCache.get(aMissingEntityRef), nullValue());
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(docEntries.contains(securityCache.get(docRef)), is(true));
+    }
 }
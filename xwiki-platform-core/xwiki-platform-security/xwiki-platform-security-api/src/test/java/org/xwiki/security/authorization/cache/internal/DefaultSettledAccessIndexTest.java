@@ -0,0 +1,184 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.security.authorization.cache.internal;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.SpaceReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.security.DefaultSecurityReferenceFactory;
+import org.xwiki.security.SecurityReference;
+import org.xwiki.security.SecurityReferenceFactory;
+import org.xwiki.security.UserSecurityReference;
+import org.xwiki.security.authorization.AuthorizationManagerConfiguration;
+import org.xwiki.security.authorization.SecurityAccess;
+import org.xwiki.security.internal.XWikiBridge;
+import org.xwiki.test.mockito.MockitoComponentMockingRule;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DefaultSettledAccessIndex}.
+ *
+ * @version $Id$
+ */
+public class DefaultSettledAccessIndexTest
+{
+    @Rule
+    public MockitoComponentMockingRule<SettledAccessIndex> mocker =
+        new MockitoComponentMockingRule<>(DefaultSettledAccessIndex.class);
+
+    @Rule
+    public MockitoComponentMockingRule<SecurityReferenceFactory> factoryMocker =
+        new MockitoComponentMockingRule<>(DefaultSecurityReferenceFactory.class);
+
+    private SecurityReferenceFactory factory;
+
+    private UserSecurityReference user;
+
+    private SecurityReference wiki;
+
+    private SecurityReference space;
+
+    private SecurityReference nestedSpace;
+
+    private SecurityReference otherSpace;
+
+    private SecurityReference mainWiki;
+
+    private SecurityReference subwikiDocument;
+
+    @Before
+    public void configure() throws Exception
+    {
+        AuthorizationManagerConfiguration configuration =
+            this.mocker.getInstance(AuthorizationManagerConfiguration.class);
+        when(configuration.getSettledAccessIndexCapacity()).thenReturn(3);
+
+        XWikiBridge xwikiBridge = this.factoryMocker.getInstance(XWikiBridge.class);
+        when(xwikiBridge.getMainWikiReference()).thenReturn(new WikiReference("xwiki"));
+        this.factory = this.factoryMocker.getComponentUnderTest();
+
+        this.user = this.factory.newUserReference(new DocumentReference("xwiki", "XWiki", "user"));
+        WikiReference wikiReference = new WikiReference("wiki");
+        SpaceReference spaceReference = new SpaceReference("space", wikiReference);
+        this.wiki = this.factory.newEntityReference(wikiReference);
+        this.space = this.factory.newEntityReference(spaceReference);
+        this.nestedSpace = this.factory.newEntityReference(new SpaceReference("nested", spaceReference));
+        this.otherSpace = this.factory.newEntityReference(new SpaceReference("other", wikiReference));
+        this.mainWiki = this.factory.newEntityReference(new WikiReference("xwiki"));
+        this.subwikiDocument = this.factory.newEntityReference(new DocumentReference("wiki", "space", "page"));
+    }
+
+    @Test
+    public void invalidateEntityAndDescendants() throws Exception
+    {
+        SettledAccessIndex index = this.mocker.getComponentUnderTest();
+
+        SecurityAccess spaceAccess = mock(SecurityAccess.class, "space");
+        SecurityAccess nestedAccess = mock(SecurityAccess.class, "nested");
+        SecurityAccess otherAccess = mock(SecurityAccess.class, "other");
+        index.put(this.user, this.space, spaceAccess, index.getGeneration());
+        index.put(this.user, this.nestedSpace, nestedAccess, index.getGeneration());
+        index.put(this.user, this.otherSpace, otherAccess, index.getGeneration());
+
+        assertSame(spaceAccess, index.get(this.user, this.space));
+        assertSame(nestedAccess, index.get(this.user, this.nestedSpace));
+
+        index.invalidate(this.space);
+
+        assertNull(index.get(this.user, this.space));
+        assertNull(index.get(this.user, this.nestedSpace));
+        assertSame(otherAccess, index.get(this.user, this.otherSpace));
+
+        index.invalidate(this.wiki);
+
+        assertNull(index.get(this.user, this.otherSpace));
+    }
+
+    @Test
+    public void invalidateMainWikiInvalidatesSubwikis() throws Exception
+    {
+        SettledAccessIndex index = this.mocker.getComponentUnderTest();
+
+        // Simulate a global right revoked in the main wiki preferences
+        SecurityAccess access = mock(SecurityAccess.class);
+        index.put(this.user, this.subwikiDocument, access, index.getGeneration());
+
+        assertSame(access, index.get(this.user, this.subwikiDocument));
+
+        index.invalidate(this.mainWiki);
+
+        assertNull(index.get(this.user, this.subwikiDocument));
+    }
+
+    @Test
+    public void leastRecentlyUsedEvictedWhenFull() throws Exception
+    {
+        SettledAccessIndex index = this.mocker.getComponentUnderTest();
+
+        SecurityAccess access = mock(SecurityAccess.class);
+        index.put(this.user, this.wiki, access, index.getGeneration());
+        index.put(this.user, this.space, access, index.getGeneration());
+        index.put(this.user, this.nestedSpace, access, index.getGeneration());
+
+        // Use the wiki entry so that it's not the least recently used anymore
+        assertSame(access, index.get(this.user, this.wiki));
+
+        index.put(this.user, this.otherSpace, access, index.getGeneration());
+
+        // Only the least recently used entries are evicted
+        assertNull(index.get(this.user, this.space));
+        assertNull(index.get(this.user, this.nestedSpace));
+        assertSame(access, index.get(this.user, this.wiki));
+        assertSame(access, index.get(this.user, this.otherSpace));
+    }
+
+    @Test
+    public void accessSettledBeforeInvalidationIsIgnored() throws Exception
+    {
+        SettledAccessIndex index = this.mocker.getComponentUnderTest();
+
+        SecurityAccess access = mock(SecurityAccess.class);
+
+        // Simulate a group update while the access is being settled
+        long generation = index.getGeneration();
+        index.invalidateAll();
+        index.put(this.user, this.space, access, generation);
+
+        assertNull(index.get(this.user, this.space));
+
+        // Same with the rules of an unrelated entity
+        generation = index.getGeneration();
+        index.invalidate(this.otherSpace);
+        index.put(this.user, this.space, access, generation);
+
+        assertNull(index.get(this.user, this.space));
+
+        index.put(this.user, this.space, access, index.getGeneration());
+
+        assertSame(access, index.get(this.user, this.space));
+    }
+}
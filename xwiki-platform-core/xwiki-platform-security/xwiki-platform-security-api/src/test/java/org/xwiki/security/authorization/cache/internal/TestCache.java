@@ -20,8 +20,8 @@
 
 package org.xwiki.security.authorization.cache.internal;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.xwiki.cache.Cache;
 import org.xwiki.cache.CacheEntry;
@@ -43,9 +43,9 @@
  */
 public class TestCache<T> implements Cache<T>
 {
-    private Map<String, T> cache = new HashMap<String, T>();
-    private CacheEntryListener<T> listener;
-    private String lastInsertedKey;
+    private Map<String, T> cache = new ConcurrentHashMap<String, T>();
+    private volatile CacheEntryListener<T> listener;
+    private volatile String lastInsertedKey;
 
     class TestCacheEntry implements CacheEntry<T>
     {
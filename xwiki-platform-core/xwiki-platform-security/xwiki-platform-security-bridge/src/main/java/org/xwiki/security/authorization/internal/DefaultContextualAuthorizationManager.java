@@ -19,8 +19,12 @@
  */
 package org.xwiki.security.authorization.internal;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -136,6 +140,38 @@ private boolean hasAccess(Right right, DocumentReference user, EntityReference e
         return checkPreAccess(right) && this.authorizationManager.hasAccess(right, user, getFullReference(entity));
     }
 
+    @Override
+    public <T extends EntityReference> List<T> filterAccessible(Right right, Collection<T> entityReferences)
+    {
+        List<T> accessibleReferences = new ArrayList<>(entityReferences.size());
+
+        if (CONTENT_AUTHOR_RIGHTS.contains(right)) {
+            // The user depends on each entity (its content author)
+            for (T entityReference : entityReferences) {
+                if (hasAccess(right, entityReference)) {
+                    accessibleReferences.add(entityReference);
+                }
+            }
+        } else {
+            List<EntityReference> fullReferences = new ArrayList<>(entityReferences.size());
+            for (T entityReference : entityReferences) {
+                fullReferences.add(getFullReference(entityReference));
+            }
+
+            Set<EntityReference> accessibleFullReferences = new HashSet<>(this.authorizationManager.filterAccessible(
+                right, this.xcontextProvider.get().getUserReference(), new LinkedHashSet<>(fullReferences)));
+
+            int index = 0;
+            for (T entityReference : entityReferences) {
+                if (accessibleFullReferences.contains(fullReferences.get(index++))) {
+                    accessibleReferences.add(entityReference);
+                }
+            }
+        }
+
+        return accessibleReferences;
+    }
+
     private EntityReference getFullReference(EntityReference reference)
     {
         return reference != null ? this.resolver.resolve(reference, reference.getType()) : null;
@@ -40,9 +40,11 @@
 import org.xwiki.model.reference.WikiReference;
 import org.xwiki.observation.EventListener;
 import org.xwiki.observation.event.Event;
+import org.xwiki.security.SecurityReference;
 import org.xwiki.security.SecurityReferenceFactory;
 import org.xwiki.security.authorization.AuthorizationException;
 import org.xwiki.security.authorization.cache.SecurityCache;
+import org.xwiki.security.authorization.cache.internal.SettledAccessIndex;
 import org.xwiki.security.internal.XWikiConstants;
 
 import com.xpn.xwiki.XWikiContext;
@@ -79,6 +81,10 @@ public class DefaultSecurityCacheRulesInvalidatorListener implements EventListen
     @Inject
     private SecurityCache securityCache;
 
+    /** The access already settled, surviving cache evictions. */
+    @Inject
+    private SettledAccessIndex settledAccessIndex;
+
     /** The security reference factory. */
     @Inject
     private SecurityReferenceFactory securityReferenceFactory;
@@ -131,6 +137,9 @@ private static DocumentReference getDocumentReference(Object xwikiDocument)
     private boolean isGroupDocument(Object source)
     {
         XWikiDocument doc = (XWikiDocument) source;
+        if (doc == null) {
+            return false;
+        }
         DocumentReference docRef = doc.getDocumentReference();
         DocumentReference groupClass = resolver.resolve(XWikiConstants.GROUP_CLASS, docRef);
         List<BaseObject> objects = doc.getXObjects(groupClass);
@@ -183,12 +192,23 @@ public void onEvent(Event event, Object source, Object data)
         DocumentReference ref = getDocumentReference(source);
         try {
             deliverUpdateEvent(ref);
-            if (isGroupDocument(source)) {
-                // When a group receive a new member, the update event is triggered and the above invalidate the group
-                // and also all its existing members already in cache, but NOT the new member that could be currently
-                // in the cache, and is not yet linked to the group. Here, we invalidate individually all members of
-                // the group based on the updated group, which will only have the effect of invaliding new members.
-                invalidateGroupMembers(ref, securityCache);
+            boolean isGroup = isGroupDocument(source);
+            try {
+                if (isGroup) {
+                    // When a group receive a new member, the update event is triggered and the above invalidate the
+                    // group and also all its existing members already in cache, but NOT the new member that could be
+                    // currently in the cache, and is not yet linked to the group. Here, we invalidate individually all
+                    // members of the group based on the updated group, which will only have the effect of invaliding
+                    // new members.
+                    invalidateGroupMembers(ref, securityCache);
+                }
+            } finally {
+                if (isGroup || isGroupDocument(((XWikiDocument) source).getOriginalDocument())) {
+                    // Any indexed access might depend on the previous or new members of the group. It's done once the
+                    // members have been invalidated so that an access settled meanwhile from a member entry not yet
+                    // invalidated is not kept.
+                    this.settledAccessIndex.invalidateAll();
+                }
             }
         } catch (AuthorizationException e) {
             this.logger.error("Failed to invalidate group members on the document: {}", ref, e);
@@ -204,22 +224,33 @@ private void deliverUpdateEvent(DocumentReference ref)
     {
         if (XWikiConstants.WIKI_DOC_REFERENCE.equals(ref, EntityType.SPACE)) {
             // For XWiki.XWikiPreferences, remove the whole wiki.
-            securityCache.remove(securityReferenceFactory.newEntityReference(ref.getWikiReference()));
+            remove(securityReferenceFactory.newEntityReference(ref.getWikiReference()));
         } else if (ref.getName().equals(XWikiConstants.SPACE_DOC)) {
             // For WebPreferences, remove the whole space.
-            securityCache.remove(securityReferenceFactory.newEntityReference(ref.getParent()));
+            remove(securityReferenceFactory.newEntityReference(ref.getParent()));
         } else {
             // For any other documents, remove that document cache.
-            securityCache.remove(securityReferenceFactory.newEntityReference(ref));
+            remove(securityReferenceFactory.newEntityReference(ref));
 
             // If it's a wiki descriptor remove the wiki reference from the cache
             if (ref.getName().startsWith(XWikiConstants.WIKI_DESCRIPTOR_PREFIX)
                 && XWikiConstants.XWIKI_SPACE_REFERENCE.equals(ref.getLastSpaceReference(), EntityType.SPACE)
                 && ref.getWikiReference().getName().equals(this.xcontextProvider.get().getMainXWiki())) {
                 // For xwiki:XWiki.XWikiServer... documents, also remove the whole corresponding wiki.
-                securityCache.remove(securityReferenceFactory.newEntityReference(new WikiReference(
+                remove(securityReferenceFactory.newEntityReference(new WikiReference(
                     ref.getName().substring(XWikiConstants.WIKI_DESCRIPTOR_PREFIX.length()).toLowerCase())));
             }
         }
     }
+
+    /**
+     * Remove an entity from the security cache and from the settled access index.
+     *
+     * @param reference the entity to remove
+     */
+    private void remove(SecurityReference reference)
+    {
+        securityCache.remove(reference);
+        settledAccessIndex.invalidate(reference);
+    }
 }
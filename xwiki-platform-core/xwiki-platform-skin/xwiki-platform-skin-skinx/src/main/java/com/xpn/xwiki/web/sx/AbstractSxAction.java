@@ -27,9 +27,14 @@
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
+import org.xwiki.container.servlet.HttpServletUtils;
+import org.xwiki.skinx.internal.SkinExtensionCache;
+import org.xwiki.skinx.internal.SkinExtensionContent;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.web.Utils;
 import com.xpn.xwiki.web.XWikiAction;
 import com.xpn.xwiki.web.XWikiRequest;
 import com.xpn.xwiki.web.XWikiResponse;
@@ -59,6 +64,15 @@ public abstract class AbstractSxAction extends XWikiAction
     /** What http header parameter is used to specify when the cache should expire. */
     private static final String CACHE_EXPIRES_HEADER = "Expires";
 
+    /** What http header parameter is used to indicate the response depends on the accepted encodings. */
+    private static final String VARY_HEADER = "Vary";
+
+    /** What http header parameter is used to specify the encoding of the response content. */
+    private static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+
+    /** The gzip content encoding. */
+    private static final String GZIP_ENCODING = "gzip";
+
     /** The response will be sent to the browser as a byte array in this character set. */
     private static final String RESPONSE_CHARACTER_SET = "UTF-8";
 
@@ -86,8 +100,6 @@ public void renderExtension(SxSource sxSource, Extension sxType, XWikiContext co
         XWikiRequest request = context.getRequest();
         XWikiResponse response = context.getResponse();
 
-        String extensionContent = sxSource.getContent();
-
         response.setContentType(sxType.getContentType());
 
         if (sxSource.getLastModifiedDate() > 0) {
@@ -109,18 +121,68 @@ public void renderExtension(SxSource sxSource, Extension sxType, XWikiContext co
             response.setHeader(CACHE_CONTROL_HEADER, "no-cache, no-store, must-revalidate");
         }
 
-        if (BooleanUtils.toBoolean(StringUtils.defaultIfEmpty(
-            request.get(COMPRESS_SCRIPT_REQUEST_PARAMETER), "true"))) {
-            extensionContent = sxType.getCompressor().compress(extensionContent);
-        }
+        boolean compress =
+            BooleanUtils.toBoolean(StringUtils.defaultIfEmpty(request.get(COMPRESS_SCRIPT_REQUEST_PARAMETER), "true"));
 
         try {
-            response.setContentLength(extensionContent.getBytes(RESPONSE_CHARACTER_SET).length);
-            response.getOutputStream().write(extensionContent.getBytes(RESPONSE_CHARACTER_SET));
+            SkinExtensionContent content = getContent(sxSource, sxType, compress, cachePolicy, context);
+
+            byte[] data = content.getContent();
+            String etag = content.getETag();
+            if (content.getGzipContent() != null) {
+                response.setHeader(VARY_HEADER, HttpServletUtils.HEADER_ACCEPT_ENCODING);
+                if (HttpServletUtils.isEncodingAccepted(GZIP_ENCODING, request)) {
+                    data = content.getGzipContent();
+                    etag = content.getGzipETag();
+                    response.setHeader(CONTENT_ENCODING_HEADER, GZIP_ENCODING);
+                }
+            }
+
+            response.setContentLength(data.length);
+            // Browsers revalidating the extension get a 304 when it did not change
+            if (cachePolicy == CachePolicy.FORBID || !checkNotModified(etag, context)) {
+                response.getOutputStream().write(data);
+            }
         } catch (IOException ex) {
             getLogger().warn("Failed to send SX content: [{}]", ex.getMessage());
         }
+    }
+
+    private SkinExtensionContent getContent(SxSource sxSource, Extension sxType, boolean compress,
+        CachePolicy cachePolicy, XWikiContext context) throws IOException
+    {
+        // Only the extensions which don't depend on the context can be reused
+        if (cachePolicy != CachePolicy.FORBID && sxSource instanceof SxDocumentSource
+            && ((SxDocumentSource) sxSource).isStatic()) {
+            XWikiDocument document = ((SxDocumentSource) sxSource).getDocument();
+            String variant = sxType.getClassName() + '/' + compress;
+
+            SkinExtensionCache cache = Utils.getComponent(SkinExtensionCache.class);
+            SkinExtensionContent content =
+                cache.get(document.getDocumentReference(), document.getVersion(), variant);
+            if (content == null) {
+                content = createContent(sxSource, sxType, compress, true);
+                cache.set(document.getDocumentReference(), document.getVersion(), variant, content);
+            }
+
+            return content;
+        }
+
+        return createContent(sxSource, sxType, compress, false);
+    }
+
+    private SkinExtensionContent createContent(SxSource sxSource, Extension sxType, boolean compress, boolean gzip)
+        throws IOException
+    {
+        String extensionContent = sxSource.getContent();
+
+        if (compress) {
+            extensionContent = sxType.getCompressor().compress(extensionContent);
+        }
+
+        byte[] data = extensionContent.getBytes(RESPONSE_CHARACTER_SET);
 
+        return new SkinExtensionContent(data, HttpServletUtils.computeETag(data), gzip);
     }
 
     @Override
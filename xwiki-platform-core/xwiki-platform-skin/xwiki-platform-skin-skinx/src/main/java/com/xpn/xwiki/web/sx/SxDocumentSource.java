@@ -55,6 +55,9 @@ public class SxDocumentSource implements SxSource
     /** The name of the property in the script extension object which contains the content type. */
     private static final String CONTENT_TYPE_PROPERTY_NAME = "contentType";
 
+    /** The value of the content type property for extensions written in LESS. */
+    private static final String LESS_CONTENT_TYPE = "LESS";
+
     /** The name of the property in the script extension object which tells us if the content should be parsed. */
     private static final String PARSE_CONTENT_PROPERTY_NAME = "parse";
 
@@ -129,7 +132,7 @@ public String getContent()
                 }
                 String sxContent = sxObj.getLargeStringValue(CONTENT_PROPERTY_NAME);
                 int parse = sxObj.getIntValue(PARSE_CONTENT_PROPERTY_NAME);
-                if ("LESS".equals(sxObj.getStringValue(CONTENT_TYPE_PROPERTY_NAME))) {
+                if (LESS_CONTENT_TYPE.equals(sxObj.getStringValue(CONTENT_TYPE_PROPERTY_NAME))) {
                     LESSCompiler lessCompiler = Utils.getComponent(LESSCompiler.class);
                     LESSResourceReferenceFactory lessResourceReferenceFactory =
                         Utils.getComponent(LESSResourceReferenceFactory.class);
@@ -166,6 +169,33 @@ public String getContent()
         return resultBuilder.toString();
     }
 
+    /**
+     * @return the document containing the extension
+     */
+    XWikiDocument getDocument()
+    {
+        return this.document;
+    }
+
+    /**
+     * @return true if the content of the extension only depends on the version of the document, i.e. it's neither
+     *         parsed with Velocity nor compiled with LESS
+     */
+    boolean isStatic()
+    {
+        List<BaseObject> objects = this.document.getObjects(this.extension.getClassName());
+        if (objects != null) {
+            for (BaseObject sxObj : objects) {
+                if (sxObj != null && (sxObj.getIntValue(PARSE_CONTENT_PROPERTY_NAME) == 1
+                    || LESS_CONTENT_TYPE.equals(sxObj.getStringValue(CONTENT_TYPE_PROPERTY_NAME)))) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
     @Override
     public long getLastModifiedDate()
     {
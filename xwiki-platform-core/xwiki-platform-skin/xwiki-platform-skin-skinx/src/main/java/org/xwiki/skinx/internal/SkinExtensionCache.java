@@ -0,0 +1,155 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.skinx.internal;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.event.Event;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+
+/**
+ * Keep the evaluated and compressed content of the skin extensions which don't depend on the context (i.e. which are
+ * not parsed) so that they are not compressed again for each request.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+@Component(roles = SkinExtensionCache.class)
+@Singleton
+public class SkinExtensionCache implements Initializable, Disposable
+{
+    private static final String NAME = "skinx.content";
+
+    @Inject
+    private CacheManager cacheManager;
+
+    @Inject
+    private ObservationManager observation;
+
+    @Inject
+    private EntityReferenceSerializer<String> serializer;
+
+    /**
+     * The contents of the extensions of each document, for a given version of the document.
+     */
+    private Cache<DocumentExtensions> cache;
+
+    private static class DocumentExtensions
+    {
+        private final String version;
+
+        private final Map<String, SkinExtensionContent> contents = new ConcurrentHashMap<>();
+
+        DocumentExtensions(String version)
+        {
+            this.version = version;
+        }
+    }
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        try {
+            this.cache = this.cacheManager.createNewCache(new LRUCacheConfiguration(NAME, 100));
+        } catch (CacheException e) {
+            throw new InitializationException("Failed to initialize cache", e);
+        }
+
+        // The version is part of the key but there is no point in keeping the content of old versions around
+        this.observation.addListener(new AbstractEventListener(NAME, new DocumentUpdatedEvent(),
+            new DocumentDeletedEvent())
+        {
+            @Override
+            public void onEvent(Event event, Object source, Object data)
+            {
+                SkinExtensionCache.this.cache.remove(serialize(((XWikiDocument) source).getDocumentReference()));
+            }
+        });
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.observation.removeListener(NAME);
+        this.cache.dispose();
+    }
+
+    private String serialize(DocumentReference documentReference)
+    {
+        return this.serializer.serialize(documentReference);
+    }
+
+    /**
+     * @param documentReference the reference of the document holding the extension
+     * @param version the version of the document
+     * @param variant identify the type of extension and the way it was compressed
+     * @return the cached content, {@code null} if none could be found
+     */
+    public SkinExtensionContent get(DocumentReference documentReference, String version, String variant)
+    {
+        DocumentExtensions extensions = this.cache.get(serialize(documentReference));
+
+        if (extensions != null && extensions.version.equals(version)) {
+            return extensions.contents.get(variant);
+        }
+
+        return null;
+    }
+
+    /**
+     * @param documentReference the reference of the document holding the extension
+     * @param version the version of the document
+     * @param variant identify the type of extension and the way it was compressed
+     * @param content the content to cache
+     */
+    public void set(DocumentReference documentReference, String version, String variant,
+        SkinExtensionContent content)
+    {
+        String key = serialize(documentReference);
+
+        DocumentExtensions extensions = this.cache.get(key);
+        if (extensions == null || !extensions.version.equals(version)) {
+            extensions = new DocumentExtensions(version);
+            this.cache.set(key, extensions);
+        }
+
+        extensions.contents.put(variant, content);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.skinx.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The evaluated and compressed content of a skin extension, as sent to the client.
+ *
+ * @version $Id$
+ * @since 10.5RC1
+ */
+public class SkinExtensionContent
+{
+    private final byte[] content;
+
+    private final String etag;
+
+    private final byte[] gzipContent;
+
+    /**
+     * @param content the content to send
+     * @param etag the entity tag of the content
+     * @param gzip true if a gzip compressed version of the content should be prepared
+     * @throws IOException when failing to compress the content
+     */
+    public SkinExtensionContent(byte[] content, String etag, boolean gzip) throws IOException
+    {
+        this.content = content;
+        this.etag = etag;
+
+        if (gzip) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (GZIPOutputStream output = new GZIPOutputStream(bytes)) {
+                output.write(content);
+            }
+            this.gzipContent = bytes.toByteArray();
+        } else {
+            this.gzipContent = null;
+        }
+    }
+
+    /**
+     * @return the content to send
+     */
+    public byte[] getContent()
+    {
+        return this.content;
+    }
+
+    /**
+     * @return the entity tag of the content
+     */
+    public String getETag()
+    {
+        return this.etag;
+    }
+
+    /**
+     * @return the gzip compressed content, {@code null} if it was not prepared
+     */
+    public byte[] getGzipContent()
+    {
+        return this.gzipContent;
+    }
+
+    /**
+     * @return the entity tag of the gzip compressed content
+     */
+    public String getGzipETag()
+    {
+        // Each encoding of the content is a different representation and needs its own strong entity tag
+        return this.etag.substring(0, this.etag.length() - 1) + "-gzip\"";
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.skinx.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.xwiki.bridge.event.DocumentDeletedEvent;
+import org.xwiki.bridge.event.DocumentUpdatedEvent;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.component.util.DefaultParameterizedType;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.test.mockito.MockitoComponentMockingRule;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link SkinExtensionCache}.
+ *
+ * @version $Id$
+ */
+public class SkinExtensionCacheTest
+{
+    @Rule
+    public MockitoComponentMockingRule<SkinExtensionCache> mocker =
+        new MockitoComponentMockingRule<>(SkinExtensionCache.class);
+
+    private DocumentReference documentReference = new DocumentReference("wiki", "Space", "Page");
+
+    private Map<String, Object> entries = new HashMap<>();
+
+    private SkinExtensionContent content = mock(SkinExtensionContent.class);
+
+    @Before
+    public void before() throws Exception
+    {
+        // Back the cache with a map
+        Cache<Object> cache = mock(Cache.class);
+        when(cache.get(anyString())).then(invocation -> this.entries.get(invocation.getArgument(0)));
+        doAnswer(invocation -> this.entries.put(invocation.getArgument(0), invocation.getArgument(1))).when(cache)
+            .set(anyString(), any());
+        doAnswer(invocation -> this.entries.remove(invocation.getArgument(0))).when(cache).remove(anyString());
+
+        CacheManager cacheManager = this.mocker.getInstance(CacheManager.class);
+        when(cacheManager.createNewCache(any(CacheConfiguration.class))).thenReturn(cache);
+
+        EntityReferenceSerializer<String> serializer = this.mocker
+            .getInstance(new DefaultParameterizedType(null, EntityReferenceSerializer.class, String.class));
+        when(serializer.serialize(this.documentReference)).thenReturn("wiki:Space.Page");
+    }
+
+    private EventListener getListener() throws Exception
+    {
+        this.mocker.getComponentUnderTest();
+
+        ArgumentCaptor<EventListener> listener = ArgumentCaptor.forClass(EventListener.class);
+        verify(this.mocker.<ObservationManager>getInstance(ObservationManager.class)).addListener(listener.capture());
+
+        return listener.getValue();
+    }
+
+    private XWikiDocument mockDocument()
+    {
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getDocumentReference()).thenReturn(this.documentReference);
+
+        return document;
+    }
+
+    @Test
+    public void getWhenSameVersion() throws Exception
+    {
+        SkinExtensionCache cache = this.mocker.getComponentUnderTest();
+
+        assertNull(cache.get(this.documentReference, "1.1", "jsx/true"));
+
+        cache.set(this.documentReference, "1.1", "jsx/true", this.content);
+
+        // A repeated request gets the same content
+        assertSame(this.content, cache.get(this.documentReference, "1.1", "jsx/true"));
+        assertSame(this.content, cache.get(this.documentReference, "1.1", "jsx/true"));
+
+        // Each variant has its own content
+        assertNull(cache.get(this.documentReference, "1.1", "jsx/false"));
+    }
+
+    @Test
+    public void getWhenOtherVersion() throws Exception
+    {
+        SkinExtensionCache cache = this.mocker.getComponentUnderTest();
+
+        cache.set(this.documentReference, "1.1", "jsx/true", this.content);
+
+        assertNull(cache.get(this.documentReference, "2.1", "jsx/true"));
+
+        SkinExtensionContent newContent = mock(SkinExtensionContent.class);
+        cache.set(this.documentReference, "2.1", "jsx/true", newContent);
+
+        assertSame(newContent, cache.get(this.documentReference, "2.1", "jsx/true"));
+        assertNull(cache.get(this.documentReference, "1.1", "jsx/true"));
+    }
+
+    @Test
+    public void invalidateOnDocumentUpdate() throws Exception
+    {
+        EventListener listener = getListener();
+        SkinExtensionCache cache = this.mocker.getComponentUnderTest();
+
+        cache.set(this.documentReference, "1.1", "jsx/true", this.content);
+        cache.set(this.documentReference, "1.1", "ssx/true", this.content);
+
+        listener.onEvent(new DocumentUpdatedEvent(this.documentReference), mockDocument(), null);
+
+        assertNull(cache.get(this.documentReference, "1.1", "jsx/true"));
+        assertNull(cache.get(this.documentReference, "1.1", "ssx/true"));
+    }
+
+    @Test
+    public void invalidateOnDocumentDelete() throws Exception
+    {
+        EventListener listener = getListener();
+        SkinExtensionCache cache = this.mocker.getComponentUnderTest();
+
+        cache.set(this.documentReference, "1.1", "jsx/true", this.content);
+
+        listener.onEvent(new DocumentDeletedEvent(this.documentReference), mockDocument(), null);
+
+        assertNull(cache.get(this.documentReference, "1.1", "jsx/true"));
+    }
+}
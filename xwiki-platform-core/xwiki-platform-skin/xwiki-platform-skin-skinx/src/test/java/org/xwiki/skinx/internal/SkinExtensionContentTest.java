@@ -0,0 +1,67 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.skinx.internal;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for {@link SkinExtensionContent}.
+ *
+ * @version $Id$
+ */
+public class SkinExtensionContentTest
+{
+    private byte[] data = "var a = 1;".getBytes();
+
+    @Test
+    public void withoutGzip() throws Exception
+    {
+        SkinExtensionContent content = new SkinExtensionContent(this.data, "\"etag\"", false);
+
+        assertSame(this.data, content.getContent());
+        assertEquals("\"etag\"", content.getETag());
+        assertNull(content.getGzipContent());
+    }
+
+    @Test
+    public void withGzip() throws Exception
+    {
+        SkinExtensionContent content = new SkinExtensionContent(this.data, "\"etag\"", true);
+
+        assertSame(this.data, content.getContent());
+        assertEquals("\"etag\"", content.getETag());
+        assertArrayEquals(this.data,
+            IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(content.getGzipContent()))));
+
+        // The gzip representation has its own strong entity tag
+        assertEquals("\"etag-gzip\"", content.getGzipETag());
+        assertNotEquals(content.getETag(), content.getGzipETag());
+    }
+}
@@ -131,4 +131,14 @@ public long getLongSize()
 
         return this.storageFile.length();
     }
+
+    @Override
+    public File getContentFile()
+    {
+        if (this.getFileItem() != null) {
+            return super.getContentFile();
+        }
+
+        return this.storageFile;
+    }
 }
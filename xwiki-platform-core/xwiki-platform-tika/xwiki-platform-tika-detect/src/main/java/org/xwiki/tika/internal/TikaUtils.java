@@ -157,6 +157,27 @@ public static String parseToString(InputStream stream, Metadata metadata) throws
         }
     }
 
+    /**
+     * @see Tika#parseToString(InputStream, Metadata, int)
+     * @param stream the document to be parsed
+     * @param metadata document metadata
+     * @param maxLength the maximum length of the returned string, -1 for no limit
+     * @return extracted text content
+     * @throws IOException if the document can not be read
+     * @throws TikaException if the document can not be parsed
+     * @since 10.5RC1
+     */
+    public static String parseToString(InputStream stream, Metadata metadata, int maxLength)
+        throws IOException, TikaException
+    {
+        try {
+            return tika.parseToString(safeInputStream(stream), metadata, maxLength);
+        } catch (ZeroByteFileException e) {
+            // How is empty file an issue ?
+            return "";
+        }
+    }
+
     /**
      * @see Tika#parseToString(InputStream)
      * @param stream the document to be parsed
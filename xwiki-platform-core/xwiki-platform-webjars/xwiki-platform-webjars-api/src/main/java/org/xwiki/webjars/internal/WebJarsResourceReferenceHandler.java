@@ -23,6 +23,7 @@
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
 import java.util.Arrays;
 import java.util.List;
 
@@ -32,6 +33,7 @@
 
 import org.xwiki.classloader.ClassLoaderManager;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.container.servlet.HttpServletUtils;
 import org.xwiki.resource.ResourceReferenceHandlerException;
 import org.xwiki.resource.ResourceType;
 import org.xwiki.resource.servlet.AbstractServletResourceReferenceHandler;
@@ -93,6 +95,18 @@ protected boolean isResourceCacheable(WebJarsResourceReference resourceReference
         return !Boolean.valueOf(resourceReference.getParameterValue("evaluate"));
     }
 
+    @Override
+    protected String getResourceETag(WebJarsResourceReference resourceReference)
+    {
+        // The resource name contains the version of the WebJar so its content never changes
+        try {
+            return HttpServletUtils.computeETag(getResourceName(resourceReference).getBytes(UTF8));
+        } catch (UnsupportedEncodingException e) {
+            // Should never happen
+            return null;
+        }
+    }
+
     @Override
     protected InputStream filterResource(WebJarsResourceReference resourceReference, InputStream resourceStream)
         throws ResourceReferenceHandlerException
@@ -172,6 +172,30 @@ public void return304WhenIfModifiedSinceHeader() throws Exception
         verify(this.chain).handleNext(reference);
     }
 
+    @Test
+    public void return304WhenIfNoneMatchHeaderMatchesVersion() throws Exception
+    {
+        WebJarsResourceReference reference =
+            new WebJarsResourceReference("wiki:wiki", Arrays.asList("angular", "2.1.11", "angular.js"));
+
+        when(this.classLoader.getResourceAsStream("META-INF/resources/webjars/angular/2.1.11/angular.js"))
+            .thenReturn(new ByteArrayInputStream("content".getBytes()), new ByteArrayInputStream("content".getBytes()));
+
+        this.handler.handle(reference, this.chain);
+
+        ArgumentCaptor<String> etag = ArgumentCaptor.forClass(String.class);
+        verify(this.response.getHttpServletResponse()).setHeader(eq("ETag"), etag.capture());
+        assertEquals("content", this.response.getOutputStream().toString());
+
+        when(this.request.getHttpServletRequest().getHeader("If-None-Match")).thenReturn(etag.getValue());
+
+        this.handler.handle(reference, this.chain);
+
+        verify(this.response.getHttpServletResponse()).setStatus(304);
+        // The content is not sent again
+        assertEquals("content", this.response.getOutputStream().toString());
+    }
+
     @Test
     public void evaluateResource() throws Exception
     {